@@ -0,0 +1,21 @@
+package com.statful.client.benchmarks;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the client loggers quiet while benchmarking, so console output doesn't end up in the measurements.
+ */
+final class BenchmarkLogging {
+
+    private static final Logger CLIENT_LOGGER = Logger.getLogger("com.statful.client");
+
+    private BenchmarkLogging() { }
+
+    /**
+     * Only lets severe client log records through.
+     */
+    static void silenceClient() {
+        CLIENT_LOGGER.setLevel(Level.SEVERE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.statful.client.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the benchmarks once per thread count, always with the GC profiler so allocation per operation is reported.
+ * <p>
+ * The benchmarks are selected by the regular expressions passed as arguments (all of them when there are none), and
+ * the thread counts are read from the {@code threads} system property, e.g. {@code -Dthreads=1,4,16}.
+ */
+public final class BenchmarkRunner {
+
+    private static final String DEFAULT_THREADS = "1,2,4,8";
+    private static final int ITERATIONS = 5;
+    private static final TimeValue ITERATION_TIME = TimeValue.seconds(1);
+
+    private BenchmarkRunner() { }
+
+    /**
+     * Entry point.
+     *
+     * @param args Regular expressions of the benchmarks to run
+     * @throws RunnerException If JMH fails to run a benchmark
+     */
+    public static void main(final String[] args) throws RunnerException {
+        for (String threads : System.getProperty("threads", DEFAULT_THREADS).split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .threads(Integer.parseInt(threads.trim()))
+                    .warmupIterations(ITERATIONS)
+                    .warmupTime(ITERATION_TIME)
+                    .measurementIterations(ITERATIONS)
+                    .measurementTime(ITERATION_TIME)
+                    .addProfiler(GCProfiler.class);
+
+            if (args.length == 0) {
+                options.include(BenchmarkRunner.class.getPackage().getName());
+            }
+            for (String include : args) {
+                options.include(include);
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+}
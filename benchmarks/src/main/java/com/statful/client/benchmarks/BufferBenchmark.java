@@ -0,0 +1,77 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.buffer.AggregatedBuffer;
+import com.statful.client.core.buffer.StandardBuffer;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the producer side of {@link StandardBuffer} and {@link AggregatedBuffer}.
+ * <p>
+ * The thread that fills the buffer up to the flush size drains it, like the client does on its put path, so the
+ * buffers never saturate and the measurements include the contention between producers and the draining thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class BufferBenchmark {
+
+    private static final int MAX_BUFFER_SIZE = 5000;
+    private static final String METRIC = "application.timer.response_time,unit=ms,statful_client=java 123 1500000000";
+
+    @Param({"100"})
+    private int flushSize;
+
+    private StandardBuffer standardBuffer;
+    private AggregatedBuffer aggregatedBuffer;
+
+    /**
+     * Creates empty buffers for every trial.
+     */
+    @Setup(Level.Trial)
+    public final void setUp() {
+        standardBuffer = new StandardBuffer(MAX_BUFFER_SIZE, flushSize);
+        aggregatedBuffer = new AggregatedBuffer(MAX_BUFFER_SIZE, flushSize);
+    }
+
+    /**
+     * Adds a line to the standard buffer, draining it when the flush size is reached.
+     *
+     * @return The drained payload, or null when nothing was drained
+     */
+    @Benchmark
+    public final String standardBuffer() {
+        standardBuffer.addToBuffer(METRIC);
+        if (standardBuffer.isTimeToFlush()) {
+            return standardBuffer.readBuffer();
+        }
+        return null;
+    }
+
+    /**
+     * Adds a line to the aggregated buffer, draining it when the flush size is reached.
+     *
+     * @return The drained payload, or null when nothing was drained
+     */
+    @Benchmark
+    public final String aggregatedBuffer() {
+        aggregatedBuffer.addToBuffer(METRIC, Aggregation.AVG, AggregationFrequency.FREQ_10);
+        if (aggregatedBuffer.isTimeToFlush()) {
+            return aggregatedBuffer.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+        }
+        return null;
+    }
+}
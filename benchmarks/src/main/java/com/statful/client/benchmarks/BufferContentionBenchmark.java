@@ -0,0 +1,112 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.buffer.AggregatedBuffer;
+import com.statful.client.core.buffer.StandardBuffer;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks how adding to the buffers scales with the number of producer threads.
+ * <p>
+ * Unlike {@link BufferBenchmark}, producers only add, while a dedicated thread keeps draining the buffers like the
+ * periodic flush does, so the measurements are the producer side contention alone. The {@link ArrayBlockingQueue}
+ * benchmark is the baseline the buffers used to be built on. Run it with <code>-Dthreads=1,2,4,8,16,32,64</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class BufferContentionBenchmark {
+
+    private static final int MAX_BUFFER_SIZE = 5000;
+    private static final int FLUSH_SIZE = 100;
+    private static final String METRIC = "application.timer.response_time,unit=ms,statful_client=java 123 1500000000";
+
+    private StandardBuffer standardBuffer;
+    private AggregatedBuffer aggregatedBuffer;
+    private ArrayBlockingQueue<String> arrayBlockingQueue;
+    private Thread drainer;
+    private volatile boolean running;
+
+    /**
+     * Creates empty buffers and starts draining them for every trial.
+     */
+    @Setup(Level.Trial)
+    public final void setUp() {
+        standardBuffer = new StandardBuffer(MAX_BUFFER_SIZE, FLUSH_SIZE);
+        aggregatedBuffer = new AggregatedBuffer(MAX_BUFFER_SIZE, FLUSH_SIZE);
+        arrayBlockingQueue = new ArrayBlockingQueue<String>(MAX_BUFFER_SIZE);
+
+        running = true;
+        drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                List<String> drained = new ArrayList<String>(FLUSH_SIZE);
+                while (running) {
+                    standardBuffer.readBuffer();
+                    aggregatedBuffer.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+                    arrayBlockingQueue.drainTo(drained, FLUSH_SIZE);
+                    drained.clear();
+                }
+            }
+        }, "buffer-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Stops draining the buffers.
+     *
+     * @throws InterruptedException If interrupted while waiting for the draining thread to stop
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() throws InterruptedException {
+        running = false;
+        drainer.join();
+    }
+
+    /**
+     * Adds a line to the standard buffer.
+     *
+     * @return True if the line was added
+     */
+    @Benchmark
+    public final boolean standardBuffer() {
+        return standardBuffer.addToBuffer(METRIC);
+    }
+
+    /**
+     * Adds a line to the aggregated buffer.
+     *
+     * @return True if the line was added
+     */
+    @Benchmark
+    public final boolean aggregatedBuffer() {
+        return aggregatedBuffer.addToBuffer(METRIC, Aggregation.AVG, AggregationFrequency.FREQ_10);
+    }
+
+    /**
+     * Adds a line to an {@link ArrayBlockingQueue}, as the buffers used to.
+     *
+     * @return True if the line was added
+     */
+    @Benchmark
+    public final boolean arrayBlockingQueue() {
+        return arrayBlockingQueue.offer(METRIC);
+    }
+}
@@ -0,0 +1,110 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.config.DefaultClientConfiguration;
+import com.statful.client.core.sender.BufferedMetricsSender;
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link BufferedMetricsSender} on its own, without the fluent API in front of it.
+ * <p>
+ * The metrics of templates are put with and without lazy encoding, which buffers them unformatted, and the metrics are
+ * buffered either on the heap or off the heap, in slabs of direct memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class BufferedMetricsSenderBenchmark {
+
+    private static final int FLUSH_INTERVAL_MS = 1000;
+    private static final int SAMPLE_RATE = 100;
+    private static final long TIMESTAMP = 1500000000L;
+    private static final long VALUE = 123;
+
+    @Param({"100"})
+    private int flushSize;
+
+    @Param({"false", "true"})
+    private boolean lazyEncoding;
+
+    @Param({"0", "16777216"})
+    private long offHeapBufferBudget;
+
+    private final Tags tags = Tags.from("unit", "ms").merge(Tags.from("statful_client", "java"));
+    private final Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT);
+
+    private ScheduledThreadPoolExecutor executorService;
+    private BufferedMetricsSender sender;
+    private EncodedMetric encodedMetric;
+
+    /**
+     * Builds a sender backed by a {@link NoOpTransportSender}.
+     */
+    @Setup(Level.Trial)
+    public final void setUp() {
+        BenchmarkLogging.silenceClient();
+
+        DefaultClientConfiguration configuration = new DefaultClientConfiguration();
+        configuration.setFlushSize(flushSize);
+        configuration.setFlushIntervalMillis(FLUSH_INTERVAL_MS);
+        configuration.setLazyEncoding(lazyEncoding);
+        configuration.setOffHeapBufferBudget(offHeapBufferBudget);
+
+        executorService = new ScheduledThreadPoolExecutor(1);
+        sender = new BufferedMetricsSender(new NoOpTransportSender(), configuration, executorService);
+        encodedMetric = new EncodedMetric("timer.response_time", tags, aggregations, AggregationFrequency.FREQ_10, SAMPLE_RATE,
+                "application", false, true);
+    }
+
+    /**
+     * Stops the sender and its workers.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        sender.shutdown();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Puts a standard metric.
+     */
+    @Benchmark
+    public final void put() {
+        sender.put("timer.response_time", "123", tags, aggregations, AggregationFrequency.FREQ_10, SAMPLE_RATE, "application", TIMESTAMP);
+    }
+
+    /**
+     * Puts a pre-aggregated metric.
+     */
+    @Benchmark
+    public final void aggregatedPut() {
+        sender.aggregatedPut("timer.response_time", "123", tags, Aggregation.AVG, AggregationFrequency.FREQ_10, SAMPLE_RATE, "application",
+                TIMESTAMP);
+    }
+
+    /**
+     * Puts a metric of a template, which is formatted when flushed if lazy encoding is enabled.
+     */
+    @Benchmark
+    public final void putEncoded() {
+        sender.putEncoded(encodedMetric, VALUE, TIMESTAMP);
+    }
+}
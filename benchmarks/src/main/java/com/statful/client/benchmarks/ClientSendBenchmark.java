@@ -0,0 +1,190 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.api.StatfulClientBuilder;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Counter;
+import com.statful.client.domain.api.Gauge;
+import com.statful.client.domain.api.MetricTemplate;
+import com.statful.client.domain.api.StatfulClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmarks of {@link StatfulClient} sends, from the public API down to the transport.
+ * <p>
+ * Every send goes through {@code MetricsSenderAPI}, {@code MetricsSenderProxy}, {@code BufferedMetricsSender},
+ * {@code MessageBuilder} and the standard or aggregated buffer, and the flushes are handed over to the configured
+ * transport: a no-op one, or real UDP and HTTP senders talking to loopback sinks.
+ * <p>
+ * The sends that a disabled client or sampling skips are measured by running the JMH main class with
+ * <code>-p enabled=false</code> or <code>-p sampleRate=1</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class ClientSendBenchmark {
+
+    private static final int FLUSH_INTERVAL_MS = 1000;
+    private static final int WORKER_POOL_SIZE = 2;
+    private static final long TIMER_VALUE = 123L;
+    private static final int COUNTER_VALUE = 1;
+    private static final double GAUGE_VALUE = 42.5d;
+
+    @Param({"NOOP", "UDP", "HTTP"})
+    private String transport;
+
+    @Param({"100"})
+    private int flushSize;
+
+    @Param({"100"})
+    private int sampleRate;
+
+    @Param({"true"})
+    private boolean enabled;
+
+    private Closeable sink;
+    private StatfulClient client;
+    private MetricTemplate timerTemplate;
+    private Counter registeredCounter;
+    private Gauge registeredGauge;
+
+    /**
+     * Builds a client for the transport under test, starting a loopback sink when one is needed.
+     *
+     * @throws IOException If the loopback sink can't be started
+     */
+    @Setup(Level.Trial)
+    public final void setUp() throws IOException {
+        BenchmarkLogging.silenceClient();
+
+        StatfulClientBuilder builder;
+        if ("UDP".equals(transport)) {
+            UdpSink udpSink = new UdpSink();
+            sink = udpSink;
+            builder = com.statful.client.core.udp.StatfulFactory.buildUDPClient();
+            builder.with().port(udpSink.getPort());
+        } else if ("HTTP".equals(transport)) {
+            HttpSink httpSink = new HttpSink();
+            sink = httpSink;
+            builder = com.statful.client.core.http.StatfulFactory.buildHTTPClient();
+            builder.with().port(httpSink.getPort()).secure(false);
+        } else {
+            builder = NoOpStatfulFactory.buildNoOpClient();
+        }
+
+        client = builder.with()
+                .host("127.0.0.1")
+                .app("benchmarks")
+                .flushSize(flushSize)
+                .flushInterval(FLUSH_INTERVAL_MS)
+                .workerPoolSize(WORKER_POOL_SIZE)
+                .sampleRate(sampleRate)
+                .build();
+        if (!enabled) {
+            client.disable();
+        }
+        timerTemplate = client.timer("response_time", 0).with()
+                .tag("endpoint", "checkout")
+                .tag("status", "200")
+                .template();
+        registeredCounter = client.counter("requests").registerCounter();
+        registeredGauge = client.gauge("queue_depth", GAUGE_VALUE).registerGauge();
+    }
+
+    /**
+     * Shuts the client and the loopback sink down.
+     *
+     * @throws IOException If the loopback sink can't be closed
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() throws IOException {
+        client.shutdown();
+        if (sink != null) {
+            sink.close();
+        }
+    }
+
+    /**
+     * Sends a timer with the configured default tags and aggregations.
+     */
+    @Benchmark
+    public final void timer() {
+        client.timer("response_time", TIMER_VALUE).send();
+    }
+
+    /**
+     * Sends a counter with the configured default aggregations.
+     */
+    @Benchmark
+    public final void counter() {
+        client.counter("requests", COUNTER_VALUE).send();
+    }
+
+    /**
+     * Sends a gauge with the configured default aggregations.
+     */
+    @Benchmark
+    public final void gauge() {
+        client.gauge("queue_depth", GAUGE_VALUE).send();
+    }
+
+    /**
+     * Sends a timer overriding its tags through the fluent API, like the aspects do.
+     */
+    @Benchmark
+    public final void timerWithTags() {
+        client.timer("response_time", TIMER_VALUE).with()
+                .tag("endpoint", "checkout")
+                .tag("status", "200")
+                .send();
+    }
+
+    /**
+     * Sends a pre-aggregated timer, which is buffered per aggregation and frequency.
+     */
+    @Benchmark
+    public final void aggregatedTimer() {
+        client.aggregatedTimer("response_time", TIMER_VALUE, Aggregation.AVG, AggregationFrequency.FREQ_10).send();
+    }
+
+    /**
+     * Sends the same timer as {@link #timerWithTags()} through a pre-encoded template.
+     */
+    @Benchmark
+    public final void timerTemplate() {
+        timerTemplate.send(TIMER_VALUE);
+    }
+
+    /**
+     * Increments the same counter as {@link #counter()} through a registered counter, which is sent once per flush
+     * interval instead of once per increment.
+     */
+    @Benchmark
+    public final void registeredCounter() {
+        registeredCounter.increment(COUNTER_VALUE);
+    }
+
+    /**
+     * Sets the same gauge as {@link #gauge()} through a registered gauge, which is sent once per flush interval
+     * instead of once per value.
+     */
+    @Benchmark
+    public final void registeredGauge() {
+        registeredGauge.set(GAUGE_VALUE);
+    }
+}
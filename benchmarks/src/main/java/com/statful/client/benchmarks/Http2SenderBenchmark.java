@@ -0,0 +1,204 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.TransportSender;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.transport.HTTP2ClientFactory;
+import com.statful.client.transport.HTTP2Sender;
+import com.statful.client.transport.HTTPSender;
+import com.statful.client.transport.SSLClientFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the latency of a flush of every aggregated endpoint, one request per aggregation and frequency, sent by a
+ * pool of workers as the buffered sender does.
+ * <p>
+ * The {@link HTTPSender} benchmark sends over HTTP/1.1 through its connection pool, while the {@link HTTP2Sender}
+ * benchmark multiplexes the requests over HTTP/2, both to an {@link Http2Sink} that answers after a fixed latency.
+ * The senders are created for every iteration, so the connections the sinks accept are those each sender opens, and
+ * are reported as a secondary result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class Http2SenderBenchmark {
+
+    private static final String PATH = "/tel/v2.0/metrics";
+    private static final String TOKEN = "benchmark-token";
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+    private static final int SOCKET_TIMEOUT_MILLIS = 5000;
+    private static final int FLUSH_LINES = 10;
+    private static final String METRIC = "application.timer.response_time,unit=ms,statful_client=java 123 1500000000 avg,p90,10 100";
+
+    @Param({"0", "5"})
+    private long latencyMillis;
+
+    @Param({"8"})
+    private int workers;
+
+    @Param({"10"})
+    private int connectionPoolSize;
+
+    private String message;
+    private Http2Sink http1Sink;
+    private Http2Sink http2Sink;
+    private List<String> http1Uris;
+    private List<String> http2Uris;
+    private ExecutorService workerPool;
+    private HTTPSender httpSender;
+    private HTTP2Sender http2Sender;
+
+    /**
+     * Starts the sinks and the workers for every trial.
+     *
+     * @throws IOException If a sink can't be started
+     */
+    @Setup(Level.Trial)
+    public final void setUp() throws IOException {
+        BenchmarkLogging.silenceClient();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < FLUSH_LINES; i++) {
+            sb.append(METRIC).append('\n');
+        }
+        message = sb.substring(0, sb.length() - 1);
+
+        http1Sink = new Http2Sink(false, latencyMillis);
+        http2Sink = new Http2Sink(true, latencyMillis);
+        http1Uris = aggregatedUris(http1Sink);
+        http2Uris = aggregatedUris(http2Sink);
+        workerPool = Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Stops the workers and the sinks.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        workerPool.shutdownNow();
+        http1Sink.close();
+        http2Sink.close();
+    }
+
+    /**
+     * Creates the senders for every iteration, so that each iteration opens its own connections.
+     */
+    @Setup(Level.Iteration)
+    public final void setUpSenders() {
+        httpSender = new HTTPSender(false, http1Sink.getHost(), http1Sink.getPort(), PATH,
+                new SSLClientFactory(connectionPoolSize, CONNECT_TIMEOUT_MILLIS, SOCKET_TIMEOUT_MILLIS, TOKEN));
+        http2Sender = new HTTP2Sender(false, http2Sink.getHost(), http2Sink.getPort(), PATH,
+                new HTTP2ClientFactory(connectionPoolSize, CONNECT_TIMEOUT_MILLIS, SOCKET_TIMEOUT_MILLIS, TOKEN));
+    }
+
+    /**
+     * Shuts the senders down after every iteration.
+     */
+    @TearDown(Level.Iteration)
+    public final void tearDownSenders() {
+        httpSender.shutdown();
+        http2Sender.shutdown();
+    }
+
+    /**
+     * Flushes every aggregated endpoint through the {@link HTTPSender}, over HTTP/1.1.
+     *
+     * @param counters The counter of connections
+     * @throws InterruptedException If interrupted while waiting for the flush
+     */
+    @Benchmark
+    public final void httpSender(final ConnectionCounters counters) throws InterruptedException {
+        flush(httpSender, http1Uris);
+    }
+
+    /**
+     * Flushes every aggregated endpoint through the {@link HTTP2Sender}, over HTTP/2.
+     *
+     * @param counters The counter of connections
+     * @throws InterruptedException If interrupted while waiting for the flush
+     */
+    @Benchmark
+    public final void http2Sender(final ConnectionCounters counters) throws InterruptedException {
+        flush(http2Sender, http2Uris);
+    }
+
+    private void flush(final TransportSender sender, final List<String> uris) throws InterruptedException {
+        final CountDownLatch sent = new CountDownLatch(uris.size());
+        for (final String uri : uris) {
+            workerPool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        sender.send(message, uri);
+                    } finally {
+                        sent.countDown();
+                    }
+                }
+            });
+        }
+        sent.await();
+    }
+
+    private static List<String> aggregatedUris(final Http2Sink sink) {
+        List<String> uris = new ArrayList<String>();
+        String aggregatedUri = ApiUriFactory.buildAggregatedUri(false, sink.getHost(), sink.getPort(), PATH);
+        for (Aggregation aggregation : Aggregation.values()) {
+            for (AggregationFrequency frequency : AggregationFrequency.values()) {
+                uris.add(aggregatedUri
+                        .replace("{aggregation}", aggregation.getName())
+                        .replace("{frequency}", Integer.toString(frequency.getValue())));
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * The connections opened in each iteration, counted by the sinks.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ConnectionCounters {
+
+        private long connections;
+
+        /**
+         * Gets the connections opened in the iteration, which JMH reports as a counter.
+         *
+         * @return The number of connections
+         */
+        public final long connections() {
+            return connections;
+        }
+
+        /**
+         * Collects the connections counted by the sinks after every iteration.
+         *
+         * @param benchmark The benchmark, to get the connections counted by its sinks
+         */
+        @TearDown(Level.Iteration)
+        public final void collect(final Http2SenderBenchmark benchmark) {
+            connections = benchmark.http1Sink.getAndResetConnections() + benchmark.http2Sink.getAndResetConnections();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.statful.client.benchmarks;
+
+import okhttp3.internal.http2.Header;
+import okhttp3.internal.http2.Http2Connection;
+import okhttp3.internal.http2.Http2Stream;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A loopback HTTP endpoint that reads every request body and answers with 201 after a fixed latency, speaking either
+ * HTTP/1.1 or HTTP/2 without TLS, so that both HTTP transports are measured against the same server.
+ * <p>
+ * HTTP/1.1 connections are served by a thread each, while the streams of HTTP/2 connections are each served by a
+ * thread of their own, so that neither protocol has its requests answered one at a time. HTTP/2 is spoken with the
+ * frame layer of OkHttp, as the JDK has no HTTP/2 server. The sink counts the connections it accepts.
+ */
+public final class Http2Sink implements Closeable {
+
+    private static final String CREATED_STATUS = "201";
+    private static final String CREATED_RESPONSE = "HTTP/1.1 201 Created\r\nContent-Length: 0\r\n\r\n";
+    private static final String CONTENT_LENGTH = "content-length:";
+    private static final long READ_SIZE = 8192;
+
+    private final boolean http2;
+    private final long latencyMillis;
+    private final ServerSocket serverSocket;
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+    private final AtomicLong connections = new AtomicLong();
+
+    /**
+     * Binds the sink to an ephemeral loopback port and starts serving.
+     *
+     * @param http2         Flag to speak HTTP/2 without TLS instead of HTTP/1.1
+     * @param latencyMillis How long the sink takes to answer each request, in milliseconds
+     * @throws IOException If the server socket can't be bound
+     */
+    public Http2Sink(final boolean http2, final long latencyMillis) throws IOException {
+        this.http2 = http2;
+        this.latencyMillis = latencyMillis;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.handlers.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+    }
+
+    /**
+     * Gets the host the sink is listening on.
+     *
+     * @return The loopback address
+     */
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    /**
+     * Gets the port the sink is listening on.
+     *
+     * @return The local port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of connections accepted since the last call.
+     *
+     * @return The number of connections
+     */
+    public long getAndResetConnections() {
+        return connections.getAndSet(0);
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // The sink is only closed once the benchmark is over
+        }
+        handlers.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.incrementAndGet();
+                if (http2) {
+                    serveHttp2(socket);
+                } else {
+                    handlers.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            serveHttp1(socket);
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                // The server socket was closed
+            }
+        }
+    }
+
+    private void serveHttp1(final Socket socket) {
+        try {
+            BufferedSource source = Okio.buffer(Okio.source(socket));
+            BufferedSink sink = Okio.buffer(Okio.sink(socket));
+            String requestLine = source.readUtf8Line();
+            while (requestLine != null) {
+                long contentLength = 0;
+                String header = source.readUtf8LineStrict();
+                while (!header.isEmpty()) {
+                    if (header.toLowerCase(Locale.ROOT).startsWith(CONTENT_LENGTH)) {
+                        contentLength = Long.parseLong(header.substring(CONTENT_LENGTH.length()).trim());
+                    }
+                    header = source.readUtf8LineStrict();
+                }
+                source.skip(contentLength);
+
+                awaitLatency();
+                sink.writeUtf8(CREATED_RESPONSE);
+                sink.flush();
+                requestLine = source.readUtf8Line();
+            }
+        } catch (IOException e) {
+            // The client closed the connection
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private void serveHttp2(final Socket socket) throws IOException {
+        Http2Connection connection = new Http2Connection.Builder(false)
+                .socket(socket)
+                .listener(new Http2Connection.Listener() {
+                    @Override
+                    public void onStream(final Http2Stream stream) {
+                        handlers.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                serveStream(stream);
+                            }
+                        });
+                    }
+                })
+                .build();
+        connection.start();
+    }
+
+    private void serveStream(final Http2Stream stream) {
+        try {
+            stream.takeHeaders();
+            Source body = stream.getSource();
+            Buffer discard = new Buffer();
+            while (body.read(discard, READ_SIZE) != -1) {
+                discard.clear();
+            }
+
+            awaitLatency();
+            stream.writeHeaders(Collections.singletonList(new Header(Header.RESPONSE_STATUS, CREATED_STATUS)), false);
+        } catch (IOException e) {
+            // The client reset the stream
+        }
+    }
+
+    private void awaitLatency() {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void closeQuietly(final Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to do with the connection
+        }
+    }
+}
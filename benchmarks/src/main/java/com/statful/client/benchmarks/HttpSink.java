@@ -0,0 +1,66 @@
+package com.statful.client.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A loopback HTTP endpoint that reads every request body and answers with 201, like the Statful API does.
+ */
+public final class HttpSink implements Closeable {
+
+    private static final int CREATED = 201;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int HANDLER_THREADS = 4;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    /**
+     * Binds the sink to an ephemeral loopback port and starts serving.
+     *
+     * @throws IOException If the server can't be bound
+     */
+    public HttpSink() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.handlers = Executors.newFixedThreadPool(HANDLER_THREADS);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                byte[] discard = new byte[READ_BUFFER_SIZE];
+                InputStream body = exchange.getRequestBody();
+                while (body.read(discard) != -1) {
+                    continue;
+                }
+                body.close();
+                exchange.sendResponseHeaders(CREATED, -1);
+                exchange.close();
+            }
+        });
+        this.server.setExecutor(handlers);
+        this.server.start();
+    }
+
+    /**
+     * Gets the port the sink is listening on.
+     *
+     * @return The local port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+}
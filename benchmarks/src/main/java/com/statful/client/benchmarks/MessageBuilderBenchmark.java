@@ -0,0 +1,72 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the encoding of a single metric line by {@link MessageBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class MessageBuilderBenchmark {
+
+    private static final long TIMESTAMP = 1500000000000L;
+    private static final int SAMPLE_RATE = 100;
+
+    private final Tags tags = Tags.from("unit", "ms")
+            .merge(Tags.from("statful_client", "java"))
+            .merge(Tags.from("endpoint", "checkout"));
+    private final Tags escapedTags = Tags.from("endpoint", "/cart checkout,v2")
+            .merge(Tags.from("host", "host=1"));
+    private final Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT);
+
+    /**
+     * Encodes a timer line with the usual tags, aggregations and sample rate.
+     *
+     * @return The encoded line
+     */
+    @Benchmark
+    public final String build() {
+        return MessageBuilder.newBuilder()
+                .withNamespace("application")
+                .withName("timer.response_time")
+                .withValue("123")
+                .withTags(tags)
+                .withAggregations(aggregations)
+                .withAggregationFreq(AggregationFrequency.FREQ_10)
+                .withTimestamp(TIMESTAMP)
+                .withSampleRate(SAMPLE_RATE)
+                .build();
+    }
+
+    /**
+     * Encodes a line whose name and tags contain characters that must be escaped.
+     *
+     * @return The encoded line
+     */
+    @Benchmark
+    public final String buildEscaped() {
+        return MessageBuilder.newBuilder()
+                .withNamespace("application")
+                .withName("timer.response time")
+                .withValue("123")
+                .withTags(escapedTags)
+                .withTimestamp(TIMESTAMP)
+                .withSampleRate(SAMPLE_RATE)
+                .build();
+    }
+}
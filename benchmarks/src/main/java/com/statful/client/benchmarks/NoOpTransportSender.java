@@ -0,0 +1,38 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.transport.TransportSender;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TransportSender} that drops every message, so the benchmarks only measure the client side of the path.
+ * <p>
+ * It keeps a count of the received payloads to make sure the flushes are not optimized away.
+ */
+public final class NoOpTransportSender implements TransportSender {
+
+    private final AtomicLong sentMessages = new AtomicLong();
+
+    @Override
+    public void send(final String message) {
+        sentMessages.incrementAndGet();
+    }
+
+    @Override
+    public void send(final String message, final String uri) {
+        sentMessages.incrementAndGet();
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    /**
+     * Gets the number of payloads received so far.
+     *
+     * @return The number of payloads
+     */
+    public long getSentMessages() {
+        return sentMessages.get();
+    }
+}
@@ -0,0 +1,86 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.core.aggregation.QuantileSketch;
+import com.statful.client.domain.api.Aggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link QuantileSketch}, which client side aggregation uses for the percentile aggregations.
+ * <p>
+ * Values follow a long tailed distribution of timer values, from a few to a few thousand milliseconds.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class QuantileSketchBenchmark {
+
+    private static final int VALUES = 65536;
+    private static final double MEDIAN_LOG = 4;
+    private static final double LOG_DEVIATION = 1.5;
+
+    private final long[] values = new long[VALUES];
+    private QuantileSketch sketch;
+    private QuantileSketch other;
+    private int next;
+
+    /**
+     * Generates the values and fills a sketch with them for every trial.
+     */
+    @Setup(Level.Trial)
+    public final void setUp() {
+        Random random = new Random(1);
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = (long) Math.exp(MEDIAN_LOG + LOG_DEVIATION * random.nextGaussian());
+        }
+
+        sketch = new QuantileSketch();
+        other = new QuantileSketch();
+        for (long value : values) {
+            other.add(value);
+        }
+    }
+
+    /**
+     * Adds a timer value to the sketch.
+     *
+     * @return The sketch
+     */
+    @Benchmark
+    public final QuantileSketch add() {
+        sketch.add(values[next++ & (VALUES - 1)]);
+        return sketch;
+    }
+
+    /**
+     * Estimates the percentile aggregations of a full sketch, as done when a window is closed.
+     *
+     * @return The sum of the percentiles
+     */
+    @Benchmark
+    public final double percentiles() {
+        return other.percentile(Aggregation.P90) + other.percentile(Aggregation.P95) + other.percentile(Aggregation.P99);
+    }
+
+    /**
+     * Merges a full sketch into another one, as done to combine the sketches of different threads.
+     *
+     * @return The merged sketch
+     */
+    @Benchmark
+    public final QuantileSketch merge() {
+        sketch.merge(other);
+        return sketch;
+    }
+}
@@ -0,0 +1,161 @@
+package com.statful.client.benchmarks;
+
+import com.statful.client.transport.UDPSender;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks sending flushes to a loopback {@link UdpSink}.
+ * <p>
+ * The {@link UDPSender} benchmark sends through its connected {@link java.nio.channels.DatagramChannel}, packing the
+ * lines of each flush into datagrams of up to the payload size, while the {@link DatagramSocket} benchmark is the
+ * baseline the sender used to be built on: a blocking socket, with a new array and a new packet for every flush, sent
+ * as a single datagram. The sent and received lines are reported as secondary results, so the loss of each one is
+ * measured along with its throughput.
+ * <p>
+ * How the sender scales with the sending threads is measured by running the JMH main class with more threads and
+ * channels, such as <code>-t 4 -p channels=1,4</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+public class UdpSenderBenchmark {
+
+    private static final long RECEIVE_GRACE_MILLIS = 100;
+    private static final String METRIC = "application.timer.response_time,unit=ms,statful_client=java 123 1500000000 avg,p90,10 100";
+
+    @Param({"1", "10", "100"})
+    private int lines;
+
+    @Param({"1432", "8932"})
+    private int payloadSize;
+
+    @Param({"1"})
+    private int channels;
+
+    private String message;
+    private UdpSink udpSink;
+    private UDPSender udpSender;
+    private DatagramSocket datagramSocket;
+    private InetAddress address;
+
+    /**
+     * Starts the sink and connects to it for every trial.
+     *
+     * @throws IOException If the sink or the socket can't be created
+     */
+    @Setup(Level.Trial)
+    public final void setUp() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append(METRIC).append('\n');
+        }
+        message = sb.substring(0, sb.length() - 1);
+
+        udpSink = new UdpSink();
+        address = InetAddress.getLoopbackAddress();
+        udpSender = new UDPSender(address.getHostAddress(), udpSink.getPort(), payloadSize, channels);
+        datagramSocket = new DatagramSocket();
+    }
+
+    /**
+     * Closes the sender, the socket and the sink.
+     */
+    @TearDown(Level.Trial)
+    public final void tearDown() {
+        udpSender.shutdown();
+        datagramSocket.close();
+        udpSink.close();
+    }
+
+    /**
+     * Sends a flush through the {@link UDPSender}.
+     *
+     * @param counters The counters of sent and received lines
+     */
+    @Benchmark
+    public final void udpSender(final LineCounters counters) {
+        udpSender.send(message);
+        counters.sent += lines;
+    }
+
+    /**
+     * Sends a flush through a {@link DatagramSocket}, as the {@link UDPSender} used to.
+     *
+     * @param counters The counters of sent and received lines
+     * @throws IOException If the message can't be sent
+     */
+    @Benchmark
+    public final void datagramSocket(final LineCounters counters) throws IOException {
+        byte[] bytes = message.getBytes(Charset.forName("UTF-8"));
+        datagramSocket.send(new DatagramPacket(bytes, bytes.length, address, udpSink.getPort()));
+        counters.sent += lines;
+    }
+
+    /**
+     * The lines sent and received in each iteration, where the received lines are those of every benchmark thread.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class LineCounters {
+
+        private long sent;
+        private long received;
+
+        /**
+         * Gets the lines sent in the iteration, which JMH reports as a counter.
+         *
+         * @return The number of sent lines
+         */
+        public final long sentLines() {
+            return sent;
+        }
+
+        /**
+         * Gets the lines received in the iteration, which JMH reports as a counter.
+         *
+         * @return The number of received lines
+         */
+        public final long receivedLines() {
+            return received;
+        }
+
+        /**
+         * Resets the sent lines before every iteration, as the received lines are reset when collected.
+         */
+        @Setup(Level.Iteration)
+        public final void reset() {
+            sent = 0;
+        }
+
+        /**
+         * Collects the lines received by the sink after every iteration.
+         *
+         * @param benchmark The benchmark, to get the lines received by its sink
+         * @throws InterruptedException If interrupted while waiting for the last datagrams to be received
+         */
+        @TearDown(Level.Iteration)
+        public final void collect(final UdpSenderBenchmark benchmark) throws InterruptedException {
+            Thread.sleep(RECEIVE_GRACE_MILLIS);
+            received = benchmark.udpSink.getAndResetReceivedLines();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.statful.client.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A loopback UDP endpoint that drains and discards every datagram it receives, counting the metric lines in them.
+ */
+public final class UdpSink implements Closeable {
+
+    private static final int MAX_DATAGRAM_SIZE = 65535;
+
+    private final DatagramSocket socket;
+    private final Thread receiver;
+    private final AtomicLong receivedLines = new AtomicLong();
+
+    /**
+     * Binds the sink to an ephemeral loopback port and starts draining it.
+     *
+     * @throws IOException If the socket can't be bound
+     */
+    public UdpSink() throws IOException {
+        this.socket = new DatagramSocket(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.receiver = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                DatagramPacket packet = new DatagramPacket(new byte[MAX_DATAGRAM_SIZE], MAX_DATAGRAM_SIZE);
+                while (!socket.isClosed()) {
+                    try {
+                        socket.receive(packet);
+                        receivedLines.addAndGet(countLines(packet));
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            }
+        }, "statful-benchmark-udp-sink");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    /**
+     * Gets the port the sink is listening on.
+     *
+     * @return The local port
+     */
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of metric lines received since the last call, resetting it.
+     *
+     * @return The number of received lines
+     */
+    public long getAndResetReceivedLines() {
+        return receivedLines.getAndSet(0);
+    }
+
+    private static int countLines(final DatagramPacket packet) {
+        byte[] data = packet.getData();
+        int lines = packet.getLength() > 0 ? 1 : 0;
+        for (int i = packet.getOffset(); i < packet.getOffset() + packet.getLength(); i++) {
+            if (data[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
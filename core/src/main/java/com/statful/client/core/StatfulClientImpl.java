@@ -1,20 +1,31 @@
 package com.statful.client.core;
 
 import com.statful.client.core.api.MetricsSenderAPI;
-import com.statful.client.core.api.StatfulClientFacade;
+import com.statful.client.core.api.MetricsSenderProxy;
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.core.sender.EncodedMetricsSender;
+import com.statful.client.core.sender.Sampler;
 import com.statful.client.domain.api.*;
 
 import java.util.logging.Logger;
 
 /**
  * This class is the Statful client, which allows to send metrics (timer, counter, gauge or raw metric) to Statful.
+ * <p>
+ * Metrics are only built when they are sent, customized, made into templates or registered, so that sending a metric
+ * while the client is disabled or when it is sampled out costs close to nothing.
  */
-class StatfulClientImpl implements StatfulClient {
+class StatfulClientImpl implements StatfulClient, EncodedMetricsSender {
 
     private static final Logger LOGGER = Logger.getLogger(StatfulClientImpl.class.getName());
 
+    private static final int MIN_SAMPLE_RATE = 1;
+    private static final int MAX_SAMPLE_RATE = 100;
+
     private final MetricsSender metricsSender;
+    private final MetricsSenderProxy metricsSenderProxy;
     private final ClientConfiguration configuration;
+    private final Sampler sampler;
 
     private boolean enabled = true;
 
@@ -26,16 +37,14 @@ class StatfulClientImpl implements StatfulClient {
      */
     StatfulClientImpl(final MetricsSender metricsSender, final ClientConfiguration configuration) {
         this.metricsSender = metricsSender;
+        this.metricsSenderProxy = new MetricsSenderProxy(metricsSender);
         this.configuration = configuration;
+        this.sampler = new Sampler(configuration.getSamplingMode());
     }
 
     @Override
     public final SenderFacade timer(final String metricName, final long value) {
-        SenderAPI metricsSenderAPI = createTimer(metricName, value, false, false)
-                .aggregations(configuration.getTimerAggregations())
-                .aggregationFrequency(configuration.getTimerAggregationFrequency());
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.TIMER, metricName, value, null, false, null, null, null);
     }
 
     @Override
@@ -45,63 +54,53 @@ class StatfulClientImpl implements StatfulClient {
 
     @Override
     public final SenderFacade counter(final String metricName, final int value) {
-
-        SenderAPI metricsSenderAPI = createCounter(metricName, value, false, false)
-                .aggregations(configuration.getCounterAggregations())
-                .aggregationFrequency(configuration.getCounterAggregationFrequency());
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.COUNTER, metricName, value, null, false, null, null, null);
     }
 
 
     @Override
     public final SenderFacade gauge(final String metricName, final Long value) {
-        return gauge(metricName, value.toString());
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Double value) {
-        return gauge(metricName, value.toString());
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Float value) {
-        return gauge(metricName, value.toString());
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade gauge(final String metricName, final Integer value) {
-        return gauge(metricName, value.toString());
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Long value) {
-        return put(metricName, Long.toString(value));
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Double value) {
-        return put(metricName, Double.toString(value));
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Float value) {
-        return put(metricName, Float.toString(value));
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public final SenderFacade put(final String metricName, final Integer value) {
-        return put(metricName, Integer.toString(value));
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, null);
     }
 
     @Override
     public SenderFacade sampledTimer(final String metricName, final long value, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createTimer(metricName, value, false, true)
-                .aggregations(configuration.getTimerAggregations())
-                .aggregationFrequency(configuration.getTimerAggregationFrequency())
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.TIMER, metricName, value, null, false, null, null, sampleRate);
     }
 
     @Override
@@ -111,237 +110,168 @@ class StatfulClientImpl implements StatfulClient {
 
     @Override
     public SenderFacade sampledCounter(final String metricName, final int value, final Integer sampleRate) {
-
-        SenderAPI metricsSenderAPI = createCounter(metricName, value, false, true)
-                .aggregations(configuration.getCounterAggregations())
-                .aggregationFrequency(configuration.getCounterAggregationFrequency())
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.COUNTER, metricName, value, null, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledGauge(final String metricName, final Long value, final Integer sampleRate) {
-        return sampledGauge(metricName, value.toString(), sampleRate);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledGauge(final String metricName, final Double value, final Integer sampleRate) {
-        return sampledGauge(metricName, value.toString(), sampleRate);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledGauge(final String metricName, final Float value, final Integer sampleRate) {
-        return sampledGauge(metricName, value.toString(), sampleRate);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledGauge(final String metricName, final Integer value, final Integer sampleRate) {
-        return sampledGauge(metricName, value.toString(), sampleRate);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledPut(final String metricName, final Long value, final Integer sampleRate) {
-        return sampledPut(metricName, Long.toString(value), sampleRate);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledPut(final String metricName, final Double value, final Integer sampleRate) {
-        return sampledPut(metricName, Double.toString(value), sampleRate);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledPut(final String metricName, final Float value, final Integer sampleRate) {
-        return sampledPut(metricName, Float.toString(value), sampleRate);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public SenderFacade sampledPut(final String metricName, final Integer value, final Integer sampleRate) {
-        return sampledPut(metricName, value.toString(), sampleRate);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, false, null, null, sampleRate);
     }
 
     @Override
     public final SenderFacade aggregatedTimer(final String metricName, final long value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-
-        SenderAPI metricsSenderAPI = createTimer(metricName, value, true, false)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.TIMER, metricName, value, null, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedCounter(final String metricName, final int value, final Aggregation aggregation,
                                                 final AggregationFrequency aggregationFrequency) {
-        SenderAPI metricsSenderAPI = MetricsSenderAPI.newInstance(this, true, false).with()
-                .configuration(configuration)
-                .aggregation(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .tags(configuration.getCounterTags())
-                .name("counter." + metricName)
-                .value(Long.toString(value));
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.COUNTER, metricName, value, null, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Long value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Double value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Float value, final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedGauge(final String metricName, final Integer value,
                                               final Aggregation aggregation,
                                               final AggregationFrequency aggregationFrequency) {
-        return aggregatedGauge(metricName, value.toString(), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Long value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Long.toString(value), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Double value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Double.toString(value), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public SenderFacade aggregatedPut(final String metricName, final Float value, final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Float.toString(value), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public final SenderFacade aggregatedPut(final String metricName, final Integer value, final Aggregation aggregation,
                                             final AggregationFrequency aggregationFrequency) {
-        return aggregatedPut(metricName, Integer.toString(value), aggregation, aggregationFrequency);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, null);
     }
 
     @Override
     public SenderFacade sampledAggregatedTimer(final String metricName, final long timestamp, final Aggregation aggregation,
                                                final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createTimer(metricName, timestamp, true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.TIMER, metricName, timestamp, null, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedCounter(final String metricName, final int value, final Aggregation aggregation,
                                                  final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createCounter(metricName, value, true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.COUNTER, metricName, value, null, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedGauge(final String metricName, final Long value, final Aggregation aggregation,
                                                final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value.toString(), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedGauge(final String metricName, final Double value, final Aggregation aggregation,
                                                final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value.toString(), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedGauge(final String metricName, final Float value, final Aggregation aggregation,
                                                final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value.toString(), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedGauge(final String metricName, final Integer value, final Aggregation aggregation,
                                                final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value.toString(), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.GAUGE, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedPut(final String metricName, final Long value, final Aggregation aggregation,
                                              final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createPut(metricName, Long.toString(value), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedPut(final String metricName, final Double value, final Aggregation aggregation,
                                              final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createPut(metricName, Double.toString(value), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedPut(final String metricName, final Float value, final Aggregation aggregation,
                                              final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createPut(metricName, Float.toString(value), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
     public SenderFacade sampledAggregatedPut(final String metricName, final Integer value, final Aggregation aggregation,
                                              final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createPut(metricName, value.toString(), true, true)
-                .aggregations(aggregation)
-                .aggregationFrequency(aggregationFrequency)
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
+        return new DeferredSenderFacade(MetricType.PUT, metricName, 0, value, true, aggregation, aggregationFrequency, sampleRate);
     }
 
     @Override
@@ -405,83 +335,106 @@ class StatfulClientImpl implements StatfulClient {
     }
 
     @Override
-    public void enable() {
-        enabled = true;
+    public final void putEncoded(final EncodedMetric metric, final long value, final long timestamp) {
+        if (enabled) {
+            try {
+                metricsSenderProxy.put(metric, value, timestamp);
+            } catch (Exception e) {
+                LOGGER.warning("Unable to send metric: " + e.toString());
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
     }
 
     @Override
-    public void disable() {
-        enabled = false;
+    public final void putEncoded(final EncodedMetric metric, final double value, final long timestamp) {
+        if (enabled) {
+            try {
+                metricsSenderProxy.put(metric, value, timestamp);
+            } catch (Exception e) {
+                LOGGER.warning("Unable to send metric: " + e.toString());
+            }
+        } else {
+            LOGGER.fine("Statful client is disabled. The metric was not sent.");
+        }
     }
 
     @Override
-    public final void shutdown() {
-        metricsSender.shutdown();
+    public final Counter registerCounter(final EncodedMetric metric) {
+        final Counter counter = metricsSenderProxy.registerCounter(metric);
+        return new Counter() {
+            @Override
+            public void increment() {
+                if (enabled) {
+                    counter.increment();
+                }
+            }
+
+            @Override
+            public void increment(final long delta) {
+                if (enabled) {
+                    counter.increment(delta);
+                }
+            }
+
+            @Override
+            public void unregister() {
+                counter.unregister();
+            }
+        };
     }
 
     @Override
-    public void forceSyncFlush() {
-        metricsSender.forceSyncFlush();
-    }
+    public final Gauge registerGauge(final EncodedMetric metric) {
+        final Gauge gauge = metricsSenderProxy.registerGauge(metric);
+        return new Gauge() {
+            @Override
+            public void set(final long value) {
+                if (enabled) {
+                    gauge.set(value);
+                }
+            }
 
-    private SenderFacade put(final String metricName, final String value) {
-        SenderAPI metricsSenderAPI = createPut(metricName, value, false, false)
-                .aggregationFrequency(configuration.getDefaultAggregationFreq());
+            @Override
+            public void set(final double value) {
+                if (enabled) {
+                    gauge.set(value);
+                }
+            }
 
-        return new StatfulClientFacade(metricsSenderAPI);
+            @Override
+            public void unregister() {
+                gauge.unregister();
+            }
+        };
     }
 
-    private SenderFacade aggregatedPut(final String metricName, final String value, final Aggregation aggregation,
-                                       final AggregationFrequency aggregationFrequency) {
-
-        SenderAPI metricsSenderAPI = createPut(metricName, value, true, false)
-                .aggregation(aggregation)
-                .aggregationFrequency(aggregationFrequency);
+    @Override
+    public void enable() {
+        enabled = true;
+    }
 
-        return new StatfulClientFacade(metricsSenderAPI);
+    @Override
+    public void disable() {
+        enabled = false;
     }
 
-    private SenderFacade sampledPut(final String metricName, final String value, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createPut(metricName, value, false, true)
-                .aggregationFrequency(configuration.getDefaultAggregationFreq())
-                .sampleRate(sampleRate);
+    @Override
+    public final void shutdown() {
+        metricsSender.shutdown();
+    }
 
-        return new StatfulClientFacade(metricsSenderAPI);
+    @Override
+    public void forceSyncFlush() {
+        metricsSender.forceSyncFlush();
     }
 
-    private SenderAPI createPut(final String metricName, final String value, final boolean isAggregated,
-                                final boolean isSampled) {
+    private SenderAPI createPut(final String metricName, final String value, final boolean isAggregated, final boolean isSampled) {
         return MetricsSenderAPI.newInstance(this, isAggregated, isSampled).with()
                 .configuration(configuration)
                 .name(metricName)
                 .value(value);
-
-    }
-
-    private SenderFacade gauge(final String metricName, final String value) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value, false, false).with()
-                .aggregations(configuration.getGaugeAggregations())
-                .aggregationFrequency(configuration.getGaugeAggregationFrequency());
-
-        return new StatfulClientFacade(metricsSenderAPI);
-    }
-
-    private SenderFacade aggregatedGauge(final String metricName, final String value, final Aggregation aggregation,
-                                         final AggregationFrequency aggregationFrequency) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value, true, false).with()
-                .aggregation(aggregation)
-                .aggregationFrequency(aggregationFrequency);
-
-        return new StatfulClientFacade(metricsSenderAPI);
-    }
-
-    private SenderFacade sampledGauge(final String metricName, final String value, final Integer sampleRate) {
-        SenderAPI metricsSenderAPI = createGauge(metricName, value, false, true).with()
-                .aggregations(configuration.getGaugeAggregations())
-                .aggregationFrequency(configuration.getGaugeAggregationFrequency())
-                .sampleRate(sampleRate);
-
-        return new StatfulClientFacade(metricsSenderAPI);
     }
 
     private SenderAPI createGauge(final String metricName, final String value, final boolean isAggregated, final boolean isSampled) {
@@ -500,11 +453,167 @@ class StatfulClientImpl implements StatfulClient {
                 .value(Long.toString(value));
     }
 
-    private SenderAPI createCounter(final String metricName, final int value, final boolean isAggregated, final boolean isSampled) {
+    private SenderAPI createCounter(final String metricName, final long value, final boolean isAggregated, final boolean isSampled) {
         return MetricsSenderAPI.newInstance(this, isAggregated, isSampled).with()
                 .configuration(configuration)
                 .tags(configuration.getCounterTags())
                 .name("counter." + metricName)
-                .value(Integer.toString(value));
+                .value(Long.toString(value));
+    }
+
+    private static boolean isSampling(final int sampleRate) {
+        return sampleRate >= MIN_SAMPLE_RATE && sampleRate < MAX_SAMPLE_RATE;
+    }
+
+    /**
+     * The types of metrics built by the client, with the prefixes of their names.
+     */
+    private enum MetricType {
+        TIMER("timer."), COUNTER("counter."), GAUGE("gauge."), PUT("");
+
+        private final String prefix;
+
+        MetricType(final String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * A {@link SenderFacade} that only builds its metric when it is needed.
+     * <p>
+     * Sending a metric while the client is disabled, or when it is sampled out by the configured sample rate, returns
+     * before building it, so there are no names to concatenate, values to format, nor tags and aggregations to merge.
+     * Sampling is decided when the metric is sent, so a metric that is sampled in isn't sampled again by the
+     * {@link MetricsSender}. The metric is built the first time it is needed otherwise, to customize it, make a template
+     * out of it or register it, and those keep the behaviour of a metric built upfront.
+     */
+    private final class DeferredSenderFacade implements SenderFacade {
+
+        private final MetricType type;
+        private final String metricName;
+        private final long longValue;
+        private final Number value;
+        private final boolean aggregated;
+        private final Aggregation aggregation;
+        private final AggregationFrequency aggregationFrequency;
+        private final Integer sampleRate;
+
+        private SenderAPI senderAPI;
+
+        DeferredSenderFacade(final MetricType type, final String metricName, final long longValue, final Number value, final boolean aggregated,
+                             final Aggregation aggregation, final AggregationFrequency aggregationFrequency, final Integer sampleRate) {
+            this.type = type;
+            this.metricName = metricName;
+            this.longValue = longValue;
+            this.value = value;
+            this.aggregated = aggregated;
+            this.aggregation = aggregation;
+            this.aggregationFrequency = aggregationFrequency;
+            this.sampleRate = sampleRate;
+        }
+
+        @Override
+        public SenderAPI with() {
+            return getSenderAPI();
+        }
+
+        @Override
+        public void send() {
+            if (senderAPI != null) {
+                senderAPI.send();
+                return;
+            }
+
+            if (!enabled) {
+                return;
+            }
+
+            int configuredSampleRate = configuration.getSampleRate();
+            if (sampleRate == null && isSampling(configuredSampleRate)) {
+                if (sampler.isSampledIn(configuredSampleRate, type.prefix, metricName, defaultTags())) {
+                    build(true).send();
+                }
+            } else {
+                build(sampleRate != null).send();
+            }
+        }
+
+        @Override
+        public MetricTemplate template() {
+            return getSenderAPI().template();
+        }
+
+        @Override
+        public Counter registerCounter() {
+            return getSenderAPI().registerCounter();
+        }
+
+        @Override
+        public Gauge registerGauge() {
+            return getSenderAPI().registerGauge();
+        }
+
+        /**
+         * Gets the tags the metric is built with, which key its series along with its name.
+         */
+        private Tags defaultTags() {
+            switch (type) {
+                case TIMER:
+                    return configuration.getTimerTags();
+                case COUNTER:
+                    return configuration.getCounterTags();
+                case GAUGE:
+                    return configuration.getGaugeTags();
+                default:
+                    return null;
+            }
+        }
+
+        private SenderAPI getSenderAPI() {
+            if (senderAPI == null) {
+                senderAPI = build(sampleRate != null);
+            }
+            return senderAPI;
+        }
+
+        private SenderAPI build(final boolean isSampled) {
+            String stringValue = value == null ? null : value.toString();
+            SenderAPI metricsSenderAPI;
+
+            switch (type) {
+                case TIMER:
+                    metricsSenderAPI = createTimer(metricName, longValue, aggregated, isSampled);
+                    if (!aggregated) {
+                        metricsSenderAPI.aggregations(configuration.getTimerAggregations())
+                                .aggregationFrequency(configuration.getTimerAggregationFrequency());
+                    }
+                    break;
+                case COUNTER:
+                    metricsSenderAPI = createCounter(metricName, longValue, aggregated, isSampled);
+                    if (!aggregated) {
+                        metricsSenderAPI.aggregations(configuration.getCounterAggregations())
+                                .aggregationFrequency(configuration.getCounterAggregationFrequency());
+                    }
+                    break;
+                case GAUGE:
+                    metricsSenderAPI = createGauge(metricName, stringValue, aggregated, isSampled);
+                    if (!aggregated) {
+                        metricsSenderAPI.aggregations(configuration.getGaugeAggregations())
+                                .aggregationFrequency(configuration.getGaugeAggregationFrequency());
+                    }
+                    break;
+                default:
+                    metricsSenderAPI = createPut(metricName, stringValue, aggregated, isSampled);
+                    if (!aggregated) {
+                        metricsSenderAPI.aggregationFrequency(configuration.getDefaultAggregationFreq());
+                    }
+                    break;
+            }
+
+            if (aggregated) {
+                metricsSenderAPI.aggregation(aggregation).aggregationFrequency(aggregationFrequency);
+            }
+            return metricsSenderAPI.sampleRate(sampleRate);
+        }
     }
 }
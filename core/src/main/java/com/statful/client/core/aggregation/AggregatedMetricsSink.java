@@ -0,0 +1,19 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+
+/**
+ * Receives the metric lines computed by a {@link MetricAggregator}.
+ */
+public interface AggregatedMetricsSink {
+
+    /**
+     * Puts an aggregated metric line, to be sent to the endpoint of its aggregation and aggregation frequency.
+     *
+     * @param metric The aggregated metric line
+     * @param aggregation The {@link Aggregation} of the value
+     * @param aggregationFrequency The {@link AggregationFrequency} of the value
+     */
+    void putAggregated(String metric, Aggregation aggregation, AggregationFrequency aggregationFrequency);
+}
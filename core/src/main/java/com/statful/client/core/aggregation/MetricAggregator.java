@@ -0,0 +1,161 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.core.message.MessageTemplate;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Aggregates metrics in the client, over the windows of their {@link AggregationFrequency}.
+ * <p>
+ * Each series, identified by its namespace, name, tags, aggregations and aggregation frequency, keeps the accumulators
+ * of its current window. Windows are aligned to the aggregation frequency, and once a window is over, either because
+ * a value of a later window was added or because {@link #flush(long)} found it to be over, one line per aggregation is
+ * put into the {@link AggregatedMetricsSink}, timestamped with the start of the window.
+ * <p>
+ * Values of sampled metrics stand for <code>100 / sampleRate</code> values, which is taken into account by the
+ * {@link Aggregation#COUNT}, {@link Aggregation#SUM} and {@link Aggregation#AVG} aggregations. The aggregated lines
+ * are not sampled.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class MetricAggregator {
+
+    private static final int MAX_SAMPLE_RATE = 100;
+    private static final double MAX_EXACT_LONG = 1e15;
+
+    private final AggregatedMetricsSink sink;
+    private final ConcurrentHashMap<SeriesKey, Series> series = new ConcurrentHashMap<SeriesKey, Series>();
+
+    /**
+     * Default constructor.
+     *
+     * @param sink The {@link AggregatedMetricsSink} to put the aggregated metrics into
+     */
+    public MetricAggregator(final AggregatedMetricsSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Checks if a metric can be aggregated by the client, which is only the case when it has aggregations.
+     *
+     * @param aggregations The {@link Aggregations} of the metric
+     * @return True if the metric can be aggregated
+     */
+    public static boolean canAggregate(final Aggregations aggregations) {
+        return aggregations != null && !aggregations.getAggregations().isEmpty();
+    }
+
+    /**
+     * Adds a value to its series.
+     *
+     * @param name                 The name of the metric
+     * @param value                The value of the metric
+     * @param tags                 A {@link Tags} the tags to be associated with the metric
+     * @param aggregations         {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate           The metrics sample rate
+     * @param namespace            The namespace of the metric
+     * @param timestamp            The timestamp associated with the metric
+     */
+    public void add(final String name, final double value, final Tags tags, final Aggregations aggregations,
+                    final AggregationFrequency aggregationFrequency, final int sampleRate, final String namespace,
+                    final long timestamp) {
+        AggregationFrequency frequency = aggregationFrequency != null ? aggregationFrequency : AggregationFrequency.FREQ_10;
+        SeriesKey key = new SeriesKey(namespace, name, tags != null ? tags.getTags() : null, aggregations.getAggregations(), frequency);
+        double weight = (double) MAX_SAMPLE_RATE / sampleRate;
+
+        Series.Window closed;
+        do {
+            closed = getOrCreateSeries(key).add(value, weight, timestamp);
+        } while (closed == Series.RETIRED);
+
+        if (closed != null) {
+            put(closed, frequency);
+        }
+    }
+
+    /**
+     * Puts the windows that are over, and forgets the series which haven't had values for a whole window.
+     *
+     * @param now The current unix timestamp
+     */
+    public void flush(final long now) {
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            Series.Window closed = entry.getValue().closeIfOver(now);
+            if (closed != null) {
+                put(closed, entry.getKey().getAggregationFrequency());
+            } else if (entry.getValue().retireIfIdle(now)) {
+                series.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Puts all the windows with values, even the ones that are not over yet.
+     */
+    public void flushAll() {
+        for (Map.Entry<SeriesKey, Series> entry : series.entrySet()) {
+            Series.Window closed = entry.getValue().close();
+            if (closed != null) {
+                put(closed, entry.getKey().getAggregationFrequency());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of series being aggregated.
+     *
+     * @return The number of series
+     */
+    int getSeriesCount() {
+        return series.size();
+    }
+
+    private Series getOrCreateSeries(final SeriesKey key) {
+        Series current = series.get(key);
+        if (current == null) {
+            SeriesKey ownedKey = key.copy();
+            Series created = new Series(ownedKey.getAggregations(), ownedKey.getAggregationFrequency().getValue(), buildTemplate(ownedKey));
+            current = series.putIfAbsent(ownedKey, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        return current;
+    }
+
+    private static MessageTemplate buildTemplate(final SeriesKey key) {
+        Tags tags = new Tags();
+        for (Map.Entry<String, String> tag : key.getTags().entrySet()) {
+            tags.putTag(tag.getKey(), tag.getValue());
+        }
+
+        return MessageBuilder.newBuilder()
+                .withNamespace(key.getNamespace())
+                .withName(key.getName())
+                .withTags(tags)
+                .withSampleRate(MAX_SAMPLE_RATE)
+                .buildTemplate();
+    }
+
+    private void put(final Series.Window window, final AggregationFrequency frequency) {
+        Aggregation[] aggregations = window.getAggregations();
+        double[] values = window.getValues();
+        for (int i = 0; i < aggregations.length; i++) {
+            sink.putAggregated(format(window.getTemplate(), values[i], window.getTimestamp()), aggregations[i], frequency);
+        }
+    }
+
+    private static String format(final MessageTemplate template, final double value, final long timestamp) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_EXACT_LONG) {
+            return template.build((long) value, timestamp);
+        }
+        return template.build(value, timestamp);
+    }
+}
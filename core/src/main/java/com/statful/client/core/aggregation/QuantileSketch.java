@@ -0,0 +1,353 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size, mergeable sketch of a distribution of values, used to estimate its percentiles.
+ * <p>
+ * Values are counted in logarithmic bins, like DDSketch does: bin <code>i</code> holds the values in
+ * <code>(gamma^(i-1), gamma^i]</code>, with <code>gamma = (1 + alpha) / (1 - alpha)</code>, so any percentile is
+ * estimated with a relative error of at most <code>alpha</code>, the relative accuracy of the sketch. Zero is counted
+ * apart, and negative values are counted in bins of their own, which are only allocated once a negative value is added.
+ * <p>
+ * The number of bins is fixed, so the memory of a sketch doesn't depend on the number or the range of its values.
+ * When the values span more bins than there are, the lowest bins are collapsed into one, which keeps the high
+ * percentiles accurate. With the default relative accuracy of 1% and 1024 bins, the values within 8 orders of
+ * magnitude of the highest one are estimated within the accuracy.
+ * <p>
+ * Adding values doesn't allocate memory. Sketches with the same relative accuracy can be merged, so threads can keep
+ * sketches of their own and merge them when the percentiles are needed.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public final class QuantileSketch {
+
+    private static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    private static final int DEFAULT_MAX_BINS = 1024;
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+    private static final double PERCENT = 100d;
+    private static final double P90 = 90d;
+    private static final double P95 = 95d;
+    private static final double P99 = 99d;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double multiplier;
+    private final int maxBins;
+    private final Bins positiveBins;
+    private Bins negativeBins;
+
+    private double zeroCount;
+    private double count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a sketch with a relative accuracy of 1% and 1024 bins.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+    }
+
+    /**
+     * Creates a sketch.
+     *
+     * @param relativeAccuracy The relative accuracy of the percentiles, between 0 and 1 exclusive
+     * @param maxBins          The number of bins of the positive values, and of the negative values if there are any
+     */
+    public QuantileSketch(final double relativeAccuracy, final int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1 exclusive");
+        }
+        if (maxBins < 1) {
+            throw new IllegalArgumentException("Max bins must be positive");
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.multiplier = 1 / Math.log(gamma);
+        this.maxBins = maxBins;
+        this.positiveBins = new Bins(maxBins);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value
+     */
+    public void add(final long value) {
+        add((double) value, 1);
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value
+     */
+    public void add(final double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Adds a value that stands for a number of values, such as the values of a sampled metric.
+     *
+     * @param value The value
+     * @param weight The number of values the value stands for, which must be positive
+     */
+    public void add(final double value, final double weight) {
+        if (weight <= 0 || Double.isNaN(value)) {
+            return;
+        }
+
+        if (value > MIN_INDEXABLE_VALUE) {
+            positiveBins.add(index(value), weight);
+        } else if (value < -MIN_INDEXABLE_VALUE) {
+            negativeBins().add(index(-value), weight);
+        } else {
+            zeroCount += weight;
+        }
+
+        count += weight;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merges the values of another sketch into this one.
+     *
+     * @param other A sketch with the same relative accuracy
+     */
+    public void merge(final QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Only sketches with the same relative accuracy can be merged");
+        }
+        if (other.count == 0) {
+            return;
+        }
+
+        positiveBins.merge(other.positiveBins);
+        if (other.negativeBins != null) {
+            negativeBins().merge(other.negativeBins);
+        }
+
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimates a percentile with the nearest-rank method.
+     *
+     * @param percentile The percentile, between 0 and 100
+     * @return The estimated value of the percentile, or 0 if the sketch is empty
+     */
+    public double percentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        double rank = Math.max(percentile, 0) * count / PERCENT;
+        double value;
+        double negativeCount = negativeBins != null ? negativeBins.total : 0;
+        if (negativeCount > 0 && rank <= negativeCount) {
+            value = -valueOf(negativeBins.indexOfRank(rank, true));
+        } else if (rank <= negativeCount + zeroCount) {
+            value = 0;
+        } else {
+            value = valueOf(positiveBins.indexOfRank(rank - negativeCount - zeroCount, false));
+        }
+
+        return Math.max(min, Math.min(max, value));
+    }
+
+    /**
+     * Estimates the percentile of a percentile {@link Aggregation}.
+     *
+     * @param aggregation One of {@link Aggregation#P90}, {@link Aggregation#P95} or {@link Aggregation#P99}
+     * @return The estimated value of the percentile, or 0 if the sketch is empty
+     */
+    public double percentile(final Aggregation aggregation) {
+        switch (aggregation) {
+            case P90:
+                return percentile(P90);
+            case P95:
+                return percentile(P95);
+            case P99:
+                return percentile(P99);
+            default:
+                throw new IllegalArgumentException("Not a percentile aggregation " + aggregation);
+        }
+    }
+
+    /**
+     * Checks if an {@link Aggregation} is a percentile that can be estimated by a sketch.
+     *
+     * @param aggregation The aggregation
+     * @return True if the aggregation is a percentile
+     */
+    public static boolean isPercentile(final Aggregation aggregation) {
+        return aggregation == Aggregation.P90 || aggregation == Aggregation.P95 || aggregation == Aggregation.P99;
+    }
+
+    /**
+     * Gets the number of values added, taking their weights into account.
+     *
+     * @return The number of values
+     */
+    public double getCount() {
+        return count;
+    }
+
+    /**
+     * Checks if no values were added.
+     *
+     * @return True if the sketch is empty
+     */
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Removes all the values, keeping the memory of the bins.
+     */
+    public void clear() {
+        positiveBins.clear();
+        if (negativeBins != null) {
+            negativeBins.clear();
+        }
+        zeroCount = 0;
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    private int index(final double value) {
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    private double valueOf(final int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    private Bins negativeBins() {
+        if (negativeBins == null) {
+            negativeBins = new Bins(maxBins);
+        }
+        return negativeBins;
+    }
+
+    /**
+     * A window of consecutive bins over the bin indexes, which slides up to take higher indexes and collapses the
+     * lowest bins into the lowest one of the window when it can't slide without dropping them.
+     */
+    private static final class Bins {
+
+        private final double[] counts;
+        private int offset;
+        private int minIndex;
+        private int maxIndex;
+        private double total;
+
+        Bins(final int maxBins) {
+            this.counts = new double[maxBins];
+        }
+
+        void add(final int index, final double weight) {
+            counts[normalize(index) - offset] += weight;
+            total += weight;
+        }
+
+        void merge(final Bins other) {
+            if (other.total == 0) {
+                return;
+            }
+            for (int index = other.minIndex; index <= other.maxIndex; index++) {
+                double weight = other.counts[index - other.offset];
+                if (weight > 0) {
+                    add(index, weight);
+                }
+            }
+        }
+
+        int indexOfRank(final double rank, final boolean descending) {
+            double cumulative = 0;
+            if (descending) {
+                for (int index = maxIndex; index > minIndex; index--) {
+                    cumulative += counts[index - offset];
+                    if (cumulative >= rank) {
+                        return index;
+                    }
+                }
+                return minIndex;
+            }
+
+            for (int index = minIndex; index < maxIndex; index++) {
+                cumulative += counts[index - offset];
+                if (cumulative >= rank) {
+                    return index;
+                }
+            }
+            return maxIndex;
+        }
+
+        void clear() {
+            if (total > 0) {
+                Arrays.fill(counts, minIndex - offset, maxIndex - offset + 1, 0);
+            }
+            total = 0;
+        }
+
+        /**
+         * Slides the window so it takes the index, and returns the index of the bin the value must be counted in,
+         * which is the lowest bin of the window when the index is below the values the window can take.
+         */
+        private int normalize(final int index) {
+            if (total == 0) {
+                offset = index;
+                minIndex = index;
+                maxIndex = index;
+                return index;
+            }
+
+            if (index < offset) {
+                int newOffset = Math.max(index, maxIndex - counts.length + 1);
+                slide(newOffset);
+            } else if (index >= offset + counts.length) {
+                int newOffset = index - counts.length + 1;
+                double collapsed = 0;
+                for (int i = minIndex; i < newOffset && i <= maxIndex; i++) {
+                    collapsed += counts[i - offset];
+                    counts[i - offset] = 0;
+                }
+                slide(newOffset);
+                if (collapsed > 0) {
+                    counts[0] += collapsed;
+                    minIndex = Math.max(minIndex, newOffset);
+                    maxIndex = Math.max(maxIndex, newOffset);
+                }
+            }
+
+            int normalized = Math.max(index, offset);
+            minIndex = Math.min(minIndex, normalized);
+            maxIndex = Math.max(maxIndex, normalized);
+            return normalized;
+        }
+
+        private void slide(final int newOffset) {
+            int shift = newOffset - offset;
+            if (Math.abs(shift) >= counts.length) {
+                Arrays.fill(counts, 0);
+            } else if (shift > 0) {
+                System.arraycopy(counts, shift, counts, 0, counts.length - shift);
+                Arrays.fill(counts, counts.length - shift, counts.length, 0);
+            } else if (shift < 0) {
+                System.arraycopy(counts, 0, counts, -shift, counts.length + shift);
+                Arrays.fill(counts, 0, -shift, 0);
+            }
+            offset = newOffset;
+        }
+    }
+}
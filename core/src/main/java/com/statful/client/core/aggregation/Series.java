@@ -0,0 +1,201 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.core.message.MessageTemplate;
+import com.statful.client.domain.api.Aggregation;
+
+import java.util.Collection;
+
+/**
+ * The accumulators of the current window of a series.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class Series {
+
+    /**
+     * Marker returned by {@link #add(double, double, long)} when the series has been retired.
+     */
+    static final Window RETIRED = new Window(null, 0, new Aggregation[0], new double[0]);
+
+    private final Aggregation[] aggregations;
+    private final long frequency;
+    private final MessageTemplate template;
+    private final QuantileSketch sketch;
+
+    private long windowStart;
+    private double count;
+    private double sum;
+    private double min;
+    private double max;
+    private double first;
+    private double last;
+    private boolean retired;
+
+    Series(final Collection<Aggregation> aggregations, final long frequency, final MessageTemplate template) {
+        this.aggregations = aggregations.toArray(new Aggregation[aggregations.size()]);
+        this.frequency = frequency;
+        this.template = template;
+        this.sketch = needsSketch(this.aggregations) ? new QuantileSketch() : null;
+    }
+
+    private static boolean needsSketch(final Aggregation[] aggregations) {
+        for (Aggregation aggregation : aggregations) {
+            if (QuantileSketch.isPercentile(aggregation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a value to the window it belongs to.
+     *
+     * @param value The value
+     * @param weight The number of values this one stands for, due to sampling
+     * @param timestamp The unix timestamp of the value
+     * @return The previous window if the value started a new one, null otherwise, or {@link #RETIRED} if the series
+     * has been retired and the value was not added
+     */
+    synchronized Window add(final double value, final double weight, final long timestamp) {
+        if (retired) {
+            return RETIRED;
+        }
+
+        Window closed = null;
+        long valueWindowStart = timestamp - timestamp % frequency;
+        if (count > 0 && valueWindowStart > windowStart) {
+            closed = closeWindow();
+        }
+
+        if (count == 0) {
+            windowStart = Math.max(valueWindowStart, windowStart);
+            first = value;
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        count += weight;
+        sum += value * weight;
+        last = value;
+        if (sketch != null) {
+            sketch.add(value, weight);
+        }
+
+        return closed;
+    }
+
+    /**
+     * Closes the current window once it's over.
+     *
+     * @param now The current unix timestamp
+     * @return The closed window, or null if the window is not over or is empty
+     */
+    synchronized Window closeIfOver(final long now) {
+        if (count > 0 && now >= windowStart + frequency) {
+            return closeWindow();
+        }
+        return null;
+    }
+
+    /**
+     * Closes the current window, even if it's not over.
+     *
+     * @return The closed window, or null if it is empty
+     */
+    synchronized Window close() {
+        return count > 0 ? closeWindow() : null;
+    }
+
+    /**
+     * Retires the series if it didn't get any value for a whole window, so it stops taking values.
+     *
+     * @param now The current unix timestamp
+     * @return True if the series has been retired
+     */
+    synchronized boolean retireIfIdle(final long now) {
+        if (count == 0 && now >= windowStart + frequency) {
+            retired = true;
+        }
+        return retired;
+    }
+
+    private Window closeWindow() {
+        double[] values = new double[aggregations.length];
+        for (int i = 0; i < aggregations.length; i++) {
+            values[i] = valueOf(aggregations[i]);
+        }
+
+        Window window = new Window(template, windowStart, aggregations, values);
+
+        windowStart += frequency;
+        count = 0;
+        sum = 0;
+        if (sketch != null) {
+            sketch.clear();
+        }
+
+        return window;
+    }
+
+    private double valueOf(final Aggregation aggregation) {
+        switch (aggregation) {
+            case AVG:
+                return sum / count;
+            case COUNT:
+                return count;
+            case SUM:
+                return sum;
+            case FIRST:
+                return first;
+            case LAST:
+                return last;
+            case MIN:
+                return min;
+            case MAX:
+                return max;
+            case P90:
+            case P95:
+            case P99:
+                return sketch.percentile(aggregation);
+            default:
+                throw new IllegalArgumentException("Unsupported aggregation " + aggregation);
+        }
+    }
+
+    /**
+     * The aggregated values of a closed window.
+     */
+    static final class Window {
+
+        private final MessageTemplate template;
+        private final long timestamp;
+        private final Aggregation[] aggregations;
+        private final double[] values;
+
+        Window(final MessageTemplate template, final long timestamp, final Aggregation[] aggregations, final double[] values) {
+            this.template = template;
+            this.timestamp = timestamp;
+            this.aggregations = aggregations;
+            this.values = values;
+        }
+
+        MessageTemplate getTemplate() {
+            return template;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        Aggregation[] getAggregations() {
+            return aggregations;
+        }
+
+        double[] getValues() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identifies a series by its namespace, name, tags, aggregations and aggregation frequency.
+ * <p>
+ * Keys used for lookups may share the caller's collections, while keys stored by the {@link MetricAggregator} must own
+ * theirs, see {@link #copy()}.
+ */
+final class SeriesKey {
+
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final String namespace;
+    private final String name;
+    private final Map<String, String> tags;
+    private final Collection<Aggregation> aggregations;
+    private final AggregationFrequency aggregationFrequency;
+    private final int hash;
+
+    SeriesKey(final String namespace, final String name, final Map<String, String> tags, final Collection<Aggregation> aggregations,
+              final AggregationFrequency aggregationFrequency) {
+        this.namespace = namespace;
+        this.name = name;
+        this.tags = tags != null ? tags : Collections.<String, String>emptyMap();
+        this.aggregations = aggregations;
+        this.aggregationFrequency = aggregationFrequency;
+        this.hash = computeHash();
+    }
+
+    /**
+     * Copies this key, along with its tags and aggregations.
+     *
+     * @return A key which doesn't share any collection with this one
+     */
+    SeriesKey copy() {
+        return new SeriesKey(namespace, name, new HashMap<String, String>(tags), EnumSet.copyOf(aggregations), aggregationFrequency);
+    }
+
+    String getNamespace() {
+        return namespace;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Map<String, String> getTags() {
+        return tags;
+    }
+
+    Collection<Aggregation> getAggregations() {
+        return aggregations;
+    }
+
+    AggregationFrequency getAggregationFrequency() {
+        return aggregationFrequency;
+    }
+
+    private int computeHash() {
+        int result = namespace != null ? namespace.hashCode() : 0;
+        result = HASH_MULTIPLIER * result + name.hashCode();
+        result = HASH_MULTIPLIER * result + tags.hashCode();
+        result = HASH_MULTIPLIER * result + aggregations.hashCode();
+        result = HASH_MULTIPLIER * result + aggregationFrequency.hashCode();
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SeriesKey)) {
+            return false;
+        }
+
+        SeriesKey other = (SeriesKey) o;
+        return hash == other.hash
+                && name.equals(other.name)
+                && aggregationFrequency == other.aggregationFrequency
+                && (namespace != null ? namespace.equals(other.namespace) : other.namespace == null)
+                && tags.equals(other.tags)
+                && aggregations.equals(other.aggregations);
+    }
+}
@@ -1,7 +1,10 @@
 package com.statful.client.core.api;
 
 import com.statful.client.core.config.DefaultClientConfiguration;
+import com.statful.client.domain.api.AdaptiveSampling;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.domain.api.OverflowPolicy;
+import com.statful.client.domain.api.SamplingMode;
 import com.statful.client.domain.api.Tags;
 import com.statful.client.domain.api.Transport;
 
@@ -152,6 +155,18 @@ public final class ConfigurationBuilder<T> {
         return this;
     }
 
+    /**
+     * Sets the maximum time a worker task waits for a worker before it expires instead of running. The metrics of an
+     * expired flush are spilled when there's a spill directory, and dropped otherwise.
+     *
+     * @param workerTaskDeadlineMillis Long representing the worker task deadline in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> workerTaskDeadline(final long workerTaskDeadlineMillis) {
+        this.result.setWorkerTaskDeadlineMillis(workerTaskDeadlineMillis);
+        return this;
+    }
+
     /**
      * Sets the flag to use HTTP or HTTPS
      *
@@ -401,6 +416,228 @@ public final class ConfigurationBuilder<T> {
         return this;
     }
 
+    /**
+     * Sets if timers, counters and gauges are aggregated by the client, sending only the aggregated values to Statful.
+     *
+     * @param clientSideAggregation Boolean to set client side aggregation
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> clientSideAggregation(final boolean clientSideAggregation) {
+        this.result.setClientSideAggregation(clientSideAggregation);
+        return this;
+    }
+
+    /**
+     * Sets the policy for metrics put while the buffer is full. Defaults to {@link OverflowPolicy#DROP_NEWEST}.
+     *
+     * @param overflowPolicy The {@link OverflowPolicy} to use
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> overflowPolicy(final OverflowPolicy overflowPolicy) {
+        if (overflowPolicy != null) {
+            this.result.setOverflowPolicy(overflowPolicy);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum time to block a thread putting a metric while the buffer is full, with the
+     * {@link OverflowPolicy#BLOCK_WITH_TIMEOUT} policy.
+     *
+     * @param overflowTimeoutMillis Long representing the overflow timeout in milliseconds
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> overflowTimeout(final long overflowTimeoutMillis) {
+        this.result.setOverflowTimeoutMillis(overflowTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of metrics of each buffer, the standard one and the one of each aggregation and aggregation
+     * frequency.
+     *
+     * @param bufferCapacity Integer representing the buffer capacity
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> bufferCapacity(final int bufferCapacity) {
+        this.result.setBufferCapacity(bufferCapacity);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes taken by the metrics of all buffers, which are full once it is exhausted. Defaults to
+     * zero, for no limit other than the buffer capacity.
+     *
+     * @param bufferMemoryBudget Long representing the buffer memory budget in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> bufferMemoryBudget(final long bufferMemoryBudget) {
+        this.result.setBufferMemoryBudget(bufferMemoryBudget);
+        return this;
+    }
+
+    /**
+     * Sets how metrics without a sampling key are sampled. Defaults to {@link SamplingMode#RANDOM}, while
+     * {@link SamplingMode#SERIES} keeps or drops all the metrics of a series together.
+     *
+     * @param samplingMode The {@link SamplingMode} to use
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> samplingMode(final SamplingMode samplingMode) {
+        if (samplingMode != null) {
+            this.result.setSamplingMode(samplingMode);
+        }
+        return this;
+    }
+
+    /**
+     * Sets how the sample rate of metrics is lowered while the buffers fill up or sending slows down, and raised again
+     * as they recover. Defaults to {@link AdaptiveSampling#DISABLED}.
+     *
+     * @param adaptiveSampling The {@link AdaptiveSampling} to use
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> adaptiveSampling(final AdaptiveSampling adaptiveSampling) {
+        if (adaptiveSampling != null) {
+            this.result.setAdaptiveSampling(adaptiveSampling);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the maximum payload size of the datagrams sent by the UDP transport, which packs the metric lines of each
+     * flush into as few datagrams as fit in it, without ever splitting a line. It should leave room for the IP and UDP
+     * headers within the path MTU, such as 1432 bytes for Ethernet or 8932 bytes for jumbo frames.
+     *
+     * @param udpPayloadSize The maximum payload size in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> udpPayloadSize(final int udpPayloadSize) {
+        this.result.setUdpPayloadSize(udpPayloadSize);
+        return this;
+    }
+
+    /**
+     * Sets the number of channels the UDP transport stripes across the worker threads, so that they don't all contend
+     * to write to the same one. Defaults to 0, which opens one channel per worker thread.
+     *
+     * @param udpChannels The number of UDP channels
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> udpChannels(final int udpChannels) {
+        this.result.setUdpChannels(udpChannels);
+        return this;
+    }
+
+    /**
+     * Sets if the HTTP transport compresses the request bodies with gzip, which it does on the worker threads, for
+     * the bodies of at least the compression threshold. Defaults to false.
+     *
+     * @param httpCompression A {@link Boolean} stating if the request bodies are compressed
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpCompression(final boolean httpCompression) {
+        this.result.setHttpCompression(httpCompression);
+        return this;
+    }
+
+    /**
+     * Sets the size from which the HTTP transport compresses the request bodies, if compression is enabled, as smaller
+     * bodies are sent uncompressed.
+     *
+     * @param httpCompressionThreshold The compression threshold in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpCompressionThreshold(final int httpCompressionThreshold) {
+        this.result.setHttpCompressionThreshold(httpCompressionThreshold);
+        return this;
+    }
+
+    /**
+     * Sets if the HTTP transport sends the requests with a non-blocking client, so that the worker threads only hand
+     * the requests over instead of waiting for their responses. Defaults to false.
+     *
+     * @param httpAsync A {@link Boolean} stating if the requests are sent without blocking
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpAsync(final boolean httpAsync) {
+        this.result.setHttpAsync(httpAsync);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests the non-blocking HTTP transport has in flight, as the flushes sent while
+     * that many requests wait for their responses are discarded. Defaults to 0, which is the connection pool size.
+     *
+     * @param httpMaxInFlightRequests The maximum number of requests in flight
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> httpMaxInFlightRequests(final int httpMaxInFlightRequests) {
+        this.result.setHttpMaxInFlightRequests(httpMaxInFlightRequests);
+        return this;
+    }
+
+    /**
+     * Sets if the metrics of templates and registered counters and gauges are buffered as their template, value and
+     * timestamp, so that the threads putting them don't format their lines, which the flushes do instead. Defaults to
+     * false.
+     *
+     * @param lazyEncoding A {@link Boolean} stating if the metric lines are formatted when flushed
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> lazyEncoding(final boolean lazyEncoding) {
+        this.result.setLazyEncoding(lazyEncoding);
+        return this;
+    }
+
+    /**
+     * Sets the number of bytes of direct memory preallocated as slabs to keep the metrics of all buffers off the heap,
+     * encoded in UTF-8, which are full once every slab is taken. Defaults to zero, for buffers on the heap.
+     *
+     * @param offHeapBufferBudget Long representing the off-heap buffer budget in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> offHeapBufferBudget(final long offHeapBufferBudget) {
+        this.result.setOffHeapBufferBudget(offHeapBufferBudget);
+        return this;
+    }
+
+    /**
+     * Sets the directory to spill the messages that couldn't be sent to, in memory-mapped segment files, to send them
+     * again at a bounded rate once sending succeeds. Defaults to null, which drops them.
+     *
+     * @param spillDirectory String representing the path of the spill directory
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spillDirectory(final String spillDirectory) {
+        this.result.setSpillDirectory(spillDirectory);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of bytes of the messages spilled to disk, beyond which further messages are dropped.
+     * Defaults to 256 MiB.
+     *
+     * @param spillMaxBytes Long representing the maximum spill size in bytes
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spillMaxBytes(final long spillMaxBytes) {
+        this.result.setSpillMaxBytes(spillMaxBytes);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of spilled messages sent again per second while sending succeeds. While it fails, a
+     * single message is sent per second to find out when it recovers. Defaults to 10.
+     *
+     * @param spillReplayRate Integer representing the spill replay rate in messages per second
+     * @return A reference to this configuration builder
+     */
+    public ConfigurationBuilder<T> spillReplayRate(final int spillReplayRate) {
+        this.result.setSpillReplayRate(spillReplayRate);
+        return this;
+    }
+
     /**
      * Builds the configuration and passed it to the {@link ConfigurationBuilderChain}
      * of type <code>T</code>.
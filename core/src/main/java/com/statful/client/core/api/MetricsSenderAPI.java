@@ -1,5 +1,7 @@
 package com.statful.client.core.api;
 
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.core.sender.Sampler;
 import com.statful.client.domain.api.*;
 
 import java.util.logging.Logger;
@@ -13,6 +15,53 @@ public final class MetricsSenderAPI implements SenderAPI {
     private static final Logger LOGGER = Logger.getLogger(MetricsSenderAPI.class.getName());
 
     private static final long TIMESTAMP_DIVIDER = 1000L;
+    private static final int MAX_SAMPLE_RATE = 100;
+
+    private static final MetricTemplate NO_OP_TEMPLATE = new MetricTemplate() {
+        @Override
+        public void send(final long value) {
+        }
+
+        @Override
+        public void send(final double value) {
+        }
+
+        @Override
+        public void send(final long value, final long timestamp) {
+        }
+
+        @Override
+        public void send(final double value, final long timestamp) {
+        }
+    };
+
+    private static final Counter NO_OP_COUNTER = new Counter() {
+        @Override
+        public void increment() {
+        }
+
+        @Override
+        public void increment(final long delta) {
+        }
+
+        @Override
+        public void unregister() {
+        }
+    };
+
+    private static final Gauge NO_OP_GAUGE = new Gauge() {
+        @Override
+        public void set(final long value) {
+        }
+
+        @Override
+        public void set(final double value) {
+        }
+
+        @Override
+        public void unregister() {
+        }
+    };
 
     private MetricsSenderProxy metricsSenderProxy;
     private boolean aggregated;
@@ -24,6 +73,7 @@ public final class MetricsSenderAPI implements SenderAPI {
     private Tags tags;
     private Integer sampleRate;
     private Long timestamp;
+    private String samplingKey;
     private Aggregations aggregations;
     private AggregationFrequency aggregationFrequency;
 
@@ -206,6 +256,12 @@ public final class MetricsSenderAPI implements SenderAPI {
         return this;
     }
 
+    @Override
+    public SenderAPI samplingKey(final String samplingKey) {
+        this.samplingKey = samplingKey;
+        return this;
+    }
+
     @Override
     public SenderAPI aggregation(final Aggregation aggregation) {
         withAggregation(aggregation);
@@ -247,10 +303,19 @@ public final class MetricsSenderAPI implements SenderAPI {
     public void send() {
         try {
             if (isValid()) {
+                boolean sampled = isSampled;
+                // A keyed metric is sampled by its key here, so it must not be sampled again at random
+                if (!sampled && samplingKey != null && sampleRate != null && sampleRate > 0) {
+                    if (!Sampler.isSampledIn(sampleRate, samplingKey)) {
+                        return;
+                    }
+                    sampled = true;
+                }
+
                 long unixTimestamp = timestamp != null ? timestamp : getUnixTimestamp();
 
                 metricsSenderProxy.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace,
-                        unixTimestamp, aggregated, isSampled);
+                        unixTimestamp, aggregated, sampled);
             } else {
                 LOGGER.warning("Unable to send metric because it's not valid. Please see the client documentation.");
             }
@@ -259,6 +324,42 @@ public final class MetricsSenderAPI implements SenderAPI {
         }
     }
 
+    @Override
+    public MetricTemplate template() {
+        if (!isTemplateValid()) {
+            LOGGER.warning("Unable to create a template because the metric is not valid. Please see the client documentation.");
+            return NO_OP_TEMPLATE;
+        }
+
+        EncodedMetric metric = new EncodedMetric(name, tags, aggregations, aggregationFrequency, sampleRate, namespace, aggregated, isSampled);
+        return new MetricsSenderTemplate(metricsSenderProxy, metric);
+    }
+
+    @Override
+    public Counter registerCounter() {
+        if (!isTemplateValid()) {
+            LOGGER.warning("Unable to register the counter because it's not valid. Please see the client documentation.");
+            return NO_OP_COUNTER;
+        }
+
+        return metricsSenderProxy.registerCounter(buildRegisteredMetric());
+    }
+
+    @Override
+    public Gauge registerGauge() {
+        if (!isTemplateValid()) {
+            LOGGER.warning("Unable to register the gauge because it's not valid. Please see the client documentation.");
+            return NO_OP_GAUGE;
+        }
+
+        return metricsSenderProxy.registerGauge(buildRegisteredMetric());
+    }
+
+    private EncodedMetric buildRegisteredMetric() {
+        // Every value is accounted for, so registered metrics are never sampled
+        return new EncodedMetric(name, tags, aggregations, aggregationFrequency, MAX_SAMPLE_RATE, namespace, aggregated, false);
+    }
+
     private SenderAPI withNamespace(final String namespace) {
         if (isStringSafe(namespace)) {
             this.namespace = namespace;
@@ -279,8 +380,12 @@ public final class MetricsSenderAPI implements SenderAPI {
         return isStringSafe(name) && isStringSafe(value);
     }
 
+    private boolean isTemplateValid() {
+        return isStringSafe(name) && (!aggregated || isAggregatedMetricValid());
+    }
+
     private boolean isAggregatedMetricValid() {
-        return aggregations.getAggregations().size() == 1;
+        return aggregations != null && aggregations.getAggregations().size() == 1;
     }
 
     private long getUnixTimestamp() {
@@ -1,11 +1,15 @@
 package com.statful.client.core.api;
 
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.core.sender.EncodedMetricsSender;
 import com.statful.client.domain.api.*;
 
 /**
  * Proxy class for a MetricsSender implementation. Has logic to handle aggregated metrics.
  */
 public class MetricsSenderProxy {
+    private static final long TIMESTAMP_DIVIDER = 1000L;
+
     private MetricsSender metricsSender;
 
     /**
@@ -49,4 +53,105 @@ public class MetricsSenderProxy {
             metricsSender.put(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
         }
     }
+
+    /**
+     * Proxies the putEncoded methods of the {@link EncodedMetricsSender} interface, falling back to the put methods
+     * of the {@link MetricsSender} interface when the proxied sender doesn't support pre-encoded metrics.
+     *
+     * @param metric    The {@link EncodedMetric} to put
+     * @param value     The value of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    public final void put(final EncodedMetric metric, final long value, final long timestamp) {
+        if (metricsSender instanceof EncodedMetricsSender) {
+            ((EncodedMetricsSender) metricsSender).putEncoded(metric, value, timestamp);
+        } else {
+            put(metric, Long.toString(value), timestamp);
+        }
+    }
+
+    /**
+     * Proxies the putEncoded methods of the {@link EncodedMetricsSender} interface, falling back to the put methods
+     * of the {@link MetricsSender} interface when the proxied sender doesn't support pre-encoded metrics.
+     *
+     * @param metric    The {@link EncodedMetric} to put
+     * @param value     The value of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    public final void put(final EncodedMetric metric, final double value, final long timestamp) {
+        if (metricsSender instanceof EncodedMetricsSender) {
+            ((EncodedMetricsSender) metricsSender).putEncoded(metric, value, timestamp);
+        } else {
+            put(metric, Double.toString(value), timestamp);
+        }
+    }
+
+    /**
+     * Proxies the registerCounter method of the {@link EncodedMetricsSender} interface, falling back to a
+     * {@link Counter} that puts every increment when the proxied sender doesn't support registered counters.
+     *
+     * @param metric The {@link EncodedMetric} the increments are put as
+     * @return A {@link Counter}
+     */
+    public final Counter registerCounter(final EncodedMetric metric) {
+        if (metricsSender instanceof EncodedMetricsSender) {
+            return ((EncodedMetricsSender) metricsSender).registerCounter(metric);
+        }
+
+        return new Counter() {
+            @Override
+            public void increment() {
+                increment(1);
+            }
+
+            @Override
+            public void increment(final long delta) {
+                put(metric, Long.toString(delta), getUnixTimestamp());
+            }
+
+            @Override
+            public void unregister() {
+                // Every increment is put right away, so there's nothing to drop
+            }
+        };
+    }
+
+    /**
+     * Proxies the registerGauge method of the {@link EncodedMetricsSender} interface, falling back to a
+     * {@link Gauge} that puts every value when the proxied sender doesn't support registered gauges.
+     *
+     * @param metric The {@link EncodedMetric} the values are put as
+     * @return A {@link Gauge}
+     */
+    public final Gauge registerGauge(final EncodedMetric metric) {
+        if (metricsSender instanceof EncodedMetricsSender) {
+            return ((EncodedMetricsSender) metricsSender).registerGauge(metric);
+        }
+
+        return new Gauge() {
+            @Override
+            public void set(final long value) {
+                put(metric, Long.toString(value), getUnixTimestamp());
+            }
+
+            @Override
+            public void set(final double value) {
+                put(metric, Double.toString(value), getUnixTimestamp());
+            }
+
+            @Override
+            public void unregister() {
+                // Every value is put right away, so there's nothing to drop
+            }
+        };
+    }
+
+    private static long getUnixTimestamp() {
+        return System.currentTimeMillis() / TIMESTAMP_DIVIDER;
+    }
+
+    private void put(final EncodedMetric metric, final String value, final long timestamp) {
+        put(metric.getName(), value, metric.getTags(), metric.getAggregations(), metric.getAggregationFrequency(),
+                metric.getSampleRate(), metric.getNamespace(), timestamp, metric.isAggregated(), metric.isSampled());
+    }
 }
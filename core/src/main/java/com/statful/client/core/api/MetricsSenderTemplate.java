@@ -0,0 +1,72 @@
+package com.statful.client.core.api;
+
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.domain.api.MetricTemplate;
+
+import java.util.logging.Logger;
+
+/**
+ * This class is an implementation of the {@link MetricTemplate}, which puts its {@link EncodedMetric} through a
+ * {@link MetricsSenderProxy}.
+ */
+final class MetricsSenderTemplate implements MetricTemplate {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsSenderTemplate.class.getName());
+
+    private static final long TIMESTAMP_DIVIDER = 1000L;
+
+    private final MetricsSenderProxy metricsSenderProxy;
+    private final EncodedMetric metric;
+
+    /**
+     * Default constructor.
+     *
+     * @param metricsSenderProxy The {@link MetricsSenderProxy} to send metrics
+     * @param metric The {@link EncodedMetric} to send
+     */
+    MetricsSenderTemplate(final MetricsSenderProxy metricsSenderProxy, final EncodedMetric metric) {
+        this.metricsSenderProxy = metricsSenderProxy;
+        this.metric = metric;
+    }
+
+    @Override
+    public void send(final long value) {
+        send(value, getUnixTimestamp());
+    }
+
+    @Override
+    public void send(final double value) {
+        send(value, getUnixTimestamp());
+    }
+
+    @Override
+    public void send(final long value, final long timestamp) {
+        try {
+            metricsSenderProxy.put(metric, value, timestamp);
+        } catch (Exception e) {
+            LOGGER.severe("An exception has occurred while sending the metric to Statful: " + e.toString());
+        }
+    }
+
+    @Override
+    public void send(final double value, final long timestamp) {
+        try {
+            metricsSenderProxy.put(metric, value, timestamp);
+        } catch (Exception e) {
+            LOGGER.severe("An exception has occurred while sending the metric to Statful: " + e.toString());
+        }
+    }
+
+    /**
+     * A getter for the template metric.
+     *
+     * @return The {@link EncodedMetric} sent by this template
+     */
+    EncodedMetric getMetric() {
+        return metric;
+    }
+
+    private long getUnixTimestamp() {
+        return System.currentTimeMillis() / TIMESTAMP_DIVIDER;
+    }
+}
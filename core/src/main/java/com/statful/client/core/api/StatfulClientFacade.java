@@ -1,5 +1,8 @@
 package com.statful.client.core.api;
 
+import com.statful.client.domain.api.Counter;
+import com.statful.client.domain.api.Gauge;
+import com.statful.client.domain.api.MetricTemplate;
 import com.statful.client.domain.api.SenderAPI;
 import com.statful.client.domain.api.SenderFacade;
 
@@ -28,4 +31,19 @@ public final class StatfulClientFacade implements SenderFacade {
     public void send() {
         senderAPI.send();
     }
+
+    @Override
+    public MetricTemplate template() {
+        return senderAPI.template();
+    }
+
+    @Override
+    public Counter registerCounter() {
+        return senderAPI.registerCounter();
+    }
+
+    @Override
+    public Gauge registerGauge() {
+        return senderAPI.registerGauge();
+    }
 }
@@ -1,21 +1,47 @@
 package com.statful.client.core.buffer;
 
+import com.statful.client.core.message.LineEncoder;
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.domain.api.MetricsBuffer;
+import com.statful.client.domain.api.OverflowPolicy;
 
-import java.util.*;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
- * Buffer to store aggregated metrics.
+ * Buffer to store aggregated metrics, with a {@link MpscRingBuffer} per aggregation and aggregation frequency so that
+ * adding metrics never takes a lock.
+ * <p>
+ * The buffers are kept in an array indexed by the ordinals of the aggregation and of the aggregation frequency, and
+ * are created on their first metric. Two bitmasks over the same indexes track which buffers were created and which
+ * ones may have metrics, so adding a metric and checking if it's time to flush are index operations that don't
+ * allocate. The bitmasks take as many words as the aggregations and aggregation frequencies need, so there's no limit
+ * on how many there are.
+ * <p>
+ * The metrics are either formatted lines or {@link com.statful.client.core.message.PendingLine}s, which are formatted
+ * when the buffers are read. Given a {@link SlabPool}, every buffer is a {@link SlabQueue} instead, which keeps the
+ * metrics encoded off the heap, in slabs taken from the pool they share.
  */
 public class AggregatedBuffer implements MetricsBuffer {
 
-    private Map<String, Map<String, ArrayBlockingQueue<String>>> buffer;
+    private static final Aggregation[] AGGREGATIONS = Aggregation.values();
+    private static final AggregationFrequency[] FREQUENCIES = AggregationFrequency.values();
+    private static final int BUFFER_COUNT = AGGREGATIONS.length * FREQUENCIES.length;
+    private static final int MASK_WORDS = (BUFFER_COUNT + Long.SIZE - 1) / Long.SIZE;
+
+    private final AtomicReferenceArray<BoundedQueue<CharSequence>> buffers;
+    private final AtomicLongArray createdMask = new AtomicLongArray(MASK_WORDS);
+    private final AtomicLongArray nonEmptyMask = new AtomicLongArray(MASK_WORDS);
     private int maxBufferSize;
     private int flushSize;
+    private final OverflowHandler overflowHandler;
+    private final SlabPool slabPool;
 
     /**
      * Constructor.
@@ -23,47 +49,86 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @param flushSize A {@link Integer} representing the flush size
      */
     public AggregatedBuffer(final int maxBufferSize, final int flushSize) {
-        this.buffer = new ConcurrentHashMap<>();
+        this(maxBufferSize, flushSize, OverflowPolicy.DROP_NEWEST, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while a buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     */
+    public AggregatedBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, MemoryBudget.unbounded());
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while a buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     * @param memoryBudget The {@link MemoryBudget} to take the bytes of the metrics from
+     */
+    public AggregatedBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                            final MemoryBudget memoryBudget) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, memoryBudget, null);
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while a buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     * @param slabPool The {@link SlabPool} to take the off-heap memory of the metrics from
+     */
+    public AggregatedBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                            final SlabPool slabPool) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, MemoryBudget.untracked(), slabPool);
+    }
+
+    private AggregatedBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                             final MemoryBudget memoryBudget, final SlabPool slabPool) {
+        this.buffers = new AtomicReferenceArray<>(BUFFER_COUNT);
         this.maxBufferSize = maxBufferSize;
         this.flushSize = flushSize;
+        this.overflowHandler = new OverflowHandler(overflowPolicy, overflowTimeoutMillis, memoryBudget);
+        this.slabPool = slabPool;
     }
 
     /**
-     * Get the current buffer.
-     * @return The {@link Map} current buffer.
+     * Get the buffer of an aggregation and aggregation frequency.
+     * @param aggregation The {@link Aggregation} of the buffer
+     * @param aggregationFrequency The {@link AggregationFrequency} of the buffer
+     * @return The {@link BoundedQueue} buffer, or null if no metric was ever added to it
      */
-    public final Map<String, Map<String, ArrayBlockingQueue<String>>> getBuffer() {
-        return buffer;
+    public final BoundedQueue<CharSequence> getBuffer(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        return buffers.get(indexOf(aggregation, aggregationFrequency));
     }
 
     /**
-     * Adds an aggregated metric to the buffer.
-     * @param metric The {@link String} metric name
+     * Adds an aggregated metric to the buffer, applying the overflow policy if it is full.
+     * @param metric The {@link CharSequence} metric line
      * @param aggregation The {@link com.statful.client.domain.api.Aggregation} aggregation of the metric
      * @param aggregationFrequency The {@link AggregationFrequency} aggregation freq of the metric
      * @return A {@link Boolean} with the success of the operation
      */
-    public final boolean addToBuffer(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation.toString());
-
-        ArrayBlockingQueue<String> aggregatedFreqBuffer;
-
-        if (aggregatedBuffer == null) {
-            aggregatedBuffer = new ConcurrentHashMap<>();
+    public final boolean addToBuffer(final CharSequence metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        int index = indexOf(aggregation, aggregationFrequency);
 
-            aggregatedFreqBuffer = new ArrayBlockingQueue<>(this.maxBufferSize);
-        } else {
-            aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFrequency.toString());
-
-            if (aggregatedFreqBuffer == null) {
-                aggregatedFreqBuffer = new ArrayBlockingQueue<>(this.maxBufferSize);
-            }
+        BoundedQueue<CharSequence> aggregatedFreqBuffer = buffers.get(index);
+        if (aggregatedFreqBuffer == null) {
+            aggregatedFreqBuffer = createBuffer(index);
         }
 
-        aggregatedBuffer.put(aggregationFrequency.toString(), aggregatedFreqBuffer);
-        buffer.put(aggregation.toString(), aggregatedBuffer);
+        if (!overflowHandler.offer(aggregatedFreqBuffer, metric)) {
+            return false;
+        }
 
-        return aggregatedFreqBuffer.offer(metric);
+        setBit(nonEmptyMask, index);
+        return true;
     }
 
     /**
@@ -73,29 +138,40 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link String} with all the metrics for a particular aggregation
      */
     public final String readBuffer(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation.toString());
-        ArrayBlockingQueue<String> aggregatedFreqBuffer;
-
-        if (aggregatedBuffer != null) {
-            aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFrequency.toString());
-
-            if (aggregatedFreqBuffer != null) {
-                Collection<String> messages = new ArrayList<String>();
-                aggregatedFreqBuffer.drainTo(messages, flushSize);
+        return LineEncoder.encode(drainBuffer(aggregation, aggregationFrequency));
+    }
 
-                StringBuilder sb = new StringBuilder();
-                for (String metric : messages) {
-                    sb.append(metric).append("\n");
+    /**
+     * Takes up to a flush of metrics out of the buffer of a particular aggregation, to be encoded by the caller.
+     * @param aggregation The {@link Aggregation} aggregation to inspect the buffer
+     * @param aggregationFrequency The {@link AggregationFrequency} aggregation frequency to inspect the buffer
+     * @return A {@link List} with the metric lines, in the order they were added, where consecutive lines may be
+     * joined when the buffers are off the heap
+     */
+    public final List<CharSequence> drainBuffer(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        int index = indexOf(aggregation, aggregationFrequency);
+        BoundedQueue<CharSequence> aggregatedFreqBuffer = buffers.get(index);
+
+        if (aggregatedFreqBuffer != null) {
+            List<CharSequence> messages = new ArrayList<CharSequence>();
+            aggregatedFreqBuffer.drainTo(messages, flushSize);
+
+            if (aggregatedFreqBuffer.isEmpty()) {
+                clearBit(nonEmptyMask, index);
+                // A metric may have been added between the check and the clear, which must keep the buffer flagged
+                if (!aggregatedFreqBuffer.isEmpty()) {
+                    setBit(nonEmptyMask, index);
                 }
+            }
 
-                if (sb.length() > 0) {
-                    sb.setLength(sb.length() - 1);
-                }
-                return sb.toString();
+            MemoryBudget memoryBudget = overflowHandler.getMemoryBudget();
+            for (CharSequence metric : messages) {
+                memoryBudget.release(metric);
             }
+            return messages;
         }
 
-        return "";
+        return Collections.emptyList();
     }
 
     /**
@@ -103,11 +179,12 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link Set} set with the current aggregations buffers
      */
     public final Set<Aggregation> getAggregations() {
-        Set<String> aggregationNames = buffer.keySet();
-        Set<Aggregation> aggregations = new HashSet<Aggregation>();
+        Set<Aggregation> aggregations = EnumSet.noneOf(Aggregation.class);
 
-        for (String aggregation : aggregationNames) {
-            aggregations.add(Aggregation.valueOf(aggregation));
+        for (int word = 0; word < MASK_WORDS; word++) {
+            for (long mask = createdMask.get(word); mask != 0; mask &= mask - 1) {
+                aggregations.add(AGGREGATIONS[indexOf(word, mask) / FREQUENCIES.length]);
+            }
         }
 
         return aggregations;
@@ -119,28 +196,51 @@ public class AggregatedBuffer implements MetricsBuffer {
      * @return A {@link Set} set with the current aggregations frequencies buffers
      */
     public final Set<AggregationFrequency> getAggregationFrequencies(final Aggregation aggregation) {
-        Map<String, ArrayBlockingQueue<String>> aggregationFreqBuffer = buffer.get(aggregation.toString());
+        Set<AggregationFrequency> aggregationFrequencies = EnumSet.noneOf(AggregationFrequency.class);
 
-        Set<AggregationFrequency> aggregationFrequencies = new HashSet<AggregationFrequency>();
-
-        if (aggregationFreqBuffer != null) {
-            for (String aggregationFreq : aggregationFreqBuffer.keySet()) {
-                aggregationFrequencies.add(AggregationFrequency.valueOf(aggregationFreq));
+        for (int word = 0; word < MASK_WORDS; word++) {
+            for (long mask = createdMask.get(word); mask != 0; mask &= mask - 1) {
+                int index = indexOf(word, mask);
+                if (index / FREQUENCIES.length == aggregation.ordinal()) {
+                    aggregationFrequencies.add(FREQUENCIES[index % FREQUENCIES.length]);
+                }
             }
         }
 
         return aggregationFrequencies;
     }
 
+    /**
+     * Gets the number of metrics dropped by the overflow policy since the last call, resetting it.
+     * @return A {@link Long} with the number of dropped metrics
+     */
+    public final long getAndResetDroppedMetrics() {
+        return overflowHandler.getAndResetDroppedMetrics();
+    }
+
+    /**
+     * Gets how full the fullest aggregation buffer is, either by its capacity or by the memory budget or off-heap
+     * slabs, whichever is fuller.
+     * @return A {@link Double} from 0 to 1
+     */
+    public final double getUsage() {
+        double usage = slabPool == null ? overflowHandler.getMemoryBudget().getUsage() : slabPool.getUsage();
+        for (int word = 0; word < MASK_WORDS; word++) {
+            for (long mask = nonEmptyMask.get(word); mask != 0; mask &= mask - 1) {
+                BoundedQueue<CharSequence> aggregatedFreqBuffer = buffers.get(indexOf(word, mask));
+                usage = Math.max(usage, (double) aggregatedFreqBuffer.size() / aggregatedFreqBuffer.capacity());
+            }
+        }
+        return usage;
+    }
+
     @Override
     public final boolean isTimeToFlush() {
-        Set<Aggregation> aggregations = getAggregations();
+        for (int word = 0; word < MASK_WORDS; word++) {
+            for (long mask = nonEmptyMask.get(word); mask != 0; mask &= mask - 1) {
+                int bufferSize = buffers.get(indexOf(word, mask)).size();
 
-        for (Aggregation aggregation : aggregations) {
-            Set<AggregationFrequency> aggregationFrequencies = getAggregationFrequencies(aggregation);
-
-            for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
-                if (isTimeToFlushAggregation(aggregation.toString(), aggregationFrequency.toString())) {
+                if (bufferSize > 0 && flushSize <= bufferSize) {
                     return true;
                 }
             }
@@ -149,27 +249,44 @@ public class AggregatedBuffer implements MetricsBuffer {
         return false;
     }
 
-    /**
-     * Validates if the buffer for a particular aggregation is considered ready to be flushed.
-     * @param aggregation An {@link Aggregation} aggregation
-     * @param aggregationFreq An {@link AggregationFrequency} aggregation frequency
-     * @return A {@link Boolean} stating if a particular aggregation buffer should be flushed
-     */
-    private boolean isTimeToFlushAggregation(final String aggregation, final String aggregationFreq) {
-        Map<String, ArrayBlockingQueue<String>> aggregatedBuffer = buffer.get(aggregation);
+    private BoundedQueue<CharSequence> createBuffer(final int index) {
+        BoundedQueue<CharSequence> created = slabPool == null
+                ? new MpscRingBuffer<CharSequence>(this.maxBufferSize)
+                : new SlabQueue(slabPool, this.maxBufferSize);
+        if (buffers.compareAndSet(index, null, created)) {
+            overflowHandler.getMemoryBudget().reserveSlots(this.maxBufferSize);
+            setBit(createdMask, index);
+            return created;
+        }
+        return buffers.get(index);
+    }
 
-        if (aggregatedBuffer != null) {
-            ArrayBlockingQueue<String> aggregatedFreqBuffer = aggregatedBuffer.get(aggregationFreq);
+    private static int indexOf(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        return aggregation.ordinal() * FREQUENCIES.length + aggregationFrequency.ordinal();
+    }
 
-            if (aggregatedFreqBuffer != null) {
-                int bufferSize = aggregatedFreqBuffer.size();
+    /**
+     * Gets the index of the lowest bit set in a word of a bitmask.
+     */
+    private static int indexOf(final int word, final long mask) {
+        return word * Long.SIZE + Long.numberOfTrailingZeros(mask);
+    }
 
-                if (bufferSize > 0 && flushSize <= bufferSize) {
-                    return true;
-                }
-            }
+    private static void setBit(final AtomicLongArray mask, final int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current = mask.get(word);
+        while ((current & bit) == 0 && !mask.compareAndSet(word, current, current | bit)) {
+            current = mask.get(word);
         }
+    }
 
-        return false;
+    private static void clearBit(final AtomicLongArray mask, final int index) {
+        int word = index / Long.SIZE;
+        long bit = 1L << index;
+        long current = mask.get(word);
+        while ((current & bit) != 0 && !mask.compareAndSet(word, current, current & ~bit)) {
+            current = mask.get(word);
+        }
     }
 }
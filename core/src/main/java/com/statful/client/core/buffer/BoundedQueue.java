@@ -0,0 +1,60 @@
+package com.statful.client.core.buffer;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A bounded queue that many threads add elements to, while a single one at a time takes them out, which is how the
+ * buffers keep their metrics.
+ *
+ * @param <E> The type of the elements
+ */
+public interface BoundedQueue<E> {
+
+    /**
+     * Adds an element to the queue, unless it is full.
+     * @param element The element, which can't be null
+     * @return A {@link Boolean} with the success of the operation
+     */
+    boolean offer(E element);
+
+    /**
+     * Takes up to a number of elements out of the queue, in the order they were added.
+     * @param target The {@link Collection} to add the elements to
+     * @param maxElements The maximum number of elements to take
+     * @return The number of elements taken
+     */
+    int drainTo(Collection<? super E> target, int maxElements);
+
+    /**
+     * Takes the oldest element out of the queue.
+     * @return The element, or null if the queue is empty
+     */
+    E poll();
+
+    /**
+     * Returns the number of elements in the queue, which is only an estimate while elements are being added or taken.
+     * @return The number of elements
+     */
+    int size();
+
+    /**
+     * Checks if the queue is empty.
+     * @return A {@link Boolean} stating if the queue is empty
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the capacity of the queue.
+     * @return The maximum number of elements of the queue
+     */
+    int capacity();
+
+    /**
+     * Copies the elements of the queue, without taking them.
+     * <p>
+     * The copy is only consistent when no elements are being added, so it is meant for tests and diagnostics.
+     * @return A {@link List} with the elements, in the order they were added
+     */
+    List<E> toList();
+}
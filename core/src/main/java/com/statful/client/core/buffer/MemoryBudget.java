@@ -0,0 +1,127 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.core.message.PendingLine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A budget of bytes shared by buffers, so that the memory they take is bounded as a whole rather than by the number of
+ * metrics of each one of them.
+ * <p>
+ * The size of a metric is estimated as the size of its characters, two bytes each, plus a fixed overhead for the
+ * {@link String} and its slot in the buffer, while a {@link PendingLine} takes the fixed size of the record, as it
+ * shares the template of its series. The slots of each buffer are also taken from the budget when the buffer is
+ * created, since they are allocated upfront.
+ * <p>
+ * Buffers whose metrics don't stay on the heap, such as the ones backed by a {@link SlabPool}, take an untracked
+ * budget, which doesn't count any bytes.
+ */
+public final class MemoryBudget {
+
+    private static final long BYTES_PER_CHAR = 2;
+    private static final long METRIC_OVERHEAD_BYTES = 64;
+    private static final long SLOT_BYTES = 8;
+    private static final long PENDING_LINE_BYTES = 40;
+
+    private final long maxBytes;
+    private final boolean tracked;
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * Constructor.
+     * @param maxBytes A {@link Long} representing the budget in bytes, or zero for a budget without limit
+     */
+    public MemoryBudget(final long maxBytes) {
+        this(maxBytes, true);
+    }
+
+    private MemoryBudget(final long maxBytes, final boolean tracked) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        this.tracked = tracked;
+    }
+
+    /**
+     * Creates a budget without limit.
+     * @return A {@link MemoryBudget} that never runs out
+     */
+    public static MemoryBudget unbounded() {
+        return new MemoryBudget(0);
+    }
+
+    /**
+     * Creates a budget without limit that doesn't count any bytes.
+     * @return A {@link MemoryBudget} that never runs out and always has zero bytes in use
+     */
+    public static MemoryBudget untracked() {
+        return new MemoryBudget(0, false);
+    }
+
+    /**
+     * Estimates the bytes a metric takes in a buffer.
+     * @param metric The {@link CharSequence} metric line
+     * @return A {@link Long} with the estimated size in bytes
+     */
+    public static long sizeOf(final CharSequence metric) {
+        if (metric instanceof PendingLine) {
+            return PENDING_LINE_BYTES;
+        }
+        return METRIC_OVERHEAD_BYTES + BYTES_PER_CHAR * metric.length();
+    }
+
+    /**
+     * Takes the bytes of a metric from the budget, unless there are not enough left.
+     * @param metric The {@link CharSequence} metric line
+     * @return A {@link Boolean} stating if the bytes were taken
+     */
+    public boolean tryAcquire(final CharSequence metric) {
+        if (!tracked) {
+            return true;
+        }
+
+        long bytes = sizeOf(metric);
+        long used;
+        do {
+            used = usedBytes.get();
+            if (used + bytes > maxBytes) {
+                return false;
+            }
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+        return true;
+    }
+
+    /**
+     * Gives the bytes of a metric back to the budget.
+     * @param metric The {@link CharSequence} metric line
+     */
+    public void release(final CharSequence metric) {
+        if (tracked) {
+            usedBytes.addAndGet(-sizeOf(metric));
+        }
+    }
+
+    /**
+     * Takes the bytes of the slots of a buffer from the budget, even if there are not enough left.
+     * @param slots The number of slots of the buffer
+     */
+    public void reserveSlots(final int slots) {
+        if (tracked) {
+            usedBytes.addAndGet(SLOT_BYTES * slots);
+        }
+    }
+
+    /**
+     * Gets the fraction of the budget in use.
+     * @return A {@link Double} from zero, when nothing is used or the budget has no limit, to one when it is exhausted
+     */
+    public double getUsage() {
+        return maxBytes == Long.MAX_VALUE ? 0 : Math.min(1, (double) usedBytes.get() / maxBytes);
+    }
+
+    /**
+     * Gets the bytes in use.
+     * @return A {@link Long} with the bytes in use
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+}
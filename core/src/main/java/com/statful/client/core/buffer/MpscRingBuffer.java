@@ -0,0 +1,218 @@
+package com.statful.client.core.buffer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, multi-producer single-consumer ring buffer.
+ * <p>
+ * Producers claim a slot by moving the producer index forward with a compare and set, and then publish their element
+ * into it, so offering never takes a lock. The capacity check reads a cached limit rather than the consumer index, which
+ * the producers only refresh when the cached limit says the buffer is full. The producer index, the cached limit and
+ * the consumer index are padded, so that producers and the consumer don't invalidate each other's cache lines.
+ * <p>
+ * There is a single consumer at a time: the methods that take elements out of the buffer are serialized by a lock,
+ * which the producers never take.
+ *
+ * @param <E> The type of the elements
+ */
+public final class MpscRingBuffer<E> implements BoundedQueue<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+
+    private final PaddedAtomicLong producerIndex = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong producerLimit;
+    private final PaddedAtomicLong consumerIndex = new PaddedAtomicLong(0);
+    private final Object consumerLock = new Object();
+
+    /**
+     * Constructor.
+     * @param capacity The maximum number of elements of the buffer
+     */
+    public MpscRingBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        int slotCount = Integer.highestOneBit(capacity);
+        if (slotCount < capacity) {
+            slotCount <<= 1;
+        }
+
+        this.capacity = capacity;
+        this.mask = slotCount - 1;
+        this.slots = new AtomicReferenceArray<E>(slotCount);
+        this.producerLimit = new PaddedAtomicLong(capacity);
+    }
+
+    /**
+     * Adds an element to the buffer, unless it is full.
+     * @param element The element, which can't be null
+     * @return A {@link Boolean} with the success of the operation
+     */
+    @Override
+    public boolean offer(final E element) {
+        if (element == null) {
+            throw new NullPointerException("Null elements are not supported");
+        }
+
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index >= producerLimit.get()) {
+                long limit = consumerIndex.get() + capacity;
+                if (index >= limit) {
+                    return false;
+                }
+                producerLimit.set(limit);
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+
+        slots.lazySet(slotOf(index), element);
+        return true;
+    }
+
+    /**
+     * Takes up to a number of elements out of the buffer, in the order they were added.
+     * @param target The {@link Collection} to add the elements to
+     * @param maxElements The maximum number of elements to take
+     * @return The number of elements taken
+     */
+    @Override
+    public int drainTo(final Collection<? super E> target, final int maxElements) {
+        synchronized (consumerLock) {
+            long index = consumerIndex.get();
+            int drained = 0;
+            while (drained < maxElements) {
+                E element = take(index);
+                if (element == null) {
+                    break;
+                }
+                target.add(element);
+                index++;
+                drained++;
+                consumerIndex.lazySet(index);
+            }
+            return drained;
+        }
+    }
+
+    /**
+     * Takes the oldest element out of the buffer.
+     * @return The element, or null if the buffer is empty
+     */
+    @Override
+    public E poll() {
+        synchronized (consumerLock) {
+            long index = consumerIndex.get();
+            E element = take(index);
+            if (element != null) {
+                consumerIndex.lazySet(index + 1);
+            }
+            return element;
+        }
+    }
+
+    /**
+     * Returns the number of elements in the buffer, which is only an estimate while elements are being added or taken.
+     * @return The number of elements
+     */
+    @Override
+    public int size() {
+        long consumer = consumerIndex.get();
+        long producer = producerIndex.get();
+        return (int) Math.max(0, Math.min(producer - consumer, capacity));
+    }
+
+    /**
+     * Checks if the buffer is empty.
+     * @return A {@link Boolean} stating if the buffer is empty
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns the capacity of the buffer.
+     * @return The maximum number of elements of the buffer
+     */
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Copies the elements of the buffer, without taking them.
+     * <p>
+     * The copy is only consistent when no elements are being added, so it is meant for tests and diagnostics.
+     * @return A {@link List} with the elements, in the order they were added
+     */
+    @Override
+    public List<E> toList() {
+        synchronized (consumerLock) {
+            long from = consumerIndex.get();
+            long to = producerIndex.get();
+            List<E> elements = new ArrayList<E>((int) (to - from));
+            for (long index = from; index < to; index++) {
+                E element = slots.get(slotOf(index));
+                if (element != null) {
+                    elements.add(element);
+                }
+            }
+            return elements;
+        }
+    }
+
+    /**
+     * Takes the element at an index, waiting for it to be published if its slot was already claimed by a producer.
+     */
+    private E take(final long index) {
+        int slot = slotOf(index);
+        E element = slots.get(slot);
+        if (element == null) {
+            if (index >= producerIndex.get()) {
+                return null;
+            }
+            // A producer claimed the slot but hasn't published into it yet, which only takes a few instructions
+            // unless the producer thread was descheduled in between
+            element = slots.get(slot);
+            while (element == null) {
+                Thread.yield();
+                element = slots.get(slot);
+            }
+        }
+        slots.lazySet(slot, null);
+        return element;
+    }
+
+    private int slotOf(final long index) {
+        return (int) index & mask;
+    }
+
+    /**
+     * An {@link AtomicLong} followed by enough padding to fill a cache line on its own.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
+
+        private long p1;
+        private long p2;
+        private long p3;
+        private long p4;
+        private long p5;
+        private long p6;
+        private long p7;
+
+        PaddedAtomicLong(final long initialValue) {
+            super(initialValue);
+        }
+    }
+}
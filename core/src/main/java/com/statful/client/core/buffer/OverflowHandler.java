@@ -0,0 +1,134 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.domain.api.OverflowPolicy;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Adds metrics to a {@link BoundedQueue} according to an {@link OverflowPolicy}, counting the metrics dropped
+ * rather than reporting each one of them.
+ * <p>
+ * A buffer is full either when it has no free slots or when the {@link MemoryBudget} it shares with other buffers is
+ * exhausted. The handler takes the bytes of the metrics it adds from the budget, and gives back the bytes of the
+ * metrics it evicts, while the buffer gives back the bytes of the metrics it reads.
+ */
+final class OverflowHandler {
+
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final double SAMPLE_DOWN_USAGE = 0.5;
+
+    private final OverflowPolicy overflowPolicy;
+    private final long overflowTimeoutNanos;
+    private final MemoryBudget memoryBudget;
+    private final AtomicLong droppedMetrics = new AtomicLong();
+
+    OverflowHandler(final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis, final MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget == null ? MemoryBudget.unbounded() : memoryBudget;
+        this.overflowPolicy = overflowPolicy == null ? OverflowPolicy.DROP_NEWEST : overflowPolicy;
+        this.overflowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, overflowTimeoutMillis));
+    }
+
+    /**
+     * Adds a metric to a buffer.
+     * @param buffer The {@link BoundedQueue} to add the metric to
+     * @param metric The {@link CharSequence} metric line
+     * @return A {@link Boolean} stating if the metric was added
+     */
+    boolean offer(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                return offerDroppingOldest(buffer, metric);
+            case SAMPLE_DOWN:
+                return offerSampled(buffer, metric);
+            case BLOCK_WITH_TIMEOUT:
+                return offerBlocking(buffer, metric);
+            default:
+                return offerOrDrop(buffer, metric);
+        }
+    }
+
+    /**
+     * Gets the number of metrics dropped since the last call, resetting it.
+     * @return The number of dropped metrics
+     */
+    long getAndResetDroppedMetrics() {
+        return droppedMetrics.getAndSet(0);
+    }
+
+    /**
+     * Gets the memory budget the handler takes the bytes of the metrics from.
+     * @return The {@link MemoryBudget}
+     */
+    MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    private boolean tryOffer(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        if (!memoryBudget.tryAcquire(metric)) {
+            return false;
+        }
+        if (buffer.offer(metric)) {
+            return true;
+        }
+        memoryBudget.release(metric);
+        return false;
+    }
+
+    private boolean offerOrDrop(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        if (tryOffer(buffer, metric)) {
+            return true;
+        }
+        droppedMetrics.incrementAndGet();
+        return false;
+    }
+
+    private boolean offerDroppingOldest(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        while (!tryOffer(buffer, metric)) {
+            CharSequence oldest = buffer.poll();
+            droppedMetrics.incrementAndGet();
+            if (oldest == null) {
+                // The budget is taken by other buffers, so there is nothing to evict for this metric
+                return false;
+            }
+            memoryBudget.release(oldest);
+        }
+        return true;
+    }
+
+    /**
+     * Above half of the capacity or of the budget, metrics are kept with a probability that falls linearly to none when
+     * either one of them is exhausted.
+     */
+    private boolean offerSampled(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        double usage = Math.max((double) buffer.size() / buffer.capacity(), memoryBudget.getUsage());
+
+        if (usage > SAMPLE_DOWN_USAGE
+                && ThreadLocalRandom.current().nextDouble() * (1 - SAMPLE_DOWN_USAGE) >= 1 - usage) {
+            droppedMetrics.incrementAndGet();
+            return false;
+        }
+        return offerOrDrop(buffer, metric);
+    }
+
+    private boolean offerBlocking(final BoundedQueue<CharSequence> buffer, final CharSequence metric) {
+        if (tryOffer(buffer, metric)) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + overflowTimeoutNanos;
+        long remaining = overflowTimeoutNanos;
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(Math.min(remaining, MAX_PARK_NANOS));
+            if (tryOffer(buffer, metric)) {
+                return true;
+            }
+            remaining = deadline - System.nanoTime();
+        }
+
+        droppedMetrics.incrementAndGet();
+        return false;
+    }
+}
@@ -0,0 +1,145 @@
+package com.statful.client.core.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fixed block of direct memory that metric lines are appended to, each one followed by a new line.
+ * <p>
+ * Producers claim the bytes of a line by moving the reserved position forward with a compare and set, copy the line
+ * into them, and then count them as committed, so appending never takes a lock. Once sealed, no more bytes can be
+ * reserved, and the slab can be read by the single consumer of its queue as soon as every reserved byte is committed.
+ * <p>
+ * A slab is only used once: when its memory is given back to the {@link SlabPool}, it stays sealed, so that a producer
+ * which read it as the current slab of its queue before it was sealed can never append to the memory once another slab
+ * took it.
+ */
+final class Slab {
+
+    private static final byte NEW_LINE = '\n';
+
+    private final ByteBuffer memory;
+    private final AtomicInteger reserved = new AtomicInteger();
+    private final AtomicInteger committed = new AtomicInteger();
+    private volatile int end = -1;
+    private int readPosition;
+
+    /**
+     * Constructor.
+     * @param memory The direct {@link ByteBuffer} to append the lines to
+     */
+    Slab(final ByteBuffer memory) {
+        this.memory = memory;
+    }
+
+    /**
+     * Gets the memory of the slab.
+     * @return The direct {@link ByteBuffer} the lines are appended to
+     */
+    ByteBuffer memory() {
+        return memory;
+    }
+
+    /**
+     * Appends a line followed by a new line, unless the slab has no room left for it or was sealed.
+     * @param line The {@link ByteBuffer} with the line from its position to its limit, which isn't consumed
+     * @return A {@link Boolean} stating if the line was appended
+     */
+    boolean append(final ByteBuffer line) {
+        int length = line.remaining() + 1;
+        int position;
+        do {
+            position = reserved.get();
+            if (position + length > memory.capacity()) {
+                return false;
+            }
+        } while (!reserved.compareAndSet(position, position + length));
+
+        ByteBuffer target = memory.duplicate();
+        target.position(position);
+        target.put(line.duplicate());
+        target.put(NEW_LINE);
+        committed.addAndGet(length);
+        return true;
+    }
+
+    /**
+     * Stops the slab from taking any more lines. Only one thread may seal a slab.
+     */
+    void seal() {
+        end = Math.min(reserved.getAndSet(memory.capacity() + 1), memory.capacity());
+    }
+
+    /**
+     * Checks if every line appended to the slab was read, which requires it to be sealed.
+     * @return A {@link Boolean} stating if the slab was read to its end
+     */
+    boolean isConsumed() {
+        int sealedEnd = end;
+        return sealedEnd >= 0 && readPosition >= sealedEnd;
+    }
+
+    /**
+     * Reads up to a number of lines of a sealed slab, from where the last read stopped.
+     * @param maxLines The maximum number of lines to read
+     * @param lines The number of lines read, at its first index
+     * @return The UTF-8 bytes of the lines read, separated by new lines and without a trailing one, or null if none
+     */
+    byte[] read(final int maxLines, final int[] lines) {
+        awaitCommitted();
+
+        int from = readPosition;
+        int to = from;
+        int count = 0;
+        while (count < maxLines && to < end) {
+            if (memory.get(to++) == NEW_LINE) {
+                count++;
+            }
+        }
+
+        lines[0] = count;
+        if (count == 0) {
+            return null;
+        }
+
+        readPosition = to;
+        byte[] bytes = new byte[to - from - 1];
+        ByteBuffer source = memory.duplicate();
+        source.position(from);
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Copies the bytes of the lines committed and not read yet, without reading them.
+     * @return The UTF-8 bytes, each line followed by a new line
+     */
+    byte[] peek() {
+        int sealedEnd = end;
+        int to = sealedEnd >= 0 ? sealedEnd : Math.min(committed.get(), memory.capacity());
+        byte[] bytes = new byte[Math.max(0, to - readPosition)];
+        ByteBuffer source = memory.duplicate();
+        source.position(readPosition);
+        source.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Checks if any byte was reserved.
+     * @return A {@link Boolean} stating if the slab is unused
+     */
+    boolean isUnused() {
+        return reserved.get() == 0;
+    }
+
+    /**
+     * Waits for the lines of a sealed slab whose bytes were reserved to be committed.
+     */
+    private void awaitCommitted() {
+        // A producer that reserved bytes only has to copy its line into them, which takes a few instructions unless
+        // the producer thread was descheduled in between
+        while (committed.get() < end) {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.statful.client.core.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A budget of direct memory shared by off-heap buffers, preallocated as slabs of the same size which the buffers take
+ * to append metric lines to and give back once they are read.
+ * <p>
+ * Every slab is allocated upfront, so the memory the buffers take never grows beyond the budget and the metrics they
+ * keep are neither on the heap nor scanned by the garbage collector. The budget is split into slabs of up to 64 KiB,
+ * and into at least sixteen of them when it's large enough for slabs of 4 KiB or more.
+ */
+public final class SlabPool {
+
+    private static final int MAX_SLAB_BYTES = 65536;
+    private static final int MIN_SLAB_BYTES = 4096;
+    private static final int MIN_SLABS = 16;
+
+    private final int slabBytes;
+    private final int slabCount;
+    private final Queue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger freeSlabCount = new AtomicInteger();
+
+    /**
+     * Constructor.
+     * @param maxBytes A {@link Long} representing the budget in bytes, which must be positive
+     */
+    public SlabPool(final long maxBytes) {
+        this(maxBytes, (int) Math.min(maxBytes, Math.min(MAX_SLAB_BYTES, Math.max(MIN_SLAB_BYTES, maxBytes / MIN_SLABS))));
+    }
+
+    /**
+     * Constructor.
+     * @param maxBytes A {@link Long} representing the budget in bytes, which must be positive
+     * @param slabBytes An {@link Integer} representing the size of each slab in bytes, which must be positive
+     */
+    public SlabPool(final long maxBytes, final int slabBytes) {
+        if (maxBytes < 1 || slabBytes < 1) {
+            throw new IllegalArgumentException("The off-heap budget and the slab size must be positive");
+        }
+
+        this.slabBytes = slabBytes;
+        this.slabCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / slabBytes));
+        for (int i = 0; i < slabCount; i++) {
+            freeSlabs.add(ByteBuffer.allocateDirect(slabBytes));
+        }
+        freeSlabCount.set(slabCount);
+    }
+
+    /**
+     * Takes a free slab.
+     * @return A new {@link Slab} over free memory, or null if every slab is taken
+     */
+    Slab acquire() {
+        ByteBuffer memory = freeSlabs.poll();
+        if (memory == null) {
+            return null;
+        }
+        freeSlabCount.decrementAndGet();
+        return new Slab(memory);
+    }
+
+    /**
+     * Gives the memory of a slab back, which must not be appended to or read from anymore.
+     * @param slab The {@link Slab} to give back
+     */
+    void release(final Slab slab) {
+        freeSlabCount.incrementAndGet();
+        freeSlabs.offer(slab.memory());
+    }
+
+    /**
+     * Gets the size of each slab, which is also the longest line that can be kept, with its new line.
+     * @return The size in bytes
+     */
+    public int getSlabBytes() {
+        return slabBytes;
+    }
+
+    /**
+     * Gets the number of slabs.
+     * @return The number of slabs
+     */
+    public int getSlabCount() {
+        return slabCount;
+    }
+
+    /**
+     * Gets the fraction of the slabs taken.
+     * @return A {@link Double} from zero, when every slab is free, to one when every slab is taken
+     */
+    public double getUsage() {
+        return Math.max(0, Math.min(1, 1 - (double) freeSlabCount.get() / slabCount));
+    }
+}
@@ -0,0 +1,228 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.core.message.EncodedLines;
+import com.statful.client.core.message.LineEncoder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A bounded queue of metric lines kept off the heap, encoded in UTF-8 into slabs taken from a {@link SlabPool}.
+ * <p>
+ * Lines are appended to the current slab of the queue, so offering a line only encodes it and copies it, without
+ * keeping any object for it. Once the current slab is full, it is sealed and queued to be read, and the next line
+ * takes a new slab from the pool. The queue is full when it holds as many lines as its capacity, or when its current
+ * slab is full and the pool has no free slabs left.
+ * <p>
+ * Slabs are append-only: they are read in the order they were sealed and given back to the pool once every line in
+ * them is read. Reading seals the current slab when there's nothing else left to read, so that the lines appended
+ * since the last read are never held back until it fills up, and leaves the queue without a current slab until its
+ * next line, so that idle queues hold no slabs.
+ * <p>
+ * The lines read are copied out of the slabs, as {@link EncodedLines} holding as many consecutive lines of a slab as
+ * they can, so that slabs are given back as soon as they are read. Lines longer than a slab can't be kept.
+ * <p>
+ * There is a single consumer at a time: the methods that take lines out of the queue are serialized by a lock, which
+ * the producers never take.
+ */
+public final class SlabQueue implements BoundedQueue<CharSequence> {
+
+    private final SlabPool slabPool;
+    private final int capacity;
+    private final AtomicReference<Slab> currentSlab = new AtomicReference<Slab>();
+    private final Queue<Slab> sealedSlabs = new ConcurrentLinkedQueue<Slab>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final Object consumerLock = new Object();
+
+    /**
+     * Constructor.
+     * @param slabPool The {@link SlabPool} to take the slabs from
+     * @param capacity The maximum number of lines of the queue
+     */
+    public SlabQueue(final SlabPool slabPool, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        this.slabPool = slabPool;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(final CharSequence line) {
+        if (line == null) {
+            throw new NullPointerException("Null elements are not supported");
+        }
+
+        int lines;
+        do {
+            lines = size.get();
+            if (lines >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(lines, lines + 1));
+
+        if (append(line)) {
+            return true;
+        }
+        size.decrementAndGet();
+        return false;
+    }
+
+    /**
+     * Takes up to a number of lines out of the queue, in the order they were added.
+     * <p>
+     * Consecutive lines of a slab are taken as a single {@link EncodedLines}, so fewer elements than lines may be added
+     * to the target.
+     * @param target The {@link Collection} to add the lines to
+     * @param maxElements The maximum number of lines to take
+     * @return The number of lines taken
+     */
+    @Override
+    public int drainTo(final Collection<? super CharSequence> target, final int maxElements) {
+        synchronized (consumerLock) {
+            int drained = 0;
+            int[] lines = new int[1];
+            while (drained < maxElements) {
+                Slab slab = nextSlab();
+                if (slab == null) {
+                    break;
+                }
+
+                byte[] bytes = slab.read(maxElements - drained, lines);
+                if (bytes != null) {
+                    target.add(new EncodedLines(bytes));
+                    drained += lines[0];
+                    size.addAndGet(-lines[0]);
+                }
+                releaseIfConsumed(slab);
+            }
+            return drained;
+        }
+    }
+
+    @Override
+    public CharSequence poll() {
+        List<CharSequence> oldest = new ArrayList<CharSequence>(1);
+        return drainTo(oldest, 1) == 0 ? null : oldest.get(0);
+    }
+
+    @Override
+    public int size() {
+        return Math.max(0, Math.min(size.get(), capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public List<CharSequence> toList() {
+        synchronized (consumerLock) {
+            List<CharSequence> lines = new ArrayList<CharSequence>();
+            for (Slab slab : sealedSlabs) {
+                addLines(lines, slab.peek());
+            }
+            Slab slab = currentSlab.get();
+            if (slab != null) {
+                addLines(lines, slab.peek());
+            }
+            return lines;
+        }
+    }
+
+    private boolean append(final CharSequence line) {
+        ByteBuffer bytes = LineEncoder.encodeUtf8(line);
+        if (bytes.remaining() >= slabPool.getSlabBytes()) {
+            return false;
+        }
+
+        Slab slab = currentSlab.get();
+        while (slab == null || !slab.append(bytes)) {
+            Slab next = rotate(slab);
+            if (next == null) {
+                return false;
+            }
+            slab = next;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces a slab as the current one by a free slab, sealing it and queueing it to be read.
+     * @param expected The current {@link Slab}, or null if there's none
+     * @return The new current {@link Slab}, which a concurrent rotation may have set, or null if the pool has no free
+     * slabs left
+     */
+    private Slab rotate(final Slab expected) {
+        Slab next = slabPool.acquire();
+        if (replace(expected, next)) {
+            return next;
+        }
+
+        if (next != null) {
+            slabPool.release(next);
+        }
+        return currentSlab.get();
+    }
+
+    private boolean replace(final Slab expected, final Slab next) {
+        if (!currentSlab.compareAndSet(expected, next)) {
+            return false;
+        }
+        if (expected != null) {
+            expected.seal();
+            sealedSlabs.offer(expected);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the oldest slab with lines left to read, sealing the current one if it's the only one left.
+     */
+    private Slab nextSlab() {
+        Slab slab = sealedSlabs.peek();
+        if (slab != null) {
+            return slab;
+        }
+
+        Slab current = currentSlab.get();
+        if (current == null || current.isUnused()) {
+            return null;
+        }
+
+        // The next line takes a new slab, so that a queue doesn't hold on to a slab while there are no lines to add to it
+        replace(current, null);
+        return sealedSlabs.peek();
+    }
+
+    private void releaseIfConsumed(final Slab slab) {
+        if (slab.isConsumed()) {
+            sealedSlabs.poll();
+            slabPool.release(slab);
+        }
+    }
+
+    private static void addLines(final List<CharSequence> lines, final byte[] bytes) {
+        int from = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                lines.add(new String(bytes, from, i - from, StandardCharsets.UTF_8));
+                from = i + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package com.statful.client.core.buffer;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.logging.Logger;
+
+/**
+ * A bounded queue of messages kept on disk, in memory-mapped segment files of a directory, to hold the messages that
+ * couldn't be sent while Statful or the network is down until they can be sent again.
+ * <p>
+ * Messages are appended to the newest segment, and a new segment is created once it's full, up to as many segments
+ * as fit in the maximum size of the queue. Messages are read from the oldest segment, and segments are deleted once
+ * every message in them is read. The queue is full when the newest segment has no room left for a message and no more
+ * segments can be created, in which case the message is dropped.
+ * <p>
+ * Every segment starts with a header holding the position it was read up to, and each message is written with the
+ * uri it was sent to, as a record whose length is written last, so that a record is only read once it's complete.
+ * The segments left by a previous queue on the same directory are read back when the queue is created, so that the
+ * messages of an application that restarts during an outage are not lost. The mapped memory is written to disk by the
+ * operating system, and forced to it when the queue is closed.
+ * <p>
+ * A queue locks its directory with a lock file until it's closed, so that no other queue, of this process or of
+ * another one, replays the same messages or writes to the same segments. Segments are unmapped when they are deleted
+ * and when the queue is closed, rather than when they are garbage collected, as a mapped file can't be deleted on some
+ * operating systems.
+ * <p>
+ * Since the messages are kept in mapped files, they take neither heap nor direct memory of their own.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+public final class SpillQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(SpillQueue.class.getName());
+
+    private static final int MAGIC = 0x53544631;
+    private static final int READ_POSITION_OFFSET = 4;
+    private static final int HEADER_BYTES = 8;
+    private static final int LENGTH_BYTES = 4;
+    private static final int URI_LENGTH_BYTES = 2;
+    private static final int RECORD_HEADER_BYTES = LENGTH_BYTES + URI_LENGTH_BYTES;
+    private static final int MAX_SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int MIN_SEGMENT_BYTES = 1024 * 1024;
+    private static final int MIN_SEGMENTS = 16;
+    private static final String SEGMENT_PREFIX = "statful-spill-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = "statful-spill.lock";
+
+    private final File directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+    private final FileChannel lockChannel;
+    private long nextSegmentId;
+    private int size;
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param directory The directory to keep the segments in, which is created if it doesn't exist
+     * @param maxBytes A {@link Long} representing the maximum size of the queue in bytes
+     * @throws IOException If the directory or its segments can't be read or written, or if it's locked by another queue
+     */
+    public SpillQueue(final File directory, final long maxBytes) throws IOException {
+        this(directory, maxBytes, (int) Math.min(maxBytes, Math.min(MAX_SEGMENT_BYTES, Math.max(MIN_SEGMENT_BYTES, maxBytes / MIN_SEGMENTS))));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directory The directory to keep the segments in, which is created if it doesn't exist
+     * @param maxBytes A {@link Long} representing the maximum size of the queue in bytes
+     * @param segmentBytes An {@link Integer} representing the size of each segment in bytes
+     * @throws IOException If the directory or its segments can't be read or written, or if it's locked by another queue
+     */
+    public SpillQueue(final File directory, final long maxBytes, final int segmentBytes) throws IOException {
+        if (maxBytes < 1 || segmentBytes <= HEADER_BYTES + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("The spill size and the segment size must be positive");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the spill directory " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes));
+        this.lockChannel = lock(directory);
+        try {
+            recover();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if a message is small enough to be appended, whether or not the queue has room for it.
+     *
+     * @param message The {@link ByteBuffer} with the message from its position to its limit
+     * @param uri The uri the message is sent to, or null if it's sent to the standard endpoint
+     * @return A {@link Boolean} stating if the record of the message fits in a segment
+     */
+    public boolean fits(final ByteBuffer message, final String uri) {
+        int uriBytes = uri == null ? 0 : uri.getBytes(StandardCharsets.UTF_8).length;
+        return uriBytes <= Short.MAX_VALUE && RECORD_HEADER_BYTES + uriBytes + message.remaining() <= segmentBytes - HEADER_BYTES;
+    }
+
+    /**
+     * Appends a message, unless the queue is full or closed, or the message doesn't {@link #fits fit} in a segment.
+     *
+     * @param message The {@link ByteBuffer} with the message from its position to its limit, which isn't consumed
+     * @param uri The uri the message is sent to, or null if it's sent to the standard endpoint
+     * @return A {@link Boolean} stating if the message was appended
+     */
+    public synchronized boolean offer(final ByteBuffer message, final String uri) {
+        if (closed || !fits(message, uri)) {
+            return false;
+        }
+        byte[] uriBytes = uri == null ? new byte[0] : uri.getBytes(StandardCharsets.UTF_8);
+        int recordBytes = RECORD_HEADER_BYTES + uriBytes.length + message.remaining();
+
+        Segment tail = segments.peekLast();
+        if (tail == null || !tail.hasRoomFor(recordBytes)) {
+            while (!segments.isEmpty() && segments.peekFirst().isConsumed()) {
+                removeHead();
+            }
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            try {
+                tail = createSegment();
+            } catch (IOException e) {
+                LOGGER.warning("Unable to create a spill segment: " + e.toString());
+                return false;
+            }
+        }
+
+        tail.append(uriBytes, message);
+        size++;
+        return true;
+    }
+
+    /**
+     * Takes the oldest message out of the queue.
+     *
+     * @return The oldest {@link SpilledMessage}, or null if the queue is empty or closed
+     */
+    public synchronized SpilledMessage poll() {
+        // Only the newest segment can be read to its end and kept, since older ones are deleted once they are
+        Segment head = segments.peekFirst();
+        if (head == null || head.isConsumed()) {
+            return null;
+        }
+
+        size--;
+        SpilledMessage message = head.read();
+        if (head.isConsumed() && head != segments.peekLast()) {
+            removeHead();
+        }
+        return message;
+    }
+
+    /**
+     * Gets the number of messages in the queue.
+     *
+     * @return The number of messages
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the queue has no messages.
+     *
+     * @return A {@link Boolean} stating if the queue is empty
+     */
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Forces the segments to disk, unmaps them and unlocks the directory, so that another queue can read them back. The
+     * queue is empty once it's closed, and neither appends nor reads messages anymore.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (Segment segment : segments) {
+            segment.memory.force();
+            segment.release();
+        }
+        segments.clear();
+        size = 0;
+
+        try {
+            // Closing the channel releases its lock
+            lockChannel.close();
+        } catch (IOException e) {
+            LOGGER.warning("Unable to unlock the spill directory " + directory + ": " + e.toString());
+        }
+    }
+
+    private static FileChannel lock(final File directory) throws IOException {
+        FileChannel channel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        if (lock == null) {
+            channel.close();
+            throw new IOException("The spill directory " + directory + " is locked by another client");
+        }
+        return channel;
+    }
+
+    private void recover() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        if (files == null) {
+            throw new IOException("Unable to list the spill directory " + directory);
+        }
+
+        Arrays.sort(files);
+        for (File file : files) {
+            long id = segmentId(file);
+            if (id < 0) {
+                continue;
+            }
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            Segment segment = Segment.open(file);
+            if (segment == null) {
+                LOGGER.warning("Ignoring the invalid spill segment " + file);
+                continue;
+            }
+            if (segment.isConsumed()) {
+                segment.release();
+                delete(file);
+            } else {
+                segments.addLast(segment);
+                size += segment.count();
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        File file = new File(directory, String.format("%s%016d%s", SEGMENT_PREFIX, nextSegmentId++, SEGMENT_SUFFIX));
+        Segment segment = Segment.create(file, segmentBytes);
+        segments.addLast(segment);
+        return segment;
+    }
+
+    private void removeHead() {
+        Segment head = segments.pollFirst();
+        head.release();
+        delete(head.file);
+    }
+
+    private static void delete(final File file) {
+        if (!file.delete()) {
+            LOGGER.warning("Unable to delete the spill segment " + file);
+        }
+    }
+
+    private static long segmentId(final File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A message taken out of a {@link SpillQueue}.
+     */
+    public static final class SpilledMessage {
+
+        private final byte[] message;
+        private final String uri;
+
+        SpilledMessage(final byte[] message, final String uri) {
+            this.message = message;
+            this.uri = uri;
+        }
+
+        /**
+         * Gets the message.
+         *
+         * @return The bytes of the message, as they were appended
+         */
+        public byte[] getMessage() {
+            return message;
+        }
+
+        /**
+         * Gets the uri the message is sent to.
+         *
+         * @return The uri, or null if the message is sent to the standard endpoint
+         */
+        public String getUri() {
+            return uri;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file, whose records are read and appended by the queue while holding its lock.
+     */
+    private static final class Segment {
+
+        private final File file;
+        private final MappedByteBuffer memory;
+        private int readPosition;
+        private int writePosition;
+
+        private Segment(final File file, final MappedByteBuffer memory) {
+            this.file = file;
+            this.memory = memory;
+        }
+
+        static Segment create(final File file, final int segmentBytes) throws IOException {
+            Segment segment = new Segment(file, map(file, segmentBytes));
+            segment.memory.putInt(0, MAGIC);
+            segment.memory.putInt(READ_POSITION_OFFSET, HEADER_BYTES);
+            segment.readPosition = HEADER_BYTES;
+            segment.writePosition = HEADER_BYTES;
+            return segment;
+        }
+
+        static Segment open(final File file) throws IOException {
+            if (file.length() <= HEADER_BYTES || file.length() > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            Segment segment = new Segment(file, map(file, (int) file.length()));
+            int readPosition = segment.memory.getInt(READ_POSITION_OFFSET);
+            if (segment.memory.getInt(0) != MAGIC || readPosition < HEADER_BYTES || readPosition > segment.memory.capacity()) {
+                segment.release();
+                return null;
+            }
+
+            int position = HEADER_BYTES;
+            int length = segment.recordLength(position);
+            while (length > 0) {
+                position += LENGTH_BYTES + length;
+                length = segment.recordLength(position);
+            }
+            segment.writePosition = position;
+            segment.readPosition = Math.min(readPosition, position);
+            return segment;
+        }
+
+        private static MappedByteBuffer map(final File file, final int bytes) throws IOException {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            } finally {
+                randomAccessFile.close();
+            }
+        }
+
+        /**
+         * Unmaps the segment, which can't be read nor appended to afterwards.
+         */
+        void release() {
+            Unmapper.unmap(memory);
+        }
+
+        boolean hasRoomFor(final int recordBytes) {
+            return writePosition + recordBytes <= memory.capacity();
+        }
+
+        boolean isConsumed() {
+            return readPosition >= writePosition;
+        }
+
+        int count() {
+            int count = 0;
+            for (int position = readPosition; position < writePosition; position += LENGTH_BYTES + recordLength(position)) {
+                count++;
+            }
+            return count;
+        }
+
+        void append(final byte[] uriBytes, final ByteBuffer message) {
+            ByteBuffer target = memory.duplicate();
+            target.position(writePosition + LENGTH_BYTES);
+            target.putShort((short) uriBytes.length);
+            target.put(uriBytes);
+            target.put(message.duplicate());
+
+            int length = target.position() - writePosition - LENGTH_BYTES;
+            // The length marks the record as complete, so it's written once the rest of the record is
+            memory.putInt(writePosition, length);
+            writePosition = target.position();
+        }
+
+        SpilledMessage read() {
+            int length = recordLength(readPosition);
+            ByteBuffer source = memory.duplicate();
+            source.position(readPosition + LENGTH_BYTES);
+
+            byte[] uriBytes = new byte[source.getShort()];
+            source.get(uriBytes);
+            byte[] message = new byte[length - uriBytes.length - URI_LENGTH_BYTES];
+            source.get(message);
+
+            readPosition = source.position();
+            memory.putInt(READ_POSITION_OFFSET, readPosition);
+            return new SpilledMessage(message, uriBytes.length == 0 ? null : new String(uriBytes, StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Gets the length of the record at a position, which is zero past the last complete record.
+         */
+        private int recordLength(final int position) {
+            if (position + RECORD_HEADER_BYTES > memory.capacity()) {
+                return 0;
+            }
+            int length = memory.getInt(position);
+            return length >= URI_LENGTH_BYTES && position + LENGTH_BYTES + length <= memory.capacity() ? length : 0;
+        }
+    }
+
+    /**
+     * Unmaps mapped buffers right away, through the cleaner of the JDK, which is only reachable by reflection. When it
+     * isn't reachable, buffers are left to be unmapped when they are garbage collected.
+     */
+    private static final class Unmapper {
+
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                unsafe = theUnsafe.get(null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        private Unmapper() {
+        }
+
+        static void unmap(final MappedByteBuffer buffer) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                } else {
+                    // Java 7 and 8
+                    Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                    cleanerMethod.setAccessible(true);
+                    Object cleaner = cleanerMethod.invoke(buffer);
+                    if (cleaner != null) {
+                        cleaner.getClass().getMethod("clean").invoke(cleaner);
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.fine("Unable to unmap a spill segment, it's unmapped once garbage collected: " + e.toString());
+            }
+        }
+    }
+}
@@ -1,19 +1,26 @@
 package com.statful.client.core.buffer;
 
+import com.statful.client.core.message.LineEncoder;
 import com.statful.client.domain.api.MetricsBuffer;
+import com.statful.client.domain.api.OverflowPolicy;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.List;
 
 /**
- * Buffer to store metrics.
+ * Buffer to store metrics, backed by a {@link MpscRingBuffer} so that adding metrics never takes a lock.
+ * <p>
+ * The metrics are either formatted lines or {@link com.statful.client.core.message.PendingLine}s, which are formatted
+ * when the buffer is read. Given a {@link SlabPool}, the buffer is backed by a {@link SlabQueue} instead, which keeps
+ * the metrics encoded off the heap.
  */
 public class StandardBuffer implements MetricsBuffer {
 
-    private ArrayBlockingQueue<String> buffer;
+    private BoundedQueue<CharSequence> buffer;
     private int maxBufferSize;
     private int flushSize;
+    private final OverflowHandler overflowHandler;
+    private final SlabPool slabPool;
 
     /**
      * Constructor.
@@ -21,26 +28,75 @@ public class StandardBuffer implements MetricsBuffer {
      * @param flushSize A {@link Integer} representing the flush size
      */
     public StandardBuffer(final int maxBufferSize, final int flushSize) {
+        this(maxBufferSize, flushSize, OverflowPolicy.DROP_NEWEST, 0);
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while the buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     */
+    public StandardBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, MemoryBudget.unbounded());
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while the buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     * @param memoryBudget The {@link MemoryBudget} to take the bytes of the metrics from
+     */
+    public StandardBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                          final MemoryBudget memoryBudget) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, memoryBudget, null);
+    }
+
+    /**
+     * Constructor.
+     * @param maxBufferSize A {@link Integer} representing the max buffer size
+     * @param flushSize A {@link Integer} representing the flush size
+     * @param overflowPolicy The {@link OverflowPolicy} for metrics added while the buffer is full
+     * @param overflowTimeoutMillis A {@link Long} representing the overflow timeout in milliseconds
+     * @param slabPool The {@link SlabPool} to take the off-heap memory of the metrics from
+     */
+    public StandardBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                          final SlabPool slabPool) {
+        this(maxBufferSize, flushSize, overflowPolicy, overflowTimeoutMillis, MemoryBudget.untracked(), slabPool);
+    }
+
+    private StandardBuffer(final int maxBufferSize, final int flushSize, final OverflowPolicy overflowPolicy, final long overflowTimeoutMillis,
+                           final MemoryBudget memoryBudget, final SlabPool slabPool) {
+        this.overflowHandler = new OverflowHandler(overflowPolicy, overflowTimeoutMillis, memoryBudget);
+        this.slabPool = slabPool;
         this.maxBufferSize = maxBufferSize;
         this.flushSize = flushSize;
-        this.buffer = new ArrayBlockingQueue<>(this.maxBufferSize);
+        if (slabPool == null) {
+            this.buffer = new MpscRingBuffer<>(this.maxBufferSize);
+            this.overflowHandler.getMemoryBudget().reserveSlots(this.maxBufferSize);
+        } else {
+            this.buffer = new SlabQueue(slabPool, this.maxBufferSize);
+        }
     }
 
     /**
      * Get the current buffer.
-     * @return The {@link ArrayBlockingQueue} current buffer.
+     * @return The {@link BoundedQueue} current buffer.
      */
-    public final ArrayBlockingQueue<String> getBuffer() {
+    public final BoundedQueue<CharSequence> getBuffer() {
         return buffer;
     }
 
     /**
-     * Adds an aggregated metric to the buffer.
-     * @param metric The {@link String} metric name
+     * Adds a metric to the buffer, applying the overflow policy if it is full.
+     * @param metric The {@link CharSequence} metric line
      * @return A {@link Boolean} with the success of the operation
      */
-    public final boolean addToBuffer(final String metric) {
-        return buffer.offer(metric);
+    public final boolean addToBuffer(final CharSequence metric) {
+        return overflowHandler.offer(buffer, metric);
     }
 
     /**
@@ -48,18 +104,42 @@ public class StandardBuffer implements MetricsBuffer {
      * @return A {@link String} with all the metrics
      */
     public final String readBuffer() {
-        Collection<String> messages = new ArrayList<>();
+        return LineEncoder.encode(drainBuffer());
+    }
+
+    /**
+     * Takes up to a flush of metrics out of the buffer, to be encoded by the caller.
+     * @return A {@link List} with the metric lines, in the order they were added, where consecutive lines may be
+     * joined when the buffer is off the heap
+     */
+    public final List<CharSequence> drainBuffer() {
+        List<CharSequence> messages = new ArrayList<>();
         buffer.drainTo(messages, flushSize);
 
-        StringBuilder sb = new StringBuilder();
-        for (String metric : messages) {
-            sb.append(metric).append("\n");
+        MemoryBudget memoryBudget = overflowHandler.getMemoryBudget();
+        for (CharSequence metric : messages) {
+            memoryBudget.release(metric);
         }
+        return messages;
+    }
 
-        if (sb.length() > 0) {
-            sb.setLength(sb.length() - 1);
-        }
-        return sb.toString();
+    /**
+     * Gets the number of metrics dropped by the overflow policy since the last call, resetting it.
+     * @return A {@link Long} with the number of dropped metrics
+     */
+    public final long getAndResetDroppedMetrics() {
+        return overflowHandler.getAndResetDroppedMetrics();
+    }
+
+    /**
+     * Gets how full the buffer is, either by its capacity or by its memory budget or off-heap slabs, whichever is
+     * fuller.
+     * @return A {@link Double} from 0 to 1
+     */
+    public final double getUsage() {
+        double bufferUsage = (double) buffer.size() / buffer.capacity();
+        double memoryUsage = slabPool == null ? overflowHandler.getMemoryBudget().getUsage() : slabPool.getUsage();
+        return Math.max(bufferUsage, memoryUsage);
     }
 
     @Override
@@ -13,7 +13,7 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     private static final int SOCKET_TIMEOUT_MS = 1000;
 
     private static final int MAX_TASKS_QUEUE_SIZE = 100;
-    private static final long TASK_KILLER_INTERVAL = 30000;
+    private static final long WORKER_TASK_DEADLINE_MS = 30000;
 
     private static final String DEFAULT_HOST = "api.statful.com";
     private static final boolean DEFAULT_SECURE = true;
@@ -23,6 +23,21 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     private static final String DEFAULT_NAMESPACE = "application";
     private static final int DEFAULT_FLUSH_SIZE = 10;
     private static final int DEFAULT_FLUSH_INTERVAL_MS = 5000;
+    private static final OverflowPolicy DEFAULT_OVERFLOW_POLICY = OverflowPolicy.DROP_NEWEST;
+    private static final long DEFAULT_OVERFLOW_TIMEOUT_MS = 100;
+    private static final int DEFAULT_BUFFER_CAPACITY = 5000;
+    private static final long DEFAULT_BUFFER_MEMORY_BUDGET = 0;
+    private static final SamplingMode DEFAULT_SAMPLING_MODE = SamplingMode.RANDOM;
+    private static final AdaptiveSampling DEFAULT_ADAPTIVE_SAMPLING = AdaptiveSampling.DISABLED;
+    private static final int DEFAULT_UDP_PAYLOAD_SIZE = 1432;
+    private static final int DEFAULT_UDP_CHANNELS = 0;
+    private static final boolean DEFAULT_HTTP_COMPRESSION = false;
+    private static final int DEFAULT_HTTP_COMPRESSION_THRESHOLD = 1024;
+    private static final boolean DEFAULT_HTTP_ASYNC = false;
+    private static final int DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS = 0;
+    private static final long DEFAULT_OFF_HEAP_BUFFER_BUDGET = 0;
+    private static final long DEFAULT_SPILL_MAX_BYTES = 268435456L;
+    private static final int DEFAULT_SPILL_REPLAY_RATE = 10;
     private static final AggregationFrequency DEFAULT_AGGREGATION_FREQ = AggregationFrequency.FREQ_10;
 
     private static final Tags DEFAULT_APP_TAGS = Tags.from("statful_client", "java");
@@ -46,9 +61,28 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     private String token;
     private String app;
     private int workersPoolSize = WORKER_POOL_SIZE;
+    private long workerTaskDeadlineMillis = WORKER_TASK_DEADLINE_MS;
     private int connectionPoolSize = CONNECTION_POOL_SIZE;
     private int connectTimeoutMillis = CONNECT_TIMEOUT_MS;
     private int socketTimeoutMillis = SOCKET_TIMEOUT_MS;
+    private boolean clientSideAggregation;
+    private OverflowPolicy overflowPolicy = DEFAULT_OVERFLOW_POLICY;
+    private long overflowTimeoutMillis = DEFAULT_OVERFLOW_TIMEOUT_MS;
+    private int bufferCapacity = DEFAULT_BUFFER_CAPACITY;
+    private long bufferMemoryBudget = DEFAULT_BUFFER_MEMORY_BUDGET;
+    private SamplingMode samplingMode = DEFAULT_SAMPLING_MODE;
+    private AdaptiveSampling adaptiveSampling = DEFAULT_ADAPTIVE_SAMPLING;
+    private int udpPayloadSize = DEFAULT_UDP_PAYLOAD_SIZE;
+    private int udpChannels = DEFAULT_UDP_CHANNELS;
+    private boolean httpCompression = DEFAULT_HTTP_COMPRESSION;
+    private int httpCompressionThreshold = DEFAULT_HTTP_COMPRESSION_THRESHOLD;
+    private boolean httpAsync = DEFAULT_HTTP_ASYNC;
+    private int httpMaxInFlightRequests = DEFAULT_HTTP_MAX_IN_FLIGHT_REQUESTS;
+    private boolean lazyEncoding;
+    private long offHeapBufferBudget = DEFAULT_OFF_HEAP_BUFFER_BUDGET;
+    private String spillDirectory;
+    private long spillMaxBytes = DEFAULT_SPILL_MAX_BYTES;
+    private int spillReplayRate = DEFAULT_SPILL_REPLAY_RATE;
 
     private Tags applicationTags = Tags.from(DEFAULT_APP_TAGS);
     private Tags timerTags = Tags.from(DEFAULT_TIMER_TAGS);
@@ -159,8 +193,8 @@ public class DefaultClientConfiguration implements ClientConfiguration {
     }
 
     @Override
-    public final long getWorkerTaskKillerInterval() {
-        return TASK_KILLER_INTERVAL;
+    public final long getWorkerTaskDeadlineMillis() {
+        return workerTaskDeadlineMillis;
     }
 
     @Override
@@ -208,6 +242,96 @@ public class DefaultClientConfiguration implements ClientConfiguration {
         return gaugeAggregationFrequency;
     }
 
+    @Override
+    public final boolean isClientSideAggregation() {
+        return clientSideAggregation;
+    }
+
+    @Override
+    public final OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public final long getOverflowTimeoutMillis() {
+        return overflowTimeoutMillis;
+    }
+
+    @Override
+    public final int getBufferCapacity() {
+        return bufferCapacity;
+    }
+
+    @Override
+    public final long getBufferMemoryBudget() {
+        return bufferMemoryBudget;
+    }
+
+    @Override
+    public final SamplingMode getSamplingMode() {
+        return samplingMode;
+    }
+
+    @Override
+    public final AdaptiveSampling getAdaptiveSampling() {
+        return adaptiveSampling;
+    }
+
+    @Override
+    public final int getUdpPayloadSize() {
+        return udpPayloadSize;
+    }
+
+    @Override
+    public final int getUdpChannels() {
+        return udpChannels;
+    }
+
+    @Override
+    public final boolean isHttpCompression() {
+        return httpCompression;
+    }
+
+    @Override
+    public final int getHttpCompressionThreshold() {
+        return httpCompressionThreshold;
+    }
+
+    @Override
+    public final boolean isHttpAsync() {
+        return httpAsync;
+    }
+
+    @Override
+    public final int getHttpMaxInFlightRequests() {
+        return httpMaxInFlightRequests;
+    }
+
+    @Override
+    public final boolean isLazyEncoding() {
+        return lazyEncoding;
+    }
+
+    @Override
+    public final long getOffHeapBufferBudget() {
+        return offHeapBufferBudget;
+    }
+
+    @Override
+    public final String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    @Override
+    public final long getSpillMaxBytes() {
+        return spillMaxBytes;
+    }
+
+    @Override
+    public final int getSpillReplayRate() {
+        return spillReplayRate;
+    }
+
     @Override
     public final AggregationFrequency getDefaultAggregationFreq() {
         return DEFAULT_AGGREGATION_FREQ;
@@ -334,6 +458,15 @@ public class DefaultClientConfiguration implements ClientConfiguration {
         this.workersPoolSize = workersPoolSize;
     }
 
+    /**
+     * Sets the maximum time a worker task waits for a worker before it expires instead of running.
+     *
+     * @param workerTaskDeadlineMillis Long representing the worker task deadline in milliseconds
+     */
+    public final void setWorkerTaskDeadlineMillis(final long workerTaskDeadlineMillis) {
+        this.workerTaskDeadlineMillis = workerTaskDeadlineMillis;
+    }
+
     /**
      * Setter for the connection pool size.
      *
@@ -426,6 +559,168 @@ public class DefaultClientConfiguration implements ClientConfiguration {
         this.gaugeAggregationFrequency = gaugeAggregationFrequency;
     }
 
+    /**
+     * Setter for client side aggregation.
+     *
+     * @param clientSideAggregation Boolean to set client side aggregation
+     */
+    public final void setClientSideAggregation(final boolean clientSideAggregation) {
+        this.clientSideAggregation = clientSideAggregation;
+    }
+
+    /**
+     * Sets the policy for metrics put while the buffer is full.
+     *
+     * @param overflowPolicy The {@link OverflowPolicy} to use
+     */
+    public final void setOverflowPolicy(final OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the maximum time to block a thread putting a metric while the buffer is full.
+     *
+     * @param overflowTimeoutMillis Long representing the overflow timeout in milliseconds
+     */
+    public final void setOverflowTimeoutMillis(final long overflowTimeoutMillis) {
+        this.overflowTimeoutMillis = overflowTimeoutMillis;
+    }
+
+    /**
+     * Sets the maximum number of metrics of each buffer.
+     *
+     * @param bufferCapacity Integer representing the buffer capacity
+     */
+    public final void setBufferCapacity(final int bufferCapacity) {
+        this.bufferCapacity = bufferCapacity;
+    }
+
+    /**
+     * Sets the maximum number of bytes taken by the metrics of all buffers.
+     *
+     * @param bufferMemoryBudget Long representing the buffer memory budget in bytes
+     */
+    public final void setBufferMemoryBudget(final long bufferMemoryBudget) {
+        this.bufferMemoryBudget = bufferMemoryBudget;
+    }
+
+    /**
+     * Sets how metrics without a sampling key are sampled.
+     *
+     * @param samplingMode The {@link SamplingMode} to use
+     */
+    public final void setSamplingMode(final SamplingMode samplingMode) {
+        this.samplingMode = samplingMode;
+    }
+
+    /**
+     * Sets how the sample rate of metrics is lowered while the buffers fill up or sending slows down.
+     *
+     * @param adaptiveSampling The {@link AdaptiveSampling} to use
+     */
+    public final void setAdaptiveSampling(final AdaptiveSampling adaptiveSampling) {
+        this.adaptiveSampling = adaptiveSampling;
+    }
+
+    /**
+     * Sets the maximum payload size of the datagrams sent by the UDP transport.
+     *
+     * @param udpPayloadSize The maximum payload size in bytes
+     */
+    public final void setUdpPayloadSize(final int udpPayloadSize) {
+        this.udpPayloadSize = udpPayloadSize;
+    }
+
+    /**
+     * Sets the number of channels the UDP transport stripes across the worker threads, where 0 means one per worker thread.
+     *
+     * @param udpChannels The number of UDP channels
+     */
+    public final void setUdpChannels(final int udpChannels) {
+        this.udpChannels = udpChannels;
+    }
+
+    /**
+     * Sets if the HTTP transport compresses the request bodies with gzip.
+     *
+     * @param httpCompression A {@link Boolean} stating if the request bodies are compressed
+     */
+    public final void setHttpCompression(final boolean httpCompression) {
+        this.httpCompression = httpCompression;
+    }
+
+    /**
+     * Sets the size from which the HTTP transport compresses the request bodies, if compression is enabled.
+     *
+     * @param httpCompressionThreshold The compression threshold in bytes
+     */
+    public final void setHttpCompressionThreshold(final int httpCompressionThreshold) {
+        this.httpCompressionThreshold = httpCompressionThreshold;
+    }
+
+    /**
+     * Sets if the HTTP transport sends the requests with a non-blocking client.
+     *
+     * @param httpAsync A {@link Boolean} stating if the requests are sent without blocking
+     */
+    public final void setHttpAsync(final boolean httpAsync) {
+        this.httpAsync = httpAsync;
+    }
+
+    /**
+     * Sets the maximum number of requests the non-blocking HTTP transport has in flight.
+     *
+     * @param httpMaxInFlightRequests The maximum number of requests in flight
+     */
+    public final void setHttpMaxInFlightRequests(final int httpMaxInFlightRequests) {
+        this.httpMaxInFlightRequests = httpMaxInFlightRequests;
+    }
+
+    /**
+     * Sets if the metrics of templates and registered counters and gauges are buffered unformatted.
+     *
+     * @param lazyEncoding A {@link Boolean} stating if the metric lines are formatted when flushed
+     */
+    public final void setLazyEncoding(final boolean lazyEncoding) {
+        this.lazyEncoding = lazyEncoding;
+    }
+
+    /**
+     * Sets the number of bytes of direct memory preallocated to keep the metrics of all buffers off the heap.
+     *
+     * @param offHeapBufferBudget Long representing the off-heap buffer budget in bytes
+     */
+    public final void setOffHeapBufferBudget(final long offHeapBufferBudget) {
+        this.offHeapBufferBudget = offHeapBufferBudget;
+    }
+
+    /**
+     * Sets the directory the messages that couldn't be sent are spilled to.
+     *
+     * @param spillDirectory String representing the path of the spill directory
+     */
+    public final void setSpillDirectory(final String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+    }
+
+    /**
+     * Sets the maximum number of bytes of the messages spilled to disk.
+     *
+     * @param spillMaxBytes Long representing the maximum spill size in bytes
+     */
+    public final void setSpillMaxBytes(final long spillMaxBytes) {
+        this.spillMaxBytes = spillMaxBytes;
+    }
+
+    /**
+     * Sets the maximum number of spilled messages sent again per second while sending succeeds.
+     *
+     * @param spillReplayRate Integer representing the spill replay rate in messages per second
+     */
+    public final void setSpillReplayRate(final int spillReplayRate) {
+        this.spillReplayRate = spillReplayRate;
+    }
+
     /**
      * Merges the tag defined by <code>type</code> and <code>value</code> with the existent gauge tags.
      *
@@ -0,0 +1,61 @@
+package com.statful.client.core.message;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One or more metric lines already encoded in UTF-8, separated by new lines, as they are read from a buffer that keeps
+ * its metrics encoded.
+ * <p>
+ * {@link LineEncoder} copies the bytes as they are into the messages it encodes in UTF-8, so that the lines are only
+ * decoded into characters for the transports that send a {@link String}. As a {@link CharSequence}, encoded lines are
+ * the lines they stand for, which are decoded on demand, once.
+ */
+public final class EncodedLines implements CharSequence {
+
+    private final byte[] bytes;
+    private String decoded;
+
+    /**
+     * Constructor.
+     *
+     * @param bytes The UTF-8 bytes of the lines, without a trailing new line, which are not copied
+     */
+    public EncodedLines(final byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Copies the UTF-8 bytes of the lines into the given buffer.
+     *
+     * @param buffer The {@link Utf8Buffer} to copy the lines into
+     */
+    void encodeTo(final Utf8Buffer buffer) {
+        buffer.write(bytes);
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        String lines = decoded;
+        if (lines == null) {
+            // Decoding more than once on a race only costs the extra decoding
+            lines = new String(bytes, StandardCharsets.UTF_8);
+            decoded = lines;
+        }
+        return lines;
+    }
+}
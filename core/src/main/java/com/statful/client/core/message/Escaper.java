@@ -0,0 +1,79 @@
+package com.statful.client.core.message;
+
+/**
+ * Escapes the components of a metric line while appending them to a {@link StringBuilder}.
+ * <p>
+ * The escaping is done with a plain scan over the characters instead of regular expressions, and strings that don't
+ * need any escaping, which is by far the common case, are appended as they are.
+ */
+final class Escaper {
+
+    private static final char ESCAPE = '\\';
+    private static final char VERTICAL_TAB = '\u000B';
+
+    private Escaper() { }
+
+    /**
+     * Appends a measurement (namespace or name), adding an escape character (<code>\</code>) before any whitespace
+     * and <code>,</code>.
+     *
+     * @param sb The {@link StringBuilder} to append to
+     * @param measurement The measurement to append
+     */
+    static void appendMeasurement(final StringBuilder sb, final String measurement) {
+        append(sb, measurement, false);
+    }
+
+    /**
+     * Appends a tag type or tag value, adding an escape character (<code>\</code>) before any whitespace,
+     * <code>,</code> and <code>=</code>.
+     *
+     * @param sb The {@link StringBuilder} to append to
+     * @param tag The tag type or value to append
+     */
+    static void appendTag(final StringBuilder sb, final String tag) {
+        append(sb, tag, true);
+    }
+
+    private static void append(final StringBuilder sb, final String string, final boolean escapeEquals) {
+        int length = string.length();
+        int firstEscaped = 0;
+        while (firstEscaped < length && !shouldEscape(string.charAt(firstEscaped), escapeEquals)) {
+            firstEscaped++;
+        }
+
+        if (firstEscaped == length) {
+            sb.append(string);
+            return;
+        }
+
+        sb.append(string, 0, firstEscaped);
+        for (int i = firstEscaped; i < length; i++) {
+            char c = string.charAt(i);
+            if (shouldEscape(c, escapeEquals)) {
+                sb.append(ESCAPE);
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * Matches the same characters as the <code>[\s,=]</code> and <code>[\s,]</code> regular expressions.
+     */
+    private static boolean shouldEscape(final char c, final boolean escapeEquals) {
+        switch (c) {
+            case ' ':
+            case '\t':
+            case '\n':
+            case VERTICAL_TAB:
+            case '\f':
+            case '\r':
+            case ',':
+                return true;
+            case '=':
+                return escapeEquals;
+            default:
+                return false;
+        }
+    }
+}
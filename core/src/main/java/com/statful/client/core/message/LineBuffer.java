@@ -0,0 +1,44 @@
+package com.statful.client.core.message;
+
+/**
+ * A {@link StringBuilder} reused by each thread to write metric lines into.
+ */
+final class LineBuffer {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 16384;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+    };
+
+    private LineBuffer() { }
+
+    /**
+     * Gets the empty buffer of the current thread.
+     *
+     * @return An empty {@link StringBuilder}
+     */
+    static StringBuilder get() {
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    /**
+     * Copies the content of the buffer of the current thread, dropping the buffer if it has grown too large to keep.
+     *
+     * @param sb The buffer returned by {@link #get()}
+     * @return The content of the buffer
+     */
+    static String toLine(final StringBuilder sb) {
+        String line = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.set(new StringBuilder(INITIAL_CAPACITY));
+        }
+        return line;
+    }
+}
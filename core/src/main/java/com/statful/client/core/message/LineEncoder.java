@@ -0,0 +1,135 @@
+package com.statful.client.core.message;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+/**
+ * Encodes the metric lines read from a buffer into the message of a flush, one line per metric.
+ * <p>
+ * Every thread formats its messages into a {@link StringBuilder} of its own, which is reused from flush to flush, and
+ * {@link PendingLine}s are formatted straight into it, so that the lines that weren't formatted when they were put
+ * are never built on their own.
+ * <p>
+ * Messages can also be encoded straight into UTF-8 bytes, into a buffer every thread reuses as well, for transports
+ * that send bytes: the lines are then never joined into a {@link String}, and the pre-encoded bytes of the templates
+ * of {@link PendingLine}s are copied as they are, so that only their values are encoded, as are the bytes of
+ * {@link EncodedLines}.
+ */
+public final class LineEncoder {
+
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MAX_RETAINED_CAPACITY = 1048576;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(INITIAL_CAPACITY);
+        }
+    };
+
+    private static final ThreadLocal<Utf8Buffer> BYTES = new ThreadLocal<Utf8Buffer>() {
+        @Override
+        protected Utf8Buffer initialValue() {
+            return new Utf8Buffer(INITIAL_CAPACITY);
+        }
+    };
+
+    private LineEncoder() { }
+
+    /**
+     * Joins metric lines into a message, separated by new lines.
+     *
+     * @param lines The metric lines, which may be {@link PendingLine}s
+     * @return A {@link String} with the metric lines
+     */
+    public static String encode(final Collection<? extends CharSequence> lines) {
+        if (lines.isEmpty()) {
+            return "";
+        }
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        boolean first = true;
+        for (CharSequence line : lines) {
+            if (!first) {
+                sb.append('\n');
+            }
+            append(sb, line);
+            first = false;
+        }
+
+        String message = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            BUFFER.set(new StringBuilder(INITIAL_CAPACITY));
+        }
+        return message;
+    }
+
+    /**
+     * Joins metric lines into a message of UTF-8 bytes, separated by new lines.
+     * <p>
+     * The bytes are written into the buffer of the current thread, which its next call reuses, so they must be
+     * consumed before then.
+     *
+     * @param lines The metric lines, which may be {@link PendingLine}s
+     * @return A {@link ByteBuffer} with the message from its position to its limit
+     */
+    public static ByteBuffer encodeUtf8(final Collection<? extends CharSequence> lines) {
+        Utf8Buffer buffer = BYTES.get();
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new Utf8Buffer(INITIAL_CAPACITY);
+            BYTES.set(buffer);
+        }
+
+        buffer.clear();
+        boolean first = true;
+        for (CharSequence line : lines) {
+            if (!first) {
+                buffer.write((byte) '\n');
+            }
+            write(buffer, line);
+            first = false;
+        }
+        return buffer.toByteBuffer();
+    }
+
+    /**
+     * Encodes a single metric line in UTF-8, without any line separator.
+     * <p>
+     * The bytes are written into the same buffer of the current thread as {@link #encodeUtf8(Collection)}, so they
+     * must be consumed before the next call of either one.
+     *
+     * @param line The metric line, which may be a {@link PendingLine}
+     * @return A {@link ByteBuffer} with the line from its position to its limit
+     */
+    public static ByteBuffer encodeUtf8(final CharSequence line) {
+        Utf8Buffer buffer = BYTES.get();
+        buffer.clear();
+        write(buffer, line);
+        return buffer.toByteBuffer();
+    }
+
+    /**
+     * Appends a metric line to the given {@link StringBuilder}, without any line separator.
+     *
+     * @param sb The {@link StringBuilder} to append the metric line to
+     * @param line The metric line, which may be a {@link PendingLine}
+     * @return The given {@link StringBuilder}
+     */
+    public static StringBuilder append(final StringBuilder sb, final CharSequence line) {
+        if (line instanceof PendingLine) {
+            return ((PendingLine) line).appendTo(sb);
+        }
+        return sb.append(line);
+    }
+
+    private static void write(final Utf8Buffer buffer, final CharSequence line) {
+        if (line instanceof PendingLine) {
+            ((PendingLine) line).encodeTo(buffer);
+        } else if (line instanceof EncodedLines) {
+            ((EncodedLines) line).encodeTo(buffer);
+        } else {
+            buffer.write(line);
+        }
+    }
+}
@@ -5,22 +5,23 @@ import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.domain.api.Aggregations;
 import com.statful.client.domain.api.Tags;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
  * Statful message builder. This is an internal class to build messages from the metric data.
  * <p>
  * Message format follows the specification of Statful API.
+ * <p>
+ * The builder only keeps references to the given {@link Tags} and {@link Aggregations}, so they must not be changed
+ * until the message is built. Messages are written into a {@link StringBuilder} reused by each thread, so building a
+ * message only allocates the resulting {@link String}.
  */
 public final class MessageBuilder {
 
     private String namespace;
     private String name;
-    private Map<String, String> tags = new HashMap<String, String>();
-    private List<Aggregation> aggregations = new ArrayList<Aggregation>();
+    private Tags tags;
+    private Aggregations aggregations;
     private String value;
     private long timestamp;
     private AggregationFrequency aggregationFrequency = AggregationFrequency.FREQ_10;
@@ -70,7 +71,11 @@ public final class MessageBuilder {
      */
     public MessageBuilder withTags(final Tags tags) {
         if (tags != null) {
-            this.tags.putAll(tags.getTags());
+            if (this.tags == null) {
+                this.tags = tags;
+            } else {
+                this.tags = Tags.from(this.tags).merge(tags);
+            }
         }
         return this;
     }
@@ -94,7 +99,14 @@ public final class MessageBuilder {
      */
     public MessageBuilder withAggregations(final Aggregations aggregations) {
         if (aggregations != null) {
-            this.aggregations.addAll(aggregations.getAggregations());
+            if (this.aggregations == null) {
+                this.aggregations = aggregations;
+            } else {
+                Aggregations merged = new Aggregations();
+                merged.merge(this.aggregations);
+                merged.merge(aggregations);
+                this.aggregations = merged;
+            }
         }
         return this;
     }
@@ -140,69 +152,84 @@ public final class MessageBuilder {
      * @return A string representing the metric
      */
     public String build() {
+        return LineBuffer.toLine(appendTo(LineBuffer.get()));
+    }
+
+    /**
+     * Builds a {@link MessageTemplate} with everything but the value and the timestamp, which are ignored.
+     *
+     * @return A {@link MessageTemplate} of the metric
+     */
+    public MessageTemplate buildTemplate() {
+        if (name == null) {
+            throw new IllegalStateException("Name should not be null");
+        }
+
+        String prefix = LineBuffer.toLine(appendPrefix(LineBuffer.get()));
+        String suffix = LineBuffer.toLine(appendSuffix(LineBuffer.get()));
+
+        return new MessageTemplate(prefix, suffix);
+    }
+
+    /**
+     * Appends the message as a metric line to the given {@link StringBuilder}, without any line separator.
+     *
+     * @param sb The {@link StringBuilder} to append the metric line to
+     * @return The given {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
         validate();
 
-        StringBuilder sb = new StringBuilder();
+        appendPrefix(sb);
+
+        //append value
+        sb.append(' ').append(value).append(' ');
+
+        //append timestamp
+        sb.append(timestamp);
+
+        return appendSuffix(sb);
+    }
 
+    private StringBuilder appendPrefix(final StringBuilder sb) {
         if (namespace != null) {
             //append namespace
-            sb.append(escapeMeasurement(namespace)).append(".");
+            Escaper.appendMeasurement(sb, namespace);
+            sb.append('.');
         }
 
         //append name
-        sb.append(escapeMeasurement(name));
+        Escaper.appendMeasurement(sb, name);
 
         //append tags
-        for (Map.Entry<String, String> entry : tags.entrySet()) {
-            sb.append(",")
-                    .append(escapeTag(entry.getKey()))
-                    .append("=")
-                    .append(escapeTag(entry.getValue()));
+        if (tags != null) {
+            for (Map.Entry<String, String> entry : tags.getTags().entrySet()) {
+                sb.append(',');
+                Escaper.appendTag(sb, entry.getKey());
+                sb.append('=');
+                Escaper.appendTag(sb, entry.getValue());
+            }
         }
 
-        //append value
-        sb.append(" ").append(value).append(" ");
-
-        //append timestamp
-        sb.append(timestamp);
+        return sb;
+    }
 
+    private StringBuilder appendSuffix(final StringBuilder sb) {
         //append aggregation information
-        if (!aggregations.isEmpty()) {
-            sb.append(" ");
-            for (Aggregation aggr : aggregations) {
-                sb.append(aggr.getName()).append(",");
+        if (aggregations != null && !aggregations.getAggregations().isEmpty()) {
+            sb.append(' ');
+            for (Aggregation aggr : aggregations.getAggregations()) {
+                sb.append(aggr.getName()).append(',');
             }
 
             sb.append(aggregationFrequency.getValue());
         }
 
         if (sampleRate != null) {
-            sb.append(" ").append(sampleRate);
+            sb.append(' ').append(sampleRate.intValue());
         }
 
-        return sb.toString();
-    }
-
-    /**
-     * This method adds an escape character in a tag type or tag value (<code>\</code>) before any of the following
-     * characters: <code>\s</code>, <code>,</code> and <code>=</code>.
-     *
-     * @param string The tag key or tag value to escape
-     * @return The escaped string
-     */
-    private static String escapeTag(final String string) {
-        return string.replaceAll("[\\s,=]", "\\\\$0");
-    }
-
-    /**
-     * This method adds an escape character in a measurement (<code>\</code>) before any of the following characters:
-     * <code>\s</code> and <code>,</code>.
-     *
-     * @param string The measurement to escape
-     * @return The escaped string
-     */
-    private static String escapeMeasurement(final String string) {
-        return string.replaceAll("[\\s,]", "\\\\$0");
+        return sb;
     }
 
     private void validate() {
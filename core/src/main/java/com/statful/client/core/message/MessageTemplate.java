@@ -0,0 +1,125 @@
+package com.statful.client.core.message;
+
+import java.nio.charset.Charset;
+
+/**
+ * A metric line encoded up front, apart from its value and timestamp.
+ * <p>
+ * The escaped namespace, name and tags (the prefix) and the aggregations, aggregation frequency and sample rate (the
+ * suffix) are kept as they are, so formatting a line only has to append the value and the timestamp between them. They
+ * are also kept encoded in UTF-8, so that encoding a line into bytes only has to encode its value and timestamp.
+ * <p>
+ * Instances of this class are immutable. They are created by {@link MessageBuilder#buildTemplate()}.
+ */
+public final class MessageTemplate {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String prefix;
+    private final String suffix;
+    private final byte[] prefixBytes;
+    private final byte[] suffixBytes;
+
+    MessageTemplate(final String prefix, final String suffix) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.prefixBytes = prefix.getBytes(UTF_8);
+        this.suffixBytes = suffix.getBytes(UTF_8);
+    }
+
+    /**
+     * Build the message as a metric line.
+     *
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return A string representing the metric
+     */
+    public String build(final long value, final long timestamp) {
+        return LineBuffer.toLine(appendTo(LineBuffer.get(), value, timestamp));
+    }
+
+    /**
+     * Build the message as a metric line.
+     *
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return A string representing the metric
+     */
+    public String build(final double value, final long timestamp) {
+        return LineBuffer.toLine(appendTo(LineBuffer.get(), value, timestamp));
+    }
+
+    /**
+     * Appends the message as a metric line to the given {@link StringBuilder}, without any line separator.
+     *
+     * @param sb The {@link StringBuilder} to append the metric line to
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return The given {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder sb, final long value, final long timestamp) {
+        return sb.append(prefix).append(' ').append(value).append(' ').append(timestamp).append(suffix);
+    }
+
+    /**
+     * Appends the message as a metric line to the given {@link StringBuilder}, without any line separator.
+     *
+     * @param sb The {@link StringBuilder} to append the metric line to
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return The given {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder sb, final double value, final long timestamp) {
+        return sb.append(prefix).append(' ').append(value).append(' ').append(timestamp).append(suffix);
+    }
+
+    /**
+     * Encodes the message as a metric line in UTF-8 into the given buffer, without any line separator.
+     *
+     * @param buffer The {@link Utf8Buffer} to encode the metric line into
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     */
+    void encodeTo(final Utf8Buffer buffer, final long value, final long timestamp) {
+        buffer.write(prefixBytes);
+        buffer.write((byte) ' ');
+        buffer.write(value);
+        buffer.write((byte) ' ');
+        buffer.write(timestamp);
+        buffer.write(suffixBytes);
+    }
+
+    /**
+     * Encodes the message as a metric line in UTF-8 into the given buffer, without any line separator.
+     *
+     * @param buffer The {@link Utf8Buffer} to encode the metric line into
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     */
+    void encodeTo(final Utf8Buffer buffer, final double value, final long timestamp) {
+        buffer.write(prefixBytes);
+        buffer.write((byte) ' ');
+        buffer.write(Double.toString(value));
+        buffer.write((byte) ' ');
+        buffer.write(timestamp);
+        buffer.write(suffixBytes);
+    }
+
+    /**
+     * Gets the escaped namespace, name and tags of the metric line.
+     *
+     * @return The metric line prefix
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Gets the aggregations, aggregation frequency and sample rate of the metric line, with the leading separator.
+     *
+     * @return The metric line suffix
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+}
@@ -0,0 +1,97 @@
+package com.statful.client.core.message;
+
+/**
+ * A metric line that wasn't formatted yet, kept as the {@link MessageTemplate} of its series, its value and its
+ * timestamp.
+ * <p>
+ * Buffering a pending line instead of the line only takes this record, which shares the template of its series with
+ * every other line of it, so that the line is formatted by the thread that reads the buffer, which appends it with
+ * {@link LineEncoder} without building the line on its own. As a {@link CharSequence}, a pending line is the line it
+ * stands for, which is formatted on demand.
+ * <p>
+ * Instances of this class are immutable.
+ */
+public final class PendingLine implements CharSequence {
+
+    private final MessageTemplate template;
+    private final long value;
+    private final boolean floatingPoint;
+    private final long timestamp;
+
+    private PendingLine(final MessageTemplate template, final long value, final boolean floatingPoint, final long timestamp) {
+        this.template = template;
+        this.value = value;
+        this.floatingPoint = floatingPoint;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Creates a pending line with an integer value.
+     *
+     * @param template The {@link MessageTemplate} of the series
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return A new {@link PendingLine}
+     */
+    public static PendingLine of(final MessageTemplate template, final long value, final long timestamp) {
+        return new PendingLine(template, value, false, timestamp);
+    }
+
+    /**
+     * Creates a pending line with a floating point value.
+     *
+     * @param template The {@link MessageTemplate} of the series
+     * @param value The metric value
+     * @param timestamp The unix timestamp
+     * @return A new {@link PendingLine}
+     */
+    public static PendingLine of(final MessageTemplate template, final double value, final long timestamp) {
+        return new PendingLine(template, Double.doubleToRawLongBits(value), true, timestamp);
+    }
+
+    /**
+     * Appends the metric line to the given {@link StringBuilder}, without any line separator.
+     *
+     * @param sb The {@link StringBuilder} to append the metric line to
+     * @return The given {@link StringBuilder}
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        if (floatingPoint) {
+            return template.appendTo(sb, Double.longBitsToDouble(value), timestamp);
+        }
+        return template.appendTo(sb, value, timestamp);
+    }
+
+    /**
+     * Encodes the metric line in UTF-8 into the given buffer, without any line separator.
+     *
+     * @param buffer The {@link Utf8Buffer} to encode the metric line into
+     */
+    void encodeTo(final Utf8Buffer buffer) {
+        if (floatingPoint) {
+            template.encodeTo(buffer, Double.longBitsToDouble(value), timestamp);
+        } else {
+            template.encodeTo(buffer, value, timestamp);
+        }
+    }
+
+    @Override
+    public int length() {
+        return toString().length();
+    }
+
+    @Override
+    public char charAt(final int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return LineBuffer.toLine(appendTo(LineBuffer.get()));
+    }
+}
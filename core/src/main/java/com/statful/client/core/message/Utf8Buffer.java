@@ -0,0 +1,168 @@
+package com.statful.client.core.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A growable array of UTF-8 bytes that metric lines are encoded into, which is meant to be reused by a single thread.
+ * <p>
+ * Characters are encoded one by one straight into the array, so that encoding a {@link CharSequence} doesn't copy it
+ * into a {@link String} or a char array first. Unpaired surrogates are encoded as a question mark, as the JDK encoders
+ * replace them.
+ */
+final class Utf8Buffer {
+
+    private static final int ONE_BYTE_LIMIT = 0x80;
+    private static final int TWO_BYTES_LIMIT = 0x800;
+    private static final int TWO_BYTES_HEADER = 0xc0;
+    private static final int THREE_BYTES_HEADER = 0xe0;
+    private static final int FOUR_BYTES_HEADER = 0xf0;
+    private static final int CONTINUATION_HEADER = 0x80;
+    private static final int CONTINUATION_MASK = 0x3f;
+    private static final int CONTINUATION_BITS = 6;
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    private static final int RADIX = 10;
+    private static final byte REPLACEMENT = '?';
+
+    private byte[] bytes;
+    private int length;
+    private ByteBuffer view;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The initial capacity in bytes
+     */
+    Utf8Buffer(final int capacity) {
+        this.bytes = new byte[capacity];
+        this.view = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity.
+     */
+    void clear() {
+        length = 0;
+    }
+
+    /**
+     * Gets the capacity of the buffer, which grows as needed.
+     *
+     * @return The capacity in bytes
+     */
+    int capacity() {
+        return bytes.length;
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param value The byte
+     */
+    void write(final byte value) {
+        ensureCapacity(1);
+        bytes[length++] = value;
+    }
+
+    /**
+     * Writes bytes that are already encoded.
+     *
+     * @param encoded The UTF-8 bytes
+     */
+    void write(final byte[] encoded) {
+        ensureCapacity(encoded.length);
+        System.arraycopy(encoded, 0, bytes, length, encoded.length);
+        length += encoded.length;
+    }
+
+    /**
+     * Writes the decimal digits of a number, as {@link Long#toString(long)} formats it.
+     *
+     * @param value The number
+     */
+    void write(final long value) {
+        if (value == Long.MIN_VALUE) {
+            write(Long.toString(value));
+            return;
+        }
+
+        long remaining = value;
+        if (remaining < 0) {
+            write((byte) '-');
+            remaining = -remaining;
+        }
+
+        int digits = 1;
+        for (long rest = remaining / RADIX; rest > 0; rest /= RADIX) {
+            digits++;
+        }
+
+        ensureCapacity(digits);
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + remaining % RADIX);
+            remaining /= RADIX;
+        }
+        length = end;
+    }
+
+    /**
+     * Encodes characters in UTF-8.
+     *
+     * @param chars The characters
+     */
+    void write(final CharSequence chars) {
+        int count = chars.length();
+        ensureCapacity(count);
+
+        for (int i = 0; i < count; i++) {
+            char c = chars.charAt(i);
+            if (c < ONE_BYTE_LIMIT) {
+                bytes[length++] = (byte) c;
+                continue;
+            }
+
+            // Every remaining character takes at least a byte, so only the extra bytes of this one are missing
+            ensureCapacity(count - i + MAX_BYTES_PER_CHAR);
+            if (c < TWO_BYTES_LIMIT) {
+                bytes[length++] = (byte) (TWO_BYTES_HEADER | c >> CONTINUATION_BITS);
+                bytes[length++] = continuation(c);
+            } else if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                bytes[length++] = (byte) (FOUR_BYTES_HEADER | codePoint >> (MAX_BYTES_PER_CHAR * CONTINUATION_BITS));
+                bytes[length++] = continuation(codePoint >> (2 * CONTINUATION_BITS));
+                bytes[length++] = continuation(codePoint >> CONTINUATION_BITS);
+                bytes[length++] = continuation(codePoint);
+            } else if (Character.isSurrogate(c)) {
+                bytes[length++] = REPLACEMENT;
+            } else {
+                bytes[length++] = (byte) (THREE_BYTES_HEADER | c >> (2 * CONTINUATION_BITS));
+                bytes[length++] = continuation(c >> CONTINUATION_BITS);
+                bytes[length++] = continuation(c);
+            }
+        }
+    }
+
+    /**
+     * Gets a view of the bytes written since the buffer was last cleared, which is only valid until it's written to.
+     *
+     * @return A {@link ByteBuffer} with the bytes from its position to its limit
+     */
+    ByteBuffer toByteBuffer() {
+        view.clear();
+        view.limit(length);
+        return view;
+    }
+
+    private void ensureCapacity(final int extra) {
+        if (length + extra > bytes.length) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, length + extra)];
+            System.arraycopy(bytes, 0, grown, 0, length);
+            bytes = grown;
+            view = ByteBuffer.wrap(bytes);
+        }
+    }
+
+    private static byte continuation(final int bits) {
+        return (byte) (CONTINUATION_HEADER | bits & CONTINUATION_MASK);
+    }
+}
@@ -0,0 +1,154 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.AdaptiveSampling;
+import com.statful.client.domain.api.Tags;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lowers the sample rate of the busiest metric types or series while the client is under pressure, and raises it
+ * back as the pressure goes away.
+ * <p>
+ * Keys, either the first segment of the metric names or the series, are hashed into a fixed number of slots. Each
+ * slot has a scale, the percentage of the sample rate its metrics are kept at, and a count of the metrics put since
+ * the last adjustment. Adjustments halve the scale of the slots that had at least the average number of metrics
+ * while the pressure is high, and raise the scale of every slot by a step while it is low, so that the busiest keys
+ * are shed first and the others keep their sample rate.
+ * <p>
+ * The counts are only estimates: they are incremented without atomicity, so that counting a metric never contends
+ * with other threads. Instances of this class are thread-safe.
+ */
+final class AdaptiveSampler {
+
+    static final double HIGH_PRESSURE = 0.5;
+    static final double LOW_PRESSURE = 0.25;
+
+    private static final int SLOTS = 256;
+    private static final int MAX_SCALE = 100;
+    private static final int RECOVERY_STEP = 10;
+    private static final int HASH_MULTIPLIER = 31;
+    private static final int SPREAD_SHIFT = 16;
+    private static final int LATENCY_SMOOTHING_SHIFT = 3;
+
+    private final AdaptiveSampling adaptiveSampling;
+    private final AtomicIntegerArray scales = new AtomicIntegerArray(SLOTS);
+    private final AtomicLongArray puts = new AtomicLongArray(SLOTS);
+    private final AtomicLong sendLatencyNanos = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param adaptiveSampling How to key the sample rates, which can't be {@link AdaptiveSampling#DISABLED}
+     */
+    AdaptiveSampler(final AdaptiveSampling adaptiveSampling) {
+        this.adaptiveSampling = adaptiveSampling;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            scales.set(slot, MAX_SCALE);
+        }
+    }
+
+    /**
+     * Counts a metric and gets the sample rate it should be kept at.
+     *
+     * @param sampleRate The sample rate of the metric, from 1 to 100
+     * @param name       The name of the metric
+     * @param tags       The {@link Tags} of the metric, which can be null
+     * @return The sample rate lowered by the scale of the metric key, from 1 to the sample rate
+     */
+    int sampleRate(final int sampleRate, final String name, final Tags tags) {
+        int slot = slotOf(name, tags);
+        puts.lazySet(slot, puts.get(slot) + 1);
+
+        int scale = scales.get(slot);
+        return scale >= MAX_SCALE ? sampleRate : Math.max(1, sampleRate * scale / MAX_SCALE);
+    }
+
+    /**
+     * Adjusts the scales to the pressure on the client, and starts counting the metrics again.
+     *
+     * @param pressure The pressure on the client, from 0 to 1
+     */
+    void adjust(final double pressure) {
+        if (pressure >= HIGH_PRESSURE) {
+            shedBusiestSlots();
+        } else if (pressure < LOW_PRESSURE) {
+            recover();
+        }
+
+        for (int slot = 0; slot < SLOTS; slot++) {
+            puts.lazySet(slot, 0);
+        }
+    }
+
+    /**
+     * Records how long sending a batch of metrics took, which is smoothed into an average.
+     *
+     * @param latencyNanos The time it took to send the batch, in nanoseconds
+     */
+    void recordSendLatency(final long latencyNanos) {
+        long current;
+        long updated;
+        do {
+            current = sendLatencyNanos.get();
+            updated = current + ((latencyNanos - current) >> LATENCY_SMOOTHING_SHIFT);
+        } while (!sendLatencyNanos.compareAndSet(current, updated));
+    }
+
+    /**
+     * Gets the smoothed time it takes to send a batch of metrics.
+     *
+     * @return The send latency in milliseconds
+     */
+    double getSendLatencyMillis() {
+        return (double) sendLatencyNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private void shedBusiestSlots() {
+        long total = 0;
+        int active = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long slotPuts = puts.get(slot);
+            if (slotPuts > 0) {
+                total += slotPuts;
+                active++;
+            }
+        }
+
+        if (active == 0) {
+            return;
+        }
+
+        long average = total / active;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long slotPuts = puts.get(slot);
+            if (slotPuts > 0 && slotPuts >= average) {
+                scales.set(slot, Math.max(1, scales.get(slot) / 2));
+            }
+        }
+    }
+
+    private void recover() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            int scale = scales.get(slot);
+            if (scale < MAX_SCALE) {
+                scales.set(slot, Math.min(MAX_SCALE, scale + RECOVERY_STEP));
+            }
+        }
+    }
+
+    private int slotOf(final String name, final Tags tags) {
+        int hash;
+        if (adaptiveSampling == AdaptiveSampling.PER_SERIES) {
+            hash = Sampler.seriesHash("", name, tags);
+        } else {
+            hash = 0;
+            for (int i = 0; i < name.length() && name.charAt(i) != '.'; i++) {
+                hash = HASH_MULTIPLIER * hash + name.charAt(i);
+            }
+        }
+        return (hash ^ (hash >>> SPREAD_SHIFT)) & (SLOTS - 1);
+    }
+}
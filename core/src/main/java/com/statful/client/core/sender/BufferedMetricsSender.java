@@ -1,18 +1,31 @@
 package com.statful.client.core.sender;
 
+import com.statful.client.core.aggregation.AggregatedMetricsSink;
+import com.statful.client.core.aggregation.MetricAggregator;
 import com.statful.client.core.buffer.AggregatedBuffer;
+import com.statful.client.core.buffer.MemoryBudget;
+import com.statful.client.core.buffer.SlabPool;
+import com.statful.client.core.buffer.SpillQueue;
 import com.statful.client.core.buffer.StandardBuffer;
+import com.statful.client.core.message.LineEncoder;
 import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.core.message.PendingLine;
 import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.ByteTransportSender;
+import com.statful.client.core.transport.ReportingTransportSender;
+import com.statful.client.core.transport.SendListener;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
-import static java.util.Arrays.asList;
-
 /**
  * This class sends the metrics to Statful using a {@link com.statful.client.core.transport.TransportSender}.
  * And buffers the metrics before sending them, according with
@@ -23,30 +36,87 @@ import static java.util.Arrays.asList;
  * {@link com.statful.client.domain.api.ClientConfiguration} passed in the constructor. The periodic flushes are
  * handled by a {@link java.util.concurrent.ScheduledExecutorService} passed in the constructor.
  * <p>
- * The flushes are execute asynchronously by the passed {@link java.util.concurrent.ScheduledExecutorService}, which
- * can be handled by a single thread in the majority of the cases.
+ * The flushes are sent asynchronously through a {@link SendPipeline}, whose workers run on the passed
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor}, which can be handled by a single thread in the majority of
+ * the cases. The pipeline queues up to the configured maximum of worker tasks, and expires the tasks that wait longer
+ * than the worker task deadline instead of sending them late. While its queue is full, the flushes leave the metrics in
+ * the buffers, unless they can be spilled, so that a slow backend is handled by the {@link OverflowPolicy} and the
+ * adaptive sampling. The number of flushes rejected or expired is logged periodically.
+ * <p>
+ * The flushes hand the metric lines they take out of the buffers over to the tasks that send them, which encode them
+ * into a message on the sending thread. When the {@link TransportSender} is a {@link ByteTransportSender}, the lines
+ * are encoded straight into UTF-8 bytes, into a buffer every sending thread reuses, so that no message is built as a
+ * string.
+ * <p>
+ * When a buffer is full enough to flush, the thread that put the metric only signals a dedicated {@link Flusher}
+ * thread, which drains the buffers and schedules the sends, so that putting a metric never runs a flush. Once a flush
+ * finds the pipeline full, the puts stop signalling the flusher until a worker takes a task out of the pipeline, which
+ * signals it instead, so that neither the puts nor the flusher spin while the backend is slow.
+ * <p>
+ * When client side aggregation is enabled, the metrics with aggregations are aggregated by a {@link MetricAggregator}
+ * instead, and only the aggregated values are buffered, to be sent as aggregated metrics.
+ * <p>
+ * When lazy encoding is enabled, the metrics of templates and of registered counters and gauges are buffered as
+ * {@link PendingLine}s, which only reference the pre-encoded template of their series along with their value and
+ * timestamp, so that their lines are formatted by the flushes instead of by the threads putting them.
+ * <p>
+ * Registered counters and gauges are drained by the periodic flush, which puts the sum of the increments of each
+ * counter and the last value of each gauge that changed since the previous flush. When the periodic flush is disabled,
+ * they are drained by the flushes of the {@link Flusher} instead, which only run once a buffer is full enough, so a
+ * warning is logged when the first of them is registered.
+ * <p>
+ * The buffers hold up to the configured buffer capacity each, and share the configured memory budget, if any. With
+ * an off-heap budget, they keep their metrics encoded in UTF-8 in direct memory slabs of a {@link SlabPool} they share
+ * instead, so that pending metrics take no heap and aren't promoted to the old generation while sending is slow.
+ * Metrics put while a buffer is full are handled by the configured {@link OverflowPolicy}, and the number of metrics
+ * it dropped is logged periodically rather than on every drop.
+ * <p>
+ * When adaptive sampling is enabled, an {@link AdaptiveSampler} lowers the sample rate of the busiest metric types or
+ * series while the buffers fill up, the worker tasks queue up or sending slows down, and raises it back as they
+ * recover. The lowered sample rate is written in the metric lines, so that Statful still scales them correctly.
+ * <p>
+ * When a spill directory is configured, the flushes that can't be scheduled, and the messages the
+ * {@link ReportingTransportSender} reports it couldn't send, are spilled to a {@link SpillQueue} on disk instead of
+ * being dropped. The spilled messages are sent again through the worker tasks, up to the configured replay rate per
+ * second while sending succeeds, and one per second while it fails, to find out when it recovers.
  * <p>
  * Instances of this class are thread-safe.
  */
-public class BufferedMetricsSender implements MetricsSender {
+public class BufferedMetricsSender implements EncodedMetricsSender {
 
     private static final Logger LOGGER = Logger.getLogger(BufferedMetricsSender.class.getName());
 
-    private static final int MAX_BUFFER_SIZE = 5000;
+    private static final int DEFAULT_BUFFER_CAPACITY = 5000;
     private static final int MIN_SAMPLE_RATE = 1;
     private static final int MAX_SAMPLE_RATE = 100;
-    private static final int SAMPLE_RATE_DIVIDER = 100;
     private static final int MIN_FLUSH_INTERVAL = 50;
 
-    private static final int FUTURE_QUEUE_MAX_SIZE = 5000;
+    private static final long AGGREGATION_FLUSH_INTERVAL = 1000;
+    private static final long DROPPED_METRICS_REPORT_INTERVAL = 10000;
+    private static final long ADAPTIVE_SAMPLING_INTERVAL = 1000;
+    private static final long SPILL_REPLAY_INTERVAL = 1000;
+    private static final long TIMESTAMP_DIVIDER = 1000L;
+    private static final int NOT_SAMPLED = 0;
+    private static final String FLUSHER_THREAD_NAME = "statful-flusher";
 
     private final ClientConfiguration configuration;
     private final TransportSender transportSender;
-    private final ScheduledThreadPoolExecutor executorService;
+    private final ByteTransportSender byteTransportSender;
+    private final SendPipeline sendPipeline;
     private final boolean dryRun;
+    private final boolean lazyEncoding;
     private final StandardBuffer standardBuffer;
     private final AggregatedBuffer aggregatedBuffer;
-    private final ArrayBlockingQueue<Future<?>> futuresQueue;
+    private final MetricAggregator metricAggregator;
+    private final RegisteredMetrics registeredMetrics = new RegisteredMetrics();
+    private final Sampler sampler;
+    private final AdaptiveSampler adaptiveSampler;
+    private final Flusher flusher;
+    private final SpillQueue spillQueue;
+    private volatile boolean sending = true;
+    private volatile boolean pipelineBlocked;
+    private final boolean periodicFlush;
+    private final AtomicBoolean registeredWithoutPeriodicFlush = new AtomicBoolean();
 
     private final ScheduledExecutorService helperExecutorService = Executors.newSingleThreadScheduledExecutor();
 
@@ -55,7 +125,7 @@ public class BufferedMetricsSender implements MetricsSender {
      *
      * @param transportSender The {@link com.statful.client.core.transport.TransportSender} to send metrics
      * @param configuration   The {@link com.statful.client.domain.api.ClientConfiguration}
-     * @param executorService The {@link java.util.concurrent.ScheduledExecutorService} to handle flushes
+     * @param executorService The {@link java.util.concurrent.ScheduledExecutorService} to run the send workers on
      */
     public BufferedMetricsSender(
             final TransportSender transportSender,
@@ -64,16 +134,60 @@ public class BufferedMetricsSender implements MetricsSender {
     ) {
         this.configuration = configuration;
         this.transportSender = transportSender;
-        this.executorService = executorService;
+        this.byteTransportSender = transportSender instanceof ByteTransportSender ? (ByteTransportSender) transportSender : null;
+        this.sendPipeline = new SendPipeline(executorService, executorService.getCorePoolSize(),
+                configuration.getMaxWorkerTasksQueueSize(), configuration.getWorkerTaskDeadlineMillis(), new Runnable() {
+                    @Override
+                    public void run() {
+                        unblockPipeline();
+                    }
+                });
         this.dryRun = configuration.isDryRun();
-        this.standardBuffer = new StandardBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize());
-        this.aggregatedBuffer = new AggregatedBuffer(MAX_BUFFER_SIZE, configuration.getFlushSize());
+        this.lazyEncoding = configuration.isLazyEncoding();
+        this.sampler = new Sampler(configuration.getSamplingMode());
+        AdaptiveSampling adaptiveSampling = configuration.getAdaptiveSampling();
+        this.adaptiveSampler = adaptiveSampling != null && adaptiveSampling != AdaptiveSampling.DISABLED
+                ? new AdaptiveSampler(adaptiveSampling) : null;
+        int bufferCapacity = configuration.getBufferCapacity() > 0 ? configuration.getBufferCapacity() : DEFAULT_BUFFER_CAPACITY;
+        if (configuration.getOffHeapBufferBudget() > 0) {
+            SlabPool slabPool = new SlabPool(configuration.getOffHeapBufferBudget());
+            this.standardBuffer = new StandardBuffer(bufferCapacity, configuration.getFlushSize(),
+                    configuration.getOverflowPolicy(), configuration.getOverflowTimeoutMillis(), slabPool);
+            this.aggregatedBuffer = new AggregatedBuffer(bufferCapacity, configuration.getFlushSize(),
+                    configuration.getOverflowPolicy(), configuration.getOverflowTimeoutMillis(), slabPool);
+        } else {
+            MemoryBudget memoryBudget = new MemoryBudget(configuration.getBufferMemoryBudget());
+            this.standardBuffer = new StandardBuffer(bufferCapacity, configuration.getFlushSize(),
+                    configuration.getOverflowPolicy(), configuration.getOverflowTimeoutMillis(), memoryBudget);
+            this.aggregatedBuffer = new AggregatedBuffer(bufferCapacity, configuration.getFlushSize(),
+                    configuration.getOverflowPolicy(), configuration.getOverflowTimeoutMillis(), memoryBudget);
+        }
 
-        this.futuresQueue = new ArrayBlockingQueue<Future<?>>(FUTURE_QUEUE_MAX_SIZE);
+        this.metricAggregator = configuration.isClientSideAggregation() ? new MetricAggregator(aggregatedMetricsSink()) : null;
+
+        this.periodicFlush = configuration.getFlushIntervalMillis() >= MIN_FLUSH_INTERVAL;
+        this.flusher = new Flusher(FLUSHER_THREAD_NAME, new Runnable() {
+            @Override
+            public void run() {
+                if (periodicFlush) {
+                    flush();
+                } else {
+                    drainRegisteredMetricsAndFlush();
+                }
+            }
+        });
+        this.flusher.start();
+
+        this.spillQueue = createSpillQueue(configuration);
+        if (spillQueue != null && transportSender instanceof ReportingTransportSender) {
+            ((ReportingTransportSender) transportSender).setSendListener(spillListener());
+        }
 
-        executorService.setRemoveOnCancelPolicy(true);
         startFlushInterval(configuration.getFlushIntervalMillis());
-        startKillerInterval();
+        startAggregationInterval();
+        startDroppedMetricsReportInterval();
+        startAdaptiveSamplingInterval();
+        startSpillReplayInterval();
     }
 
     @Override
@@ -86,7 +200,7 @@ public class BufferedMetricsSender implements MetricsSender {
             LOGGER.warning("Invalid sample rate supplied. Discarding metric.");
             return;
         }
-        if (shouldPutMetric(sampleRate)) {
+        if (sampler.isSampledIn(sampleRate, name, tags)) {
             putMetric(name, value, tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
         }
     }
@@ -104,6 +218,20 @@ public class BufferedMetricsSender implements MetricsSender {
 
     private void putMetric(final String name, final String value, final Tags tags, final Aggregations aggregations,
                            final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace, final long timestamp) {
+        if (metricAggregator != null && MetricAggregator.canAggregate(aggregations)) {
+            try {
+                metricAggregator.add(name, Double.parseDouble(value), tags, aggregations, aggregationFrequency, sampleRate, namespace, timestamp);
+                return;
+            } catch (NumberFormatException e) {
+                LOGGER.fine("Unable to aggregate a non numeric value, sending it as it is: " + value);
+            }
+        }
+
+        int adaptedSampleRate = adaptSampleRate(sampleRate, name, tags);
+        if (adaptedSampleRate == NOT_SAMPLED) {
+            return;
+        }
+
         String rawMessage = MessageBuilder.newBuilder()
                 .withName(name)
                 .withValue(value)
@@ -112,7 +240,7 @@ public class BufferedMetricsSender implements MetricsSender {
                 .withAggregationFreq(aggregationFrequency)
                 .withNamespace(namespace)
                 .withTimestamp(timestamp)
-                .withSampleRate(sampleRate)
+                .withSampleRate(adaptedSampleRate)
                 .build();
 
         if (!dryRun) {
@@ -130,23 +258,8 @@ public class BufferedMetricsSender implements MetricsSender {
             LOGGER.warning("Invalid sample rate supplied. Discarding metric.");
             return;
         }
-        if (shouldPutMetric(sampleRate)) {
-            String rawMessage = MessageBuilder.newBuilder()
-                    .withName(name)
-                    .withValue(value)
-                    .withTags(tags)
-                    .withNamespace(namespace)
-                    .withTimestamp(timestamp)
-                    .withSampleRate(sampleRate)
-                    .build();
-
-            if (!dryRun) {
-                this.putAggregatedRaw(rawMessage, aggregation, aggregationFrequency);
-            } else {
-                LOGGER.fine("Dry metric: " + rawMessage
-                        + " Aggregation: " + aggregation
-                        + " Frequency: " + aggregationFrequency);
-            }
+        if (sampler.isSampledIn(sampleRate, name, tags)) {
+            putAggregatedMetric(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace, timestamp);
         }
     }
 
@@ -158,44 +271,191 @@ public class BufferedMetricsSender implements MetricsSender {
             LOGGER.warning("Invalid sample rate supplied. Discarding metric.");
             return;
         }
-            String rawMessage = MessageBuilder.newBuilder()
-                    .withName(name)
-                    .withValue(value)
-                    .withTags(tags)
-                    .withNamespace(namespace)
-                    .withTimestamp(timestamp)
-                    .withSampleRate(sampleRate)
-                    .build();
-
-            if (!dryRun) {
-                this.putAggregatedRaw(rawMessage, aggregation, aggregationFrequency);
+        putAggregatedMetric(name, value, tags, aggregation, aggregationFrequency, sampleRate, namespace, timestamp);
+    }
+
+    private void putAggregatedMetric(final String name, final String value, final Tags tags, final Aggregation aggregation,
+                                     final AggregationFrequency aggregationFrequency, final Integer sampleRate, final String namespace,
+                                     final long timestamp) {
+        int adaptedSampleRate = adaptSampleRate(sampleRate, name, tags);
+        if (adaptedSampleRate == NOT_SAMPLED) {
+            return;
+        }
+
+        String rawMessage = MessageBuilder.newBuilder()
+                .withName(name)
+                .withValue(value)
+                .withTags(tags)
+                .withNamespace(namespace)
+                .withTimestamp(timestamp)
+                .withSampleRate(adaptedSampleRate)
+                .build();
+
+        if (!dryRun) {
+            this.putAggregatedRaw(rawMessage, aggregation, aggregationFrequency);
+        } else {
+            LOGGER.fine("Dry metric: " + rawMessage
+                    + " Aggregation: " + aggregation
+                    + " Frequency: " + aggregationFrequency);
+        }
+    }
+
+    @Override
+    public final void putEncoded(final EncodedMetric metric, final long value, final long timestamp) {
+        if (shouldPutEncodedMetric(metric)) {
+            if (shouldAggregate(metric)) {
+                aggregate(metric, value, timestamp);
             } else {
-                LOGGER.fine("Dry metric: " + rawMessage
-                        + " Aggregation: " + aggregation
-                        + " Frequency: " + aggregationFrequency);
+                int adaptedSampleRate = adaptSampleRate(metric.getSampleRate(), metric.getName(), metric.getTags());
+                if (adaptedSampleRate == metric.getSampleRate()) {
+                    putEncodedRaw(encode(metric, value, timestamp), metric);
+                } else if (adaptedSampleRate != NOT_SAMPLED) {
+                    putEncodedRaw(buildEncodedMetric(metric, Long.toString(value), timestamp, adaptedSampleRate), metric);
+                }
             }
+        }
+    }
+
+    @Override
+    public final void putEncoded(final EncodedMetric metric, final double value, final long timestamp) {
+        if (shouldPutEncodedMetric(metric)) {
+            if (shouldAggregate(metric)) {
+                aggregate(metric, value, timestamp);
+            } else {
+                int adaptedSampleRate = adaptSampleRate(metric.getSampleRate(), metric.getName(), metric.getTags());
+                if (adaptedSampleRate == metric.getSampleRate()) {
+                    putEncodedRaw(encode(metric, value, timestamp), metric);
+                } else if (adaptedSampleRate != NOT_SAMPLED) {
+                    putEncodedRaw(buildEncodedMetric(metric, Double.toString(value), timestamp, adaptedSampleRate), metric);
+                }
+            }
+        }
+    }
+
+    @Override
+    public final Counter registerCounter(final EncodedMetric metric) {
+        warnIfNotDrainedPeriodically();
+        return registeredMetrics.registerCounter(metric);
+    }
+
+    @Override
+    public final Gauge registerGauge(final EncodedMetric metric) {
+        warnIfNotDrainedPeriodically();
+        return registeredMetrics.registerGauge(metric);
+    }
+
+    private void warnIfNotDrainedPeriodically() {
+        if (!periodicFlush && registeredWithoutPeriodicFlush.compareAndSet(false, true)) {
+            LOGGER.warning("The periodic flush is disabled, so registered counters and gauges are only sent when the buffers "
+                    + "are flushed because they are full enough, or when a flush is forced.");
+        }
+    }
+
+    private void drainRegisteredMetrics() {
+        if (!registeredMetrics.isEmpty()) {
+            registeredMetrics.drainInto(this, System.currentTimeMillis() / TIMESTAMP_DIVIDER);
+        }
+    }
+
+    private CharSequence encode(final EncodedMetric metric, final long value, final long timestamp) {
+        return lazyEncoding ? PendingLine.of(metric.getTemplate(), value, timestamp) : metric.getTemplate().build(value, timestamp);
+    }
+
+    private CharSequence encode(final EncodedMetric metric, final double value, final long timestamp) {
+        return lazyEncoding ? PendingLine.of(metric.getTemplate(), value, timestamp) : metric.getTemplate().build(value, timestamp);
+    }
+
+    private boolean shouldAggregate(final EncodedMetric metric) {
+        return metricAggregator != null && !metric.isAggregated() && MetricAggregator.canAggregate(metric.getAggregations());
+    }
+
+    private void aggregate(final EncodedMetric metric, final double value, final long timestamp) {
+        metricAggregator.add(metric.getName(), value, metric.getTags(), metric.getAggregations(), metric.getAggregationFrequency(),
+                metric.getSampleRate(), metric.getNamespace(), timestamp);
+    }
+
+    private boolean shouldPutEncodedMetric(final EncodedMetric metric) {
+        if (!this.isValidSampleRate(metric.getSampleRate())) {
+            LOGGER.warning("Invalid sample rate supplied. Discarding metric.");
+            return false;
+        }
+
+        return metric.isSampled() || sampler.isSampledIn(metric.getSampleRate(), metric.getName(), metric.getTags());
+    }
+
+    private String buildEncodedMetric(final EncodedMetric metric, final String value, final long timestamp, final int sampleRate) {
+        MessageBuilder messageBuilder = MessageBuilder.newBuilder()
+                .withName(metric.getName())
+                .withValue(value)
+                .withTags(metric.getTags())
+                .withAggregationFreq(metric.getAggregationFrequency())
+                .withNamespace(metric.getNamespace())
+                .withTimestamp(timestamp)
+                .withSampleRate(sampleRate);
+
+        if (!metric.isAggregated()) {
+            messageBuilder.withAggregations(metric.getAggregations());
+        }
+
+        return messageBuilder.build();
+    }
+
+    /**
+     * Lowers the sample rate of a metric that was kept at it, if adaptive sampling is shedding its metric type or series.
+     *
+     * @return The sample rate the metric is kept at, or {@link #NOT_SAMPLED} if it is dropped
+     */
+    private int adaptSampleRate(final int sampleRate, final String name, final Tags tags) {
+        if (adaptiveSampler == null) {
+            return sampleRate;
+        }
+
+        int adaptedSampleRate = adaptiveSampler.sampleRate(sampleRate, name, tags);
+        if (adaptedSampleRate < sampleRate && !sampler.isResampledIn(sampleRate, adaptedSampleRate, name, tags)) {
+            return NOT_SAMPLED;
+        }
+        return adaptedSampleRate;
+    }
+
+    private void putEncodedRaw(final CharSequence rawMessage, final EncodedMetric metric) {
+        if (dryRun) {
+            LOGGER.fine("Dry metric: " + rawMessage);
+        } else if (metric.isAggregated()) {
+            this.putAggregatedRaw(rawMessage, metric.getAggregation(), metric.getAggregationFrequency());
+        } else {
+            this.putRaw(rawMessage);
+        }
     }
 
     @Override
     public final void shutdown() {
+        flusher.stop();
         transportSender.shutdown();
+        if (spillQueue != null) {
+            spillQueue.close();
+        }
     }
 
     @Override
     public final void forceSyncFlush() {
-        String message = standardBuffer.readBuffer();
-        if (!message.isEmpty()) {
-            sendMetricSynchronously(message);
+        drainRegisteredMetrics();
+        if (metricAggregator != null) {
+            metricAggregator.flushAll();
+        }
+
+        List<CharSequence> messages = standardBuffer.drainBuffer();
+        if (!messages.isEmpty()) {
+            send(messages, null);
         }
 
         Set<Aggregation> aggregations = aggregatedBuffer.getAggregations();
         for (Aggregation aggregation : aggregations) {
             Set<AggregationFrequency> aggregationFrequencies = aggregatedBuffer.getAggregationFrequencies(aggregation);
             for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
-                String aggregatedMessages = aggregatedBuffer.readBuffer(aggregation, aggregationFrequency);
+                List<CharSequence> aggregatedMessages = aggregatedBuffer.drainBuffer(aggregation, aggregationFrequency);
 
                 if (!aggregatedMessages.isEmpty()) {
-                    sendAggregatedMetricSynchronously(aggregatedMessages, aggregation, aggregationFrequency);
+                    send(aggregatedMessages, buildAggregatedUri(aggregation, aggregationFrequency));
                 }
             }
         }
@@ -207,54 +467,202 @@ public class BufferedMetricsSender implements MetricsSender {
         }
     }
 
-    private void startKillerInterval() {
-        long killerInterval = configuration.getWorkerTaskKillerInterval();
-        helperExecutorService.scheduleAtFixedRate(tasksKiller(), killerInterval, killerInterval, TimeUnit.MILLISECONDS);
+    private void startAggregationInterval() {
+        if (metricAggregator != null) {
+            helperExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        metricAggregator.flush(System.currentTimeMillis() / TIMESTAMP_DIVIDER);
+                    } catch (Exception e) {
+                        LOGGER.warning("Unable to flush the aggregated metrics: " + e.toString());
+                    }
+                }
+            }, AGGREGATION_FLUSH_INTERVAL, AGGREGATION_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void startDroppedMetricsReportInterval() {
+        helperExecutorService.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                long droppedMetrics = standardBuffer.getAndResetDroppedMetrics() + aggregatedBuffer.getAndResetDroppedMetrics();
+                if (droppedMetrics > 0) {
+                    LOGGER.warning("The buffer is full, " + droppedMetrics + " metrics were dropped by the "
+                            + configuration.getOverflowPolicy() + " overflow policy in the last " + DROPPED_METRICS_REPORT_INTERVAL + "ms.");
+                }
+
+                long rejectedTasks = sendPipeline.getAndResetRejectedTasks();
+                long expiredTasks = sendPipeline.getAndResetExpiredTasks();
+                if (rejectedTasks + expiredTasks > 0) {
+                    LOGGER.warning("Unable to send metrics in time! " + rejectedTasks + " flushes were rejected by the full tasks queue and "
+                            + expiredTasks + " expired waiting in it in the last " + DROPPED_METRICS_REPORT_INTERVAL + "ms"
+                            + (spillQueue != null ? ", and were spilled." : ". Please lower your timeouts or increase the worker thread pool."));
+                }
+            }
+        }, DROPPED_METRICS_REPORT_INTERVAL, DROPPED_METRICS_REPORT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private void startAdaptiveSamplingInterval() {
+        if (adaptiveSampler != null) {
+            helperExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        adjustAdaptiveSampling();
+                    } catch (Exception e) {
+                        LOGGER.warning("Unable to adjust the adaptive sampling: " + e.toString());
+                    }
+                }
+            }, ADAPTIVE_SAMPLING_INTERVAL, ADAPTIVE_SAMPLING_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void startSpillReplayInterval() {
+        if (spillQueue != null) {
+            helperExecutorService.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        replaySpilledMessages();
+                    } catch (Exception e) {
+                        LOGGER.warning("Unable to send the spilled metrics: " + e.toString());
+                    }
+                }
+            }, SPILL_REPLAY_INTERVAL, SPILL_REPLAY_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Schedules the oldest spilled messages to be sent again, up to the replay rate while sending succeeds, or a single
+     * one while it fails, and as long as the worker tasks queue has room for them.
+     */
+    final void replaySpilledMessages() {
+        int replays = sending ? Math.max(1, configuration.getSpillReplayRate()) : 1;
+        for (int i = 0; i < replays && sendPipeline.hasRoom(); i++) {
+            SpillQueue.SpilledMessage spilledMessage = spillQueue.poll();
+            if (spilledMessage == null) {
+                return;
+            }
+            submit(new SendTask(spilledMessage.getMessage(), spilledMessage.getUri()));
+        }
+    }
+
+    private static SpillQueue createSpillQueue(final ClientConfiguration configuration) {
+        String spillDirectory = configuration.getSpillDirectory();
+        if (spillDirectory == null || spillDirectory.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new SpillQueue(new File(spillDirectory), configuration.getSpillMaxBytes());
+        } catch (IOException | RuntimeException e) {
+            LOGGER.severe("Unable to spill to " + spillDirectory + ", metrics that can't be sent will be dropped: " + e.toString());
+            return null;
+        }
+    }
+
+    private SendListener spillListener() {
+        return new SendListener() {
+            @Override
+            public void onSent() {
+                sending = true;
+            }
+
+            @Override
+            public void onFailed(final ByteBuffer message, final String uri) {
+                sending = false;
+                spill(message, uri);
+            }
+        };
+    }
+
+    private void spill(final ByteBuffer message, final String uri) {
+        if (!spillQueue.fits(message, uri)) {
+            LOGGER.warning("Unable to spill metrics, the message is larger than a spill segment.");
+        } else if (!spillQueue.offer(message, uri)) {
+            LOGGER.warning("Unable to spill metrics, the spill directory is full.");
+        }
+    }
+
+    /**
+     * Adjusts the adaptive sampling to the current pressure, which is the highest of the usage of the buffers, the
+     * usage of the worker tasks queue and the send latency relative to the socket timeout.
+     */
+    final void adjustAdaptiveSampling() {
+        double pressure = Math.max(standardBuffer.getUsage(), aggregatedBuffer.getUsage());
+
+        if (configuration.getMaxWorkerTasksQueueSize() > 0) {
+            pressure = Math.max(pressure, sendPipeline.getUsage());
+        }
+
+        int socketTimeoutMillis = configuration.getSocketTimeoutMillis();
+        if (socketTimeoutMillis > 0) {
+            pressure = Math.max(pressure, adaptiveSampler.getSendLatencyMillis() / socketTimeoutMillis);
+        }
+
+        adaptiveSampler.adjust(pressure);
+    }
+
+    private AggregatedMetricsSink aggregatedMetricsSink() {
+        return new AggregatedMetricsSink() {
+            @Override
+            public void putAggregated(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+                if (!dryRun) {
+                    putAggregatedRaw(metric, aggregation, aggregationFrequency);
+                } else {
+                    LOGGER.fine("Dry metric: " + metric
+                            + " Aggregation: " + aggregation
+                            + " Frequency: " + aggregationFrequency);
+                }
+            }
+        };
     }
 
     private Runnable flusher() {
         return new Runnable() {
             @Override
             public void run() {
-                flush();
+                drainRegisteredMetricsAndFlush();
             }
         };
     }
 
-    private boolean shouldPutMetric(final int sampleRate) {
-        return Math.random() <= (double) sampleRate / SAMPLE_RATE_DIVIDER;
+    private void drainRegisteredMetricsAndFlush() {
+        try {
+            drainRegisteredMetrics();
+        } catch (Exception e) {
+            LOGGER.warning("Unable to drain the registered counters and gauges: " + e.toString());
+        }
+        flush();
     }
 
     private boolean isValidSampleRate(final Integer sampleRate) {
         return sampleRate != null && sampleRate >= MIN_SAMPLE_RATE && sampleRate <= MAX_SAMPLE_RATE;
     }
 
-    private void putRaw(final String metric) {
-        boolean inserted = standardBuffer.addToBuffer(metric);
-        if (!inserted) {
-            // We should discard older metrics instead
-            LOGGER.warning("The buffer is full, metric ignored!.");
-        }
+    private void putRaw(final CharSequence metric) {
+        standardBuffer.addToBuffer(metric);
 
-        if (standardBuffer.isTimeToFlush()) {
-            flush();
+        if (!pipelineBlocked && standardBuffer.isTimeToFlush()) {
+            flusher.signal();
         }
     }
 
-    private void putAggregatedRaw(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
-        boolean inserted = aggregatedBuffer.addToBuffer(metric, aggregation, aggregationFrequency);
-        if (!inserted) {
-            // We should discard older metrics instead
-            LOGGER.warning("The buffer is full, metric ignored!.");
-        }
+    private void putAggregatedRaw(final CharSequence metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+        aggregatedBuffer.addToBuffer(metric, aggregation, aggregationFrequency);
 
-        if (aggregatedBuffer.isTimeToFlush()) {
-            flush();
+        if (!pipelineBlocked && aggregatedBuffer.isTimeToFlush()) {
+            flusher.signal();
         }
     }
 
     private void flush() {
-        String standardMessages = standardBuffer.readBuffer();
+        if (!canFlush()) {
+            blockPipeline();
+            return;
+        }
+        List<CharSequence> standardMessages = standardBuffer.drainBuffer();
         if (!standardMessages.isEmpty()) {
             sendMetric(standardMessages);
         }
@@ -264,43 +672,125 @@ public class BufferedMetricsSender implements MetricsSender {
         for (Aggregation aggregation : aggregations) {
             Set<AggregationFrequency> aggregationFrequencies = aggregatedBuffer.getAggregationFrequencies(aggregation);
             for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
-                String aggregatedMessages = aggregatedBuffer.readBuffer(aggregation, aggregationFrequency);
+                if (!canFlush()) {
+                    blockPipeline();
+                    return;
+                }
+                List<CharSequence> aggregatedMessages = aggregatedBuffer.drainBuffer(aggregation, aggregationFrequency);
 
                 if (!aggregatedMessages.isEmpty()) {
                     sendAggregatedMetric(aggregatedMessages, aggregation, aggregationFrequency);
                 }
             }
         }
-    }
 
-    private void sendMetric(final String metric) {
-        scheduleTask(new Runnable() {
-            @Override
-            public void run() {
-                transportSender.send(metric);
+        // The puts don't signal while the pipeline is blocked, so a backlog left by them is flushed without waiting
+        if (standardBuffer.isTimeToFlush() || aggregatedBuffer.isTimeToFlush()) {
+            if (canFlush()) {
+                flusher.signal();
+            } else {
+                blockPipeline();
             }
-        });
+        }
+    }
+
+    /**
+     * Checks if a buffer can be drained into a send task, which is when the pipeline has room for it, or when it can be
+     * spilled otherwise.
+     */
+    private boolean canFlush() {
+        return spillQueue != null || sendPipeline.hasRoom();
     }
 
-    private void sendAggregatedMetric(final String metric,
+    /**
+     * Stops the puts from signalling the flusher while the pipeline is full, as flushing can't drain a buffer until a
+     * worker takes a task out of the pipeline, which signals it instead.
+     */
+    private void blockPipeline() {
+        pipelineBlocked = true;
+        // A worker that took a task before the flag was set didn't see it, so the room it made is checked here
+        if (sendPipeline.hasRoom()) {
+            unblockPipeline();
+        }
+    }
+
+    private void unblockPipeline() {
+        if (pipelineBlocked) {
+            pipelineBlocked = false;
+            flusher.signal();
+        }
+    }
+
+    /**
+     * Gets the number of flushes the flusher thread ran, including the ones that found the pipeline full.
+     *
+     * @return The number of flushes
+     */
+    final long getFlushes() {
+        return flusher.getFlushes();
+    }
+
+    private void sendMetric(final List<CharSequence> metrics) {
+        submit(new SendTask(metrics, null));
+    }
+
+    private void sendAggregatedMetric(final List<CharSequence> metrics,
                                       final Aggregation aggregation,
                                       final AggregationFrequency aggregationFrequency) {
-        scheduleTask(new Runnable() {
-            @Override
-            public void run() {
-                transportSender.send(metric, buildAggregatedUri(aggregation, aggregationFrequency));
+        submit(new SendTask(metrics, buildAggregatedUri(aggregation, aggregationFrequency)));
+    }
+
+    /**
+     * Encodes metric lines into a message and sends it, either in UTF-8 bytes or as a string, depending on what the
+     * transport sender supports.
+     *
+     * @param uri The uri to send the message to, or null to send it to the standard endpoint
+     */
+    private void send(final List<CharSequence> metrics, final String uri) {
+        if (byteTransportSender != null) {
+            ByteBuffer message = LineEncoder.encodeUtf8(metrics);
+            if (uri == null) {
+                byteTransportSender.send(message);
+            } else {
+                byteTransportSender.send(message, uri);
             }
-        });
+        } else {
+            String message = LineEncoder.encode(metrics);
+            if (uri == null) {
+                transportSender.send(message);
+            } else {
+                transportSender.send(message, uri);
+            }
+        }
     }
 
-    private void sendMetricSynchronously(final String metric) {
-        transportSender.send(metric);
+    /**
+     * Sends a spilled message again, either in UTF-8 bytes or as a string, depending on what the transport sender
+     * supports.
+     *
+     * @param uri The uri to send the message to, or null to send it to the standard endpoint
+     */
+    private void send(final byte[] message, final String uri) {
+        if (byteTransportSender != null) {
+            if (uri == null) {
+                byteTransportSender.send(ByteBuffer.wrap(message));
+            } else {
+                byteTransportSender.send(ByteBuffer.wrap(message), uri);
+            }
+        } else {
+            String decoded = new String(message, StandardCharsets.UTF_8);
+            if (uri == null) {
+                transportSender.send(decoded);
+            } else {
+                transportSender.send(decoded, uri);
+            }
+        }
     }
 
-    private void sendAggregatedMetricSynchronously(final String metric,
-                                                   final Aggregation aggregation,
-                                                   final AggregationFrequency aggregationFrequency) {
-        transportSender.send(metric, buildAggregatedUri(aggregation, aggregationFrequency));
+    private void recordSendLatency(final long start) {
+        if (adaptiveSampler != null) {
+            adaptiveSampler.recordSendLatency(System.nanoTime() - start);
+        }
     }
 
     private String buildAggregatedUri(final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
@@ -320,8 +810,7 @@ public class BufferedMetricsSender implements MetricsSender {
      * @return A {@link java.util.List} containing the messages of the buffer
      */
     final List<String> getStandardBuffer() {
-        ArrayBlockingQueue<String> buffer = standardBuffer.getBuffer();
-        return asList(buffer.toArray(new String[buffer.size()]));
+        return toStrings(standardBuffer.getBuffer().toList());
     }
 
     /**
@@ -341,10 +830,7 @@ public class BufferedMetricsSender implements MetricsSender {
             for (AggregationFrequency aggregationFrequency : aggregationFrequencies) {
 
                 // Current buffer content
-                ArrayBlockingQueue<String> currentAggregationFreqQueue =
-                        aggregatedBuffer.getBuffer().get(aggregation.toString()).get(aggregationFrequency.toString());
-                List<String> currentAggregationFreqList =
-                        asList(currentAggregationFreqQueue.toArray(new String[currentAggregationFreqQueue.size()]));
+                List<String> currentAggregationFreqList = toStrings(aggregatedBuffer.getBuffer(aggregation, aggregationFrequency).toList());
 
                 Map<AggregationFrequency, List<String>> aggregationFreqMap = buffersAsList.get(aggregation);
                 if (aggregationFreqMap != null) {
@@ -366,37 +852,64 @@ public class BufferedMetricsSender implements MetricsSender {
         return buffersAsList;
     }
 
-    private void scheduleTask(final Runnable runnable) {
-        boolean wasScheduled = false;
-        if (executorService.getQueue().size() < configuration.getMaxWorkerTasksQueueSize()) {
-            Future<?> futureTask = executorService.schedule(runnable, 0, TimeUnit.MILLISECONDS);
-
-            wasScheduled = futuresQueue.offer(futureTask);
+    private static List<String> toStrings(final List<CharSequence> metrics) {
+        List<String> lines = new ArrayList<String>(metrics.size());
+        for (CharSequence metric : metrics) {
+            lines.add(metric.toString());
         }
+        return lines;
+    }
 
-        if (!wasScheduled) {
-            LOGGER.warning("Unable to send metric! The tasks queue is full. Please lower your timeouts or increase the worker thread pool.");
-            cancelAllWaitingTasks();
+    /**
+     * Submits a send task to the pipeline, spilling it if the pipeline is full and spilling is enabled.
+     */
+    private void submit(final SendTask task) {
+        if (!sendPipeline.submit(task) && spillQueue != null) {
+            task.spill();
         }
     }
 
-    private void cancelAllWaitingTasks() {
-        helperExecutorService.schedule(tasksKiller(), 0, TimeUnit.MILLISECONDS);
-    }
+    /**
+     * A worker task sending either flushed metric lines or a spilled message, which is spilled back if it's never run.
+     */
+    private final class SendTask implements SendPipeline.Task {
 
-    private Runnable tasksKiller() {
-        return new Runnable() {
-            @Override
-            public void run() {
-                Collection<Future<?>> tasks = new LinkedList<Future<?>>();
-                futuresQueue.drainTo(tasks);
+        private final List<CharSequence> metrics;
+        private final byte[] message;
+        private final String uri;
 
-                for (Future<?> task : tasks) {
-                    task.cancel(false);
-                }
+        SendTask(final List<CharSequence> metrics, final String uri) {
+            this.metrics = metrics;
+            this.message = null;
+            this.uri = uri;
+        }
+
+        SendTask(final byte[] message, final String uri) {
+            this.metrics = null;
+            this.message = message;
+            this.uri = uri;
+        }
 
-                executorService.purge();
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            if (metrics != null) {
+                send(metrics, uri);
+            } else {
+                send(message, uri);
             }
-        };
+            recordSendLatency(start);
+        }
+
+        @Override
+        public void expire() {
+            if (spillQueue != null) {
+                spill();
+            }
+        }
+
+        void spill() {
+            BufferedMetricsSender.this.spill(metrics != null ? LineEncoder.encodeUtf8(metrics) : ByteBuffer.wrap(message), uri);
+        }
     }
 }
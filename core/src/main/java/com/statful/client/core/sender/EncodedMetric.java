@@ -0,0 +1,157 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.core.message.MessageTemplate;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+
+/**
+ * A metric with everything but its value and timestamp, along with its pre-encoded {@link MessageTemplate}.
+ * <p>
+ * Instances of this class are immutable: the given {@link Tags} and {@link Aggregations} are copied.
+ */
+public final class EncodedMetric {
+
+    private final String name;
+    private final Tags tags;
+    private final Aggregations aggregations;
+    private final AggregationFrequency aggregationFrequency;
+    private final Integer sampleRate;
+    private final String namespace;
+    private final boolean aggregated;
+    private final boolean sampled;
+    private final MessageTemplate template;
+
+    /**
+     * Default constructor.
+     *
+     * @param name                 The name of the metric
+     * @param tags                 A {@link Tags} the tags to be associated with the metric
+     * @param aggregations         {@link Aggregations} with aggregations of the metric
+     * @param aggregationFrequency {@link AggregationFrequency} of the metric
+     * @param sampleRate           The metrics sample rate
+     * @param namespace            The namespace of the metric
+     * @param isAggregated         Flag stating if the metric is aggregated, in which case it must have a single aggregation
+     * @param isSampled            Flag stating if the metric is sampled
+     */
+    public EncodedMetric(final String name, final Tags tags, final Aggregations aggregations,
+                         final AggregationFrequency aggregationFrequency, final Integer sampleRate,
+                         final String namespace, final boolean isAggregated, final boolean isSampled) {
+        this.name = name;
+        this.tags = tags != null ? Tags.from(tags) : null;
+        this.aggregations = aggregations != null ? new Aggregations().merge(aggregations) : null;
+        this.aggregationFrequency = aggregationFrequency;
+        this.sampleRate = sampleRate;
+        this.namespace = namespace;
+        this.aggregated = isAggregated;
+        this.sampled = isSampled;
+
+        MessageBuilder messageBuilder = MessageBuilder.newBuilder()
+                .withName(name)
+                .withTags(this.tags)
+                .withAggregationFreq(aggregationFrequency)
+                .withNamespace(namespace);
+
+        // Aggregated metrics are sent to an aggregation specific endpoint instead
+        if (!isAggregated) {
+            messageBuilder.withAggregations(this.aggregations);
+        }
+        if (sampleRate != null) {
+            messageBuilder.withSampleRate(sampleRate);
+        }
+
+        this.template = messageBuilder.buildTemplate();
+    }
+
+    /**
+     * A getter for the metric name.
+     *
+     * @return The metric name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * A getter for the metric tags.
+     *
+     * @return The metric tags
+     */
+    public Tags getTags() {
+        return tags;
+    }
+
+    /**
+     * A getter for the aggregations.
+     *
+     * @return The aggregations
+     */
+    public Aggregations getAggregations() {
+        return aggregations;
+    }
+
+    /**
+     * A getter for the aggregation of an aggregated metric.
+     *
+     * @return The single aggregation of the metric
+     */
+    public Aggregation getAggregation() {
+        return aggregations.getAggregations().iterator().next();
+    }
+
+    /**
+     * A getter for the aggregation frequency.
+     *
+     * @return The aggregation frequency
+     */
+    public AggregationFrequency getAggregationFrequency() {
+        return aggregationFrequency;
+    }
+
+    /**
+     * A getter for the sample rate.
+     *
+     * @return The sample rate
+     */
+    public Integer getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * A getter for the metric namespace.
+     *
+     * @return The metric namespace
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * A getter for the aggregation flag.
+     *
+     * @return The aggregation flag
+     */
+    public boolean isAggregated() {
+        return aggregated;
+    }
+
+    /**
+     * A getter for the sampled flag.
+     *
+     * @return The sampled flag
+     */
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * A getter for the pre-encoded metric line.
+     *
+     * @return The {@link MessageTemplate} of the metric
+     */
+    public MessageTemplate getTemplate() {
+        return template;
+    }
+}
@@ -0,0 +1,47 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.Counter;
+import com.statful.client.domain.api.Gauge;
+import com.statful.client.domain.api.MetricsSender;
+
+/**
+ * A {@link MetricsSender} that is also able to put metrics from their pre-encoded {@link EncodedMetric}, so only the
+ * value and the timestamp have to be encoded, and to register counters and gauges that are accumulated until they are
+ * put.
+ */
+public interface EncodedMetricsSender extends MetricsSender {
+
+    /**
+     * Puts a pre-encoded metric, honouring its sampling and aggregation the same way as the other put methods.
+     *
+     * @param metric The {@link EncodedMetric} to put
+     * @param value The value of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void putEncoded(EncodedMetric metric, long value, long timestamp);
+
+    /**
+     * Puts a pre-encoded metric, honouring its sampling and aggregation the same way as the other put methods.
+     *
+     * @param metric The {@link EncodedMetric} to put
+     * @param value The value of the metric
+     * @param timestamp The timestamp associated with the metric
+     */
+    void putEncoded(EncodedMetric metric, double value, long timestamp);
+
+    /**
+     * Registers a {@link Counter} whose increments are accumulated and put as a single metric per flush interval.
+     *
+     * @param metric The {@link EncodedMetric} the sum of the increments is put as
+     * @return The registered {@link Counter}
+     */
+    Counter registerCounter(EncodedMetric metric);
+
+    /**
+     * Registers a {@link Gauge} whose last value is put once per flush interval, if it was set since the previous one.
+     *
+     * @param metric The {@link EncodedMetric} the value is put as
+     * @return The registered {@link Gauge}
+     */
+    Gauge registerGauge(EncodedMetric metric);
+}
@@ -0,0 +1,86 @@
+package com.statful.client.core.sender;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * A dedicated thread that flushes the buffers when signalled, so that the threads putting metrics only have to signal
+ * it when a buffer is full enough, instead of flushing it themselves.
+ * <p>
+ * Signals are coalesced: signalling while a flush is pending doesn't request another one, while signalling during a
+ * flush makes the thread flush once more afterwards, so that the metrics put meanwhile aren't left behind. Signalling
+ * a pending flush only reads a flag, and requesting one only parks or unparks the thread, without taking any lock.
+ */
+final class Flusher implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger(Flusher.class.getName());
+
+    private final Runnable flush;
+    private final Thread thread;
+    private final AtomicBoolean requested = new AtomicBoolean();
+    private volatile boolean stopped;
+    private volatile long flushes;
+
+    /**
+     * Constructor.
+     *
+     * @param name  The name of the flusher thread
+     * @param flush The flush to run on the flusher thread
+     */
+    Flusher(final String name, final Runnable flush) {
+        this.flush = flush;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the flusher thread.
+     */
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Requests a flush, waking the flusher thread up unless a flush is already pending.
+     */
+    void signal() {
+        if (!requested.get() && requested.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Stops the flusher thread once it finishes the flush it is running, if any.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Gets the number of flushes run by the flusher thread.
+     *
+     * @return The number of flushes
+     */
+    long getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public void run() {
+        while (!stopped) {
+            if (requested.getAndSet(false)) {
+                // Only the flusher thread writes the count, so the increment doesn't need to be atomic
+                flushes++;
+                try {
+                    flush.run();
+                } catch (Exception e) {
+                    LOGGER.warning("Unable to flush the buffers: " + e.toString());
+                }
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.Gauge;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Gauge} that keeps its last value, to be put once per flush interval if it was set since the previous one.
+ * <p>
+ * Setting a value is a couple of volatile writes, so it is wait-free and doesn't allocate. Long values are kept apart
+ * from double values so they are put as they were set.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class LastValueGauge implements Gauge {
+
+    private static final long NOT_SET = 0;
+    private static final long LONG_SET = 1;
+    private static final long DOUBLE_SET = 2;
+
+    private final EncodedMetric metric;
+    private final AtomicLong longValue = new AtomicLong();
+    private final AtomicLong doubleBits = new AtomicLong();
+    private final AtomicLong state = new AtomicLong(NOT_SET);
+    private volatile boolean unregistered;
+
+    /**
+     * Default constructor.
+     *
+     * @param metric The {@link EncodedMetric} the value is put as
+     */
+    LastValueGauge(final EncodedMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public void set(final long value) {
+        longValue.set(value);
+        state.set(LONG_SET);
+    }
+
+    @Override
+    public void set(final double value) {
+        doubleBits.set(Double.doubleToRawLongBits(value));
+        state.set(DOUBLE_SET);
+    }
+
+    @Override
+    public void unregister() {
+        unregistered = true;
+    }
+
+    /**
+     * Checks if the gauge was unregistered.
+     *
+     * @return A {@link Boolean} stating if the gauge was unregistered
+     */
+    boolean isUnregistered() {
+        return unregistered;
+    }
+
+    /**
+     * Puts the value of the gauge, if it was set since the previous call.
+     *
+     * @param sender    The {@link EncodedMetricsSender} to put the value into
+     * @param timestamp The timestamp to put the value with
+     */
+    void putIfSet(final EncodedMetricsSender sender, final long timestamp) {
+        long previousState = state.getAndSet(NOT_SET);
+        if (previousState == LONG_SET) {
+            sender.putEncoded(metric, longValue.get(), timestamp);
+        } else if (previousState == DOUBLE_SET) {
+            sender.putEncoded(metric, Double.longBitsToDouble(doubleBits.get()), timestamp);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.statful.client.core.sender;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The {@link StripedCounter} and {@link LastValueGauge} registered in a sender, which are drained into it once per
+ * flush interval. Unregistered counters and gauges are removed by the drain that puts their last increments or value.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class RegisteredMetrics {
+
+    private final CopyOnWriteArrayList<StripedCounter> counters = new CopyOnWriteArrayList<StripedCounter>();
+    private final CopyOnWriteArrayList<LastValueGauge> gauges = new CopyOnWriteArrayList<LastValueGauge>();
+
+    StripedCounter registerCounter(final EncodedMetric metric) {
+        StripedCounter counter = new StripedCounter(metric);
+        counters.add(counter);
+        return counter;
+    }
+
+    LastValueGauge registerGauge(final EncodedMetric metric) {
+        LastValueGauge gauge = new LastValueGauge(metric);
+        gauges.add(gauge);
+        return gauge;
+    }
+
+    /**
+     * Puts the sum of the increments of each counter that changed, and the value of each gauge that was set, since
+     * the previous drain, removing the counters and gauges that were unregistered.
+     *
+     * @param sender    The {@link EncodedMetricsSender} to put the metrics into
+     * @param timestamp The timestamp to put the metrics with
+     */
+    void drainInto(final EncodedMetricsSender sender, final long timestamp) {
+        for (StripedCounter counter : counters) {
+            // Removed before the last sum, so that no increment is left in a counter that is no longer drained
+            if (counter.isUnregistered()) {
+                counters.remove(counter);
+            }
+            long sum = counter.sumThenReset();
+            if (sum != 0) {
+                sender.putEncoded(counter.getMetric(), sum, timestamp);
+            }
+        }
+        for (LastValueGauge gauge : gauges) {
+            if (gauge.isUnregistered()) {
+                gauges.remove(gauge);
+            }
+            gauge.putIfSet(sender, timestamp);
+        }
+    }
+
+    boolean isEmpty() {
+        return counters.isEmpty() && gauges.isEmpty();
+    }
+}
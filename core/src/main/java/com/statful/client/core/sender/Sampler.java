@@ -0,0 +1,142 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.SamplingMode;
+import com.statful.client.domain.api.Tags;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which metrics are kept by their sample rate.
+ * <p>
+ * Random sampling draws from a {@link ThreadLocalRandom}, so that threads don't contend on a shared seed. Hash
+ * sampling keeps a metric when a hash of a key falls under its sample rate, so that all the metrics with the same
+ * key, either a series or a request id given by the caller, are kept or dropped together, without any shared state.
+ * The hashes only depend on the {@link String#hashCode()} of the keys, so the decisions are the same in every process.
+ */
+public final class Sampler {
+
+    private static final int MAX_SAMPLE_RATE = 100;
+    private static final int HASH_MULTIPLIER = 31;
+    private static final long MIX_MULTIPLIER_1 = 0xff51afd7ed558ccdL;
+    private static final long MIX_MULTIPLIER_2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+
+    private final SamplingMode samplingMode;
+
+    /**
+     * Constructor.
+     *
+     * @param samplingMode The {@link SamplingMode} for metrics without a sampling key
+     */
+    public Sampler(final SamplingMode samplingMode) {
+        this.samplingMode = samplingMode == null ? SamplingMode.RANDOM : samplingMode;
+    }
+
+    /**
+     * Gets the sampling mode for metrics without a sampling key.
+     *
+     * @return The {@link SamplingMode}
+     */
+    public SamplingMode getSamplingMode() {
+        return samplingMode;
+    }
+
+    /**
+     * Decides if a metric of a series is kept, according to the sampling mode.
+     *
+     * @param sampleRate The sample rate of the metric, from 1 to 100
+     * @param name       The name of the metric
+     * @param tags       The {@link Tags} of the metric, which can be null
+     * @return A {@link Boolean} stating if the metric is kept
+     */
+    public boolean isSampledIn(final int sampleRate, final String name, final Tags tags) {
+        return isSampledIn(sampleRate, "", name, tags);
+    }
+
+    /**
+     * Decides if a metric of a series is kept, according to the sampling mode, without concatenating the prefix and the
+     * name of the metric.
+     *
+     * @param sampleRate The sample rate of the metric, from 1 to 100
+     * @param prefix     The prefix of the name of the metric, which can be empty
+     * @param name       The name of the metric, without the prefix
+     * @param tags       The {@link Tags} of the metric, which can be null
+     * @return A {@link Boolean} stating if the metric is kept
+     */
+    public boolean isSampledIn(final int sampleRate, final String prefix, final String name, final Tags tags) {
+        if (sampleRate >= MAX_SAMPLE_RATE) {
+            return true;
+        }
+        if (samplingMode == SamplingMode.SERIES) {
+            return isSampledIn(sampleRate, seriesHash(prefix, name, tags));
+        }
+        return ThreadLocalRandom.current().nextInt(MAX_SAMPLE_RATE) < sampleRate;
+    }
+
+    /**
+     * Decides if a metric of a series that was already kept at a sample rate is also kept at a lower one, according to
+     * the sampling mode, so that it ends up kept at the lower sample rate.
+     *
+     * @param sampleRate      The sample rate the metric was kept at, from 1 to 100
+     * @param lowerSampleRate The lower sample rate, from 1 to the sample rate
+     * @param name            The name of the metric
+     * @param tags            The {@link Tags} of the metric, which can be null
+     * @return A {@link Boolean} stating if the metric is kept
+     */
+    public boolean isResampledIn(final int sampleRate, final int lowerSampleRate, final String name, final Tags tags) {
+        if (lowerSampleRate >= sampleRate) {
+            return true;
+        }
+        if (samplingMode == SamplingMode.SERIES) {
+            // Series kept at the lower sample rate are a subset of the ones kept at the sample rate
+            return isSampledIn(lowerSampleRate, seriesHash("", name, tags));
+        }
+        return ThreadLocalRandom.current().nextInt(sampleRate) < lowerSampleRate;
+    }
+
+    /**
+     * Decides if a metric is kept by a hash of its key.
+     *
+     * @param sampleRate The sample rate of the metric, from 1 to 100
+     * @param hash       The hash of the key of the metric
+     * @return A {@link Boolean} stating if the metric is kept
+     */
+    public static boolean isSampledIn(final int sampleRate, final int hash) {
+        return sampleRate >= MAX_SAMPLE_RATE || (mix(hash) >>> 1) % MAX_SAMPLE_RATE < sampleRate;
+    }
+
+    /**
+     * Decides if a metric is kept by its sampling key, such as a trace or request id, so that all the metrics with the
+     * same key are kept or dropped together.
+     *
+     * @param sampleRate  The sample rate of the metric, from 1 to 100
+     * @param samplingKey The sampling key of the metric
+     * @return A {@link Boolean} stating if the metric is kept
+     */
+    public static boolean isSampledIn(final int sampleRate, final String samplingKey) {
+        return isSampledIn(sampleRate, samplingKey.hashCode());
+    }
+
+    /**
+     * Computes the hash of a series, without concatenating the prefix and the name of the metric.
+     *
+     * @param prefix The prefix of the name of the metric, which can be empty
+     * @param name   The name of the metric, without the prefix
+     * @param tags   The {@link Tags} of the metric, which can be null
+     * @return The hash of the series
+     */
+    public static int seriesHash(final String prefix, final String name, final Tags tags) {
+        int hash = prefix.hashCode();
+        for (int i = 0; i < name.length(); i++) {
+            hash = HASH_MULTIPLIER * hash + name.charAt(i);
+        }
+        return HASH_MULTIPLIER * hash + (tags != null ? tags.getTags().hashCode() : 0);
+    }
+
+    private static long mix(final int hash) {
+        long mixed = hash;
+        mixed = (mixed ^ (mixed >>> MIX_SHIFT)) * MIX_MULTIPLIER_1;
+        mixed = (mixed ^ (mixed >>> MIX_SHIFT)) * MIX_MULTIPLIER_2;
+        return mixed ^ (mixed >>> MIX_SHIFT);
+    }
+}
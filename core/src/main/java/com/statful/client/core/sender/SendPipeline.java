@@ -0,0 +1,223 @@
+package com.statful.client.core.sender;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * A bounded queue of send tasks run by up to a number of workers of an {@link Executor}.
+ * <p>
+ * Submitting a task never blocks: once the queue is full, the task is rejected and the caller decides what to do with
+ * it, so that a slow backend pushes back on the flushes instead of piling up tasks. Every task has a deadline to start
+ * by, and a task that waited in the queue past it is expired when a worker takes it, instead of being run, so that
+ * the workers catch up with a slow backend by skipping the oldest tasks rather than by cancelling every queued task.
+ * Tasks already running are never interrupted, as the transports bound them by their own timeouts.
+ * <p>
+ * Workers are only started when there are tasks to run, and return their thread to the executor once the queue is
+ * empty, so the executor is free for other work while there's nothing to send.
+ * <p>
+ * A listener can be told whenever a worker takes a task out of the queue, which is when a task rejected before would be
+ * queued, so that whoever found the queue full can wait for room instead of retrying.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class SendPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(SendPipeline.class.getName());
+
+    private final Executor executor;
+    private final int maxWorkers;
+    private final int capacity;
+    private final long deadlineNanos;
+    private final BlockingQueue<Entry> queue;
+    private final Runnable roomListener;
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicLong expiredTasks = new AtomicLong();
+    private final Runnable worker = new Runnable() {
+        @Override
+        public void run() {
+            work();
+        }
+    };
+
+    /**
+     * A task of the pipeline.
+     */
+    interface Task extends Runnable {
+
+        /**
+         * Called instead of running the task, when it didn't start before its deadline.
+         */
+        void expire();
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor       The {@link Executor} to run the workers on
+     * @param maxWorkers     The maximum number of workers running at once
+     * @param capacity       The maximum number of tasks waiting for a worker, which is zero to reject every task
+     * @param deadlineMillis The maximum time in milliseconds a task waits for a worker before it expires
+     */
+    SendPipeline(final Executor executor, final int maxWorkers, final int capacity, final long deadlineMillis) {
+        this(executor, maxWorkers, capacity, deadlineMillis, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param executor       The {@link Executor} to run the workers on
+     * @param maxWorkers     The maximum number of workers running at once
+     * @param capacity       The maximum number of tasks waiting for a worker, which is zero to reject every task
+     * @param deadlineMillis The maximum time in milliseconds a task waits for a worker before it expires
+     * @param roomListener   The {@link Runnable} run on a worker whenever it takes a task out of the queue, or null
+     */
+    SendPipeline(final Executor executor, final int maxWorkers, final int capacity, final long deadlineMillis,
+                 final Runnable roomListener) {
+        this.executor = executor;
+        this.maxWorkers = Math.max(1, maxWorkers);
+        this.capacity = Math.max(0, capacity);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadlineMillis));
+        this.queue = new ArrayBlockingQueue<Entry>(Math.max(1, capacity));
+        this.roomListener = roomListener;
+    }
+
+    /**
+     * Submits a task to run, unless the queue is full.
+     *
+     * @param task The {@link Task} to run
+     * @return A {@link Boolean} stating if the task was queued, or false if it was rejected
+     */
+    boolean submit(final Task task) {
+        if (capacity == 0 || !queue.offer(new Entry(task, System.nanoTime() + deadlineNanos))) {
+            rejectedTasks.incrementAndGet();
+            return false;
+        }
+
+        startWorker();
+        return true;
+    }
+
+    /**
+     * Checks if the queue has room for a task.
+     *
+     * @return A {@link Boolean} stating if a task submitted now would be queued
+     */
+    boolean hasRoom() {
+        return queue.size() < capacity;
+    }
+
+    /**
+     * Gets the fraction of the queue taken.
+     *
+     * @return A {@link Double} from zero, when the queue is empty, to one when it's full
+     */
+    double getUsage() {
+        return capacity == 0 ? 1 : Math.min(1, (double) queue.size() / capacity);
+    }
+
+    /**
+     * Gets the number of tasks rejected because the queue was full since the last call, and resets it.
+     *
+     * @return The number of rejected tasks
+     */
+    long getAndResetRejectedTasks() {
+        return rejectedTasks.getAndSet(0);
+    }
+
+    /**
+     * Gets the number of tasks expired because they waited past their deadline since the last call, and resets it.
+     *
+     * @return The number of expired tasks
+     */
+    long getAndResetExpiredTasks() {
+        return expiredTasks.getAndSet(0);
+    }
+
+    private void startWorker() {
+        if (!acquireWorker()) {
+            return;
+        }
+
+        try {
+            executor.execute(worker);
+        } catch (RejectedExecutionException e) {
+            activeWorkers.decrementAndGet();
+            LOGGER.warning("Unable to start a send worker: " + e.toString());
+        }
+    }
+
+    private boolean acquireWorker() {
+        int workers;
+        do {
+            workers = activeWorkers.get();
+            if (workers >= maxWorkers) {
+                return false;
+            }
+        } while (!activeWorkers.compareAndSet(workers, workers + 1));
+        return true;
+    }
+
+    private void work() {
+        while (true) {
+            Entry entry = queue.poll();
+            if (entry == null) {
+                activeWorkers.decrementAndGet();
+                // A task queued after the poll and before the worker stopped counting found every worker busy, so
+                // it's run by this worker, unless another one started meanwhile
+                if (queue.isEmpty() || !acquireWorker()) {
+                    return;
+                }
+                continue;
+            }
+
+            notifyRoom();
+            run(entry);
+        }
+    }
+
+    private void notifyRoom() {
+        if (roomListener == null) {
+            return;
+        }
+
+        try {
+            roomListener.run();
+        } catch (RuntimeException e) {
+            LOGGER.warning("Unable to notify the room in the send queue: " + e.toString());
+        }
+    }
+
+    private void run(final Entry entry) {
+        try {
+            if (System.nanoTime() - entry.deadline > 0) {
+                expiredTasks.incrementAndGet();
+                entry.task.expire();
+            } else {
+                entry.task.run();
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warning("Unable to send metrics: " + e.toString());
+        }
+    }
+
+    /**
+     * A queued task with the time, in {@link System#nanoTime()}, it has to start by.
+     */
+    private static final class Entry {
+
+        private final Task task;
+        private final long deadline;
+
+        Entry(final Task task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
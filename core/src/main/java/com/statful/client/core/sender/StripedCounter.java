@@ -0,0 +1,159 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.Counter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link Counter} that accumulates its increments in striped cells, like {@link java.util.concurrent.atomic.LongAdder}
+ * does, so threads incrementing it on different cores don't contend on a single memory location.
+ * <p>
+ * Increments go to a single base value until a failed compare and set shows that threads contend on it, and only then
+ * are the cells allocated, so that the many counters that are never contended take a single value rather than a cache
+ * line per core. Each cell sits on a cache line of its own, and there are up to as many cells as cores, capped to a
+ * small maximum. A thread keeps incrementing the same cell until a failed compare and set shows that another thread is
+ * using it, in which case it adds its increment unconditionally and moves to another cell for the next increments.
+ * Increments are therefore lock-free, and only allocate the first time the counter is contended.
+ * <p>
+ * An unregistered counter is put once more with the increments made before it was unregistered, and then dropped.
+ * <p>
+ * Instances of this class are thread-safe.
+ */
+final class StripedCounter implements Counter {
+
+    private static final int MAX_STRIPES = 16;
+    /**
+     * Cells are 16 longs apart, so two cells never share a cache line nor an adjacent-line prefetch pair.
+     */
+    private static final int PADDING_SHIFT = 4;
+    private static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+    private static final int XORSHIFT_A = 13;
+    private static final int XORSHIFT_B = 17;
+    private static final int XORSHIFT_C = 5;
+
+    /**
+     * The probe of each thread, which picks its cell. It is shared by all counters, so a thread only has one.
+     */
+    private static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[]{ThreadLocalRandom.current().nextInt() | 1};
+        }
+    };
+
+    private static final AtomicReferenceFieldUpdater<StripedCounter, AtomicLongArray> CELLS =
+            AtomicReferenceFieldUpdater.newUpdater(StripedCounter.class, AtomicLongArray.class, "cells");
+
+    private final EncodedMetric metric;
+    private final AtomicLong base = new AtomicLong();
+    private volatile AtomicLongArray cells;
+    private volatile boolean unregistered;
+
+    /**
+     * Default constructor.
+     *
+     * @param metric The {@link EncodedMetric} the sum of the increments is put as
+     */
+    StripedCounter(final EncodedMetric metric) {
+        this.metric = metric;
+    }
+
+    @Override
+    public void increment() {
+        increment(1);
+    }
+
+    @Override
+    public void unregister() {
+        unregistered = true;
+    }
+
+    /**
+     * Checks if the counter was unregistered.
+     *
+     * @return A {@link Boolean} stating if the counter was unregistered
+     */
+    boolean isUnregistered() {
+        return unregistered;
+    }
+
+    @Override
+    public void increment(final long delta) {
+        AtomicLongArray cells = this.cells;
+        if (cells == null) {
+            long current = base.get();
+            if (base.compareAndSet(current, current + delta)) {
+                return;
+            }
+            cells = stripe();
+        }
+
+        int[] probe = PROBE.get();
+        int index = (probe[0] & (STRIPES - 1)) << PADDING_SHIFT;
+        long current = cells.get(index);
+        if (!cells.compareAndSet(index, current, current + delta)) {
+            cells.getAndAdd(index, delta);
+            probe[0] = nextProbe(probe[0]);
+        }
+    }
+
+    /**
+     * Gets the sum of the increments since the previous call, resetting the cells.
+     *
+     * @return The sum of the increments
+     */
+    long sumThenReset() {
+        long sum = base.getAndSet(0);
+        AtomicLongArray cells = this.cells;
+        if (cells != null) {
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                sum += cells.getAndSet(stripe << PADDING_SHIFT, 0);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * A getter for the metric.
+     *
+     * @return The {@link EncodedMetric} of the counter
+     */
+    EncodedMetric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Gets the cells, allocating them if no other thread did yet.
+     */
+    private AtomicLongArray stripe() {
+        CELLS.compareAndSet(this, null, new AtomicLongArray(STRIPES << PADDING_SHIFT));
+        return cells;
+    }
+
+    /**
+     * Checks if the cells were allocated, which happens once the counter is contended.
+     *
+     * @return A {@link Boolean} stating if the counter is striped
+     */
+    boolean isStriped() {
+        return cells != null;
+    }
+
+    private static int nextProbe(final int probe) {
+        // Marsaglia's xorshift, as used by the JDK striped adders
+        int next = probe ^ (probe << XORSHIFT_A);
+        next ^= next >>> XORSHIFT_B;
+        return next ^ (next << XORSHIFT_C);
+    }
+
+    private static int stripes(final int processors) {
+        int stripes = 1;
+        while (stripes < processors && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
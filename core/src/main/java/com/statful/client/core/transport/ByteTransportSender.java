@@ -0,0 +1,29 @@
+package com.statful.client.core.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Transport sender interface for senders that send messages encoded in UTF-8 bytes, along with the methods of
+ * {@link TransportSender}, so that flushes don't have to build their messages as strings.
+ * <p>
+ * The bytes are only valid while a send method runs, as the caller reuses the buffer for its next message: senders
+ * must either be done with them when the method returns or copy them.
+ */
+public interface ByteTransportSender extends TransportSender {
+
+    /**
+     * Send a message using the underlying transport protocol.
+     *
+     * @param message The message in UTF-8, from the position to the limit of the buffer
+     */
+    void send(ByteBuffer message);
+
+    /**
+     * Send a message to a particular uri using the underlying transport protocol.
+     * Might not be implemented in case the underlying transport doesn't support it.
+     *
+     * @param message The message in UTF-8, from the position to the limit of the buffer
+     * @param uri The uri to send the message to
+     */
+    void send(ByteBuffer message, String uri);
+}
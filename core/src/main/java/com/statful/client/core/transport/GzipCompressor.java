@@ -0,0 +1,93 @@
+package com.statful.client.core.transport;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses request bodies in the gzip format, with a {@link Deflater} and an output buffer reused by each thread.
+ * <p>
+ * The gzip header and trailer are written around the raw deflate stream, so that compressing a body doesn't create a
+ * new {@link Deflater}, whose native memory would only be released when it is finalized. It's shared by the HTTP
+ * transports, so that every protocol compresses the bodies the same way.
+ */
+public final class GzipCompressor {
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 262144;
+    private static final int BYTE_MASK = 0xff;
+    private static final int BYTE_SHIFT = 8;
+    private static final int INT_BYTES = 4;
+    private static final byte[] HEADER = {
+            // Magic number, deflate method, no flags, no modification time, no extra flags and unknown OS
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private static final ThreadLocal<GzipCompressor> COMPRESSOR = new ThreadLocal<GzipCompressor>() {
+        @Override
+        protected GzipCompressor initialValue() {
+            return new GzipCompressor();
+        }
+    };
+
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    private GzipCompressor() { }
+
+    /**
+     * Compresses a body with the compressor of the current thread.
+     *
+     * @param body The body to compress
+     * @return The body in the gzip format
+     */
+    public static byte[] compress(final byte[] body) {
+        return COMPRESSOR.get().gzip(body, 0, body.length);
+    }
+
+    /**
+     * Compresses part of an array with the compressor of the current thread.
+     *
+     * @param body The array with the body to compress
+     * @param offset The offset of the body in the array
+     * @param length The length of the body
+     * @return The body in the gzip format
+     */
+    public static byte[] compress(final byte[] body, final int offset, final int length) {
+        return COMPRESSOR.get().gzip(body, offset, length);
+    }
+
+    private byte[] gzip(final byte[] body, final int offset, final int length) {
+        deflater.reset();
+        deflater.setInput(body, offset, length);
+        deflater.finish();
+
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        int gzippedLength = HEADER.length;
+        while (!deflater.finished()) {
+            if (gzippedLength == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            gzippedLength += deflater.deflate(buffer, gzippedLength, buffer.length - gzippedLength);
+        }
+
+        crc.reset();
+        crc.update(body, offset, length);
+
+        byte[] gzipped = Arrays.copyOf(buffer, gzippedLength + 2 * INT_BYTES);
+        writeInt(gzipped, gzippedLength, (int) crc.getValue());
+        writeInt(gzipped, gzippedLength + INT_BYTES, length);
+
+        if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        return gzipped;
+    }
+
+    private static void writeInt(final byte[] target, final int offset, final int value) {
+        for (int i = 0; i < INT_BYTES; i++) {
+            target[offset + i] = (byte) ((value >>> (i * BYTE_SHIFT)) & BYTE_MASK);
+        }
+    }
+}
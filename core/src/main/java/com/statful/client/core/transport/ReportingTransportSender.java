@@ -0,0 +1,15 @@
+package com.statful.client.core.transport;
+
+/**
+ * Transport sender interface for senders that know if their messages reached their destination, and report it to a
+ * {@link SendListener}, so that the messages that didn't can be kept and sent again.
+ */
+public interface ReportingTransportSender extends TransportSender {
+
+    /**
+     * Sets the listener to report the outcome of every message sent from then on to.
+     *
+     * @param listener The {@link SendListener}, or null to stop reporting
+     */
+    void setSendListener(SendListener listener);
+}
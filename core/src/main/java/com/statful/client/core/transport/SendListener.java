@@ -0,0 +1,27 @@
+package com.statful.client.core.transport;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Listener of the outcome of the messages sent by a {@link ReportingTransportSender}.
+ * <p>
+ * Outcomes may be reported on the threads of the transport, after the send methods return, so listeners must be
+ * thread-safe and quick.
+ */
+public interface SendListener {
+
+    /**
+     * Called when a message was accepted by its destination.
+     */
+    void onSent();
+
+    /**
+     * Called when a message couldn't be sent, or was refused by its destination.
+     * <p>
+     * The bytes are only valid while the method runs, so listeners must copy them to keep them.
+     *
+     * @param message The message in UTF-8, from the position to the limit of the buffer
+     * @param uri The uri the message was sent to, or null if the transport doesn't send to uris
+     */
+    void onFailed(ByteBuffer message, String uri);
+}
@@ -1,5 +1,6 @@
 package com.statful.client.core;
 
+import com.statful.client.core.sender.Sampler;
 import com.statful.client.domain.api.*;
 import org.junit.Assert;
 import org.junit.Before;
@@ -35,7 +36,7 @@ public class StatfulClientImplTest {
         initMocks(this);
 
         when(configuration.getNamespace()).thenReturn("application");
-        when(configuration.getSampleRate()).thenReturn(10);
+        when(configuration.getSampleRate()).thenReturn(100);
         when(configuration.getTimerTags()).thenReturn(Tags.from("unit", "ms"));
         when(configuration.getTimerAggregations()).thenReturn(Aggregations.from(Aggregation.AVG, Aggregation.P90, Aggregation.COUNT));
         when(configuration.getCounterAggregations()).thenReturn(Aggregations.from(Aggregation.AVG, Aggregation.P90));
@@ -57,7 +58,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         shouldContainDefaultTimerTags(tagsArg.getValue());
@@ -74,7 +75,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("timer.response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_300), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("timer.response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_300), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         shouldContainDefaultTimerTags(tagsArg.getValue());
@@ -120,7 +121,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -139,7 +140,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -160,7 +161,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(100), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -174,7 +175,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -187,7 +188,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultCounterAggregations(aggrArg.getValue());
@@ -201,7 +202,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("1"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -218,7 +219,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -238,7 +239,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("1"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(100), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -252,7 +253,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("1"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -263,7 +264,7 @@ public class StatfulClientImplTest {
         subject.counter("transactions", 2).send();
 
         // Then
-        verify(metricsSender).put(eq("counter.transactions"), eq("2"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("counter.transactions"), eq("2"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -272,7 +273,7 @@ public class StatfulClientImplTest {
         subject.aggregatedCounter("transactions", 2, Aggregation.SUM, AggregationFrequency.FREQ_120).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("counter.transactions"), eq("2"), any(Tags.class), eq(Aggregation.SUM), eq(AggregationFrequency.FREQ_120), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("counter.transactions"), eq("2"), any(Tags.class), eq(Aggregation.SUM), eq(AggregationFrequency.FREQ_120), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -292,7 +293,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -304,7 +305,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -333,7 +334,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -345,7 +346,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2L, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -374,7 +375,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -386,7 +387,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", 2.2, Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2.2"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -416,7 +417,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2.3"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2.3"), isNull(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         shouldContainDefaultGaugeAggregations(aggrArg.getValue());
@@ -428,7 +429,7 @@ public class StatfulClientImplTest {
         subject.aggregatedGauge("current_sessions", Float.valueOf("2.3"), Aggregation.FIRST, AggregationFrequency.FREQ_10).send();
 
         // Then
-        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2.3"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("gauge.current_sessions"), eq("2.3"), isNull(Tags.class), eq(Aggregation.FIRST), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -457,7 +458,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -474,7 +475,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -494,7 +495,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(100), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -508,7 +509,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("gauge.current_sessions"), eq("2"), isNull(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -521,7 +522,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -552,7 +553,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -574,7 +575,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000.0"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000.0"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -603,7 +604,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000.0"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).aggregatedPut(eq("response_time"), eq("1000.0"), tagsArg.capture(), eq(Aggregation.AVG), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -626,7 +627,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -638,7 +639,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -650,7 +651,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000.0"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000.0"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -662,7 +663,7 @@ public class StatfulClientImplTest {
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000.0"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000.0"), tagsArg.capture(), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
     }
 
     @Test
@@ -673,7 +674,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -691,7 +692,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Aggregations> aggrArg = ArgumentCaptor.forClass(Aggregations.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), aggrArg.capture(), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have aggregations
         assertNotNull("Aggregations should not be null", aggrArg.getValue());
@@ -709,7 +710,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<AggregationFrequency> aggrFreqArg = ArgumentCaptor.forClass(AggregationFrequency.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), aggrFreqArg.capture(), eq(100), eq("application"), anyLong());
 
         assertNotNull("Aggregation frequency should not be null", aggrFreqArg.getValue());
         Assert.assertEquals("Aggregation frequency should be 5", AggregationFrequency.FREQ_120, aggrFreqArg.getValue());
@@ -723,7 +724,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<String> namespaceArg = ArgumentCaptor.forClass(String.class);
 
-        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), namespaceArg.capture(), anyLong());
+        verify(metricsSender).put(eq("response_time"), eq("1000"), any(Tags.class), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), namespaceArg.capture(), anyLong());
 
         assertEquals("Namespace should be 'client'", "client", namespaceArg.getValue());
     }
@@ -788,7 +789,7 @@ public class StatfulClientImplTest {
         // Then
         ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
 
-        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(10), eq("application"), anyLong());
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
 
         // Then it should have tags
         Tags tags = tagsArg.getValue();
@@ -918,4 +919,130 @@ public class StatfulClientImplTest {
         assertEquals("Should contain 3 aggregations", 1, aggregationsValue.size());
         assertTrue("Should contain LAST aggregation", aggregationsValue.contains(Aggregation.LAST));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldSendTimerTemplate() {
+        // Given
+        MetricTemplate template = subject.timer("response_time", 0).with().tag("endpoint", "checkout").template();
+
+        // When
+        template.send(1000);
+
+        // Then
+        ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
+
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
+        assertEquals("checkout", tagsArg.getValue().getTagValue("endpoint"));
+        assertEquals("ms", tagsArg.getValue().getTagValue("unit"));
+    }
+
+    @Test
+    public void shouldNotSendTemplateWhenDisabled() {
+        // Given
+        MetricTemplate template = subject.counter("transactions").template();
+        subject.disable();
+
+        // When
+        template.send(1);
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldSendRegisteredCounterIncrements() {
+        // Given
+        Counter counter = subject.counter("transactions").with().tag("host", "localhost").registerCounter();
+
+        // When
+        counter.increment(3);
+
+        // Then
+        ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
+
+        verify(metricsSender).put(eq("counter.transactions"), eq("3"), tagsArg.capture(), any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
+        assertEquals("localhost", tagsArg.getValue().getTagValue("host"));
+    }
+
+    @Test
+    public void shouldNotCountRegisteredCounterWhenDisabled() {
+        // Given
+        Counter counter = subject.counter("transactions").registerCounter();
+        Gauge gauge = subject.gauge("queue", 0).registerGauge();
+        subject.disable();
+
+        // When
+        counter.increment();
+        gauge.set(1);
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldNotBuildMetricWhenDisabled() {
+        // Given
+        subject.disable();
+
+        // When
+        subject.timer("response_time", 1000).send();
+
+        // Then
+        verify(configuration, never()).getTimerTags();
+        verify(configuration, never()).getTimerAggregations();
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldSampleMetricsWithConfiguredSampleRateBeforeBuildingThem() {
+        // Given
+        when(configuration.getSampleRate()).thenReturn(50);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            subject.timer("response_time", 1000).send();
+        }
+
+        // Then
+        verify(metricsSender, atLeast(400)).putSampled(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class),
+                eq(AggregationFrequency.FREQ_10), eq(50), eq("application"), anyLong());
+        verify(metricsSender, atMost(600)).putSampled(eq("timer.response_time"), eq("1000"), any(Tags.class), any(Aggregations.class),
+                eq(AggregationFrequency.FREQ_10), eq(50), eq("application"), anyLong());
+        verify(metricsSender, never()).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class),
+                any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    public void shouldKeepCustomizationsMadeBeforeSending() {
+        // Given
+        SenderFacade facade = subject.timer("response_time", 1000);
+        facade.with().tag("endpoint", "checkout");
+
+        // When
+        facade.send();
+
+        // Then
+        ArgumentCaptor<Tags> tagsArg = ArgumentCaptor.forClass(Tags.class);
+        verify(metricsSender).put(eq("timer.response_time"), eq("1000"), tagsArg.capture(), any(Aggregations.class),
+                eq(AggregationFrequency.FREQ_10), eq(100), eq("application"), anyLong());
+        assertEquals("checkout", tagsArg.getValue().getTagValue("endpoint"));
+    }
+
+    @Test
+    public void shouldSampleEverySendOfASeriesTogether() {
+        // Given
+        when(configuration.getSampleRate()).thenReturn(50);
+        when(configuration.getSamplingMode()).thenReturn(SamplingMode.SERIES);
+        subject = new StatfulClientImpl(metricsSender, configuration);
+        boolean sampledIn = new Sampler(SamplingMode.SERIES).isSampledIn(50, "timer.response_time", configuration.getTimerTags());
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            subject.timer("response_time", 1000).send();
+        }
+
+        // Then
+        verify(metricsSender, times(sampledIn ? 100 : 0)).putSampled(eq("timer.response_time"), eq("1000"), any(Tags.class),
+                any(Aggregations.class), eq(AggregationFrequency.FREQ_10), eq(50), eq("application"), anyLong());
+    }
+}
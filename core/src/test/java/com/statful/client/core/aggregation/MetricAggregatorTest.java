@@ -0,0 +1,181 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Tags;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetricAggregatorTest {
+
+    private static final Aggregations ALL_AGGREGATIONS = Aggregations.from(Aggregation.values());
+
+    private final List<String> lines = new ArrayList<String>();
+
+    private MetricAggregator subject;
+
+    @Before
+    public void setUp() {
+        subject = new MetricAggregator(new AggregatedMetricsSink() {
+            @Override
+            public void putAggregated(final String metric, final Aggregation aggregation, final AggregationFrequency aggregationFrequency) {
+                lines.add(aggregation.getName() + "/" + aggregationFrequency.getValue() + " " + metric);
+            }
+        });
+    }
+
+    @Test
+    public void shouldComputeAllAggregations() {
+        // Given
+        for (int i = 1; i <= 100; i++) {
+            subject.add("timer.response_time", i, Tags.from("unit", "ms"), ALL_AGGREGATIONS, AggregationFrequency.FREQ_10, 100,
+                    "application", 1000 + i % 10);
+        }
+
+        // When
+        subject.flush(1010);
+
+        // Then
+        assertEquals(10, lines.size());
+        assertTrue(lines.contains("avg/10 application.timer.response_time,unit=ms 50.5 1000 100"));
+        assertTrue(lines.contains("count/10 application.timer.response_time,unit=ms 100 1000 100"));
+        assertTrue(lines.contains("sum/10 application.timer.response_time,unit=ms 5050 1000 100"));
+        assertTrue(lines.contains("first/10 application.timer.response_time,unit=ms 1 1000 100"));
+        assertTrue(lines.contains("last/10 application.timer.response_time,unit=ms 100 1000 100"));
+        assertTrue(lines.contains("min/10 application.timer.response_time,unit=ms 1 1000 100"));
+        assertTrue(lines.contains("max/10 application.timer.response_time,unit=ms 100 1000 100"));
+        assertPercentile("p90/10 application.timer.response_time,unit=ms", 90, "1000 100");
+        assertPercentile("p95/10 application.timer.response_time,unit=ms", 95, "1000 100");
+        assertPercentile("p99/10 application.timer.response_time,unit=ms", 99, "1000 100");
+    }
+
+    @Test
+    public void shouldNotFlushWindowsThatAreNotOver() {
+        // Given
+        subject.add("counter.hits", 1, null, Aggregations.from(Aggregation.SUM), AggregationFrequency.FREQ_60, 100, "application", 1205);
+
+        // When
+        subject.flush(1259);
+
+        // Then
+        assertTrue(lines.isEmpty());
+
+        // When
+        subject.flush(1260);
+
+        // Then
+        assertEquals(1, lines.size());
+        assertEquals("sum/60 application.counter.hits 1 1200 100", lines.get(0));
+    }
+
+    @Test
+    public void shouldCloseWindowWhenValueOfLaterWindowIsAdded() {
+        // Given
+        subject.add("counter.hits", 1, null, Aggregations.from(Aggregation.COUNT), AggregationFrequency.FREQ_10, 100, "application", 1001);
+        subject.add("counter.hits", 1, null, Aggregations.from(Aggregation.COUNT), AggregationFrequency.FREQ_10, 100, "application", 1002);
+
+        // When
+        subject.add("counter.hits", 1, null, Aggregations.from(Aggregation.COUNT), AggregationFrequency.FREQ_10, 100, "application", 1011);
+
+        // Then
+        assertEquals(1, lines.size());
+        assertEquals("count/10 application.counter.hits 2 1000 100", lines.get(0));
+
+        // When
+        subject.flushAll();
+
+        // Then
+        assertEquals(2, lines.size());
+        assertEquals("count/10 application.counter.hits 1 1010 100", lines.get(1));
+    }
+
+    @Test
+    public void shouldScaleSampledValues() {
+        // Given
+        subject.add("counter.hits", 2, null, Aggregations.from(Aggregation.COUNT, Aggregation.SUM, Aggregation.AVG),
+                AggregationFrequency.FREQ_10, 10, "application", 1000);
+
+        // When
+        subject.flushAll();
+
+        // Then
+        assertEquals(3, lines.size());
+        assertTrue(lines.contains("count/10 application.counter.hits 10 1000 100"));
+        assertTrue(lines.contains("sum/10 application.counter.hits 20 1000 100"));
+        assertTrue(lines.contains("avg/10 application.counter.hits 2 1000 100"));
+    }
+
+    @Test
+    public void shouldAggregateSeriesSeparately() {
+        // Given
+        Aggregations sum = Aggregations.from(Aggregation.SUM);
+        subject.add("counter.hits", 1, Tags.from("status", "200"), sum, AggregationFrequency.FREQ_10, 100, "application", 1000);
+        subject.add("counter.hits", 1, Tags.from("status", "200"), sum, AggregationFrequency.FREQ_10, 100, "application", 1000);
+        subject.add("counter.hits", 1, Tags.from("status", "500"), sum, AggregationFrequency.FREQ_10, 100, "application", 1000);
+        subject.add("counter.hits", 1, Tags.from("status", "500"), sum, AggregationFrequency.FREQ_30, 100, "application", 1000);
+
+        // When
+        subject.flushAll();
+
+        // Then
+        assertEquals(3, subject.getSeriesCount());
+        assertEquals(3, lines.size());
+        assertTrue(lines.contains("sum/10 application.counter.hits,status=200 2 1000 100"));
+        assertTrue(lines.contains("sum/10 application.counter.hits,status=500 1 1000 100"));
+        assertTrue(lines.contains("sum/30 application.counter.hits,status=500 1 990 100"));
+    }
+
+    @Test
+    public void shouldForgetIdleSeries() {
+        // Given
+        subject.add("gauge.queue", 3.5, null, Aggregations.from(Aggregation.LAST), AggregationFrequency.FREQ_10, 100, "application", 1000);
+        subject.flush(1010);
+
+        // When
+        subject.flush(1019);
+
+        // Then
+        assertEquals(1, subject.getSeriesCount());
+
+        // When
+        subject.flush(1020);
+
+        // Then
+        assertEquals(0, subject.getSeriesCount());
+        assertEquals(1, lines.size());
+        assertEquals("last/10 application.gauge.queue 3.5 1000 100", lines.get(0));
+    }
+
+    @Test
+    public void shouldNotChangeTagsOfAggregatedSeries() {
+        // Given
+        Tags tags = Tags.from("status", "200");
+        subject.add("counter.hits", 1, tags, Aggregations.from(Aggregation.SUM), AggregationFrequency.FREQ_10, 100, "application", 1000);
+
+        // When
+        tags.putTag("status", "500");
+        subject.flushAll();
+
+        // Then
+        assertEquals("sum/10 application.counter.hits,status=200 1 1000 100", lines.get(0));
+    }
+
+    private void assertPercentile(final String prefix, final double expected, final String suffix) {
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            if (line.startsWith(prefix + " ") && line.endsWith(" " + suffix)) {
+                assertEquals(line, expected, Double.parseDouble(parts[2]), expected * 0.01);
+                return;
+            }
+        }
+        fail("Missing line " + prefix);
+    }
+}
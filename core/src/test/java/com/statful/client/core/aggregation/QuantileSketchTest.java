@@ -0,0 +1,185 @@
+package com.statful.client.core.aggregation;
+
+import com.statful.client.domain.api.Aggregation;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double[] PERCENTILES = {0, 10, 50, 90, 95, 99, 99.9, 100};
+
+    @Test
+    public void shouldReturnZeroWhenEmpty() {
+        // Given
+        QuantileSketch subject = new QuantileSketch();
+
+        // When
+        double p99 = subject.percentile(Aggregation.P99);
+
+        // Then
+        assertTrue(subject.isEmpty());
+        assertEquals(0, p99, 0);
+    }
+
+    @Test
+    public void shouldEstimatePercentilesOfUniformValuesWithinRelativeAccuracy() {
+        // Given
+        Random random = new Random(1);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextInt(10000);
+        }
+
+        // When
+        QuantileSketch subject = sketchOf(values);
+
+        // Then
+        assertWithinRelativeAccuracy(subject, values);
+    }
+
+    @Test
+    public void shouldEstimatePercentilesOfLongTailedValuesWithinRelativeAccuracy() {
+        // Given
+        Random random = new Random(2);
+        long[] values = new long[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(3 + 2 * random.nextGaussian());
+        }
+
+        // When
+        QuantileSketch subject = sketchOf(values);
+
+        // Then
+        assertWithinRelativeAccuracy(subject, values);
+    }
+
+    @Test
+    public void shouldEstimatePercentilesOfNegativeAndZeroValues() {
+        // Given
+        long[] values = new long[201];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i - 100;
+        }
+
+        // When
+        QuantileSketch subject = sketchOf(values);
+
+        // Then
+        assertEquals(-100, subject.percentile(0), 0);
+        assertEquals(-90, subject.percentile(5), 90 * RELATIVE_ACCURACY);
+        assertEquals(0, subject.percentile(50), 0);
+        assertEquals(80, subject.percentile(90), 80 * RELATIVE_ACCURACY);
+        assertEquals(100, subject.percentile(100), 0);
+    }
+
+    @Test
+    public void shouldMergeSketches() {
+        // Given
+        Random random = new Random(3);
+        long[] values = new long[20000];
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1000000) - 1000;
+            (i % 2 == 0 ? first : second).add(values[i]);
+        }
+
+        // When
+        first.merge(second);
+
+        // Then
+        assertEquals(values.length, first.getCount(), 0);
+        assertWithinRelativeAccuracy(first, values);
+    }
+
+    @Test
+    public void shouldTakeWeightsIntoAccount() {
+        // Given
+        QuantileSketch subject = new QuantileSketch();
+
+        // When
+        subject.add(10, 90);
+        subject.add(1000, 10);
+
+        // Then
+        assertEquals(100, subject.getCount(), 0);
+        assertEquals(10, subject.percentile(Aggregation.P90), 10 * RELATIVE_ACCURACY);
+        assertEquals(1000, subject.percentile(Aggregation.P95), 1000 * RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void shouldKeepHighPercentilesAccurateWhenCollapsingLowestBins() {
+        // Given
+        QuantileSketch subject = new QuantileSketch(RELATIVE_ACCURACY, 64);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? 1 + i % 100 : 1000000 + i;
+        }
+
+        // When
+        for (long value : values) {
+            subject.add(value);
+        }
+
+        // Then
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double percentile : new double[]{90, 95, 99}) {
+            double expected = sorted[rank(percentile, sorted.length)];
+            assertEquals(expected, subject.percentile(percentile), expected * RELATIVE_ACCURACY);
+        }
+        assertEquals(1, subject.percentile(0), 0);
+    }
+
+    @Test
+    public void shouldForgetValuesWhenCleared() {
+        // Given
+        QuantileSketch subject = sketchOf(new long[]{1, 2, 3, 1000000});
+
+        // When
+        subject.clear();
+        subject.add(500L);
+
+        // Then
+        assertEquals(1, subject.getCount(), 0);
+        assertEquals(500, subject.percentile(Aggregation.P99), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMergeSketchesWithDifferentAccuracy() {
+        new QuantileSketch(0.01, 1024).merge(new QuantileSketch(0.02, 1024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotEstimateNonPercentileAggregations() {
+        new QuantileSketch().percentile(Aggregation.AVG);
+    }
+
+    private static QuantileSketch sketchOf(final long[] values) {
+        QuantileSketch sketch = new QuantileSketch();
+        for (long value : values) {
+            sketch.add(value);
+        }
+        return sketch;
+    }
+
+    private static void assertWithinRelativeAccuracy(final QuantileSketch sketch, final long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double percentile : PERCENTILES) {
+            double expected = sorted[rank(percentile, sorted.length)];
+            double actual = sketch.percentile(percentile);
+            assertEquals("p" + percentile, expected, actual, Math.abs(expected) * RELATIVE_ACCURACY);
+        }
+    }
+
+    private static int rank(final double percentile, final int size) {
+        return Math.max((int) Math.ceil(percentile / 100 * size) - 1, 0);
+    }
+}
@@ -1,7 +1,10 @@
 package com.statful.client.core.api;
 
+import com.statful.client.domain.api.AdaptiveSampling;
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.domain.api.OverflowPolicy;
+import com.statful.client.domain.api.SamplingMode;
 import com.statful.client.domain.api.Tags;
 import org.junit.Test;
 
@@ -35,6 +38,25 @@ public class ConfigurationBuilderTest {
         assertEquals("Should have default host", "api.statful.com", config.getHost());
         assertEquals("Should have default port", 443, config.getPort());
         assertFalse("Should not dry run as default", config.isDryRun());
+        assertFalse("Should not aggregate in the client as default", config.isClientSideAggregation());
+        assertEquals("Should drop newest metrics as default", OverflowPolicy.DROP_NEWEST, config.getOverflowPolicy());
+        assertEquals("Should have default overflow timeout", 100, config.getOverflowTimeoutMillis());
+        assertEquals("Should have default worker task deadline", 30000, config.getWorkerTaskDeadlineMillis());
+        assertEquals("Should have default buffer capacity", 5000, config.getBufferCapacity());
+        assertEquals("Should not have a buffer memory budget as default", 0, config.getBufferMemoryBudget());
+        assertEquals("Should sample at random as default", SamplingMode.RANDOM, config.getSamplingMode());
+        assertEquals("Should not sample adaptively as default", AdaptiveSampling.DISABLED, config.getAdaptiveSampling());
+        assertEquals("Should have default UDP payload size", 1432, config.getUdpPayloadSize());
+        assertEquals("Should open a UDP channel per worker as default", 0, config.getUdpChannels());
+        assertFalse("Should not compress HTTP bodies as default", config.isHttpCompression());
+        assertEquals("Should have default HTTP compression threshold", 1024, config.getHttpCompressionThreshold());
+        assertFalse("Should not send HTTP requests without blocking as default", config.isHttpAsync());
+        assertEquals("Should bound HTTP requests in flight by the pool size as default", 0, config.getHttpMaxInFlightRequests());
+        assertFalse("Should format metric lines when putting them as default", config.isLazyEncoding());
+        assertEquals("Should keep metrics on the heap as default", 0, config.getOffHeapBufferBudget());
+        assertNull("Should not spill metrics to disk as default", config.getSpillDirectory());
+        assertEquals("Should have default spill max bytes", 268435456L, config.getSpillMaxBytes());
+        assertEquals("Should have default spill replay rate", 10, config.getSpillReplayRate());
         assertEquals("Should have default sample rate", 100, config.getSampleRate());
         assertEquals("Should have default namespace", "application", config.getNamespace());
         assertEquals("Should have default flush size", 10, config.getFlushSize());
@@ -124,6 +146,130 @@ public class ConfigurationBuilderTest {
         assertTrue("Should configure dry run", config.isDryRun());
     }
 
+    @Test
+    public void shouldConfigureClientSideAggregation() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .clientSideAggregation(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure client side aggregation", config.isClientSideAggregation());
+    }
+
+    @Test
+    public void shouldConfigureOverflowPolicy() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .overflowPolicy(OverflowPolicy.BLOCK_WITH_TIMEOUT)
+                .overflowTimeout(250)
+                .buildConfiguration();
+
+        assertEquals("Should configure overflow policy", OverflowPolicy.BLOCK_WITH_TIMEOUT, config.getOverflowPolicy());
+        assertEquals("Should configure overflow timeout", 250, config.getOverflowTimeoutMillis());
+    }
+
+    @Test
+    public void shouldConfigureSamplingMode() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .samplingMode(SamplingMode.SERIES)
+                .buildConfiguration();
+
+        assertEquals("Should configure sampling mode", SamplingMode.SERIES, config.getSamplingMode());
+    }
+
+    @Test
+    public void shouldConfigureUdpPayloadSizeAndChannels() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .udpPayloadSize(8932)
+                .udpChannels(4)
+                .buildConfiguration();
+
+        assertEquals("Should configure UDP payload size", 8932, config.getUdpPayloadSize());
+        assertEquals("Should configure UDP channels", 4, config.getUdpChannels());
+    }
+
+    @Test
+    public void shouldConfigureHttpCompression() {
+        ClientConfiguration config = newBuilder()
+                .transport(HTTP)
+                .httpCompression(true)
+                .httpCompressionThreshold(4096)
+                .buildConfiguration();
+
+        assertTrue("Should configure HTTP compression", config.isHttpCompression());
+        assertEquals("Should configure HTTP compression threshold", 4096, config.getHttpCompressionThreshold());
+    }
+
+    @Test
+    public void shouldConfigureHttpAsync() {
+        ClientConfiguration config = newBuilder()
+                .transport(HTTP)
+                .httpAsync(true)
+                .httpMaxInFlightRequests(200)
+                .buildConfiguration();
+
+        assertTrue("Should configure HTTP requests without blocking", config.isHttpAsync());
+        assertEquals("Should configure HTTP requests in flight", 200, config.getHttpMaxInFlightRequests());
+    }
+
+    @Test
+    public void shouldConfigureLazyEncoding() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .lazyEncoding(true)
+                .buildConfiguration();
+
+        assertTrue("Should configure lazy encoding", config.isLazyEncoding());
+    }
+
+    @Test
+    public void shouldConfigureOffHeapBufferBudget() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .offHeapBufferBudget(8388608)
+                .buildConfiguration();
+
+        assertEquals("Should configure off-heap buffer budget", 8388608, config.getOffHeapBufferBudget());
+    }
+
+    @Test
+    public void shouldConfigureSpill() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .spillDirectory("/var/spool/statful")
+                .spillMaxBytes(1048576)
+                .spillReplayRate(50)
+                .buildConfiguration();
+
+        assertEquals("Should configure spill directory", "/var/spool/statful", config.getSpillDirectory());
+        assertEquals("Should configure spill max bytes", 1048576, config.getSpillMaxBytes());
+        assertEquals("Should configure spill replay rate", 50, config.getSpillReplayRate());
+    }
+
+    @Test
+    public void shouldConfigureAdaptiveSampling() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .adaptiveSampling(AdaptiveSampling.PER_METRIC_TYPE)
+                .buildConfiguration();
+
+        assertEquals("Should configure adaptive sampling", AdaptiveSampling.PER_METRIC_TYPE, config.getAdaptiveSampling());
+    }
+
+    @Test
+    public void shouldConfigureBufferCapacityAndMemoryBudget() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .bufferCapacity(20000)
+                .bufferMemoryBudget(64 * 1024 * 1024)
+                .buildConfiguration();
+
+        assertEquals("Should configure buffer capacity", 20000, config.getBufferCapacity());
+        assertEquals("Should configure buffer memory budget", 64 * 1024 * 1024, config.getBufferMemoryBudget());
+    }
+
     @Test
     public void shouldConfigureWorkersPool() {
         ClientConfiguration config = newBuilder()
@@ -135,6 +281,16 @@ public class ConfigurationBuilderTest {
         assertEquals("Should configure pool size", 20, config.getWorkersPoolSize());
     }
 
+    @Test
+    public void shouldConfigureWorkerTaskDeadline() {
+        ClientConfiguration config = newBuilder()
+                .transport(UDP)
+                .workerTaskDeadline(2000)
+                .buildConfiguration();
+
+        assertEquals("Should configure worker task deadline", 2000, config.getWorkerTaskDeadlineMillis());
+    }
+
     @Test
     public void shouldConfigureConnectionPool() {
         ClientConfiguration config = newBuilder()
@@ -1,20 +1,29 @@
 package com.statful.client.core.api;
 
 import com.statful.client.core.config.DefaultClientConfiguration;
+import com.statful.client.core.sender.EncodedMetric;
+import com.statful.client.core.sender.EncodedMetricsSender;
+import com.statful.client.core.sender.Sampler;
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.Counter;
+import com.statful.client.domain.api.Gauge;
+import com.statful.client.domain.api.MetricTemplate;
 import com.statful.client.domain.api.Tags;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 public class MetricsSenderAPITest {
 
@@ -163,4 +172,150 @@ public class MetricsSenderAPITest {
                 eq("namespace"),
                 anyLong());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldNotCreateTemplateWhenNameIsInvalid() {
+        // When
+        MetricTemplate template = MetricsSenderAPI.newInstance(metricsSender).with().value("1").template();
+        template.send(1L);
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldNotCreateTemplateWhenAggregatedMetricIsInvalid() {
+        // When
+        MetricTemplate template = MetricsSenderAPI.newInstance(metricsSender, true, false).with().name("test").template();
+        template.send(1L);
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldSendTemplateThroughMetricsSender() {
+        // Given
+        MetricTemplate template = MetricsSenderAPI.newInstance(metricsSender).with()
+                .name("test")
+                .namespace("application")
+                .sampleRate(100)
+                .aggregationFrequency(AggregationFrequency.FREQ_10)
+                .template();
+
+        // When
+        template.send(5, 123456789L);
+        template.send(2.5d, 123456790L);
+
+        // Then
+        verify(metricsSender).put(eq("test"), eq("5"), isNull(Tags.class), isNull(Aggregations.class), eq(AggregationFrequency.FREQ_10),
+                eq(100), eq("application"), eq(123456789L));
+        verify(metricsSender).put(eq("test"), eq("2.5"), isNull(Tags.class), isNull(Aggregations.class), eq(AggregationFrequency.FREQ_10),
+                eq(100), eq("application"), eq(123456790L));
+    }
+
+    @Test
+    public void shouldSendTemplateThroughEncodedMetricsSender() {
+        // Given
+        EncodedMetricsSender encodedMetricsSender = mock(EncodedMetricsSender.class);
+        MetricTemplate template = MetricsSenderAPI.newInstance(encodedMetricsSender).with()
+                .name("test")
+                .tag("unit", "ms")
+                .sampleRate(100)
+                .template();
+
+        // When
+        template.send(5, 123456789L);
+
+        // Then
+        verify(encodedMetricsSender).putEncoded(((MetricsSenderTemplate) template).getMetric(), 5, 123456789L);
+        verify(encodedMetricsSender, times(0)).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class),
+                any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+    }
+
+    @Test
+    public void shouldRegisterCounterThroughEncodedMetricsSender() {
+        // Given
+        EncodedMetricsSender encodedMetricsSender = mock(EncodedMetricsSender.class);
+
+        // When
+        MetricsSenderAPI.newInstance(encodedMetricsSender).with()
+                .name("test")
+                .namespace("application")
+                .sampleRate(10)
+                .registerCounter();
+
+        // Then
+        ArgumentCaptor<EncodedMetric> metric = ArgumentCaptor.forClass(EncodedMetric.class);
+        verify(encodedMetricsSender).registerCounter(metric.capture());
+        assertEquals("test", metric.getValue().getName());
+        assertEquals("Registered metrics should never be sampled", Integer.valueOf(100), metric.getValue().getSampleRate());
+    }
+
+    @Test
+    public void shouldSendEveryGaugeValueWhenMetricsSenderCantRegisterGauges() {
+        // Given
+        Gauge gauge = MetricsSenderAPI.newInstance(metricsSender).with()
+                .name("test")
+                .namespace("application")
+                .aggregationFrequency(AggregationFrequency.FREQ_10)
+                .registerGauge();
+
+        // When
+        gauge.set(5);
+        gauge.set(2.5d);
+
+        // Then
+        verify(metricsSender).put(eq("test"), eq("5"), isNull(Tags.class), isNull(Aggregations.class), eq(AggregationFrequency.FREQ_10),
+                eq(100), eq("application"), anyLong());
+        verify(metricsSender).put(eq("test"), eq("2.5"), isNull(Tags.class), isNull(Aggregations.class), eq(AggregationFrequency.FREQ_10),
+                eq(100), eq("application"), anyLong());
+    }
+
+    @Test
+    public void shouldNotRegisterCounterWhenNameIsInvalid() {
+        // When
+        Counter counter = MetricsSenderAPI.newInstance(metricsSender).with().registerCounter();
+        counter.increment();
+        counter.unregister();
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldNotRegisterGaugeWhenNameIsInvalid() {
+        // When
+        Gauge gauge = MetricsSenderAPI.newInstance(metricsSender).with().registerGauge();
+        gauge.set(1L);
+        gauge.unregister();
+
+        // Then
+        verifyZeroInteractions(metricsSender);
+    }
+
+    @Test
+    public void shouldSampleMetricsWithTheSameSamplingKeyTogether() {
+        // Given
+        String keptKey = null;
+        String droppedKey = null;
+        for (int i = 0; keptKey == null || droppedKey == null; i++) {
+            if (Sampler.isSampledIn(50, "request-" + i)) {
+                keptKey = "request-" + i;
+            } else {
+                droppedKey = "request-" + i;
+            }
+        }
+
+        // When
+        for (String key : new String[]{keptKey, droppedKey, keptKey, droppedKey}) {
+            new MetricsSenderAPI(metricsSender).name("response_time").value("100").sampleRate(50).samplingKey(key).send();
+        }
+
+        // Then
+        verify(metricsSender, times(2)).putSampled(eq("response_time"), eq("100"), any(Tags.class), any(Aggregations.class),
+                any(AggregationFrequency.class), eq(50), anyString(), anyLong());
+        verify(metricsSender, times(0)).put(anyString(), anyString(), any(Tags.class), any(Aggregations.class),
+                any(AggregationFrequency.class), anyInt(), anyString(), anyLong());
+    }
+}
@@ -2,9 +2,11 @@ package com.statful.client.core.buffer;
 
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.domain.api.OverflowPolicy;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -24,7 +26,7 @@ public class AggregatedBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10));
 
         // Then
-        assertEquals("Buffer should have 1 metric", 1, subject.getBuffer().size());
+        assertEquals("Buffer should have 1 metric", 1, subject.getBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10).size());
     }
 
     @Test
@@ -36,8 +38,7 @@ public class AggregatedBufferTest {
         assertTrue("Should add to buffer", subject.addToBuffer("bar", Aggregation.AVG, AggregationFrequency.FREQ_10));
 
         // Then
-        assertEquals("Buffer should have 2 metric", 2, subject.getBuffer()
-                .get(Aggregation.AVG.toString()).get(AggregationFrequency.FREQ_10.toString()).size());
+        assertEquals("Buffer should have 2 metric", 2, subject.getBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10).size());
     }
 
     @Test
@@ -143,4 +144,84 @@ public class AggregatedBufferTest {
         // Then
         assertTrue("Aggregations frequencies set should be empty", aggregationFrequencies.isEmpty());
     }
+
+    @Test
+    public void shouldNotBeTimeToFlushOnceBuffersAreRead() {
+        // Given
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("foo", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("foo", Aggregation.COUNT, AggregationFrequency.FREQ_300);
+        subject.addToBuffer("foo", Aggregation.COUNT, AggregationFrequency.FREQ_300);
+
+        // When
+        subject.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // Then
+        assertTrue("Should still be time to flush the other buffer", subject.isTimeToFlush());
+
+        // When
+        subject.readBuffer(Aggregation.COUNT, AggregationFrequency.FREQ_300);
+
+        // Then
+        assertFalse("Should not set as time to flush", subject.isTimeToFlush());
+        assertEquals("Read buffers should still be listed", 2, subject.getAggregations().size());
+    }
+
+    @Test
+    public void shouldKeepBuffersOfEveryAggregationAndFrequencyApart() {
+        // Given
+        for (Aggregation aggregation : Aggregation.values()) {
+            for (AggregationFrequency aggregationFrequency : AggregationFrequency.values()) {
+                subject.addToBuffer(aggregation.getName() + "/" + aggregationFrequency.getValue(), aggregation, aggregationFrequency);
+            }
+        }
+
+        // When
+        String bufferString = subject.readBuffer(Aggregation.P99, AggregationFrequency.FREQ_120);
+
+        // Then
+        assertEquals("p99/120", bufferString);
+        assertEquals(Aggregation.values().length, subject.getAggregations().size());
+        assertEquals(AggregationFrequency.values().length, subject.getAggregationFrequencies(Aggregation.MAX).size());
+    }
+
+    @Test
+    public void shouldDropOldestMetricsOfFullBufferOnly() {
+        // Given
+        subject = new AggregatedBuffer(2, 2, OverflowPolicy.DROP_OLDEST, 0);
+        subject.addToBuffer("a", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("b", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("c", Aggregation.P90, AggregationFrequency.FREQ_10);
+
+        // When
+        boolean added = subject.addToBuffer("new", Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // Then
+        assertTrue("Should add to a full buffer", added);
+        assertEquals(Arrays.asList("b", "new"), subject.getBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10).toList());
+        assertEquals(Arrays.asList("c"), subject.getBuffer(Aggregation.P90, AggregationFrequency.FREQ_10).toList());
+        assertEquals("Should count the dropped metric", 1, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldKeepMetricsOfEveryBufferOffHeapInSharedSlabs() {
+        // Given
+        SlabPool slabPool = new SlabPool(128, 64);
+        subject = new AggregatedBuffer(5, 5, OverflowPolicy.DROP_NEWEST, 0, slabPool);
+        subject.addToBuffer("a", Aggregation.AVG, AggregationFrequency.FREQ_10);
+        subject.addToBuffer("b", Aggregation.AVG, AggregationFrequency.FREQ_10);
+
+        // When
+        boolean added = subject.addToBuffer("c", Aggregation.P90, AggregationFrequency.FREQ_10);
+        boolean addedWithoutSlab = subject.addToBuffer("d", Aggregation.P99, AggregationFrequency.FREQ_10);
+
+        // Then
+        assertTrue("Should add to a buffer with a slab of its own", added);
+        assertFalse("Should not add once every slab is taken", addedWithoutSlab);
+        assertEquals(1, subject.getUsage(), 0);
+        assertEquals("a\nb", subject.readBuffer(Aggregation.AVG, AggregationFrequency.FREQ_10));
+        assertTrue("Should add once a slab is given back", subject.addToBuffer("d", Aggregation.P99, AggregationFrequency.FREQ_10));
+        assertEquals("d", subject.readBuffer(Aggregation.P99, AggregationFrequency.FREQ_10));
+        assertEquals("c", subject.readBuffer(Aggregation.P90, AggregationFrequency.FREQ_10));
+    }
 }
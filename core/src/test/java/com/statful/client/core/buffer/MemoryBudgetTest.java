@@ -0,0 +1,87 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.core.message.MessageBuilder;
+import com.statful.client.core.message.PendingLine;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MemoryBudgetTest {
+
+    @Test
+    public void shouldNotAcquireBeyondBudget() {
+        // Given
+        MemoryBudget subject = new MemoryBudget(MemoryBudget.sizeOf("foo") * 2);
+
+        // When
+        boolean first = subject.tryAcquire("foo");
+        boolean second = subject.tryAcquire("bar");
+        boolean third = subject.tryAcquire("baz");
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse("Should not acquire from an exhausted budget", third);
+        assertEquals(1, subject.getUsage(), 0);
+    }
+
+    @Test
+    public void shouldAcquireAgainAfterRelease() {
+        // Given
+        MemoryBudget subject = new MemoryBudget(MemoryBudget.sizeOf("foo"));
+        subject.tryAcquire("foo");
+
+        // When
+        subject.release("foo");
+
+        // Then
+        assertEquals(0, subject.getUsedBytes());
+        assertTrue("Should acquire released bytes", subject.tryAcquire("bar"));
+    }
+
+    @Test
+    public void shouldSizePendingLinesByTheirRecord() {
+        // Given
+        PendingLine shortLine = PendingLine.of(MessageBuilder.newBuilder().withName("foo").buildTemplate(), 1, 123456789);
+        PendingLine longLine = PendingLine.of(MessageBuilder.newBuilder().withName("foo").withNamespace("a_long_namespace")
+                .buildTemplate(), 1, 123456789);
+
+        // When
+        long shortSize = MemoryBudget.sizeOf(shortLine);
+        long longSize = MemoryBudget.sizeOf(longLine);
+
+        // Then
+        assertEquals("Should not depend on the length of the line", shortSize, longSize);
+        assertTrue("Should be smaller than the formatted line", shortSize < MemoryBudget.sizeOf(shortLine.toString()));
+    }
+
+    @Test
+    public void shouldNotCountBytesWhenUntracked() {
+        // Given
+        MemoryBudget subject = MemoryBudget.untracked();
+        subject.reserveSlots(5);
+
+        // When
+        boolean acquired = subject.tryAcquire("foo");
+
+        // Then
+        assertTrue(acquired);
+        assertEquals(0, subject.getUsedBytes());
+        subject.release("foo");
+        assertEquals(0, subject.getUsedBytes());
+    }
+
+    @Test
+    public void shouldNeverRunOutWithoutLimit() {
+        // Given
+        MemoryBudget subject = MemoryBudget.unbounded();
+        subject.reserveSlots(Integer.MAX_VALUE);
+
+        // When
+        boolean acquired = subject.tryAcquire("foo");
+
+        // Then
+        assertTrue(acquired);
+        assertEquals(0, subject.getUsage(), 0);
+    }
+}
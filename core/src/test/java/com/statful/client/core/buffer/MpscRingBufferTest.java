@@ -0,0 +1,143 @@
+package com.statful.client.core.buffer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class MpscRingBufferTest {
+
+    @Test
+    public void shouldRejectElementsWhenFull() {
+        // Given
+        MpscRingBuffer<String> subject = new MpscRingBuffer<>(3);
+        subject.offer("a");
+        subject.offer("b");
+        subject.offer("c");
+
+        // When
+        boolean offered = subject.offer("d");
+
+        // Then
+        assertFalse("Should not add to a full buffer", offered);
+        assertEquals(3, subject.size());
+        assertEquals(Arrays.asList("a", "b", "c"), subject.toList());
+    }
+
+    @Test
+    public void shouldDrainInOrderUpToMaxElements() {
+        // Given
+        MpscRingBuffer<String> subject = new MpscRingBuffer<>(5);
+        subject.offer("a");
+        subject.offer("b");
+        subject.offer("c");
+        List<String> drained = new ArrayList<>();
+
+        // When
+        int count = subject.drainTo(drained, 2);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("a", "b"), drained);
+        assertEquals(Arrays.asList("c"), subject.toList());
+    }
+
+    @Test
+    public void shouldReuseSlotsAfterDraining() {
+        // Given
+        MpscRingBuffer<Integer> subject = new MpscRingBuffer<>(3);
+        List<Integer> drained = new ArrayList<>();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertTrue("Should add to a drained buffer", subject.offer(i));
+            subject.drainTo(drained, 1);
+        }
+
+        // Then
+        assertTrue(subject.isEmpty());
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), drained);
+    }
+
+    @Test(timeout = 30000)
+    public void shouldNotLoseNorDuplicateElementsWithConcurrentProducers() throws Exception {
+        // Given
+        final int producers = 8;
+        final int elementsPerProducer = 20000;
+        final MpscRingBuffer<Integer> subject = new MpscRingBuffer<>(1000);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> producing = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            producing.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < elementsPerProducer; i++) {
+                        while (!subject.offer(producer * elementsPerProducer + i)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+
+        // When
+        start.countDown();
+        Set<Integer> drained = new HashSet<>();
+        List<Integer> batch = new ArrayList<>();
+        while (drained.size() < producers * elementsPerProducer) {
+            batch.clear();
+            if (subject.drainTo(batch, 100) == 0) {
+                assertNoProducerFailed(producing);
+            }
+            for (Integer element : batch) {
+                assertTrue("Should not drain an element twice", drained.add(element));
+            }
+        }
+
+        // Then
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertNoProducerFailed(producing);
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateBufferWithoutCapacity() {
+        new MpscRingBuffer<String>(0);
+    }
+
+    /**
+     * Fails with the exception of the first producer that threw one, so that the consumer doesn't wait for elements
+     * that will never come.
+     */
+    private static void assertNoProducerFailed(final List<Future<?>> producing) throws InterruptedException {
+        for (Future<?> producer : producing) {
+            if (producer.isDone()) {
+                try {
+                    producer.get();
+                } catch (ExecutionException e) {
+                    throw new AssertionError("A producer failed", e.getCause());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.statful.client.core.buffer;
+
+import com.statful.client.core.message.EncodedLines;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SlabQueueTest {
+
+    @Test
+    public void shouldDrainLinesInOrderAcrossSlabs() {
+        // Given
+        SlabPool slabPool = new SlabPool(1024, 32);
+        SlabQueue subject = new SlabQueue(slabPool, 100);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(subject.offer("metric_" + i + " 1"));
+        }
+
+        // When
+        List<CharSequence> drained = new ArrayList<>();
+        int lines = subject.drainTo(drained, 100);
+
+        // Then
+        assertEquals(10, lines);
+        assertTrue("Should join the lines of a slab", drained.size() < 10);
+        assertTrue(drained.get(0) instanceof EncodedLines);
+        assertEquals("metric_0 1\nmetric_1 1\nmetric_2 1\nmetric_3 1\nmetric_4 1\nmetric_5 1\nmetric_6 1\nmetric_7 1\n"
+                + "metric_8 1\nmetric_9 1", join(drained));
+        assertTrue(subject.isEmpty());
+        assertEquals("Should give every slab back", 0, slabPool.getUsage(), 0);
+    }
+
+    @Test
+    public void shouldDrainUpToMaxLines() {
+        // Given
+        SlabQueue subject = new SlabQueue(new SlabPool(1024, 64), 100);
+        for (String line : Arrays.asList("a", "b", "c", "d", "e")) {
+            subject.offer(line);
+        }
+
+        // When
+        List<CharSequence> drained = new ArrayList<>();
+        int lines = subject.drainTo(drained, 3);
+
+        // Then
+        assertEquals(3, lines);
+        assertEquals("a\nb\nc", join(drained));
+        assertEquals(2, subject.size());
+        assertEquals(Arrays.<CharSequence>asList("d", "e"), subject.toList());
+        assertEquals("d", subject.poll().toString());
+    }
+
+    @Test
+    public void shouldKeepLinesAddedAfterDrainingAPartialSlab() {
+        // Given
+        SlabQueue subject = new SlabQueue(new SlabPool(1024, 64), 100);
+        subject.offer("a");
+        subject.drainTo(new ArrayList<CharSequence>(), 10);
+
+        // When
+        subject.offer("b");
+
+        // Then
+        assertEquals(Arrays.<CharSequence>asList("b"), subject.toList());
+        assertEquals("b", subject.poll().toString());
+        assertNull(subject.poll());
+    }
+
+    @Test
+    public void shouldBeFullOnceEverySlabIsTaken() {
+        // Given
+        SlabPool slabPool = new SlabPool(8, 4);
+        SlabQueue subject = new SlabQueue(slabPool, 100);
+        for (String line : Arrays.asList("a", "b", "c", "d")) {
+            assertTrue(subject.offer(line));
+        }
+
+        // When
+        boolean added = subject.offer("e");
+
+        // Then
+        assertFalse("Should not add without a free slab", added);
+        assertEquals(1, slabPool.getUsage(), 0);
+        subject.drainTo(new ArrayList<CharSequence>(), 2);
+        assertTrue("Should add once a slab is given back", subject.offer("e"));
+        assertEquals(Arrays.<CharSequence>asList("c", "d", "e"), subject.toList());
+    }
+
+    @Test
+    public void shouldBeFullAtCapacity() {
+        // Given
+        SlabQueue subject = new SlabQueue(new SlabPool(1024, 64), 2);
+        subject.offer("a");
+        subject.offer("b");
+
+        // When
+        boolean added = subject.offer("c");
+
+        // Then
+        assertFalse(added);
+        assertEquals(2, subject.size());
+    }
+
+    @Test
+    public void shouldNotAddLinesLongerThanASlab() {
+        // Given
+        SlabQueue subject = new SlabQueue(new SlabPool(1024, 4), 100);
+
+        // When
+        boolean added = subject.offer("abcd");
+
+        // Then
+        assertFalse(added);
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void shouldKeepLinesEncodedInUtf8() {
+        // Given
+        SlabQueue subject = new SlabQueue(new SlabPool(1024, 64), 100);
+        subject.offer("métrica,cidade=São\\ Paulo 1");
+
+        // When
+        CharSequence line = subject.poll();
+
+        // Then
+        assertEquals("métrica,cidade=São\\ Paulo 1", line.toString());
+    }
+
+    @Test(timeout = 30000)
+    public void shouldNotLoseNorDuplicateLinesWithConcurrentProducers() throws Exception {
+        // Given
+        final int producers = 4;
+        final int linesPerProducer = 20000;
+        final SlabQueue subject = new SlabQueue(new SlabPool(16384, 1024), 1000);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> producing = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            producing.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < linesPerProducer; i++) {
+                        while (!subject.offer(Integer.toString(producer * linesPerProducer + i))) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            }));
+        }
+        executor.shutdown();
+
+        // When
+        start.countDown();
+        Set<String> drained = new HashSet<>();
+        List<CharSequence> batch = new ArrayList<>();
+        while (drained.size() < producers * linesPerProducer) {
+            batch.clear();
+            if (subject.drainTo(batch, 100) == 0) {
+                assertNoProducerFailed(producing);
+            }
+            for (CharSequence lines : batch) {
+                for (String line : lines.toString().split("\n")) {
+                    assertTrue("Should not drain a line twice", drained.add(line));
+                }
+            }
+        }
+
+        // Then
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertNoProducerFailed(producing);
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreatePoolWithoutBudget() {
+        new SlabPool(0);
+    }
+
+    private static String join(final List<CharSequence> lines) {
+        StringBuilder sb = new StringBuilder();
+        for (CharSequence line : lines) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Fails with the exception of the first producer that threw one, so that the consumer doesn't wait for elements
+     * that will never come.
+     */
+    private static void assertNoProducerFailed(final List<Future<?>> producing) throws InterruptedException {
+        for (Future<?> producer : producing) {
+            if (producer.isDone()) {
+                try {
+                    producer.get();
+                } catch (ExecutionException e) {
+                    throw new AssertionError("A producer failed", e.getCause());
+                }
+            }
+        }
+    }
+}
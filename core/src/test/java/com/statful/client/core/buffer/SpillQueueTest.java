@@ -0,0 +1,173 @@
+package com.statful.client.core.buffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class SpillQueueTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldPollMessagesInOrderWithTheirUris() throws Exception {
+        // Given
+        SpillQueue subject = new SpillQueue(temporaryFolder.getRoot(), 4096, 1024);
+        assertTrue(subject.offer(utf8("metric_a 1"), null));
+        assertTrue(subject.offer(utf8("metric_b 2"), "http://localhost/aggregation/avg/frequency/10"));
+
+        // When
+        SpillQueue.SpilledMessage first = subject.poll();
+        SpillQueue.SpilledMessage second = subject.poll();
+
+        // Then
+        assertEquals("metric_a 1", string(first));
+        assertNull(first.getUri());
+        assertEquals("metric_b 2", string(second));
+        assertEquals("http://localhost/aggregation/avg/frequency/10", second.getUri());
+        assertNull(subject.poll());
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test
+    public void shouldRotateSegmentsAndDeleteTheOnesRead() throws Exception {
+        // Given
+        SpillQueue subject = new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(subject.offer(utf8("metric_" + i + " 1"), null));
+        }
+        int segments = segmentFiles(temporaryFolder.getRoot());
+
+        // When
+        for (int i = 0; i < 9; i++) {
+            assertEquals("metric_" + i + " 1", string(subject.poll()));
+        }
+
+        // Then
+        assertTrue("Should spread the messages across segments", segments > 1);
+        assertEquals("Should delete every segment read but the last", 1, segmentFiles(temporaryFolder.getRoot()));
+        assertEquals(1, subject.size());
+        assertEquals("metric_9 1", string(subject.poll()));
+    }
+
+    @Test
+    public void shouldNotOfferOnceEverySegmentIsFull() throws Exception {
+        // Given
+        SpillQueue subject = new SpillQueue(temporaryFolder.getRoot(), 128, 64);
+        int offered = 0;
+        while (subject.offer(utf8("metric 1"), null)) {
+            offered++;
+        }
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            subject.poll();
+        }
+        boolean added = subject.offer(utf8("metric 1"), null);
+
+        // Then
+        assertEquals("Should fill both segments", 8, offered);
+        assertTrue("Should take the room of the segment read", added);
+    }
+
+    @Test
+    public void shouldNotOfferMessagesLongerThanASegment() throws Exception {
+        // Given
+        SpillQueue subject = new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+
+        // When
+        boolean added = subject.offer(ByteBuffer.allocate(64), null);
+
+        // Then
+        assertFalse(added);
+        assertFalse(subject.fits(ByteBuffer.allocate(64), null));
+        assertTrue(subject.fits(ByteBuffer.allocate(32), null));
+        assertTrue(subject.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotCreateQueueOnADirectoryLockedByAnotherQueue() throws Exception {
+        // Given
+        new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+
+        // When
+        new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+    }
+
+    @Test
+    public void shouldUnlockTheDirectoryAndStopOnceClosed() throws Exception {
+        // Given
+        SpillQueue subject = new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+        subject.offer(utf8("metric_a 1"), null);
+
+        // When
+        subject.close();
+
+        // Then
+        assertTrue(subject.isEmpty());
+        assertNull(subject.poll());
+        assertFalse(subject.offer(utf8("metric_b 1"), null));
+        SpillQueue next = new SpillQueue(temporaryFolder.getRoot(), 4096, 64);
+        assertEquals("metric_a 1", string(next.poll()));
+    }
+
+    @Test
+    public void shouldRecoverTheMessagesNotReadFromAPreviousQueue() throws Exception {
+        // Given
+        File directory = new File(temporaryFolder.getRoot(), "spill");
+        SpillQueue previous = new SpillQueue(directory, 4096, 64);
+        for (int i = 0; i < 6; i++) {
+            previous.offer(utf8("metric_" + i + " 1"), i % 2 == 0 ? null : "http://localhost/" + i);
+        }
+        previous.poll();
+        previous.poll();
+        previous.close();
+
+        // When
+        SpillQueue subject = new SpillQueue(directory, 4096, 64);
+
+        // Then
+        assertEquals(4, subject.size());
+        SpillQueue.SpilledMessage message = subject.poll();
+        assertEquals("metric_2 1", string(message));
+        assertNull(message.getUri());
+        message = subject.poll();
+        assertEquals("metric_3 1", string(message));
+        assertEquals("http://localhost/3", message.getUri());
+        assertTrue(subject.offer(utf8("metric_6 1"), null));
+        assertEquals("metric_4 1", string(subject.poll()));
+        assertEquals("metric_5 1", string(subject.poll()));
+        assertEquals("metric_6 1", string(subject.poll()));
+        assertNull(subject.poll());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotCreateQueueWithoutSize() throws Exception {
+        new SpillQueue(temporaryFolder.getRoot(), 0);
+    }
+
+    private static int segmentFiles(final File directory) {
+        int segments = 0;
+        for (String name : directory.list()) {
+            if (name.endsWith(".seg")) {
+                segments++;
+            }
+        }
+        return segments;
+    }
+
+    private static ByteBuffer utf8(final String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(final SpillQueue.SpilledMessage message) {
+        return new String(message.getMessage(), StandardCharsets.UTF_8);
+    }
+}
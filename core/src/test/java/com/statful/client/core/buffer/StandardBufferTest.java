@@ -1,8 +1,11 @@
 package com.statful.client.core.buffer;
 
+import com.statful.client.domain.api.OverflowPolicy;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class StandardBufferTest {
@@ -97,4 +100,160 @@ public class StandardBufferTest {
         // Then
         assertFalse("Should not set as time to flush", isTimeToFlush);
     }
+
+    @Test
+    public void shouldDropNewestMetricsAndCountThem() {
+        // Given
+        fill(subject, 5);
+
+        // When
+        boolean added = subject.addToBuffer("new");
+
+        // Then
+        assertFalse("Should not add to a full buffer", added);
+        assertEquals(Arrays.asList("0", "1", "2", "3", "4"), subject.getBuffer().toList());
+        assertEquals("Should count the dropped metric", 1, subject.getAndResetDroppedMetrics());
+        assertEquals("Should reset the dropped metrics", 0, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldDropOldestMetricsAndCountThem() {
+        // Given
+        subject = new StandardBuffer(3, 2, OverflowPolicy.DROP_OLDEST, 0);
+        fill(subject, 3);
+
+        // When
+        boolean added = subject.addToBuffer("new");
+
+        // Then
+        assertTrue("Should add to a full buffer", added);
+        assertEquals(Arrays.asList("1", "2", "new"), subject.getBuffer().toList());
+        assertEquals("Should count the dropped metric", 1, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldSampleDownMetricsAboveHalfCapacity() {
+        // Given
+        subject = new StandardBuffer(100, 2, OverflowPolicy.SAMPLE_DOWN, 0);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            subject.addToBuffer("foo");
+        }
+
+        // Then
+        int size = subject.getBuffer().size();
+        assertTrue("Should keep every metric up to half capacity", size >= 50);
+        assertEquals("Should count every metric not kept", 1000 - size, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldBlockUntilTimeoutWhenFull() {
+        // Given
+        subject = new StandardBuffer(2, 2, OverflowPolicy.BLOCK_WITH_TIMEOUT, 20);
+        fill(subject, 2);
+
+        // When
+        long start = System.nanoTime();
+        boolean added = subject.addToBuffer("new");
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        // Then
+        assertFalse("Should not add to a buffer that stayed full", added);
+        assertTrue("Should block for the overflow timeout", elapsedMillis >= 20);
+        assertEquals("Should count the dropped metric", 1, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldAddWhileBlockedOnceThereIsRoom() throws Exception {
+        // Given
+        subject = new StandardBuffer(2, 2, OverflowPolicy.BLOCK_WITH_TIMEOUT, 5000);
+        fill(subject, 2);
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                subject.readBuffer();
+            }
+        });
+        reader.start();
+
+        // When
+        boolean added = subject.addToBuffer("new");
+
+        // Then
+        reader.join();
+        assertTrue("Should add once the buffer is read", added);
+        assertEquals(0, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldGiveBytesBackToMemoryBudgetWhenRead() {
+        // Given
+        MemoryBudget memoryBudget = new MemoryBudget(1000000);
+        subject = new StandardBuffer(5, 5, OverflowPolicy.DROP_NEWEST, 0, memoryBudget);
+        long slotBytes = memoryBudget.getUsedBytes();
+        fill(subject, 3);
+
+        // When
+        subject.readBuffer();
+
+        // Then
+        assertEquals("Should only keep the bytes of the slots", slotBytes, memoryBudget.getUsedBytes());
+    }
+
+    @Test
+    public void shouldDropOldestMetricsWhenMemoryBudgetIsExhausted() {
+        // Given
+        MemoryBudget slots = MemoryBudget.unbounded();
+        slots.reserveSlots(5);
+        MemoryBudget memoryBudget = new MemoryBudget(slots.getUsedBytes() + MemoryBudget.sizeOf("0") * 2);
+        subject = new StandardBuffer(5, 5, OverflowPolicy.DROP_OLDEST, 0, memoryBudget);
+
+        // When
+        fill(subject, 3);
+
+        // Then
+        assertEquals(Arrays.asList("1", "2"), subject.getBuffer().toList());
+        assertEquals("Should count the dropped metric", 1, subject.getAndResetDroppedMetrics());
+    }
+
+    @Test
+    public void shouldKeepMetricsOffHeap() {
+        // Given
+        SlabPool slabPool = new SlabPool(1024, 64);
+        subject = new StandardBuffer(5, 2, OverflowPolicy.DROP_NEWEST, 0, slabPool);
+        fill(subject, 3);
+
+        // When
+        String read = subject.readBuffer();
+
+        // Then
+        assertEquals("0\n1", read);
+        assertEquals(Arrays.asList("2"), subject.getBuffer().toList());
+        assertTrue("Should take a slab", subject.getUsage() > 0);
+    }
+
+    @Test
+    public void shouldDropOldestMetricsWhenSlabsAreTaken() {
+        // Given
+        subject = new StandardBuffer(5, 5, OverflowPolicy.DROP_OLDEST, 0, new SlabPool(4, 4));
+
+        // When
+        fill(subject, 3);
+
+        // Then
+        assertEquals(Arrays.asList("2"), subject.getBuffer().toList());
+        assertEquals("Should count the dropped metrics", 2, subject.getAndResetDroppedMetrics());
+    }
+
+    private static void fill(final StandardBuffer buffer, final int metrics) {
+        for (int i = 0; i < metrics; i++) {
+            buffer.addToBuffer(String.valueOf(i));
+        }
+    }
 }
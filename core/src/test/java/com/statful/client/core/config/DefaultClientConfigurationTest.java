@@ -1,6 +1,9 @@
 package com.statful.client.core.config;
 
+import com.statful.client.domain.api.AdaptiveSampling;
 import com.statful.client.domain.api.Aggregations;
+import com.statful.client.domain.api.OverflowPolicy;
+import com.statful.client.domain.api.SamplingMode;
 import com.statful.client.domain.api.Tags;
 import com.statful.client.domain.api.Transport;
 import org.junit.Assert;
@@ -92,6 +95,18 @@ public class DefaultClientConfigurationTest {
         assertFalse("Should get dry run", subject.isDryRun());
     }
 
+    @Test
+    public void shouldGetIsClientSideAggregation() {
+        subject.setClientSideAggregation(true);
+        assertTrue("Should get client side aggregation", subject.isClientSideAggregation());
+    }
+
+    @Test
+    public void shouldGetOverflowPolicy() {
+        subject.setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        assertEquals("Should get overflow policy", OverflowPolicy.DROP_OLDEST, subject.getOverflowPolicy());
+    }
+
     @Test
     public void shouldGetHost() {
         subject.setHost("test_host");
@@ -211,6 +226,25 @@ public class DefaultClientConfigurationTest {
         assertEquals(10, subject.getFlushSize());
         assertEquals(5000, subject.getFlushIntervalMillis());
         assertFalse(subject.isDryRun());
+        assertFalse(subject.isClientSideAggregation());
+        assertEquals(OverflowPolicy.DROP_NEWEST, subject.getOverflowPolicy());
+        assertEquals(100, subject.getOverflowTimeoutMillis());
+        assertEquals(30000, subject.getWorkerTaskDeadlineMillis());
+        assertEquals(5000, subject.getBufferCapacity());
+        assertEquals(0, subject.getBufferMemoryBudget());
+        assertEquals(SamplingMode.RANDOM, subject.getSamplingMode());
+        assertEquals(AdaptiveSampling.DISABLED, subject.getAdaptiveSampling());
+        assertEquals(1432, subject.getUdpPayloadSize());
+        assertEquals(0, subject.getUdpChannels());
+        assertFalse(subject.isHttpCompression());
+        assertEquals(1024, subject.getHttpCompressionThreshold());
+        assertFalse(subject.isHttpAsync());
+        assertEquals(0, subject.getHttpMaxInFlightRequests());
+        assertFalse(subject.isLazyEncoding());
+        assertEquals(0, subject.getOffHeapBufferBudget());
+        assertNull(subject.getSpillDirectory());
+        assertEquals(268435456L, subject.getSpillMaxBytes());
+        assertEquals(10, subject.getSpillReplayRate());
 
         assertEquals(FREQ_10, subject.getTimerAggregationFrequency());
         assertEquals(FREQ_10, subject.getCounterAggregationFrequency());
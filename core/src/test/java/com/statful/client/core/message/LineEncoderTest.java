@@ -0,0 +1,107 @@
+package com.statful.client.core.message;
+
+import com.statful.client.domain.api.Tags;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class LineEncoderTest {
+
+    @Test
+    public void shouldEncodeFormattedAndPendingLines() {
+        // Given
+        MessageTemplate template = MessageBuilder.newBuilder().withNamespace("application").withName("test_metric")
+                .withSampleRate(100).buildTemplate();
+
+        // When
+        String message = LineEncoder.encode(Arrays.<CharSequence>asList(
+                "application.other_metric 1 123456788 100",
+                PendingLine.of(template, 100, 123456789),
+                PendingLine.of(template, 101.5d, 123456790)));
+
+        // Then
+        assertEquals("application.other_metric 1 123456788 100\n"
+                + "application.test_metric 100 123456789 100\n"
+                + "application.test_metric 101.5 123456790 100", message);
+    }
+
+    @Test
+    public void shouldEncodeNoLines() {
+        // When
+        String message = LineEncoder.encode(Collections.<CharSequence>emptyList());
+
+        // Then
+        assertEquals("", message);
+    }
+
+    @Test
+    public void shouldEncodeFormattedAndPendingLinesInUtf8() {
+        // Given
+        MessageTemplate template = MessageBuilder.newBuilder().withNamespace("application").withName("métrica")
+                .withTags(Tags.from("city", "São Paulo \uD83D\uDE00")).withSampleRate(100).buildTemplate();
+        String expected = "application.other_metric,name=olá 1 123456788 100\n"
+                + PendingLine.of(template, 100, 123456789) + "\n"
+                + PendingLine.of(template, -9223372036854775807L, 123456790) + "\n"
+                + PendingLine.of(template, -0.25d, 123456791);
+
+        // When
+        ByteBuffer message = LineEncoder.encodeUtf8(Arrays.<CharSequence>asList(
+                "application.other_metric,name=olá 1 123456788 100",
+                PendingLine.of(template, 100, 123456789),
+                PendingLine.of(template, -9223372036854775807L, 123456790),
+                PendingLine.of(template, -0.25d, 123456791)));
+
+        // Then
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        assertEquals(expected, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldEncodeLinesAlreadyEncodedInUtf8() {
+        // Given
+        EncodedLines encoded = new EncodedLines("application.a,city=São 1 123456788 100\napplication.b 2 123456789 100"
+                .getBytes(StandardCharsets.UTF_8));
+        List<CharSequence> lines = Arrays.<CharSequence>asList(encoded, "application.c 3 123456790 100");
+
+        // When
+        String message = LineEncoder.encode(lines);
+        ByteBuffer bytes = LineEncoder.encodeUtf8(lines);
+
+        // Then
+        String expected = "application.a,city=São 1 123456788 100\napplication.b 2 123456789 100\napplication.c 3 123456790 100";
+        assertEquals(expected, message);
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        assertEquals(expected, new String(copy, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldEncodeNoLinesInUtf8() {
+        // When
+        ByteBuffer message = LineEncoder.encodeUtf8(Collections.<CharSequence>emptyList());
+
+        // Then
+        assertEquals(0, message.remaining());
+    }
+
+    @Test
+    public void shouldFormatPendingLineOnDemand() {
+        // Given
+        MessageTemplate template = MessageBuilder.newBuilder().withNamespace("application").withName("test_metric")
+                .withSampleRate(100).buildTemplate();
+
+        // When
+        PendingLine line = PendingLine.of(template, 100, 123456789);
+
+        // Then
+        assertEquals("application.test_metric 100 123456789 100", line.toString());
+        assertEquals(line.toString().length(), line.length());
+    }
+}
@@ -208,4 +208,118 @@ public class MessageBuilderTest {
 
         assertEquals("a\\ namespace\\,\\ with\\ comma.a\\ name\\,\\ with\\ =equal,tag\\,\\ key\\==tag\\,\\ value\\= a value, with comma and =equal 121232323 100", message);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldEscapeAllWhitespaceCharacters() {
+        String message = MessageBuilder.newBuilder()
+                .withName("a\tname\nwith\u000Bwhitespace\f\r")
+                .withValue("3")
+                .withTags(Tags.from("tag\tkey", "tag\nvalue"))
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        assertEquals("a\\\tname\\\nwith\\\u000Bwhitespace\\\f\\\r,tag\\\tkey=tag\\\nvalue 3 121232323", message);
+    }
+
+    @Test
+    public void shouldNotEscapeOtherCharacters() {
+        String message = MessageBuilder.newBuilder()
+                .withNamespace("ns-1")
+                .withName("a.name_with\\backslash")
+                .withValue("3")
+                .withTags(Tags.from("tag:key", "tag/value"))
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        assertEquals("ns-1.a.name_with\\backslash,tag:key=tag/value 3 121232323", message);
+    }
+
+    @Test
+    public void shouldMergeTagsAndAggregationsWithoutChangingThem() {
+        // Given
+        Tags firstTags = Tags.from("unit", "s");
+        Tags secondTags = Tags.from("app", "statful");
+        Aggregations firstAggregations = Aggregations.from(Aggregation.AVG);
+        Aggregations secondAggregations = Aggregations.from(Aggregation.COUNT);
+
+        // When
+        String message = MessageBuilder.newBuilder()
+                .withNamespace(NAMESPACE)
+                .withName(NAME)
+                .withValue("3")
+                .withTags(firstTags)
+                .withTags(secondTags)
+                .withAggregations(firstAggregations)
+                .withAggregations(secondAggregations)
+                .withTimestamp(TIMESTAMP)
+                .build();
+
+        // Then
+        assertThat(message, anyOf(
+                is("TEST_NS.response_time,unit=s,app=statful 3 121232323 avg,count,10"),
+                is("TEST_NS.response_time,app=statful,unit=s 3 121232323 avg,count,10")));
+        assertEquals(1, firstTags.getTags().size());
+        assertEquals(1, firstAggregations.getAggregations().size());
+    }
+
+    @Test
+    public void shouldAppendMessageToStringBuilder() {
+        // Given
+        StringBuilder sb = new StringBuilder("previous line\n");
+
+        // When
+        MessageBuilder.newBuilder()
+                .withName(NAME)
+                .withValue("3")
+                .withTimestamp(TIMESTAMP)
+                .withSampleRate(SAMPLE_RATE)
+                .appendTo(sb);
+
+        // Then
+        assertEquals("previous line\nresponse_time 3 121232323 100", sb.toString());
+    }
+
+    @Test
+    public void shouldBuildConsecutiveMessagesIndependently() {
+        String first = MessageBuilder.newBuilder().withName("first").withValue("1").withTimestamp(TIMESTAMP).build();
+        String second = MessageBuilder.newBuilder().withName("second").withValue("2").withTimestamp(TIMESTAMP).build();
+
+        assertEquals("first 1 121232323", first);
+        assertEquals("second 2 121232323", second);
+    }
+
+    @Test
+    public void shouldBuildTemplateWithTheSameLineAsTheBuilder() {
+        // Given
+        MessageBuilder messageBuilder = MessageBuilder.newBuilder()
+                .withNamespace(NAMESPACE)
+                .withName("a name")
+                .withValue("3")
+                .withTags(Tags.from("tag, key", "value"))
+                .withAggregations(AGGREGATIONS)
+                .withAggregationFreq(AggregationFrequency.FREQ_60)
+                .withTimestamp(TIMESTAMP)
+                .withSampleRate(SAMPLE_RATE);
+
+        // When
+        MessageTemplate template = messageBuilder.buildTemplate();
+
+        // Then
+        assertEquals("TEST_NS.a\\ name,tag\\,\\ key=value", template.getPrefix());
+        assertEquals(" avg,count,60 100", template.getSuffix());
+        assertEquals(messageBuilder.build(), template.build(3, TIMESTAMP));
+        assertEquals("TEST_NS.a\\ name,tag\\,\\ key=value 2.5 121232323 avg,count,60 100", template.build(2.5d, TIMESTAMP));
+    }
+
+    @Test
+    public void shouldBuildTemplateWithoutSuffix() {
+        MessageTemplate template = MessageBuilder.newBuilder().withName(NAME).buildTemplate();
+
+        assertEquals("response_time 7 121232323", template.build(7, TIMESTAMP));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotBuildTemplateWithoutName() {
+        MessageBuilder.newBuilder().withNamespace(NAMESPACE).buildTemplate();
+    }
+}
@@ -0,0 +1,129 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.AdaptiveSampling;
+import com.statful.client.domain.api.Tags;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveSamplerTest {
+
+    @Test
+    public void shouldKeepSampleRateWithoutPressure() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+        subject.sampleRate(100, "timer.response_time", null);
+
+        // When
+        subject.adjust(0.1);
+
+        // Then
+        assertEquals(100, subject.sampleRate(100, "timer.response_time", null));
+        assertEquals(40, subject.sampleRate(40, "timer.response_time", null));
+    }
+
+    @Test
+    public void shouldLowerSampleRateOfBusiestSeriesUnderPressure() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+        for (int i = 0; i < 100; i++) {
+            subject.sampleRate(100, "timer.response_time", null);
+        }
+        subject.sampleRate(100, "counter.requests", null);
+
+        // When
+        subject.adjust(0.9);
+
+        // Then
+        assertEquals("Should halve the busiest series", 50, subject.sampleRate(100, "timer.response_time", null));
+        assertEquals("Should halve the sample rate of the busiest series", 20, subject.sampleRate(40, "timer.response_time", null));
+        assertEquals("Should keep the other series", 100, subject.sampleRate(100, "counter.requests", null));
+    }
+
+    @Test
+    public void shouldTellSeriesApartByTags() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+        Tags busy = Tags.from("status", "200");
+        Tags quiet = Tags.from("status", "500");
+        for (int i = 0; i < 100; i++) {
+            subject.sampleRate(100, "timer.response_time", busy);
+        }
+        subject.sampleRate(100, "timer.response_time", quiet);
+
+        // When
+        subject.adjust(0.9);
+
+        // Then
+        assertEquals(50, subject.sampleRate(100, "timer.response_time", busy));
+        assertEquals(100, subject.sampleRate(100, "timer.response_time", quiet));
+    }
+
+    @Test
+    public void shouldLowerSampleRateOfBusiestMetricTypeUnderPressure() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_METRIC_TYPE);
+        for (int i = 0; i < 100; i++) {
+            subject.sampleRate(100, "timer.response_time" + i, null);
+        }
+        subject.sampleRate(100, "counter.requests", null);
+
+        // When
+        subject.adjust(0.9);
+
+        // Then
+        assertEquals("Should halve every metric of the busiest type", 50, subject.sampleRate(100, "timer.other", null));
+        assertEquals("Should keep the other types", 100, subject.sampleRate(100, "counter.requests", null));
+    }
+
+    @Test
+    public void shouldNotLowerSampleRateBelowOne() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            subject.sampleRate(100, "timer.response_time", null);
+            subject.adjust(1);
+        }
+
+        // Then
+        assertEquals(1, subject.sampleRate(100, "timer.response_time", null));
+    }
+
+    @Test
+    public void shouldRaiseSampleRateBackAsPressureGoesAway() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+        subject.sampleRate(100, "timer.response_time", null);
+        subject.adjust(0.9);
+
+        // When
+        subject.adjust(0.3);
+        int withModeratePressure = subject.sampleRate(100, "timer.response_time", null);
+        subject.adjust(0.1);
+        int afterRecovering = subject.sampleRate(100, "timer.response_time", null);
+        for (int i = 0; i < 10; i++) {
+            subject.adjust(0);
+        }
+
+        // Then
+        assertEquals("Should hold the sample rate with moderate pressure", 50, withModeratePressure);
+        assertEquals("Should raise the sample rate by a step", 60, afterRecovering);
+        assertEquals("Should recover the whole sample rate", 100, subject.sampleRate(100, "timer.response_time", null));
+    }
+
+    @Test
+    public void shouldSmoothSendLatency() {
+        // Given
+        AdaptiveSampler subject = new AdaptiveSampler(AdaptiveSampling.PER_SERIES);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            subject.recordSendLatency(80000000L);
+        }
+
+        // Then
+        assertEquals(80, subject.getSendLatencyMillis(), 1);
+    }
+}
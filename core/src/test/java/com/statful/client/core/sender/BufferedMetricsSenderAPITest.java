@@ -1,16 +1,25 @@
 package com.statful.client.core.sender;
 
+import com.statful.client.core.buffer.SpillQueue;
+import com.statful.client.core.transport.ByteTransportSender;
+import com.statful.client.core.transport.ReportingTransportSender;
+import com.statful.client.core.transport.SendListener;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.*;
 import org.hamcrest.CoreMatchers;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -28,6 +37,9 @@ public class BufferedMetricsSenderAPITest {
 
     private static final Logger LOGGER = Logger.getLogger(BufferedMetricsSenderAPITest.class.getName());
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ScheduledThreadPoolExecutor executorService;
 
     @Mock
@@ -43,7 +55,7 @@ public class BufferedMetricsSenderAPITest {
         initMocks(this);
 
         when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(100);
-        when(configuration.getWorkerTaskKillerInterval()).thenReturn(30000L);
+        when(configuration.getWorkerTaskDeadlineMillis()).thenReturn(30000L);
         when(configuration.getFlushSize()).thenReturn(3);
         when(configuration.getFlushIntervalMillis()).thenReturn(0L);
         when(configuration.getSampleRate()).thenReturn(100);
@@ -95,6 +107,74 @@ public class BufferedMetricsSenderAPITest {
         assertEquals("MetricsBuffer should have 5000 metrics", 5000, buffer.get(Aggregation.AVG).get(AggregationFrequency.FREQ_10).size());
     }
 
+    @Test
+    public void shouldDiscardIfConfiguredBufferCapacityIsReached() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+        when(configuration.getBufferCapacity()).thenReturn(10);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        assertEquals("MetricsBuffer should have 10 metrics", 10, subject.getStandardBuffer().size());
+    }
+
+    @Test
+    public void shouldWriteLoweredSampleRateWhenSheddingUnderPressure() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+        when(configuration.getBufferCapacity()).thenReturn(10);
+        when(configuration.getAdaptiveSampling()).thenReturn(AdaptiveSampling.PER_SERIES);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        for (int i = 0; i < 9; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        subject.adjustAdaptiveSampling();
+        subject.forceSyncFlush();
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        List<String> buffer = subject.getStandardBuffer();
+        assertFalse("Should keep some of the metrics", buffer.isEmpty());
+        assertTrue("Should shed some of the metrics", buffer.size() < 10);
+        for (String metric : buffer) {
+            assertEquals("application.test_metric 500 123456789 50", metric);
+        }
+    }
+
+    @Test
+    public void shouldShareMemoryBudgetBetweenStandardAndAggregatedBuffers() {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(10000);
+        when(configuration.getBufferCapacity()).thenReturn(100);
+        when(configuration.getBufferMemoryBudget()).thenReturn(25000L);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            subject.put("test_metric", "500", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        for (int i = 0; i < 100; i++) {
+            subject.aggregatedPut("test_metric", "500", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+
+        // Then
+        int aggregatedMetrics = subject.getAggregatedBuffer().get(Aggregation.AVG).get(AggregationFrequency.FREQ_10).size();
+        assertEquals("Should fill the standard buffer", 100, subject.getStandardBuffer().size());
+        assertTrue("Should fill the aggregated buffer up to the memory budget left", aggregatedMetrics > 0 && aggregatedMetrics < 100);
+    }
+
     @Test
     public void shouldSendRawMetricWithTags() {
         // When
@@ -221,11 +301,12 @@ public class BufferedMetricsSenderAPITest {
     }
 
     @Test
-    public void shouldFlushMetricsBySize() {
+    public void shouldFlushMetricsBySize() throws Exception {
         // When
         subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.put("test_metric1", "101", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.put("test_metric2", "102", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456791);
+        awaitFlush(subject);
         subject.put("test_metric3", "103", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456792);
 
         // Then
@@ -258,13 +339,14 @@ public class BufferedMetricsSenderAPITest {
     }
 
     @Test
-    public void shouldFlushMetricsBySizeIfAnyBufferTypeGoesOverMaxSize() {
+    public void shouldFlushMetricsBySizeIfAnyBufferTypeGoesOverMaxSize() throws Exception {
         // When
         subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.aggregatedPut("test_metric0", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.aggregatedPut("test_metric1", "101", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.aggregatedPut("test_metric2", "102", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456791);
+        awaitFlush(subject);
         subject.aggregatedPut("test_metric3", "103", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456792);
 
         // Then
@@ -277,13 +359,14 @@ public class BufferedMetricsSenderAPITest {
     }
 
     @Test
-    public void shouldFlushMetricsBySizeIfAnyBufferSubTypeGoesOverMaxSize() {
+    public void shouldFlushMetricsBySizeIfAnyBufferSubTypeGoesOverMaxSize() throws Exception {
         // When
         subject.aggregatedPut("test_metric0", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_120, 100, "application", 123456789);
         subject.aggregatedPut("test_metric1", "101", null, Aggregation.AVG, AggregationFrequency.FREQ_120, 100, "application", 123456790);
         subject.aggregatedPut("test_metric0", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.aggregatedPut("test_metric1", "101", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.aggregatedPut("test_metric2", "102", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456791);
+        awaitFlush(subject);
         subject.aggregatedPut("test_metric3", "103", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456792);
 
         // Then
@@ -294,13 +377,14 @@ public class BufferedMetricsSenderAPITest {
     }
 
     @Test
-    public void shouldFlushMetricsBySizeIfAnyAggregationBufferTypeGoesOverMaxSize() {
+    public void shouldFlushMetricsBySizeIfAnyAggregationBufferTypeGoesOverMaxSize() throws Exception {
         // When
         subject.aggregatedPut("test_metric0", "100", null, Aggregation.COUNT, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.aggregatedPut("test_metric1", "101", null, Aggregation.COUNT, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.aggregatedPut("test_metric0", "100", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456789);
         subject.aggregatedPut("test_metric1", "101", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456790);
         subject.aggregatedPut("test_metric2", "102", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456791);
+        awaitFlush(subject);
         subject.aggregatedPut("test_metric3", "103", null, Aggregation.AVG, AggregationFrequency.FREQ_10, 100, "application", 123456792);
 
         // Then
@@ -334,8 +418,9 @@ public class BufferedMetricsSenderAPITest {
         executorService.awaitTermination(500, TimeUnit.MILLISECONDS);
 
         // Then
+        verify(transportSender, timeout(500)).send(anyString());
         List<String> buffer = subject.getStandardBuffer();
-        assertEquals("MetricsBuffer should have metrics", 1, buffer.size());
+        assertTrue("MetricsBuffer should have at most the metric put after the flush", buffer.size() <= 1);
 
         Thread.sleep(500);
 
@@ -630,32 +715,121 @@ public class BufferedMetricsSenderAPITest {
         }
     }
 
-    @SuppressWarnings("unchecked")
     @Test
-    public void shouldDropMetricsWhenWorkerTasksQueueIsFull() {
+    public void shouldKeepMetricsBufferedWhileWorkerTasksQueueIsFull() throws Exception {
         // Given
         when(configuration.getFlushIntervalMillis()).thenReturn(5000L);
         when(configuration.getFlushSize()).thenReturn(1);
         when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(1);
 
+        ScheduledThreadPoolExecutor mockExecutor = mock(ScheduledThreadPoolExecutor.class);
+        when(mockExecutor.getCorePoolSize()).thenReturn(1);
 
-        final ScheduledFuture mockFuture = mock(ScheduledFuture.class);
+        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, mockExecutor);
+
+        // When
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        verify(mockExecutor, timeout(500).times(1)).execute(any(Runnable.class));
+        subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        Thread.sleep(100);
+
+        // Then
+        verify(mockExecutor, times(1)).execute(any(Runnable.class));
+        assertEquals(asList("application.test_metric1 100 123456789 100"), subject.getStandardBuffer());
+    }
+
+    @Test
+    public void shouldNotFlushAgainUntilAWorkerTakesATaskFromTheFullPipeline() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(1);
+        when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(1);
 
-        BlockingQueue<Runnable> mockQueue = mock(BlockingQueue.class);
         ScheduledThreadPoolExecutor mockExecutor = mock(ScheduledThreadPoolExecutor.class);
-        when(mockExecutor.schedule(any(Runnable.class), anyInt(), any(TimeUnit.class))).thenReturn(mockFuture);
-        when(mockExecutor.getQueue()).thenReturn(mockQueue);
+        when(mockExecutor.getCorePoolSize()).thenReturn(1);
 
-        when(mockQueue.size()).thenReturn(0, 1);
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, mockExecutor);
+        subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        ArgumentCaptor<Runnable> worker = ArgumentCaptor.forClass(Runnable.class);
+        verify(mockExecutor, timeout(500).times(1)).execute(worker.capture());
+        subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        awaitFlushes(subject, 2);
 
-        final BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, mockExecutor);
+        // When
+        for (int i = 2; i < 1000; i++) {
+            subject.put("test_metric" + i, "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        }
+        Thread.sleep(100);
+
+        // Then
+        assertEquals("Should not flush while the pipeline is full", 2, subject.getFlushes());
+        worker.getValue().run();
+        verify(transportSender).send("application.test_metric0 100 123456789 100");
+        awaitFlushes(subject, 3);
+        assertTrue("Should flush once the worker took the task", subject.getFlushes() > 2);
+        assertFalse(subject.getStandardBuffer().contains("application.test_metric1 100 123456789 100"));
+    }
+
+    @Test
+    public void shouldNotSendMetricsThatWaitedPastTheWorkerTaskDeadline() throws Exception {
+        // Given
+        when(configuration.getWorkerTaskDeadlineMillis()).thenReturn(50L);
+        when(configuration.getFlushSize()).thenReturn(1);
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                sending.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        }).when(transportSender).send("application.test_metric0 100 123456789 100");
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
 
         // When
         subject.put("test_metric0", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
         subject.put("test_metric1", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        awaitFlush(subject);
+        Thread.sleep(100);
+        release.countDown();
+        awaitWorkerTasks();
 
         // Then
-        verify(mockExecutor, times(1)).schedule(any(Runnable.class), anyInt(), any(TimeUnit.class));
+        verify(transportSender, never()).send("application.test_metric1 100 123456789 100");
+    }
+
+    /**
+     * Waits for the flusher thread to drain the standard and aggregated buffers.
+     */
+    private static void awaitFlushes(final BufferedMetricsSender subject, final long flushes) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (subject.getFlushes() < flushes && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void awaitFlush(final BufferedMetricsSender subject) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!isEmpty(subject) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static boolean isEmpty(final BufferedMetricsSender subject) {
+        if (!subject.getStandardBuffer().isEmpty()) {
+            return false;
+        }
+        for (Map<AggregationFrequency, List<String>> buffers : subject.getAggregatedBuffer().values()) {
+            for (List<String> buffer : buffers.values()) {
+                if (!buffer.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     private Answer<String> mockedTransportResponse = new Answer<String>() {
@@ -666,4 +840,366 @@ public class BufferedMetricsSenderAPITest {
             return null;
         }
     };
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBufferEncodedMetrics() {
+        // Given
+        Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.P90);
+        EncodedMetric metric = new EncodedMetric("test_metric", Tags.from("unit", "ms"), aggregations, AggregationFrequency.FREQ_10,
+                100, "application", false, false);
+
+        // When
+        subject.putEncoded(metric, 100, 123456789);
+        subject.putEncoded(metric, 101.5d, 123456790);
+
+        // Then
+        List<String> buffer = subject.getStandardBuffer();
+        assertEquals("MetricsBuffer should have 2 metrics", 2, buffer.size());
+        assertEquals("Should buffer timer metric", "application.test_metric,unit=ms 100 123456789 avg,p90,10 100", buffer.get(0));
+        assertEquals("Should buffer timer metric", "application.test_metric,unit=ms 101.5 123456790 avg,p90,10 100", buffer.get(1));
+    }
+
+    @Test
+    public void shouldBufferEncodedAggregatedMetrics() {
+        // Given
+        EncodedMetric metric = new EncodedMetric("test_metric", null, Aggregations.from(Aggregation.AVG), AggregationFrequency.FREQ_10,
+                100, "application", true, false);
+
+        // When
+        subject.putEncoded(metric, 100, 123456789);
+
+        // Then
+        List<String> buffer = subject.getAggregatedBuffer().get(Aggregation.AVG).get(AggregationFrequency.FREQ_10);
+        assertEquals("MetricsBuffer should have 1 metric", 1, buffer.size());
+        assertEquals("Should buffer timer metric", "application.test_metric 100 123456789 100", buffer.get(0));
+    }
+
+    @Test
+    public void shouldFormatLazilyEncodedMetricsWhenFlushing() {
+        // Given
+        when(configuration.isLazyEncoding()).thenReturn(true);
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        EncodedMetric metric = new EncodedMetric("test_metric", Tags.from("unit", "ms"), Aggregations.from(Aggregation.AVG),
+                AggregationFrequency.FREQ_10, 100, "application", false, false);
+        EncodedMetric aggregatedMetric = new EncodedMetric("test_metric", null, Aggregations.from(Aggregation.AVG),
+                AggregationFrequency.FREQ_10, 100, "application", true, false);
+
+        // When
+        subject.putEncoded(metric, 100, 123456789);
+        subject.putEncoded(metric, 101.5d, 123456790);
+        subject.putEncoded(aggregatedMetric, 102, 123456791);
+        subject.forceSyncFlush();
+
+        // Then
+        verify(transportSender).send("application.test_metric,unit=ms 100 123456789 avg,10 100\n"
+                + "application.test_metric,unit=ms 101.5 123456790 avg,10 100");
+        verify(transportSender).send(eq("application.test_metric 102 123456791 100"), contains("/aggregation/avg/frequency/10"));
+    }
+
+    @Test
+    public void shouldSendUtf8BytesToByteTransportSender() {
+        // Given
+        when(configuration.isLazyEncoding()).thenReturn(true);
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        ByteTransportSender byteTransportSender = mock(ByteTransportSender.class);
+        final List<String> messages = new CopyOnWriteArrayList<String>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                ByteBuffer message = (ByteBuffer) invocation.getArguments()[0];
+                byte[] bytes = new byte[message.remaining()];
+                message.get(bytes);
+                messages.add(new String(bytes, StandardCharsets.UTF_8));
+                return null;
+            }
+        }).when(byteTransportSender).send(any(ByteBuffer.class));
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(byteTransportSender, configuration, executorService);
+        EncodedMetric metric = new EncodedMetric("test_metric", Tags.from("city", "São Paulo"), null,
+                AggregationFrequency.FREQ_10, 100, "application", false, false);
+
+        // When
+        subject.put("other_metric", "1", null, null, null, 100, "application", 123456788);
+        subject.putEncoded(metric, 101.5d, 123456789);
+        subject.forceSyncFlush();
+
+        // Then
+        verify(byteTransportSender, never()).send(anyString());
+        assertEquals(asList("application.other_metric 1 123456788 100\n"
+                + "application.test_metric,city=São\\ Paulo 101.5 123456789 100"), messages);
+    }
+
+    @Test
+    public void shouldBufferMetricsOffHeap() {
+        // Given
+        when(configuration.getOffHeapBufferBudget()).thenReturn(1048576L);
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+
+        // When
+        subject.put("test_metric", "100", Tags.from("city", "São Paulo"), null, null, 100, "application", 123456789);
+        subject.put("test_metric", "101", null, Aggregations.from(Aggregation.AVG), AggregationFrequency.FREQ_10, 100, "application", 123456790);
+        List<String> standardBuffer = subject.getStandardBuffer();
+        subject.forceSyncFlush();
+
+        // Then
+        assertEquals(asList("application.test_metric,city=São\\ Paulo 100 123456789 100",
+                "application.test_metric 101 123456790 avg,10 100"), standardBuffer);
+        verify(transportSender).send("application.test_metric,city=São\\ Paulo 100 123456789 100\n"
+                + "application.test_metric 101 123456790 avg,10 100");
+    }
+
+    @Test
+    public void shouldSpillMessagesThatFailedAndReplayThemOnceSendingSucceeds() throws Exception {
+        // Given
+        when(configuration.getSpillDirectory()).thenReturn(temporaryFolder.getRoot().getPath());
+        when(configuration.getSpillMaxBytes()).thenReturn(1048576L);
+        when(configuration.getSpillReplayRate()).thenReturn(10);
+
+        ReportingTransportSender reportingTransportSender = mock(ReportingTransportSender.class);
+        BufferedMetricsSender subject = new BufferedMetricsSender(reportingTransportSender, configuration, executorService);
+        ArgumentCaptor<SendListener> listener = ArgumentCaptor.forClass(SendListener.class);
+        verify(reportingTransportSender).setSendListener(listener.capture());
+
+        listener.getValue().onFailed(utf8("application.test_metric 100 123456789 100"), null);
+        listener.getValue().onFailed(utf8("application.test_metric 101 123456789 avg,10 100"), "http://localhost/aggregation/avg/frequency/10");
+        listener.getValue().onSent();
+
+        // When
+        subject.replaySpilledMessages();
+        awaitWorkerTasks();
+
+        // Then
+        verify(reportingTransportSender).send("application.test_metric 100 123456789 100");
+        verify(reportingTransportSender).send("application.test_metric 101 123456789 avg,10 100", "http://localhost/aggregation/avg/frequency/10");
+    }
+
+    @Test
+    public void shouldReplayASingleSpilledMessageWhileSendingFails() throws Exception {
+        // Given
+        when(configuration.getSpillDirectory()).thenReturn(temporaryFolder.getRoot().getPath());
+        when(configuration.getSpillMaxBytes()).thenReturn(1048576L);
+        when(configuration.getSpillReplayRate()).thenReturn(10);
+
+        ReportingTransportSender reportingTransportSender = mock(ReportingTransportSender.class);
+        BufferedMetricsSender subject = new BufferedMetricsSender(reportingTransportSender, configuration, executorService);
+        ArgumentCaptor<SendListener> listener = ArgumentCaptor.forClass(SendListener.class);
+        verify(reportingTransportSender).setSendListener(listener.capture());
+
+        for (int i = 0; i < 3; i++) {
+            listener.getValue().onFailed(utf8("application.test_metric " + i + " 123456789 100"), null);
+        }
+
+        // When
+        subject.replaySpilledMessages();
+        awaitWorkerTasks();
+
+        // Then
+        verify(reportingTransportSender).send("application.test_metric 0 123456789 100");
+        verify(reportingTransportSender, never()).send("application.test_metric 1 123456789 100");
+    }
+
+    @Test
+    public void shouldSpillFlushesThatCantBeScheduled() throws Exception {
+        // Given
+        when(configuration.getSpillDirectory()).thenReturn(temporaryFolder.getRoot().getPath());
+        when(configuration.getSpillMaxBytes()).thenReturn(1048576L);
+        when(configuration.getSpillReplayRate()).thenReturn(10);
+        when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(0);
+
+        BufferedMetricsSender spillingSubject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        for (int i = 0; i < 3; i++) {
+            spillingSubject.put("test_metric", Integer.toString(i), null, null, null, 100, "application", 123456789);
+        }
+        awaitFlush(spillingSubject);
+        Thread.sleep(100);
+        spillingSubject.shutdown();
+        verify(transportSender, never()).send(anyString());
+
+        // When
+        when(configuration.getMaxWorkerTasksQueueSize()).thenReturn(100);
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        subject.replaySpilledMessages();
+        awaitWorkerTasks();
+
+        // Then
+        verify(transportSender).send("application.test_metric 0 123456789 100\n"
+                + "application.test_metric 1 123456789 100\n"
+                + "application.test_metric 2 123456789 100");
+    }
+
+    @Test
+    public void shouldNotSpillToADirectoryLockedByAnotherClient() throws Exception {
+        // Given
+        when(configuration.getSpillDirectory()).thenReturn(temporaryFolder.getRoot().getPath());
+        when(configuration.getSpillMaxBytes()).thenReturn(1048576L);
+        SpillQueue otherClientQueue = new SpillQueue(temporaryFolder.getRoot(), 1048576L);
+        ReportingTransportSender reportingTransportSender = mock(ReportingTransportSender.class);
+
+        // When
+        new BufferedMetricsSender(reportingTransportSender, configuration, executorService);
+
+        // Then
+        verify(reportingTransportSender, never()).setSendListener(any(SendListener.class));
+        otherClientQueue.close();
+    }
+
+    @Test
+    public void shouldDiscardEncodedMetricWithInvalidSampleRate() {
+        // Given
+        EncodedMetric metric = new EncodedMetric("test_metric", null, null, AggregationFrequency.FREQ_10, 0, "application", false, true);
+
+        // When
+        subject.putEncoded(metric, 100, 123456789);
+
+        // Then
+        assertTrue("MetricsBuffer should be empty", subject.getStandardBuffer().isEmpty());
+    }
+
+    @Test
+    public void shouldAggregateMetricsInTheClient() {
+        // Given
+        when(configuration.isClientSideAggregation()).thenReturn(true);
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Aggregations aggregations = Aggregations.from(Aggregation.AVG, Aggregation.COUNT);
+        EncodedMetric metric = new EncodedMetric("test_metric", null, aggregations, AggregationFrequency.FREQ_10, 100, "application", false, false);
+
+        // When
+        subject.put("test_metric", "100", null, aggregations, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+        subject.putSampled("test_metric", "200", null, aggregations, AggregationFrequency.FREQ_10, 100, "application", 123456781);
+        subject.putEncoded(metric, 300, 123456785);
+        subject.put("test_metric_without_aggregations", "1", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        assertEquals("Should only buffer metrics without aggregations", asList("application.test_metric_without_aggregations 1 123456789 100"),
+                subject.getStandardBuffer());
+
+        // When
+        subject.forceSyncFlush();
+
+        // Then
+        verify(transportSender).send(eq("application.test_metric 200 123456780 100"), contains("/aggregation/avg/frequency/10"));
+        verify(transportSender).send(eq("application.test_metric 3 123456780 100"), contains("/aggregation/count/frequency/10"));
+    }
+
+    @Test
+    public void shouldSendRegisteredCountersAndGaugesOnFlush() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        final Counter counter = subject.registerCounter(new EncodedMetric("counter.hits", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+        Gauge gauge = subject.registerGauge(new EncodedMetric("gauge.queue", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+        subject.registerCounter(new EncodedMetric("counter.unused", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            producers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        counter.increment();
+                    }
+                }
+            });
+        }
+        producers.shutdown();
+        assertTrue(producers.awaitTermination(10, TimeUnit.SECONDS));
+        gauge.set(42);
+
+        // When
+        subject.forceSyncFlush();
+        subject.forceSyncFlush();
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(transportSender, times(1)).send(payload.capture());
+
+        String[] lines = payload.getValue().split("\n");
+        assertEquals("Should only send the metrics that changed", 2, lines.length);
+        assertTrue(lines[0], lines[0].matches("application\\.counter\\.hits 40000 \\d+ 100"));
+        assertTrue(lines[1], lines[1].matches("application\\.gauge\\.queue 42 \\d+ 100"));
+    }
+
+    @Test
+    public void shouldSendUnregisteredCounterOnceMore() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Counter counter = subject.registerCounter(new EncodedMetric("counter.hits", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+        counter.increment(5);
+
+        // When
+        counter.unregister();
+        subject.forceSyncFlush();
+        counter.increment(3);
+        subject.forceSyncFlush();
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(transportSender, times(1)).send(payload.capture());
+        assertTrue(payload.getValue(), payload.getValue().matches("application\\.counter\\.hits 5 \\d+ 100"));
+    }
+
+    @Test
+    public void shouldSendUnregisteredGaugeOnceMore() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(100);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Gauge gauge = subject.registerGauge(new EncodedMetric("gauge.queue", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+        gauge.set(42);
+
+        // When
+        gauge.unregister();
+        subject.forceSyncFlush();
+        gauge.set(7);
+        subject.forceSyncFlush();
+
+        // Then
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(transportSender, times(1)).send(payload.capture());
+        assertTrue(payload.getValue(), payload.getValue().matches("application\\.gauge\\.queue 42 \\d+ 100"));
+    }
+
+    @Test
+    public void shouldDrainRegisteredMetricsOnTheFlushesWithoutPeriodicFlush() throws Exception {
+        // Given
+        when(configuration.getFlushSize()).thenReturn(1);
+
+        BufferedMetricsSender subject = new BufferedMetricsSender(transportSender, configuration, executorService);
+        Counter counter = subject.registerCounter(new EncodedMetric("counter.hits", null, null, AggregationFrequency.FREQ_10, 100,
+                "application", false, false));
+        counter.increment(5);
+
+        // When
+        subject.put("test_metric", "100", null, null, AggregationFrequency.FREQ_10, 100, "application", 123456789);
+
+        // Then
+        verify(transportSender, timeout(1000)).send(contains("application.counter.hits 5 "));
+    }
+
+    private static ByteBuffer utf8(final String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void awaitWorkerTasks() throws Exception {
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
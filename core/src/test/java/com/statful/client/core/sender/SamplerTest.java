@@ -0,0 +1,105 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.SamplingMode;
+import com.statful.client.domain.api.Tags;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SamplerTest {
+
+    @Test
+    public void shouldAlwaysKeepMetricsAtMaxSampleRate() {
+        // Given
+        Sampler subject = new Sampler(SamplingMode.RANDOM);
+
+        // When
+        int kept = countKept(subject, 100, "response_time", null);
+
+        // Then
+        assertEquals(1000, kept);
+    }
+
+    @Test
+    public void shouldKeepMetricsAtRandomBySampleRate() {
+        // Given
+        Sampler subject = new Sampler(null);
+
+        // When
+        int kept = countKept(subject, 30, "response_time", null);
+
+        // Then
+        assertEquals(SamplingMode.RANDOM, subject.getSamplingMode());
+        assertTrue("Should keep around 30% of the metrics", kept > 200 && kept < 400);
+    }
+
+    @Test
+    public void shouldKeepOrDropEverySeriesMetricTogether() {
+        // Given
+        Sampler subject = new Sampler(SamplingMode.SERIES);
+        Tags tags = Tags.from("endpoint", "checkout");
+
+        // When
+        int kept = countKept(subject, 50, "timer.response_time", tags);
+
+        // Then
+        assertTrue("Should keep all or none of the metrics", kept == 0 || kept == 1000);
+        assertEquals(subject.isSampledIn(50, "timer.response_time", tags), subject.isSampledIn(50, "timer.", "response_time", tags));
+    }
+
+    @Test
+    public void shouldKeepSeriesBySampleRate() {
+        // Given
+        Sampler subject = new Sampler(SamplingMode.SERIES);
+
+        // When
+        int kept = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (subject.isSampledIn(30, "timer.response_time", Tags.from("request", "request-" + i))) {
+                kept++;
+            }
+        }
+
+        // Then
+        assertTrue("Should keep around 30% of the series", kept > 200 && kept < 400);
+    }
+
+    @Test
+    public void shouldKeepMetricsBySamplingKey() {
+        // When
+        int kept = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (Sampler.isSampledIn(10, "request-" + i)) {
+                kept++;
+            }
+        }
+
+        // Then
+        assertTrue("Should keep around 10% of the keys", kept > 50 && kept < 150);
+        assertEquals(Sampler.isSampledIn(10, "request-1"), Sampler.isSampledIn(10, "request-1"));
+        assertTrue("Should keep every key at a greater sample rate", !Sampler.isSampledIn(10, "request-1") || Sampler.isSampledIn(20, "request-1"));
+    }
+
+    @Test
+    public void shouldComputeSeriesHashWithoutConcatenatingPrefix() {
+        // Given
+        Tags tags = Tags.from("unit", "ms");
+
+        // When
+        int hash = Sampler.seriesHash("timer.", "response_time", tags);
+
+        // Then
+        assertEquals(Sampler.seriesHash("", "timer.response_time", tags), hash);
+        assertNotEquals(Sampler.seriesHash("", "timer.response_time", null), hash);
+    }
+
+    private static int countKept(final Sampler sampler, final int sampleRate, final String name, final Tags tags) {
+        int kept = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (sampler.isSampledIn(sampleRate, name, tags)) {
+                kept++;
+            }
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,173 @@
+package com.statful.client.core.sender;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class SendPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final List<String> ran = new CopyOnWriteArrayList<String>();
+    private final List<String> expired = new CopyOnWriteArrayList<String>();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunTasksInOrder() throws Exception {
+        // Given
+        SendPipeline subject = new SendPipeline(executor, 1, 10, 30000);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            assertTrue(subject.submit(task("task" + i, null)));
+        }
+        awaitTasks(5);
+
+        // Then
+        assertEquals(asList("task0", "task1", "task2", "task3", "task4"), ran);
+        assertEquals(0, subject.getAndResetRejectedTasks());
+    }
+
+    @Test
+    public void shouldRejectTasksWhileTheQueueIsFull() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        SendPipeline subject = new SendPipeline(executor, 1, 1, 30000);
+        subject.submit(task("blocking", release));
+        awaitRunning("blocking");
+        assertTrue(subject.submit(task("queued", null)));
+
+        // When
+        boolean submitted = subject.submit(task("rejected", null));
+
+        // Then
+        assertFalse(submitted);
+        assertFalse(subject.hasRoom());
+        assertEquals(1, subject.getUsage(), 0);
+        assertEquals(1, subject.getAndResetRejectedTasks());
+        release.countDown();
+        awaitTasks(2);
+        assertEquals(asList("blocking", "queued"), ran);
+    }
+
+    @Test
+    public void shouldExpireTasksThatWaitedPastTheirDeadline() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        SendPipeline subject = new SendPipeline(executor, 1, 10, 50);
+        subject.submit(task("blocking", release));
+        awaitRunning("blocking");
+        subject.submit(task("late", null));
+        Thread.sleep(100);
+
+        // When
+        release.countDown();
+        awaitTasks(2);
+        subject.submit(task("on time", null));
+        awaitTasks(3);
+
+        // Then
+        assertEquals(asList("blocking", "on time"), ran);
+        assertEquals(asList("late"), expired);
+        assertEquals(1, subject.getAndResetExpiredTasks());
+    }
+
+    @Test
+    public void shouldRunTasksOnUpToTheMaximumWorkers() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        SendPipeline subject = new SendPipeline(executor, 2, 10, 30000);
+
+        // When
+        subject.submit(task("first", release));
+        subject.submit(task("second", release));
+        subject.submit(task("third", null));
+        awaitRunning("first");
+        awaitRunning("second");
+
+        // Then
+        assertEquals("Should wait for a free worker", 2, ran.size());
+        release.countDown();
+        awaitTasks(3);
+        assertTrue(ran.contains("third"));
+    }
+
+    @Test
+    public void shouldRejectEveryTaskWithoutCapacity() {
+        // Given
+        SendPipeline subject = new SendPipeline(executor, 1, 0, 30000);
+
+        // When
+        boolean submitted = subject.submit(task("rejected", null));
+
+        // Then
+        assertFalse(submitted);
+        assertFalse(subject.hasRoom());
+    }
+
+    @Test
+    public void shouldNotifyTheRoomListenerWhenAWorkerTakesATask() throws Exception {
+        // Given
+        final CountDownLatch notified = new CountDownLatch(2);
+        SendPipeline subject = new SendPipeline(executor, 1, 10, 30000, new Runnable() {
+            @Override
+            public void run() {
+                notified.countDown();
+            }
+        });
+
+        // When
+        subject.submit(task("first", null));
+        subject.submit(task("second", null));
+
+        // Then
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+    }
+
+    private SendPipeline.Task task(final String name, final CountDownLatch release) {
+        return new SendPipeline.Task() {
+            @Override
+            public void run() {
+                ran.add(name);
+                if (release != null) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+
+            @Override
+            public void expire() {
+                expired.add(name);
+            }
+        };
+    }
+
+    private void awaitRunning(final String name) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!ran.contains(name) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private void awaitTasks(final int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (ran.size() + expired.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
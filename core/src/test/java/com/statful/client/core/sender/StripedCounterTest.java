@@ -0,0 +1,65 @@
+package com.statful.client.core.sender;
+
+import com.statful.client.domain.api.AggregationFrequency;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StripedCounterTest {
+
+    private final StripedCounter subject = new StripedCounter(new EncodedMetric("counter.hits", null, null,
+            AggregationFrequency.FREQ_10, 100, "application", false, false));
+
+    @Test
+    public void shouldNotStripeUncontendedCounter() {
+        // Given
+        for (int i = 0; i < 1000; i++) {
+            subject.increment();
+        }
+
+        // When
+        long sum = subject.sumThenReset();
+
+        // Then
+        assertEquals(1000, sum);
+        assertFalse(subject.isStriped());
+        assertEquals(0, subject.sumThenReset());
+    }
+
+    @Test(timeout = 30000)
+    public void shouldSumIncrementsOfConcurrentThreads() throws Exception {
+        // Given
+        final int threads = 4;
+        final int incrementsPerThread = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < incrementsPerThread; i++) {
+                        subject.increment(2);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+
+        // When
+        start.countDown();
+        assertTrue(executor.awaitTermination(20, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(2L * threads * incrementsPerThread, subject.sumThenReset());
+    }
+}
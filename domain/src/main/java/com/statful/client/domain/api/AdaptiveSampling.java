@@ -0,0 +1,21 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported ways of lowering the sample rate of metrics while the client is under pressure.
+ */
+public enum AdaptiveSampling {
+    /**
+     * Always uses the sample rate of each metric.
+     */
+    DISABLED,
+
+    /**
+     * Lowers the sample rate of the busiest metric types, by the first segment of the metric names.
+     */
+    PER_METRIC_TYPE,
+
+    /**
+     * Lowers the sample rate of the busiest series, by the metric names and tags.
+     */
+    PER_SERIES
+}
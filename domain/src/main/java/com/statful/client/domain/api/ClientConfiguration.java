@@ -218,9 +218,137 @@ public interface ClientConfiguration {
     int getMaxWorkerTasksQueueSize();
 
     /**
-     * Returns the interval for killing hanging worker tasks.
+     * Returns the deadline of the worker tasks: a task that waits longer than it for a worker expires instead of running.
      *
-     * @return Interval in milliseconds
+     * @return Deadline in milliseconds
      */
-    long getWorkerTaskKillerInterval();
+    long getWorkerTaskDeadlineMillis();
+
+    /**
+     * Returns if timers, counters and gauges are aggregated by the client over their aggregation frequency, sending only
+     * the aggregated values to Statful.
+     *
+     * @return True if the metrics are aggregated by the client
+     */
+    boolean isClientSideAggregation();
+
+    /**
+     * Gets the policy for metrics put while the buffer is full.
+     *
+     * @return The {@link OverflowPolicy} of the buffer
+     */
+    OverflowPolicy getOverflowPolicy();
+
+    /**
+     * Gets the maximum time to block a thread putting a metric while the buffer is full, with the {@link OverflowPolicy#BLOCK_WITH_TIMEOUT} policy.
+     *
+     * @return The overflow timeout in milliseconds
+     */
+    long getOverflowTimeoutMillis();
+
+    /**
+     * Gets the maximum number of metrics of each buffer, the standard one and the one of each aggregation and aggregation frequency.
+     *
+     * @return The buffer capacity
+     */
+    int getBufferCapacity();
+
+    /**
+     * Gets the maximum number of bytes taken by the metrics of all buffers, or zero if there is no limit.
+     *
+     * @return The buffer memory budget in bytes
+     */
+    long getBufferMemoryBudget();
+
+    /**
+     * Gets how metrics without a sampling key are sampled.
+     *
+     * @return The {@link SamplingMode} of the client
+     */
+    SamplingMode getSamplingMode();
+
+    /**
+     * Gets how the sample rate of metrics is lowered while the buffers fill up or sending slows down.
+     *
+     * @return An {@link AdaptiveSampling} with the adaptive sampling mode
+     */
+    AdaptiveSampling getAdaptiveSampling();
+
+    /**
+     * Gets the maximum payload size of the datagrams sent by the UDP transport.
+     *
+     * @return An {@link Integer} with the maximum payload size in bytes
+     */
+    int getUdpPayloadSize();
+
+    /**
+     * Gets the number of channels the UDP transport stripes across the worker threads, where 0 means one per worker thread.
+     *
+     * @return An {@link Integer} with the number of UDP channels
+     */
+    int getUdpChannels();
+
+    /**
+     * Checks if the HTTP transport compresses the request bodies with gzip.
+     *
+     * @return A {@link Boolean} stating if the request bodies are compressed
+     */
+    boolean isHttpCompression();
+
+    /**
+     * Gets the size from which the HTTP transport compresses the request bodies, if compression is enabled.
+     *
+     * @return An {@link Integer} with the compression threshold in bytes
+     */
+    int getHttpCompressionThreshold();
+
+    /**
+     * Checks if the HTTP transport sends the requests with a non-blocking client.
+     *
+     * @return A {@link Boolean} stating if the requests are sent without blocking
+     */
+    boolean isHttpAsync();
+
+    /**
+     * Gets the maximum number of requests the non-blocking HTTP transport has in flight, where 0 means the connection
+     * pool size.
+     *
+     * @return An {@link Integer} with the maximum number of requests in flight
+     */
+    int getHttpMaxInFlightRequests();
+
+    /**
+     * Checks if the metrics of templates and registered counters and gauges are buffered unformatted, to be formatted when flushed.
+     *
+     * @return A {@link Boolean} stating if the metric lines are formatted when flushed
+     */
+    boolean isLazyEncoding();
+
+    /**
+     * Gets the number of bytes of direct memory preallocated to keep the metrics of all buffers off the heap, or zero if they are kept on the heap.
+     *
+     * @return The off-heap buffer budget in bytes
+     */
+    long getOffHeapBufferBudget();
+
+    /**
+     * Gets the directory the messages that couldn't be sent are spilled to, to be sent again once sending succeeds, or null if they are dropped.
+     *
+     * @return The spill directory, or null if spilling is disabled
+     */
+    String getSpillDirectory();
+
+    /**
+     * Gets the maximum number of bytes of the messages spilled to disk.
+     *
+     * @return The maximum spill size in bytes
+     */
+    long getSpillMaxBytes();
+
+    /**
+     * Gets the maximum number of spilled messages sent again per second while sending succeeds.
+     *
+     * @return The spill replay rate in messages per second
+     */
+    int getSpillReplayRate();
 }
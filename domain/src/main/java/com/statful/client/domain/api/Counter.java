@@ -0,0 +1,36 @@
+package com.statful.client.domain.api;
+
+/**
+ * A registered counter, whose increments are accumulated in the client and sent to Statful as a single metric per
+ * flush interval, with the sum of the increments since the previous flush.
+ * <p>
+ * Example:<br>
+ * <p>
+ * <code>
+ *     Counter checkouts = statful.counter("checkouts").with().tag("country", "pt").registerCounter();
+ *     checkouts.increment();
+ * </code>
+ * <p>
+ * Instances are thread-safe, increments never block and only allocate the first time threads contend on a counter,
+ * and counters are meant to be created once and kept until they are unregistered.
+ */
+public interface Counter {
+
+    /**
+     * Increments the counter by one.
+     */
+    void increment();
+
+    /**
+     * Increments the counter.
+     *
+     * @param delta The increment, which may be negative
+     */
+    void increment(long delta);
+
+    /**
+     * Unregisters the counter, which is sent once more with the increments made until then, and then no longer kept by
+     * the client. Increments made afterwards may be lost.
+     */
+    void unregister();
+}
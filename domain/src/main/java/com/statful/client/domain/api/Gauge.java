@@ -0,0 +1,38 @@
+package com.statful.client.domain.api;
+
+/**
+ * A registered gauge, whose last value is kept in the client and sent to Statful once per flush interval, when it was
+ * set since the previous flush.
+ * <p>
+ * Example:<br>
+ * <p>
+ * <code>
+ *     Gauge queueSize = statful.gauge("queue_size", 0).with().tag("queue", "orders").registerGauge();
+ *     queueSize.set(queue.size());
+ * </code>
+ * <p>
+ * Instances are thread-safe, setting a value neither blocks nor allocates, and instances are meant to be created once
+ * and kept until they are unregistered.
+ */
+public interface Gauge {
+
+    /**
+     * Sets the value of the gauge.
+     *
+     * @param value The value
+     */
+    void set(long value);
+
+    /**
+     * Sets the value of the gauge.
+     *
+     * @param value The value
+     */
+    void set(double value);
+
+    /**
+     * Unregisters the gauge, which is sent once more with the value set until then, if any, and then no longer kept by
+     * the client. Values set afterwards may be lost.
+     */
+    void unregister();
+}
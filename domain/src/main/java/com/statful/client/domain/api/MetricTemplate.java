@@ -0,0 +1,47 @@
+package com.statful.client.domain.api;
+
+/**
+ * A reusable handle of a metric whose namespace, name, tags, aggregations, aggregation frequency and sample rate
+ * never change, so that only the value and the timestamp have to be encoded on each send.
+ * <p>
+ * Example:<br>
+ * <p>
+ * <code>
+ *     MetricTemplate checkoutTimer = statful.timer("response_time", 0).with().tag("endpoint", "checkout").template();
+ *     checkoutTimer.send(elapsedMillis);
+ * </code>
+ * <p>
+ * Instances are thread-safe and are meant to be created once and kept.
+ */
+public interface MetricTemplate {
+
+    /**
+     * Sends the metric to Statful with the current timestamp.
+     *
+     * @param value The metric value
+     */
+    void send(long value);
+
+    /**
+     * Sends the metric to Statful with the current timestamp.
+     *
+     * @param value The metric value
+     */
+    void send(double value);
+
+    /**
+     * Sends the metric to Statful.
+     *
+     * @param value The metric value
+     * @param timestamp The unix timestamp (in seconds) of the metric
+     */
+    void send(long value, long timestamp);
+
+    /**
+     * Sends the metric to Statful.
+     *
+     * @param value The metric value
+     * @param timestamp The unix timestamp (in seconds) of the metric
+     */
+    void send(double value, long timestamp);
+}
@@ -0,0 +1,28 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported policies for metrics put while the buffer is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discards the metric being put, keeping the buffered ones.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Discards the oldest buffered metric to make room for the metric being put.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Discards metrics with a probability that grows from none, when the buffer is half full, to all of them, when
+     * it is full, so the buffer fills up slowly and keeps a sample of the metrics.
+     */
+    SAMPLE_DOWN,
+
+    /**
+     * Blocks the thread putting the metric until there is room in the buffer, up to the overflow timeout, and discards
+     * the metric if there is still no room.
+     */
+    BLOCK_WITH_TIMEOUT
+}
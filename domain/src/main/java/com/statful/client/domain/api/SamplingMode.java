@@ -0,0 +1,16 @@
+package com.statful.client.domain.api;
+
+/**
+ * Supported ways of deciding which metrics are kept by their sample rate.
+ */
+public enum SamplingMode {
+    /**
+     * Keeps each metric independently, at random.
+     */
+    RANDOM,
+
+    /**
+     * Keeps every metric of a series, its name and tags, or none of them, by a hash of the series.
+     */
+    SERIES
+}
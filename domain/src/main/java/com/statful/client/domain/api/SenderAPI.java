@@ -109,8 +109,43 @@ public interface SenderAPI {
      */
     SenderAPI timestamp(final Long timestamp);
 
+    /**
+     * Sets the sampling key of the metric, such as a trace or request id, so that the metrics with the same key are
+     * sampled together: either all of them are sent, or none.
+     *
+     * @param samplingKey Sampling key as string
+     * @return A reference to this instance
+     */
+    SenderAPI samplingKey(final String samplingKey);
+
     /**
      * Sends the metric to Statful.
      */
     void send();
+
+    /**
+     * Creates a {@link MetricTemplate} with everything set so far, apart from the value and the timestamp, which are
+     * given on each send instead. When the metric is not valid, a warning is logged and the template sends nothing.
+     *
+     * @return A reusable {@link MetricTemplate}
+     */
+    MetricTemplate template();
+
+    /**
+     * Registers a {@link Counter} with everything set so far, apart from the value, the timestamp and the sample rate,
+     * as every increment is counted and the sum is sent once per flush interval. When the metric is not valid, a
+     * warning is logged and the counter sends nothing.
+     *
+     * @return A registered {@link Counter}
+     */
+    Counter registerCounter();
+
+    /**
+     * Registers a {@link Gauge} with everything set so far, apart from the value, the timestamp and the sample rate,
+     * as the last value is sent once per flush interval. When the metric is not valid, a warning is logged and the
+     * gauge sends nothing.
+     *
+     * @return A registered {@link Gauge}
+     */
+    Gauge registerGauge();
 }
@@ -28,4 +28,26 @@ public interface SenderFacade {
      * A facade method to send the metrics.
      */
     void send();
+
+    /**
+     * A facade method to create a reusable {@link MetricTemplate} of the metric, which sends nothing when the metric is
+     * not valid.
+     *
+     * @return A reusable {@link MetricTemplate}
+     */
+    MetricTemplate template();
+
+    /**
+     * A facade method to register a {@link Counter} of the metric, which sends nothing when the metric is not valid.
+     *
+     * @return A registered {@link Counter}
+     */
+    Counter registerCounter();
+
+    /**
+     * A facade method to register a {@link Gauge} of the metric, which sends nothing when the metric is not valid.
+     *
+     * @return A registered {@link Gauge}
+     */
+    Gauge registerGauge();
 }
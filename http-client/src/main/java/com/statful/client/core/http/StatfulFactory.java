@@ -4,6 +4,7 @@ import com.statful.client.core.CustomStatfulFactory;
 import com.statful.client.core.api.StatfulClientBuilder;
 import com.statful.client.core.transport.TransportSender;
 import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.transport.AsyncHTTPSender;
 import com.statful.client.transport.HTTPSender;
 import com.statful.client.transport.SSLClientFactory;
 
@@ -39,6 +40,13 @@ public final class StatfulFactory {
         @Override
         protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
             SSLClientFactory clientFactory = buildHTTPClientFactory(configuration);
+            if (configuration.isHttpAsync()) {
+                int maxInFlightRequests = configuration.getHttpMaxInFlightRequests() > 0
+                        ? configuration.getHttpMaxInFlightRequests() : configuration.getConnectionPoolSize();
+                return new AsyncHTTPSender(configuration.isSecure(), configuration.getHost(), configuration.getPort(),
+                        configuration.getPath(), clientFactory, maxInFlightRequests,
+                        configuration.getConnectTimeoutMillis() + configuration.getSocketTimeoutMillis());
+            }
             return new HTTPSender(configuration.isSecure(), configuration.getHost(), configuration.getPort(),
                     configuration.getPath(), clientFactory);
         }
@@ -48,7 +56,9 @@ public final class StatfulFactory {
                     configuration.getConnectionPoolSize(),
                     configuration.getConnectTimeoutMillis(),
                     configuration.getSocketTimeoutMillis(),
-                    configuration.getToken()
+                    configuration.getToken(),
+                    configuration.isHttpCompression(),
+                    configuration.getHttpCompressionThreshold()
             );
         }
     }
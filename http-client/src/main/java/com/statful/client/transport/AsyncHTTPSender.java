@@ -0,0 +1,251 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.ByteTransportSender;
+import com.statful.client.core.transport.ReportingTransportSender;
+import com.statful.client.core.transport.SendListener;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * This class is an implementation of {@link com.statful.client.core.transport.ByteTransportSender} to send metrics
+ * using HTTP or HTTPS without blocking.
+ * <p>
+ * Requests are handed over to a non-blocking client, whose I/O threads send them and handle their responses, so that
+ * sending a message doesn't hold the calling thread until the response arrives. The number of requests in flight is
+ * bounded: a message sent while that many requests wait for their responses is discarded, rather than queued without
+ * bounds or waited for.
+ * <p>
+ * As the requests are sent after the send methods return, messages encoded in UTF-8 bytes are copied into the bodies
+ * of their requests, since the callers reuse their buffers.
+ * <p>
+ * The outcome of every message is reported to the {@link SendListener}, if any, on the I/O threads of the client once
+ * its response arrives, or right away when it's discarded.
+ */
+public class AsyncHTTPSender implements ByteTransportSender, ReportingTransportSender {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncHTTPSender.class.getName());
+    private static final Integer HTTP_CREATED = 201;
+    private static final Integer HTTP_OK = 200;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String uri;
+    private final HTTPAsyncClientFactory clientFactory;
+    private final int maxInFlightRequests;
+    private final long shutdownTimeoutMs;
+    private final Semaphore inFlightRequests;
+
+    private CloseableHttpAsyncClient httpClient;
+    private volatile SendListener sendListener;
+
+    /**
+     * Default constructor.
+     *
+     * @param secure Flag to send the message securely, weather using HTTP or HTTPS.
+     * @param host The Statful API host
+     * @param port The Staful API port
+     * @param path The Staful API path
+     * @param clientFactory The HTTP client factory to use in this sender
+     * @param maxInFlightRequests The maximum number of requests waiting for their responses
+     * @param shutdownTimeoutMs How long the shutdown waits for the requests in flight, in milliseconds
+     */
+    public AsyncHTTPSender(final boolean secure, final String host, final Integer port, final String path,
+                           final HTTPAsyncClientFactory clientFactory, final int maxInFlightRequests, final long shutdownTimeoutMs) {
+        this.uri = ApiUriFactory.buildUri(secure, host, port, path);
+        this.clientFactory = clientFactory;
+        this.maxInFlightRequests = Math.max(1, maxInFlightRequests);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.inFlightRequests = new Semaphore(this.maxInFlightRequests);
+
+        try {
+            this.httpClient = clientFactory.createHttpAsyncClient();
+            if (httpClient != null) {
+                httpClient.start();
+            }
+        } catch (Exception e) {
+            LOGGER.severe("Unable to instantiate HTTP client: " + e.toString());
+        }
+    }
+
+    @Override
+    public final void send(final String message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final String message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final ByteBuffer message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final ByteBuffer message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void setSendListener(final SendListener listener) {
+        this.sendListener = listener;
+    }
+
+    private void doHttpRequest(final String uri, final String message) {
+        if (!acquireRequest()) {
+            reportFailure(null, message, uri);
+            return;
+        }
+
+        try {
+            httpClient.execute(clientFactory.createHttpPut(uri, message), new ResponseCallback(uri, message, null));
+        } catch (Exception e) {
+            inFlightRequests.release();
+            LOGGER.severe("Unable to send metric: " + e.toString());
+            reportFailure(null, message, uri);
+        }
+    }
+
+    private void doHttpRequest(final String uri, final ByteBuffer message) {
+        if (!acquireRequest()) {
+            reportFailure(message, null, uri);
+            return;
+        }
+
+        try {
+            ByteBuffer body = ByteBuffer.allocate(message.remaining());
+            body.put(message.duplicate()).flip();
+            httpClient.execute(clientFactory.createHttpPut(uri, body), new ResponseCallback(uri, null, body));
+        } catch (Exception e) {
+            inFlightRequests.release();
+            LOGGER.severe("Unable to send metric: " + e.toString());
+            reportFailure(message, null, uri);
+        }
+    }
+
+    /**
+     * Reports a message that wasn't sent, given either in UTF-8 bytes or as a string.
+     */
+    private void reportFailure(final ByteBuffer body, final String message, final String uri) {
+        SendListener listener = sendListener;
+        if (listener != null) {
+            listener.onFailed(body != null ? body.duplicate() : ByteBuffer.wrap(message.getBytes(UTF_8)), uri);
+        }
+    }
+
+    private boolean acquireRequest() {
+        if (httpClient == null) {
+            LOGGER.warning("Unable to send metric. No http client was instantiated.");
+            return false;
+        }
+
+        if (!inFlightRequests.tryAcquire()) {
+            LOGGER.warning("Unable to send metric. Too many requests in flight: " + maxInFlightRequests);
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public final void shutdown() {
+        if (httpClient == null) {
+            return;
+        }
+
+        boolean drained = false;
+        try {
+            drained = inFlightRequests.tryAcquire(maxInFlightRequests, shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!drained) {
+                LOGGER.warning("Cancelling the requests still in flight.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            httpClient.close();
+        } catch (Exception e) {
+            LOGGER.warning("Unable to close HTTP client: " + e.toString());
+        } finally {
+            if (drained) {
+                inFlightRequests.release(maxInFlightRequests);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of requests waiting for their responses.
+     *
+     * @return The number of requests in flight
+     */
+    final int getInFlightRequests() {
+        return maxInFlightRequests - inFlightRequests.availablePermits();
+    }
+
+    private static boolean metricCreated(final StatusLine statusLine) {
+        return HTTP_CREATED == statusLine.getStatusCode() || HTTP_OK == statusLine.getStatusCode();
+    }
+
+    /**
+     * Checks the response of a request on the I/O threads of the client, frees its place among the requests in
+     * flight, and reports its outcome.
+     */
+    private final class ResponseCallback implements FutureCallback<HttpResponse> {
+
+        private final String uri;
+        private final String message;
+        private final ByteBuffer body;
+
+        ResponseCallback(final String uri, final String message, final ByteBuffer body) {
+            this.uri = uri;
+            this.message = message;
+            this.body = body;
+        }
+
+        @Override
+        public void completed(final HttpResponse response) {
+            boolean sent = false;
+            try {
+                StatusLine statusLine = response.getStatusLine();
+                sent = metricCreated(statusLine);
+                if (!sent) {
+                    LOGGER.warning("Unable to send metric. Reason: "
+                            + statusLine.getReasonPhrase() + ", status: "
+                            + statusLine.getStatusCode());
+                }
+            } finally {
+                inFlightRequests.release();
+            }
+
+            SendListener listener = sendListener;
+            if (sent && listener != null) {
+                listener.onSent();
+            } else if (!sent) {
+                reportFailure(body, message, uri);
+            }
+        }
+
+        @Override
+        public void failed(final Exception e) {
+            inFlightRequests.release();
+            LOGGER.severe("Unable to send metric: " + e.toString());
+            reportFailure(body, message, uri);
+        }
+
+        @Override
+        public void cancelled() {
+            inFlightRequests.release();
+            LOGGER.warning("Unable to send metric. The request was cancelled.");
+            reportFailure(body, message, uri);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.statful.client.transport;
+
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * Interface for factories to implement non-blocking HTTP clients, along with the components of
+ * {@link HTTPByteClientFactory}.
+ */
+public interface HTTPAsyncClientFactory extends HTTPByteClientFactory {
+
+    /**
+     * Creates a new non-blocking HTTP client to communicate with Statful, which isn't started.
+     *
+     * @return A closeable non-blocking HTTP client
+     * @throws GeneralSecurityException Thrown when SSL specific configurations fail
+     */
+    CloseableHttpAsyncClient createHttpAsyncClient() throws GeneralSecurityException;
+}
@@ -0,0 +1,23 @@
+package com.statful.client.transport;
+
+import org.apache.http.client.methods.HttpPut;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Interface for factories to create requests with bodies already encoded in UTF-8 bytes, along with the components of
+ * {@link HTTPClientFactory}.
+ */
+public interface HTTPByteClientFactory extends HTTPClientFactory {
+
+    /**
+     * Creates a new {@link HttpPut} object to be used to send PUT requests to the specified URI.
+     * <p>
+     * The body may be read when the request is sent rather than when it is created, so it must not change until then.
+     *
+     * @param uri The URI as a string
+     * @param body The message body in UTF-8 to send to Staful, from the position to the limit of the buffer
+     * @return A newly created {@link HttpPut} object
+     */
+    HttpPut createHttpPut(String uri, ByteBuffer body);
+}
@@ -1,21 +1,33 @@
 package com.statful.client.transport;
 
 import com.statful.client.core.transport.ApiUriFactory;
-import com.statful.client.core.transport.TransportSender;
+import com.statful.client.core.transport.ByteTransportSender;
+import com.statful.client.core.transport.ReportingTransportSender;
+import com.statful.client.core.transport.SendListener;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPut;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.logging.Logger;
 
 /**
- * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
+ * This class is an implementation of {@link com.statful.client.core.transport.ByteTransportSender} to send metrics
  * using HTTP or HTTPS.
+ * <p>
+ * Messages encoded in UTF-8 bytes are sent from those bytes when the client factory is a
+ * {@link HTTPByteClientFactory}, and are decoded into strings for other factories.
+ * <p>
+ * The outcome of every message is reported to the {@link SendListener}, if any: a message is sent once the API
+ * responds with a success status.
  */
-public class HTTPSender implements TransportSender {
+public class HTTPSender implements ByteTransportSender, ReportingTransportSender {
 
     private static final Logger LOGGER = Logger.getLogger(HTTPSender.class.getName());
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
     private static final Integer HTTP_CREATED = 201;
     private static final Integer HTTP_OK = 200;
 
@@ -23,6 +35,7 @@ public class HTTPSender implements TransportSender {
     private final HTTPClientFactory clientFactory;
 
     private CloseableHttpClient httpClient;
+    private volatile SendListener sendListener;
 
     /**
      * Default constructor.
@@ -54,22 +67,66 @@ public class HTTPSender implements TransportSender {
         doHttpRequest(uri, message);
     }
 
+    @Override
+    public final void send(final ByteBuffer message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final ByteBuffer message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void setSendListener(final SendListener listener) {
+        this.sendListener = listener;
+    }
+
     private void doHttpRequest(final String uri, final String message) {
+        if (httpClient == null) {
+            LOGGER.warning("Unable to send metric. No http client was instantiated.");
+            reportOutcome(false, message, uri);
+            return;
+        }
+
+        boolean sent = false;
+        try {
+            sent = execute(clientFactory.createHttpPut(uri, message));
+        } catch (IOException e) {
+            LOGGER.severe("Unable to send metric: " + e.toString());
+        }
+        reportOutcome(sent, message, uri);
+    }
+
+    private void doHttpRequest(final String uri, final ByteBuffer message) {
+        if (!(clientFactory instanceof HTTPByteClientFactory)) {
+            doHttpRequest(uri, UTF_8.decode(message.duplicate()).toString());
+            return;
+        }
+        if (httpClient == null) {
+            LOGGER.warning("Unable to send metric. No http client was instantiated.");
+            reportOutcome(false, message, uri);
+            return;
+        }
+
+        boolean sent = execute(((HTTPByteClientFactory) clientFactory).createHttpPut(uri, message));
+        reportOutcome(sent, message, uri);
+    }
+
+    private boolean execute(final HttpPut request) {
         CloseableHttpResponse response = null;
 
         try {
-            if (httpClient != null) {
-                response = httpClient.execute(clientFactory.createHttpPut(uri, message));
-                StatusLine statusLine = response.getStatusLine();
+            response = httpClient.execute(request);
+            StatusLine statusLine = response.getStatusLine();
 
-                if (!metricCreated(statusLine)) {
-                    LOGGER.warning("Unable to send metric. Reason: "
-                            + statusLine.getReasonPhrase() + ", status: "
-                            + statusLine.getStatusCode());
-                }
-            } else {
-                LOGGER.warning("Unable to send metric. No http client was instantiated.");
+            if (!metricCreated(statusLine)) {
+                LOGGER.warning("Unable to send metric. Reason: "
+                        + statusLine.getReasonPhrase() + ", status: "
+                        + statusLine.getStatusCode());
+                return false;
             }
+            return true;
         } catch (IOException e) {
             LOGGER.severe("Unable to send metric: " + e.toString());
         } finally {
@@ -81,6 +138,26 @@ public class HTTPSender implements TransportSender {
                 LOGGER.warning("Unable to close response resource: " + e.toString());
             }
         }
+        return false;
+    }
+
+    private void reportOutcome(final boolean sent, final String message, final String uri) {
+        if (sendListener != null) {
+            reportOutcome(sent, sent ? null : ByteBuffer.wrap(message.getBytes(UTF_8)), uri);
+        }
+    }
+
+    private void reportOutcome(final boolean sent, final ByteBuffer message, final String uri) {
+        SendListener listener = sendListener;
+        if (listener == null) {
+            return;
+        }
+
+        if (sent) {
+            listener.onSent();
+        } else {
+            listener.onFailed(message.duplicate(), uri);
+        }
     }
 
     @Override
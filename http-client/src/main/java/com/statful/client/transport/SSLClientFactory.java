@@ -1,27 +1,48 @@
 package com.statful.client.transport;
 
+import com.statful.client.core.transport.GzipCompressor;
 import com.statful.client.domain.api.ClientConfiguration;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.ssl.SSLContexts;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 
 /**
  * A factory for HTTP clients to communicate with Statful using SSL (it also supports non-secure communications).
+ * <p>
+ * Request bodies of at least the compression threshold can be compressed with gzip, which happens when the request
+ * is created, on the thread that sends it. Bodies already encoded in UTF-8 bytes are sent from those bytes, unless
+ * they are compressed.
+ * <p>
+ * The non-blocking clients share the connection pool size of the blocking ones, and use the TLS protocols the JDK
+ * enables by default.
  */
-public class SSLClientFactory implements HTTPClientFactory {
+public class SSLClientFactory implements HTTPAsyncClientFactory {
+
+    private static final String GZIP_ENCODING = "gzip";
+    private static final ContentType TEXT_PLAIN_UTF_8 = ContentType.create("text/plain", Charset.forName("UTF-8"));
 
     private final String token;
     private final int connectionPoolSize;
     private final int connectTimeoutMs;
     private final int socketTimeoutMs;
+    private final boolean compression;
+    private final int compressionThreshold;
 
     /**
      * Default constructor.
@@ -32,10 +53,27 @@ public class SSLClientFactory implements HTTPClientFactory {
      * @param token The Statful authentication token
      */
     public SSLClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token) {
+        this(connectionPoolSize, connectTimeoutMs, socketTimeoutMs, token, false, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPoolSize The connection pool size
+     * @param connectTimeoutMs The connect timeout in milliseconds
+     * @param socketTimeoutMs The socket timeout in milliseconds
+     * @param token The Statful authentication token
+     * @param compression Flag to compress the request bodies with gzip
+     * @param compressionThreshold The size in bytes from which request bodies are compressed
+     */
+    public SSLClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token,
+                            final boolean compression, final int compressionThreshold) {
         this.connectionPoolSize = connectionPoolSize;
         this.connectTimeoutMs = connectTimeoutMs;
         this.socketTimeoutMs = socketTimeoutMs;
         this.token = token;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
     }
 
     @Override
@@ -46,6 +84,15 @@ public class SSLClientFactory implements HTTPClientFactory {
                 .build();
     }
 
+    @Override
+    public final CloseableHttpAsyncClient createHttpAsyncClient() throws GeneralSecurityException {
+        return HttpAsyncClients.custom()
+                .setMaxConnTotal(connectionPoolSize)
+                .setMaxConnPerRoute(connectionPoolSize)
+                .setSSLStrategy(createSslStrategy())
+                .build();
+    }
+
     private static PoolingHttpClientConnectionManager createConnectionManager(final int connectionPoolSize) {
         PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
         connectionManager.setMaxTotal(connectionPoolSize);
@@ -65,11 +112,29 @@ public class SSLClientFactory implements HTTPClientFactory {
                 SSLConnectionSocketFactory.getDefaultHostnameVerifier());
     }
 
+    private static SSLIOSessionStrategy createSslStrategy() throws GeneralSecurityException {
+        // The protocols enabled by default in the JDK, as SSL engines refuse protocol names they don't know
+        return new SSLIOSessionStrategy(
+                SSLContexts.createSystemDefault(),
+                null,
+                null,
+                SSLIOSessionStrategy.getDefaultHostnameVerifier());
+    }
+
     @Override
     public final HttpPut createHttpPut(final String uri, final String body) throws UnsupportedEncodingException {
+        return createHttpPut(uri, createEntity(body));
+    }
+
+    @Override
+    public final HttpPut createHttpPut(final String uri, final ByteBuffer body) {
+        return createHttpPut(uri, createEntity(body));
+    }
+
+    private HttpPut createHttpPut(final String uri, final HttpEntity entity) {
         HttpPut httpPut = new HttpPut(uri);
         httpPut.addHeader(ClientConfiguration.TOKEN_HEADER, token);
-        httpPut.setEntity(new StringEntity(body));
+        httpPut.setEntity(entity);
         httpPut.setConfig(RequestConfig.copy(RequestConfig.DEFAULT)
                 .setConnectTimeout(connectTimeoutMs)
                 .setConnectionRequestTimeout(connectTimeoutMs)
@@ -78,4 +143,38 @@ public class SSLClientFactory implements HTTPClientFactory {
 
         return httpPut;
     }
+
+    private HttpEntity createEntity(final String body) throws UnsupportedEncodingException {
+        // Bodies are encoded with the default text charset, which takes a byte per character, as a StringEntity does
+        if (!compression || body.length() < compressionThreshold) {
+            return new StringEntity(body);
+        }
+
+        byte[] bytes = body.getBytes(ContentType.DEFAULT_TEXT.getCharset());
+        ByteArrayEntity entity = new ByteArrayEntity(GzipCompressor.compress(bytes), ContentType.DEFAULT_TEXT);
+        entity.setContentEncoding(GZIP_ENCODING);
+        return entity;
+    }
+
+    private HttpEntity createEntity(final ByteBuffer body) {
+        byte[] bytes;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            bytes = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            bytes = new byte[length];
+            body.duplicate().get(bytes);
+            offset = 0;
+        }
+
+        if (!compression || length < compressionThreshold) {
+            return new ByteArrayEntity(bytes, offset, length, TEXT_PLAIN_UTF_8);
+        }
+
+        ByteArrayEntity entity = new ByteArrayEntity(GzipCompressor.compress(bytes, offset, length), TEXT_PLAIN_UTF_8);
+        entity.setContentEncoding(GZIP_ENCODING);
+        return entity;
+    }
 }
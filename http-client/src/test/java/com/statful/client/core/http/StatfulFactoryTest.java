@@ -48,6 +48,39 @@ public class StatfulFactoryTest extends HttpTest {
         );
     }
 
+    @Test
+    public void shouldCreateAsyncHTTPClient() throws Exception {
+        // Given
+        mockClientAndServer.when(
+                request()
+                        .withMethod("PUT").withPath("/tel/v1/metrics"),
+                exactly(1))
+                .respond(
+                        response().withStatusCode(201));
+
+        // When
+        StatfulClient client = StatfulFactory.buildHTTPClient().with()
+                .host("127.0.0.1")
+                .secure(false)
+                .port(mockServerPort)
+                .token("a")
+                .flushSize(1)
+                .httpAsync(true)
+                .build();
+
+        client.counter("test_counter").send();
+
+        // TODO - find a way to remove this sleep since the client is async
+        Thread.sleep(500);
+
+        // Then
+        mockClientAndServer.verify(
+                request()
+                        .withBody(regex("application.counter.test_counter 1 .+ count,sum,10 100")),
+                once()
+        );
+    }
+
     @Test
     public void shouldCreateHTTPClientWithoutOptionalConfigurations() {
         StatfulClient client = StatfulFactory.buildHTTPClient().build();
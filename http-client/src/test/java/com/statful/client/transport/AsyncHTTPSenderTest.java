@@ -0,0 +1,330 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.SendListener;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import com.statful.client.test.HttpTest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockserver.model.Delay;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.mockserver.matchers.Times.exactly;
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+import static org.mockserver.verify.VerificationTimes.once;
+
+public class AsyncHTTPSenderTest extends HttpTest {
+
+    private static final String METRIC = "telemetron.application.timer.execution,app=uwt,delegate=InterceptorDelegate,unit=ms,environment=production,method=preHandle,status=success 26 1465394947 avg,p90,count,10";
+    private static final String PATH = "/tel/v2.0/metrics";
+    private static final String KEY_STORE = "/localhost.jks";
+    private static final String KEY_STORE_PASSWORD = "statful";
+
+    private AsyncHTTPSender subject;
+
+    @After
+    public void shutdownSubject() {
+        if (subject != null) {
+            subject.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldSendThroughHttp() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 201, 0);
+        subject = newSender(10);
+
+        // When
+        subject.send(METRIC);
+        awaitResponses();
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+    }
+
+    @Test
+    public void shouldSendThroughHttps() throws Exception {
+        // Given
+        List<String> received = new CopyOnWriteArrayList<String>();
+        HttpsServer server = startHttpsServer(received);
+
+        try {
+            subject = newSecureSender(server.getAddress().getPort());
+
+            // When
+            subject.send(METRIC);
+            awaitResponses();
+        } finally {
+            server.stop(0);
+        }
+
+        // Then
+        assertEquals(asList(METRIC), received);
+    }
+
+    @Test
+    public void shouldSendThroughHttpWithUri() throws Exception {
+        // Given
+        String uri = ApiUriFactory.buildAggregatedUri(false, "127.0.0.1", mockServerPort, PATH)
+                .replace("{aggregation}", Aggregation.AVG.getName())
+                .replace("{frequency}", Integer.toString(AggregationFrequency.FREQ_10.getValue()));
+
+        mockMetricsPut(uri, 201, 0);
+        subject = newSender(10);
+
+        // When
+        subject.send(METRIC, uri);
+        awaitResponses();
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+    }
+
+    @Test
+    public void shouldSendUtf8BytesAfterTheirBufferIsReused() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 201, 0);
+        subject = newSender(10);
+        ByteBuffer message = ByteBuffer.wrap(METRIC.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        subject.send(message);
+        message.put(0, (byte) 'x');
+        awaitResponses();
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+    }
+
+    @Test
+    public void shouldFreeRequestWhenMetricIsNotCreated() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 402, 0);
+        subject = newSender(1);
+
+        // When
+        subject.send(METRIC);
+        awaitResponses();
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+        assertEquals("Should free the request in flight", 0, subject.getInFlightRequests());
+    }
+
+    @Test
+    public void shouldNotBlockWhileWaitingForResponses() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 201, 500);
+        subject = newSender(10);
+
+        // When
+        long start = System.nanoTime();
+        subject.send(METRIC);
+        subject.send(METRIC);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals("Should have both requests in flight", 2, subject.getInFlightRequests());
+        assertTrue("Should not wait for the responses", elapsedMillis < 500);
+    }
+
+    @Test
+    public void shouldDiscardMessagesOverTheRequestsInFlightLimit() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 201, 500);
+        subject = newSender(1);
+
+        // When
+        subject.send(METRIC);
+        subject.send(METRIC + "0");
+        awaitResponses();
+
+        // Then
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+        mockClientAndServer.verify(request().withBody(METRIC + "0"), VerificationTimes.exactly(0));
+    }
+
+    @Test
+    public void shouldReportMessagesNotCreatedAndOverTheRequestsInFlightLimit() throws Exception {
+        // Given
+        mockMetricsPut(PATH, 402, 300);
+        SendListener listener = mock(SendListener.class);
+        subject = newSender(1);
+        subject.setSendListener(listener);
+
+        // When
+        subject.send(METRIC);
+        subject.send(METRIC + "0");
+        awaitResponses();
+
+        // Then
+        ArgumentCaptor<ByteBuffer> messages = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(listener, timeout(5000).times(2)).onFailed(messages.capture(), eq(ApiUriFactory.buildUri(false, "127.0.0.1", mockServerPort, PATH)));
+        verify(listener, never()).onSent();
+        List<ByteBuffer> failed = messages.getAllValues();
+        assertEquals(METRIC + "0", StandardCharsets.UTF_8.decode(failed.get(0)).toString());
+        assertEquals(METRIC, StandardCharsets.UTF_8.decode(failed.get(1)).toString());
+    }
+
+    @Test
+    public void shouldWaitForRequestsInFlightWhenShuttingDown() {
+        // Given
+        mockMetricsPut(PATH, 201, 300);
+        subject = newSender(10);
+        subject.send(METRIC);
+
+        // When
+        subject.shutdown();
+
+        // Then
+        assertEquals("Should have no requests in flight", 0, subject.getInFlightRequests());
+        mockClientAndServer.verify(request().withBody(METRIC), once());
+    }
+
+    @Test
+    public void shouldNotThrowWhenHttpClientIsNull() throws Exception {
+        // Given
+        HTTPAsyncClientFactory httpClientFactory = mock(HTTPAsyncClientFactory.class);
+        when(httpClientFactory.createHttpAsyncClient()).thenThrow(new GeneralSecurityException());
+
+        subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, PATH, httpClientFactory, 10, 1000);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertEquals("Should have no requests in flight", 0, subject.getInFlightRequests());
+    }
+
+    @Test
+    public void shouldStartAndShutDownClientSuccessfully() throws Exception {
+        // Given
+        CloseableHttpAsyncClient httpClient = mock(CloseableHttpAsyncClient.class);
+
+        HTTPAsyncClientFactory httpClientFactory = mock(HTTPAsyncClientFactory.class);
+        when(httpClientFactory.createHttpAsyncClient()).thenReturn(httpClient);
+
+        subject = new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, PATH, httpClientFactory, 10, 1000);
+
+        // When
+        subject.shutdown();
+
+        // Then
+        verify(httpClient).start();
+        verify(httpClient).close();
+    }
+
+    private AsyncHTTPSender newSender(final int maxInFlightRequests) {
+        return new AsyncHTTPSender(false, "127.0.0.1", mockServerPort, PATH,
+                new SSLClientFactory(10, 1000, 5000, "any-token"), maxInFlightRequests, 5000);
+    }
+
+    /**
+     * Creates a sender over HTTPS to localhost, trusting the self-signed certificate of the test key store while the
+     * sender creates its client, as the client uses the default SSL context of the system.
+     */
+    private AsyncHTTPSender newSecureSender(final int port) throws Exception {
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(loadKeyStore());
+        SSLContext trustingContext = SSLContext.getInstance("TLS");
+        trustingContext.init(null, trustManagerFactory.getTrustManagers(), null);
+
+        SSLContext defaultContext = SSLContext.getDefault();
+        SSLContext.setDefault(trustingContext);
+        try {
+            return new AsyncHTTPSender(true, "localhost", port, PATH,
+                    new SSLClientFactory(10, 1000, 5000, "any-token"), 10, 5000);
+        } finally {
+            SSLContext.setDefault(defaultContext);
+        }
+    }
+
+    /**
+     * Starts an HTTPS server on localhost with the certificate of the test key store, which answers every request with
+     * a 201 and keeps its body.
+     */
+    private HttpsServer startHttpsServer(final List<String> received) throws Exception {
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(loadKeyStore(), KEY_STORE_PASSWORD.toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.createContext(PATH, new HttpHandler() {
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                received.add(new String(readFully(exchange.getRequestBody()), StandardCharsets.UTF_8));
+                exchange.sendResponseHeaders(201, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private KeyStore loadKeyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        InputStream input = getClass().getResourceAsStream(KEY_STORE);
+        try {
+            keyStore.load(input, KEY_STORE_PASSWORD.toCharArray());
+        } finally {
+            input.close();
+        }
+        return keyStore;
+    }
+
+    private static byte[] readFully(final InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        for (int read = input.read(chunk); read != -1; read = input.read(chunk)) {
+            output.write(chunk, 0, read);
+        }
+        return output.toByteArray();
+    }
+
+    private void awaitResponses() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (subject.getInFlightRequests() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void mockMetricsPut(final String path, final int statusCode, final long delayMillis) {
+        mockClientAndServer.when(
+                request()
+                        .withMethod("PUT")
+                        .withPath(path),
+                exactly(2))
+                .respond(response().withStatusCode(statusCode).withDelay(new Delay(TimeUnit.MILLISECONDS, delayMillis)));
+    }
+}
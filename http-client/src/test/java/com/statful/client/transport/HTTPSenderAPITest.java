@@ -1,6 +1,7 @@
 package com.statful.client.transport;
 
 import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.SendListener;
 import com.statful.client.domain.api.Aggregation;
 import com.statful.client.domain.api.AggregationFrequency;
 import com.statful.client.test.HttpTest;
@@ -9,11 +10,15 @@ import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockserver.verify.VerificationTimes;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 import static org.mockserver.matchers.Times.exactly;
@@ -43,6 +48,23 @@ public class HTTPSenderAPITest extends HttpTest {
                 once());
     }
 
+    @Test
+    public void shouldSendCompressedBodyThroughHttp() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, "/tel/v2.0/metrics",
+                new SSLClientFactory(10, 1000, 5000, "any-token", true, 0));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        mockClientAndServer.verify(
+                request()
+                        .withBody(METRIC),
+                once());
+    }
+
     @Test
     public void shouldSendThroughHttpWithUri() {
         // Given
@@ -96,6 +118,40 @@ public class HTTPSenderAPITest extends HttpTest {
         mockClientAndServer.verify(request().withBody(METRIC), once());
     }
 
+    @Test
+    public void shouldReportSentMessages() {
+        // Given
+        mockMetricsPutWithStatusCode(201);
+        SendListener listener = mock(SendListener.class);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, "/tel/v2.0/metrics", new SSLClientFactory(10, 1000, 5000, "any-token"));
+        subject.setSendListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        verify(listener).onSent();
+        verify(listener, never()).onFailed(any(ByteBuffer.class), anyString());
+    }
+
+    @Test
+    public void shouldReportMessagesNotCreated() {
+        // Given
+        mockMetricsPutWithStatusCode(402);
+        SendListener listener = mock(SendListener.class);
+        subject = new HTTPSender(false, "127.0.0.1", mockServerPort, "/tel/v2.0/metrics", new SSLClientFactory(10, 1000, 5000, "any-token"));
+        subject.setSendListener(listener);
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        ArgumentCaptor<ByteBuffer> message = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(listener).onFailed(message.capture(), eq(ApiUriFactory.buildUri(false, "127.0.0.1", mockServerPort, "/tel/v2.0/metrics")));
+        verify(listener, never()).onSent();
+        assertEquals(METRIC, StandardCharsets.UTF_8.decode(message.getValue()).toString());
+    }
+
     @Test
     public void shouldNotThrowWhenHttpClientIsNull() throws Exception {
         // Given
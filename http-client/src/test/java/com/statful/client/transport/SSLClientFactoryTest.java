@@ -0,0 +1,127 @@
+package com.statful.client.transport;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SSLClientFactoryTest {
+
+    private static final String METRIC = "application.timer.response_time,unit=ms,statful_client=java 123 1500000000 avg,p90,10 100";
+
+    @Test
+    public void shouldCompressBodyWithGzip() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token", true, 0);
+        String body = repeat(METRIC, 100);
+
+        // When
+        HttpEntity entity = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", body).getEntity();
+
+        // Then
+        assertEquals("gzip", entity.getContentEncoding().getValue());
+        assertTrue("Should compress the body", entity.getContentLength() < body.length() / 10);
+        assertEquals(body, gunzip(entity.getContent()));
+    }
+
+    @Test
+    public void shouldReuseCompressorForEveryBody() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token", true, 0);
+
+        // When
+        HttpPut first = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", repeat(METRIC, 5000));
+        HttpPut second = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", METRIC);
+
+        // Then
+        assertEquals(repeat(METRIC, 5000), gunzip(first.getEntity().getContent()));
+        assertEquals(METRIC, gunzip(second.getEntity().getContent()));
+    }
+
+    @Test
+    public void shouldNotCompressBodyBelowThreshold() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token", true, 1024);
+
+        // When
+        HttpEntity entity = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", METRIC).getEntity();
+
+        // Then
+        assertNull(entity.getContentEncoding());
+        assertEquals(METRIC, EntityUtils.toString(entity));
+    }
+
+    @Test
+    public void shouldNotCompressBodyWhenCompressionIsDisabled() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token");
+        String body = repeat(METRIC, 100);
+
+        // When
+        HttpEntity entity = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", body).getEntity();
+
+        // Then
+        assertNull(entity.getContentEncoding());
+        assertEquals(body, EntityUtils.toString(entity));
+    }
+
+    @Test
+    public void shouldCreateBodyFromUtf8Bytes() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token");
+        byte[] bytes = ("ignored\n" + METRIC + ",olá=mundo").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer body = ByteBuffer.wrap(bytes, 8, bytes.length - 8);
+
+        // When
+        HttpEntity entity = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics", body).getEntity();
+
+        // Then
+        assertNull(entity.getContentEncoding());
+        assertEquals("text/plain; charset=UTF-8", entity.getContentType().getValue());
+        assertEquals(METRIC + ",olá=mundo", EntityUtils.toString(entity));
+        assertEquals("Should not consume the body", bytes.length - 8, body.remaining());
+    }
+
+    @Test
+    public void shouldCompressBodyFromUtf8Bytes() throws Exception {
+        // Given
+        SSLClientFactory subject = new SSLClientFactory(10, 1000, 5000, "any-token", true, 0);
+        String body = repeat(METRIC, 100);
+
+        // When
+        HttpEntity entity = subject.createHttpPut("http://127.0.0.1/tel/v2.0/metrics",
+                ByteBuffer.wrap(body.getBytes(StandardCharsets.UTF_8))).getEntity();
+
+        // Then
+        assertEquals("gzip", entity.getContentEncoding().getValue());
+        assertEquals(body, gunzip(entity.getContent()));
+    }
+
+    private static String repeat(final String line, final int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString().trim();
+    }
+
+    private static String gunzip(final InputStream compressed) throws Exception {
+        GZIPInputStream in = new GZIPInputStream(compressed);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int read = in.read(buffer); read > 0; read = in.read(buffer)) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("ISO-8859-1");
+    }
+}
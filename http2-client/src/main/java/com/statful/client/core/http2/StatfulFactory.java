@@ -0,0 +1,53 @@
+package com.statful.client.core.http2;
+
+import com.statful.client.core.CustomStatfulFactory;
+import com.statful.client.core.api.StatfulClientBuilder;
+import com.statful.client.core.transport.TransportSender;
+import com.statful.client.domain.api.ClientConfiguration;
+import com.statful.client.transport.HTTP2ClientFactory;
+import com.statful.client.transport.HTTP2Sender;
+
+import static com.statful.client.domain.api.Transport.HTTP;
+
+/**
+ * A factory for instantiating Statful HTTP/2 clients.
+ */
+public final class StatfulFactory {
+
+    private static final HTTP2StatfulFactory HTTP2_CLIENT_FACTORY = new HTTP2StatfulFactory();
+
+    private StatfulFactory() { }
+
+    /**
+     * Instantiates a new {@link StatfulClientBuilder} to use HTTP/2 protocol.
+     *
+     * @return A Statful client builder, ready for configure or bootstrap
+     */
+    public static StatfulClientBuilder buildHTTP2Client() {
+        return HTTP2_CLIENT_FACTORY.buildClient();
+    }
+
+    /**
+     * Private HTTP/2 client factory.
+     */
+    private static class HTTP2StatfulFactory extends CustomStatfulFactory {
+
+        protected HTTP2StatfulFactory() {
+            super(HTTP);
+        }
+
+        @Override
+        protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
+            HTTP2ClientFactory clientFactory = new HTTP2ClientFactory(
+                    configuration.getConnectionPoolSize(),
+                    configuration.getConnectTimeoutMillis(),
+                    configuration.getSocketTimeoutMillis(),
+                    configuration.getToken(),
+                    configuration.isHttpCompression(),
+                    configuration.getHttpCompressionThreshold()
+            );
+            return new HTTP2Sender(configuration.isSecure(), configuration.getHost(), configuration.getPort(),
+                    configuration.getPath(), clientFactory);
+        }
+    }
+}
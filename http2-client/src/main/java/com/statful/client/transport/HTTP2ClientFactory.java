@@ -0,0 +1,197 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.GzipCompressor;
+import com.statful.client.domain.api.ClientConfiguration;
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import javax.net.SocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A factory for HTTP/2 clients to communicate with Statful.
+ * <p>
+ * Secure clients negotiate HTTP/2 when the TLS connection is established, and fall back to HTTP/1.1 if the server
+ * doesn't support it. Non-secure clients speak HTTP/2 from the start, as there's nothing to negotiate it with, so the
+ * server must support HTTP/2 without TLS.
+ * <p>
+ * Request bodies of at least the compression threshold can be compressed with gzip, which happens when the request
+ * is created, on the thread that sends it, by the same {@link GzipCompressor} as the HTTP/1.1 clients. Bodies already
+ * encoded in UTF-8 bytes are sent from those bytes, unless they are compressed, so they must not change until the
+ * request is sent.
+ */
+public class HTTP2ClientFactory {
+
+    private static final MediaType TEXT_PLAIN = MediaType.parse("text/plain; charset=ISO-8859-1");
+    private static final MediaType TEXT_PLAIN_UTF_8 = MediaType.parse("text/plain; charset=UTF-8");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP_ENCODING = "gzip";
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private final String token;
+    private final int connectionPoolSize;
+    private final int connectTimeoutMs;
+    private final int socketTimeoutMs;
+    private final boolean compression;
+    private final int compressionThreshold;
+
+    /**
+     * Default constructor.
+     *
+     * @param connectionPoolSize The connection pool size, which is only used when HTTP/1.1 is negotiated
+     * @param connectTimeoutMs The connect timeout in milliseconds
+     * @param socketTimeoutMs The socket timeout in milliseconds
+     * @param token The Statful authentication token
+     */
+    public HTTP2ClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token) {
+        this(connectionPoolSize, connectTimeoutMs, socketTimeoutMs, token, false, 0);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectionPoolSize The connection pool size, which is only used when HTTP/1.1 is negotiated
+     * @param connectTimeoutMs The connect timeout in milliseconds
+     * @param socketTimeoutMs The socket timeout in milliseconds
+     * @param token The Statful authentication token
+     * @param compression Flag to compress the request bodies with gzip
+     * @param compressionThreshold The size in bytes from which request bodies are compressed
+     */
+    public HTTP2ClientFactory(final int connectionPoolSize, final int connectTimeoutMs, final int socketTimeoutMs, final String token,
+                              final boolean compression, final int compressionThreshold) {
+        this.connectionPoolSize = connectionPoolSize;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.socketTimeoutMs = socketTimeoutMs;
+        this.token = token;
+        this.compression = compression;
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    /**
+     * Creates a new HTTP/2 client to communicate with Statful.
+     *
+     * @param secure Flag to create a client for HTTPS, which negotiates the protocol, or for HTTP, which doesn't
+     * @return An HTTP/2 client
+     */
+    public final OkHttpClient createHttpClient(final boolean secure) {
+        return new OkHttpClient.Builder()
+                .protocols(secure
+                        ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                        : Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE))
+                .connectionPool(new ConnectionPool(Math.max(1, connectionPoolSize), KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .socketFactory(new NoDelaySocketFactory())
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS)
+                .writeTimeout(socketTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Creates a new PUT {@link Request} to the specified URI.
+     *
+     * @param uri The URI as a string
+     * @param body The message body as a string to send to Staful
+     * @return A newly created {@link Request}
+     */
+    public final Request createHttpPut(final String uri, final String body) {
+        Request.Builder request = new Request.Builder()
+                .url(uri)
+                .header(ClientConfiguration.TOKEN_HEADER, token);
+
+        byte[] bytes = body.getBytes(ISO_8859_1);
+        if (!compression || body.length() < compressionThreshold) {
+            return request.put(RequestBody.create(TEXT_PLAIN, bytes)).build();
+        }
+
+        return request
+                .header(CONTENT_ENCODING_HEADER, GZIP_ENCODING)
+                .put(RequestBody.create(TEXT_PLAIN, GzipCompressor.compress(bytes)))
+                .build();
+    }
+
+    /**
+     * Creates a new PUT {@link Request} to the specified URI.
+     *
+     * @param uri The URI as a string
+     * @param body The message body in UTF-8 to send to Staful, from the position to the limit of the buffer
+     * @return A newly created {@link Request}
+     */
+    public final Request createHttpPut(final String uri, final ByteBuffer body) {
+        Request.Builder request = new Request.Builder()
+                .url(uri)
+                .header(ClientConfiguration.TOKEN_HEADER, token);
+
+        byte[] bytes;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            bytes = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            bytes = new byte[length];
+            body.duplicate().get(bytes);
+            offset = 0;
+        }
+
+        if (!compression || length < compressionThreshold) {
+            return request.put(RequestBody.create(TEXT_PLAIN_UTF_8, bytes, offset, length)).build();
+        }
+
+        return request
+                .header(CONTENT_ENCODING_HEADER, GZIP_ENCODING)
+                .put(RequestBody.create(TEXT_PLAIN_UTF_8, GzipCompressor.compress(bytes, offset, length)))
+                .build();
+    }
+
+    /**
+     * Creates sockets with Nagle's algorithm disabled, as the blocking clients do, so that the small frames of a
+     * request aren't held back waiting for the acknowledgement of the previous ones.
+     */
+    private static final class NoDelaySocketFactory extends SocketFactory {
+
+        private final SocketFactory socketFactory = SocketFactory.getDefault();
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return noDelay(socketFactory.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) throws IOException {
+            return noDelay(socketFactory.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) throws IOException {
+            return noDelay(socketFactory.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            return noDelay(socketFactory.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort)
+                throws IOException {
+            return noDelay(socketFactory.createSocket(address, port, localAddress, localPort));
+        }
+
+        private static Socket noDelay(final Socket socket) throws IOException {
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+    }
+}
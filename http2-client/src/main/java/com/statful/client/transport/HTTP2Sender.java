@@ -0,0 +1,156 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.core.transport.ByteTransportSender;
+import com.statful.client.core.transport.ReportingTransportSender;
+import com.statful.client.core.transport.SendListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.logging.Logger;
+
+/**
+ * This class is an implementation of {@link com.statful.client.core.transport.ByteTransportSender} to send metrics
+ * using HTTP/2.
+ * <p>
+ * The requests of every sending thread, to the standard and to every aggregated endpoint, are multiplexed as streams
+ * over a single connection, instead of each one taking a pooled connection of its own. While there's no connection,
+ * requests are sent one at a time, so that the threads sending at once don't each open a connection of their own
+ * only to close all but one of them.
+ * <p>
+ * Messages encoded in UTF-8 bytes are sent from those bytes, as the requests are sent before the send methods return.
+ * The outcome of every message is reported to the {@link SendListener}, if any, before they return as well.
+ */
+public class HTTP2Sender implements ByteTransportSender, ReportingTransportSender {
+
+    private static final Logger LOGGER = Logger.getLogger(HTTP2Sender.class.getName());
+    private static final int HTTP_CREATED = 201;
+    private static final int HTTP_OK = 200;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final String uri;
+    private final HTTP2ClientFactory clientFactory;
+    private final OkHttpClient httpClient;
+    private final Object connectLock = new Object();
+    private volatile SendListener sendListener;
+
+    /**
+     * Default constructor.
+     *
+     * @param secure Flag to send the message securely, weather using HTTP or HTTPS.
+     * @param host The Statful API host
+     * @param port The Staful API port
+     * @param path The Staful API path
+     * @param clientFactory The HTTP/2 client factory to use in this sender
+     */
+    public HTTP2Sender(final boolean secure, final String host, final Integer port, final String path, final HTTP2ClientFactory clientFactory) {
+        this.uri = ApiUriFactory.buildUri(secure, host, port, path);
+        this.clientFactory = clientFactory;
+        this.httpClient = clientFactory.createHttpClient(secure);
+    }
+
+    @Override
+    public final void send(final String message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final String message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final ByteBuffer message) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void send(final ByteBuffer message, final String uri) {
+        doHttpRequest(uri, message);
+    }
+
+    @Override
+    public final void setSendListener(final SendListener listener) {
+        this.sendListener = listener;
+    }
+
+    private void doHttpRequest(final String uri, final String message) {
+        boolean sent = doHttpRequest(clientFactory.createHttpPut(uri, message));
+        reportOutcome(sent, sent ? null : ByteBuffer.wrap(message.getBytes(UTF_8)), uri);
+    }
+
+    private void doHttpRequest(final String uri, final ByteBuffer message) {
+        boolean sent = doHttpRequest(clientFactory.createHttpPut(uri, message));
+        reportOutcome(sent, message, uri);
+    }
+
+    private boolean doHttpRequest(final Request request) {
+        Response response = null;
+
+        try {
+            response = execute(request);
+
+            if (!metricCreated(response)) {
+                LOGGER.warning("Unable to send metric. Reason: "
+                        + response.message() + ", status: "
+                        + response.code());
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            LOGGER.severe("Unable to send metric: " + e.toString());
+            return false;
+        } finally {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    private void reportOutcome(final boolean sent, final ByteBuffer message, final String uri) {
+        SendListener listener = sendListener;
+        if (listener == null) {
+            return;
+        }
+
+        if (sent) {
+            listener.onSent();
+        } else {
+            listener.onFailed(message.duplicate(), uri);
+        }
+    }
+
+    private Response execute(final Request request) throws IOException {
+        if (httpClient.connectionPool().connectionCount() == 0) {
+            synchronized (connectLock) {
+                if (httpClient.connectionPool().connectionCount() == 0) {
+                    return httpClient.newCall(request).execute();
+                }
+            }
+        }
+        return httpClient.newCall(request).execute();
+    }
+
+    @Override
+    public final void shutdown() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Gets the number of connections the sender has open.
+     *
+     * @return The number of open connections
+     */
+    final int getConnectionCount() {
+        return httpClient.connectionPool().connectionCount();
+    }
+
+    private static boolean metricCreated(final Response response) {
+        return HTTP_CREATED == response.code() || HTTP_OK == response.code();
+    }
+}
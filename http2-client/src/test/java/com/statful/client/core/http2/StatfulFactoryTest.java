@@ -0,0 +1,53 @@
+package com.statful.client.core.http2;
+
+import com.statful.client.domain.api.StatfulClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatfulFactoryTest {
+
+    @Test
+    public void shouldCreateHTTP2Client() throws Exception {
+        // Given
+        MockWebServer server = new MockWebServer();
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        server.start();
+
+        try {
+            // When
+            StatfulClient client = StatfulFactory.buildHTTP2Client().with()
+                    .host(server.getHostName())
+                    .secure(false)
+                    .port(server.getPort())
+                    .token("a")
+                    .flushSize(1)
+                    .build();
+
+            client.counter("test_counter").send();
+
+            // Then
+            RecordedRequest request = server.takeRequest(2, TimeUnit.SECONDS);
+            assertNotNull("Should receive the request", request);
+            assertTrue(request.getBody().readUtf8().matches("application.counter.test_counter 1 .+ count,sum,10 100"));
+        } finally {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldCreateHTTP2ClientWithoutOptionalConfigurations() {
+        StatfulClient client = StatfulFactory.buildHTTP2Client().build();
+
+        assertNotNull(client);
+    }
+}
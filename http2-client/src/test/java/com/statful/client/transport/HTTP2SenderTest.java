@@ -0,0 +1,197 @@
+package com.statful.client.transport;
+
+import com.statful.client.core.transport.ApiUriFactory;
+import com.statful.client.domain.api.Aggregation;
+import com.statful.client.domain.api.AggregationFrequency;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class HTTP2SenderTest {
+
+    private static final String METRIC = "telemetron.application.timer.execution,app=uwt,delegate=InterceptorDelegate,unit=ms,environment=production,method=preHandle,status=success 26 1465394947 avg,p90,count,10";
+    private static final String PATH = "/tel/v2.0/metrics";
+
+    private MockWebServer server;
+    private HTTP2Sender subject;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (subject != null) {
+            subject.shutdown();
+        }
+        server.shutdown();
+    }
+
+    @Test
+    public void shouldSendThroughHttp2() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(201));
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull("Should receive the request", request);
+        assertEquals("PUT", request.getMethod());
+        assertEquals(PATH, request.getPath());
+        assertEquals("any-token", request.getHeader("M-Api-Token"));
+        assertEquals(METRIC, request.getBody().readUtf8());
+    }
+
+    @Test
+    public void shouldSendUtf8BytesThroughHttp2() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(201));
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+        byte[] bytes = ("ignored\n" + METRIC + ",olá=mundo").getBytes(StandardCharsets.UTF_8);
+
+        // When
+        subject.send(ByteBuffer.wrap(bytes, 8, bytes.length - 8));
+
+        // Then
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull("Should receive the request", request);
+        assertEquals("text/plain; charset=UTF-8", request.getHeader("Content-Type"));
+        assertEquals(METRIC + ",olá=mundo", request.getBody().readUtf8());
+    }
+
+    @Test
+    public void shouldMultiplexAggregatedRequestsOverOneConnection() throws Exception {
+        // Given
+        final Set<String> uris = new HashSet<String>();
+        for (Aggregation aggregation : Aggregation.values()) {
+            for (AggregationFrequency frequency : AggregationFrequency.values()) {
+                uris.add(ApiUriFactory.buildAggregatedUri(false, server.getHostName(), server.getPort(), PATH)
+                        .replace("{aggregation}", aggregation.getName())
+                        .replace("{frequency}", Integer.toString(frequency.getValue())));
+            }
+        }
+        for (int i = 0; i < uris.size(); i++) {
+            server.enqueue(new MockResponse().setResponseCode(201));
+        }
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+
+        // When
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (final String uri : uris) {
+            executorService.execute(new Runnable() {
+                @Override
+                public void run() {
+                    subject.send(METRIC, uri);
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Then
+        Set<String> paths = new HashSet<String>();
+        int connections = 0;
+        for (int i = 0; i < uris.size(); i++) {
+            RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+            assertNotNull("Should receive every request", request);
+            paths.add(request.getPath());
+            if (request.getSequenceNumber() == 0) {
+                connections++;
+            }
+        }
+        assertEquals("Should send to every aggregated endpoint", uris.size(), paths.size());
+        assertEquals("Should send every request over a single connection", 1, connections);
+        assertEquals("Should keep a single connection open", 1, subject.getConnectionCount());
+    }
+
+    @Test
+    public void shouldSendCompressedBodyThroughHttp2() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(201));
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token", true, 0));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        RecordedRequest request = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNotNull("Should receive the request", request);
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+
+        Buffer body = new Buffer();
+        GzipSource source = new GzipSource(request.getBody());
+        while (source.read(body, Long.MAX_VALUE) != -1) {
+            continue;
+        }
+        assertEquals(METRIC, body.readUtf8());
+    }
+
+    @Test
+    public void shouldNotThrowWhenMetricIsNotCreated() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(402));
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertNotNull("Should receive the request", server.takeRequest(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldNotThrowWhenServerIsUnreachable() throws Exception {
+        // Given
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+        server.shutdown();
+
+        // When
+        subject.send(METRIC);
+
+        // Then
+        assertEquals("Should have no connections open", 0, subject.getConnectionCount());
+    }
+
+    @Test
+    public void shouldCloseConnectionsWhenShuttingDown() throws Exception {
+        // Given
+        server.enqueue(new MockResponse().setResponseCode(201));
+        subject = newSender(new HTTP2ClientFactory(10, 1000, 5000, "any-token"));
+        subject.send(METRIC);
+
+        // When
+        subject.shutdown();
+
+        // Then
+        assertEquals("Should have no connections open", 0, subject.getConnectionCount());
+    }
+
+    private HTTP2Sender newSender(final HTTP2ClientFactory clientFactory) {
+        return new HTTP2Sender(false, server.getHostName(), server.getPort(), PATH, clientFactory);
+    }
+}
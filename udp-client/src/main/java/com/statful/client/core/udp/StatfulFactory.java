@@ -35,7 +35,8 @@ public final class StatfulFactory {
 
         @Override
         protected TransportSender buildTransportSender(final ClientConfiguration configuration) {
-            return new UDPSender(configuration.getHost(), configuration.getPort());
+            int channels = configuration.getUdpChannels() > 0 ? configuration.getUdpChannels() : configuration.getWorkersPoolSize();
+            return new UDPSender(configuration.getHost(), configuration.getPort(), configuration.getUdpPayloadSize(), channels);
         }
     }
 }
@@ -1,25 +1,62 @@
 package com.statful.client.transport;
 
-import com.statful.client.core.transport.TransportSender;
+import com.statful.client.core.transport.ByteTransportSender;
 
 import java.io.IOException;
-import java.net.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Logger;
 
 /**
- * This class is an implementation of {@link com.statful.client.core.transport.TransportSender} to send metrics
+ * This class is an implementation of {@link com.statful.client.core.transport.ByteTransportSender} to send metrics
  * using UDP.
+ * <p>
+ * Metrics are sent through a {@link DatagramChannel}, connected once to the resolved address of the server. Each
+ * sending thread encodes the messages straight into its own direct {@link ByteBuffer} with its own
+ * {@link CharsetEncoder}, so that sending a message doesn't allocate nor look the charset up. Messages that are already
+ * encoded in UTF-8 bytes are sent from those bytes instead, without encoding them again.
+ * <p>
+ * The metric lines of a message are packed into as few datagrams as fit in the maximum payload size, so that the
+ * datagrams aren't fragmented by IP. Lines are never split: a line larger than the payload size is sent on its own,
+ * as long as it fits in a datagram.
+ * <p>
+ * Writing to a channel is serialized, so the sender can open several channels and stripe them across the sending
+ * threads: each thread always writes to the same channel, so that threads only contend when they share one.
  */
-public class UDPSender implements TransportSender {
+public class UDPSender implements ByteTransportSender {
 
     private static final Logger LOGGER = Logger.getLogger(UDPSender.class.getName());
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+    private static final int DEFAULT_PAYLOAD_SIZE = 1432;
+
+    private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+
+    private static final ThreadLocal<MessageEncoder> ENCODER = new ThreadLocal<MessageEncoder>() {
+        @Override
+        protected MessageEncoder initialValue() {
+            return new MessageEncoder();
+        }
+    };
+
     private final int port;
     private final String host;
-
-    private InetAddress address;
-    private DatagramSocket socket;
+    private final int maxPayloadSize;
+    private final AtomicReferenceArray<DatagramChannel> channels;
 
     /**
      * Default constructor.
@@ -28,13 +65,40 @@ public class UDPSender implements TransportSender {
      * @param port The port of the UDP server
      */
     public UDPSender(final String host, final int port) {
+        this(host, port, DEFAULT_PAYLOAD_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host           The hostname of the UDP server
+     * @param port           The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of the datagrams in bytes, up to 65507
+     */
+    public UDPSender(final String host, final int port, final int maxPayloadSize) {
+        this(host, port, maxPayloadSize, 1);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param host           The hostname of the UDP server
+     * @param port           The port of the UDP server
+     * @param maxPayloadSize The maximum payload size of the datagrams in bytes, up to 65507
+     * @param channelCount   The number of channels to stripe across the sending threads
+     */
+    public UDPSender(final String host, final int port, final int maxPayloadSize, final int channelCount) {
         this.port = port;
         this.host = host;
+        this.maxPayloadSize = maxPayloadSize > 0 ? Math.min(maxPayloadSize, MAX_DATAGRAM_SIZE) : DEFAULT_PAYLOAD_SIZE;
+        this.channels = new AtomicReferenceArray<DatagramChannel>(Math.max(1, channelCount));
 
         try {
-            createSocket();
+            for (int stripe = 0; stripe < channels.length(); stripe++) {
+                createChannel(stripe);
+            }
         } catch (Exception e) {
-            LOGGER.warning("Unable to open UDP socket: " + e.toString());
+            LOGGER.warning("Unable to open UDP channel: " + e.toString());
         }
     }
 
@@ -42,6 +106,10 @@ public class UDPSender implements TransportSender {
     public final void send(final String message) {
         try {
             sendMessage(message);
+        } catch (PortUnreachableException e) {
+            LOGGER.fine("UDP server is unreachable: " + e.toString());
+        } catch (CharacterCodingException e) {
+            LOGGER.warning("Unable to encode message: " + e.toString());
         } catch (IOException e) {
             LOGGER.warning("I/O exception while sending message.");
         }
@@ -50,45 +118,221 @@ public class UDPSender implements TransportSender {
     @Override
     public final void send(final String message, final String uri) { }
 
+    @Override
+    public final void send(final ByteBuffer message) {
+        try {
+            sendMessage(message);
+        } catch (PortUnreachableException e) {
+            LOGGER.fine("UDP server is unreachable: " + e.toString());
+        } catch (IOException e) {
+            LOGGER.warning("I/O exception while sending message.");
+        }
+    }
+
+    @Override
+    public final void send(final ByteBuffer message, final String uri) { }
+
     private void sendMessage(final String message) throws IOException {
+        MessageEncoder messageEncoder = ENCODER.get();
+        ByteBuffer bytes = messageEncoder.encode(message);
+        sendDatagrams(messageEncoder, bytes.array(), 0, bytes.position());
+    }
+
+    private void sendMessage(final ByteBuffer message) throws IOException {
+        MessageEncoder messageEncoder = ENCODER.get();
+        if (message.hasArray()) {
+            int offset = message.arrayOffset() + message.position();
+            sendDatagrams(messageEncoder, message.array(), offset, offset + message.remaining());
+        } else {
+            ByteBuffer bytes = messageEncoder.copy(message);
+            sendDatagrams(messageEncoder, bytes.array(), 0, bytes.position());
+        }
+    }
+
+    private void sendDatagrams(final MessageEncoder messageEncoder, final byte[] array, final int offset, final int end) throws IOException {
+        DatagramChannel currentChannel;
         try {
-            createSocketIfClosed();
-            socket.send(createPacket(message));
-        } catch (SocketException e) {
-            LOGGER.warning("Unable to open UDP socket: " + e.toString());
+            currentChannel = createChannelIfClosed(messageEncoder.stripe % channels.length());
         } catch (UnknownHostException e) {
-            LOGGER.warning("Unable to open UDP socket: " + e.toString());
+            LOGGER.warning("Unable to open UDP channel: " + e.toString());
+            return;
+        }
+
+        int start = offset;
+        while (start < end) {
+            int datagramEnd = datagramEnd(array, start, end);
+            int length = datagramEnd - start;
+            if (length > MAX_DATAGRAM_SIZE) {
+                LOGGER.warning("Unable to send metric larger than " + MAX_DATAGRAM_SIZE + " bytes.");
+            } else if (length > 0) {
+                currentChannel.write(messageEncoder.toDirectBuffer(array, start, length));
+            }
+            start = datagramEnd + 1;
         }
     }
 
+    /**
+     * Finds the end of the datagram that starts at an offset of the encoded message, which is the end of the last line
+     * that fits in the maximum payload size, or the end of the first line if even that one doesn't fit.
+     */
+    private int datagramEnd(final byte[] bytes, final int start, final int end) {
+        if (end - start <= maxPayloadSize) {
+            return end;
+        }
+
+        for (int i = start + maxPayloadSize; i > start; i--) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        for (int i = start + maxPayloadSize + 1; i < end; i++) {
+            if (bytes[i] == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
     @Override
     public final void shutdown() {
-        socket.disconnect();
-        socket.close();
+        for (int stripe = 0; stripe < channels.length(); stripe++) {
+            DatagramChannel currentChannel = channels.get(stripe);
+            if (currentChannel != null) {
+                try {
+                    currentChannel.close();
+                } catch (IOException e) {
+                    LOGGER.warning("Unable to close UDP channel: " + e.toString());
+                }
+            }
+        }
     }
 
-    private void createSocketIfClosed() throws SocketException, UnknownHostException {
-        if (socket == null || socket.isClosed()) {
-            createSocket();
+    private DatagramChannel createChannelIfClosed(final int stripe) throws IOException {
+        DatagramChannel currentChannel = channels.get(stripe);
+        if (currentChannel == null || !currentChannel.isOpen()) {
+            synchronized (this) {
+                currentChannel = channels.get(stripe);
+                if (currentChannel == null || !currentChannel.isOpen()) {
+                    currentChannel = createChannel(stripe);
+                }
+            }
         }
+        return currentChannel;
     }
 
-    private void createSocket() throws UnknownHostException, SocketException {
-        address = InetAddress.getByName(host);
-        socket = new DatagramSocket();
+    private synchronized DatagramChannel createChannel(final int stripe) throws IOException {
+        InetAddress address = InetAddress.getByName(host);
+        DatagramChannel created = DatagramChannel.open();
+        try {
+            created.connect(new InetSocketAddress(address, port));
+        } catch (IOException e) {
+            created.close();
+            throw e;
+        }
+        channels.set(stripe, created);
+        return created;
     }
 
-    private DatagramPacket createPacket(final String message) {
-        byte[] byteMessage = message.getBytes(Charset.forName("UTF-8"));
-        return new DatagramPacket(byteMessage, byteMessage.length, address, port);
+    /**
+     * Setter for the datagram channels, which are all replaced by the given one.
+     *
+     * @param channel A {@link java.nio.channels.DatagramChannel}
+     */
+    final void setChannel(final DatagramChannel channel) {
+        for (int stripe = 0; stripe < channels.length(); stripe++) {
+            channels.set(stripe, channel);
+        }
     }
 
     /**
-     * Setter for datagram socket.
+     * Gets the number of datagram channels.
      *
-     * @param socket A {@link java.net.DatagramSocket}
+     * @return The number of channels
      */
-    final void setSocket(final DatagramSocket socket) {
-        this.socket = socket;
+    final int getChannelCount() {
+        return channels.length();
+    }
+
+    /**
+     * A {@link CharsetEncoder} and the buffers it encodes from and into, which are used by a single thread, along with
+     * the stripe of the channel the thread writes to.
+     * <p>
+     * The characters are encoded between heap buffers, which the encoder handles much faster than direct ones, and
+     * each datagram is then copied in bulk into the direct buffer the channel writes from.
+     */
+    private static final class MessageEncoder {
+
+        private final int stripe = NEXT_STRIPE.getAndIncrement() & Integer.MAX_VALUE;
+        private final CharsetEncoder encoder = UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private CharBuffer chars = CharBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private ByteBuffer bytes = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+
+        /**
+         * Encodes a message into the heap buffer, growing the buffers if needed.
+         *
+         * @return The heap buffer, with the encoded message from its start to its position
+         */
+        ByteBuffer encode(final String message) throws CharacterCodingException {
+            int length = message.length();
+            if (length > chars.capacity()) {
+                chars = CharBuffer.allocate(length);
+            }
+
+            while (true) {
+                chars.clear();
+                message.getChars(0, length, chars.array(), 0);
+                chars.limit(length);
+                encoder.reset();
+                bytes.clear();
+
+                CoderResult result = encoder.encode(chars, bytes, true);
+                if (!result.isOverflow()) {
+                    result = encoder.flush(bytes);
+                }
+
+                if (result.isOverflow()) {
+                    bytes = ByteBuffer.allocate(bytes.capacity() * 2);
+                } else {
+                    if (result.isError()) {
+                        result.throwException();
+                    }
+                    return bytes;
+                }
+            }
+        }
+
+        /**
+         * Copies a message that is already encoded from a direct buffer into the heap buffer, growing it if needed.
+         *
+         * @return The heap buffer, with the encoded message from its start to its position
+         */
+        ByteBuffer copy(final ByteBuffer message) {
+            if (message.remaining() > bytes.capacity()) {
+                bytes = ByteBuffer.allocate(message.remaining());
+            }
+
+            bytes.clear();
+            bytes.put(message.duplicate());
+            return bytes;
+        }
+
+        /**
+         * Copies part of an encoded message into the direct buffer, growing it if needed.
+         *
+         * @return The direct buffer, ready to be written
+         */
+        ByteBuffer toDirectBuffer(final byte[] array, final int offset, final int length) {
+            if (length > buffer.capacity()) {
+                buffer = ByteBuffer.allocateDirect(length);
+            }
+
+            buffer.clear();
+            buffer.put(array, offset, length);
+            buffer.flip();
+            return buffer;
+        }
     }
 }
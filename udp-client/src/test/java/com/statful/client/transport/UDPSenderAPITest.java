@@ -4,17 +4,20 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
-import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
-import java.net.SocketException;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
-import static org.mockito.Mockito.*;
 
 public class UDPSenderAPITest {
 
@@ -65,16 +68,13 @@ public class UDPSenderAPITest {
     }
 
     @Test
-    public void shouldNotThrowExceptionIfSocketWasNotOpened() throws Exception {
+    public void shouldNotThrowExceptionIfServerIsUnreachable() throws Exception {
         // Given
-        DatagramSocket socket = mock(DatagramSocket.class);
-        doThrow(new SocketException()).when(socket).send(any(DatagramPacket.class));
-
-        UDPSender subject = new UDPSender("127.0.0.1", 2015);
-        subject.setSocket(socket);
+        UDPSender subject = new UDPSender("127.0.0.1", 2016);
 
         // When
         subject.send("Hello world");
+        subject.send("Hello world");
     }
 
     @Test
@@ -82,13 +82,11 @@ public class UDPSenderAPITest {
         Future<String> response = executorService.submit(new UdpEcho(2015));
 
         // Given
-        DatagramSocket socket = mock(DatagramSocket.class);
-        when(socket.isClosed()).thenReturn(true);
-
-        doThrow(new IOException()).when(socket).send(any(DatagramPacket.class));
+        DatagramChannel channel = DatagramChannel.open();
+        channel.close();
 
         UDPSender subject = new UDPSender("127.0.0.1", 2015);
-        subject.setSocket(socket);
+        subject.setChannel(channel);
 
         // When
         subject.send("Hello world");
@@ -99,14 +97,213 @@ public class UDPSenderAPITest {
 
     @Test
     public void shouldNotThrowAfterIOException() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2015));
+
+        // Given
+        UDPSender subject = new UDPSender("127.0.0.1", 2015);
+
+        // When
+        // Writing from an interrupted thread closes the channel and throws a ClosedByInterruptException
+        Thread.currentThread().interrupt();
+        try {
+            subject.send("Hello world");
+            subject.send(ByteBuffer.wrap("Hello world".getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            Thread.interrupted();
+        }
+        subject.send("Hello again");
+
+        // Then
+        assertEquals("Should send UDP message", "Hello again", response.get());
+    }
+
+    @Test
+    public void shouldSendMessageLargerThanEncodingBuffer() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2015));
+
         // Given
-        DatagramSocket socket = mock(DatagramSocket.class);
-        doThrow(new IOException()).when(socket).send(any(DatagramPacket.class));
+        StringBuilder message = new StringBuilder();
+        while (message.length() < 20000) {
+            message.append("application.timer.response_time 123 1500000000\n");
+        }
+
+        UDPSender subject = new UDPSender("127.0.0.1", 2015, 65507);
+
+        // When
+        subject.send(message.toString().trim());
 
+        // Then
+        assertEquals("Should send UDP message", message.toString().trim(), response.get());
+    }
+
+    @Test
+    public void shouldEncodeMessageAsUTF8() throws Exception {
+        Future<String> response = executorService.submit(new UdpEcho(2015));
+
+        // Given
         UDPSender subject = new UDPSender("127.0.0.1", 2015);
-        subject.setSocket(socket);
 
         // When
-        subject.send("Hello world");
+        subject.send("Olá mundo");
+
+        // Then
+        assertEquals("Should send UDP message", "Olá mundo", response.get());
+    }
+
+    @Test
+    public void shouldNotThrowExceptionWhileSendingMessageLargerThanDatagram() {
+        // Given
+        StringBuilder message = new StringBuilder();
+        while (message.length() <= 65507) {
+            message.append("application.timer.response_time 123 1500000000\n");
+        }
+
+        UDPSender subject = new UDPSender("127.0.0.1", 2015);
+
+        // When
+        subject.send(message.toString());
+    }
+
+    @Test
+    public void shouldPackLinesIntoDatagramsUpToPayloadSize() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        UDPSender subject = new UDPSender("127.0.0.1", 2017, 22);
+
+        try {
+            // When
+            subject.send("metric_a 1 100\nmetric_b 2 100\nmetric_c 3 100\nm 4 100");
+
+            // Then
+            assertEquals("metric_a 1 100", receive(server));
+            assertEquals("metric_b 2 100", receive(server));
+            assertEquals("metric_c 3 100\nm 4 100", receive(server));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldSendLineLargerThanPayloadSizeOnItsOwn() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        UDPSender subject = new UDPSender("127.0.0.1", 2017, 20);
+
+        try {
+            // When
+            subject.send("m 1 100\napplication.timer.response_time 123 1500000000\nm 2 100");
+
+            // Then
+            assertEquals("m 1 100", receive(server));
+            assertEquals("application.timer.response_time 123 1500000000", receive(server));
+            assertEquals("m 2 100", receive(server));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldSendWholeMessageInADatagramIfItFits() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        UDPSender subject = new UDPSender("127.0.0.1", 2017, 1432);
+
+        try {
+            // When
+            subject.send("metric_a 1 100\nmetric_b 2 100");
+
+            // Then
+            assertEquals("metric_a 1 100\nmetric_b 2 100", receive(server));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldPackBytesIntoDatagramsUpToPayloadSize() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        UDPSender subject = new UDPSender("127.0.0.1", 2017, 22);
+        byte[] bytes = "ignored\nmetric_a 1 100\nmetric_b 2 100\nmetric_c 3 100\nignored".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer message = ByteBuffer.wrap(bytes, 8, 44).slice();
+
+        try {
+            // When
+            subject.send(message);
+
+            // Then
+            assertEquals("metric_a 1 100", receive(server));
+            assertEquals("metric_b 2 100", receive(server));
+            assertEquals("metric_c 3 100", receive(server));
+            assertEquals("Should not consume the message", 44, message.remaining());
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldSendBytesFromDirectBuffer() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        UDPSender subject = new UDPSender("127.0.0.1", 2017, 1432);
+        byte[] bytes = "Olá mundo".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer message = ByteBuffer.allocateDirect(bytes.length);
+        message.put(bytes).flip();
+
+        try {
+            // When
+            subject.send(message);
+
+            // Then
+            assertEquals("Olá mundo", receive(server));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void shouldStripeChannelsAcrossSendingThreads() throws Exception {
+        // Given
+        DatagramSocket server = newServer(2017);
+        final UDPSender subject = new UDPSender("127.0.0.1", 2017, 1432, 4);
+
+        try {
+            // When
+            for (int i = 0; i < 4; i++) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        subject.send("Hello world");
+                    }
+                });
+                thread.start();
+                thread.join();
+            }
+
+            // Then
+            Set<Integer> ports = new HashSet<Integer>();
+            for (int i = 0; i < 4; i++) {
+                DatagramPacket packet = new DatagramPacket(new byte[1024], 1024);
+                server.receive(packet);
+                ports.add(packet.getPort());
+            }
+            assertEquals("Should open the configured number of channels", 4, subject.getChannelCount());
+            assertEquals("Should send from a different channel in each thread", 4, ports.size());
+        } finally {
+            server.close();
+        }
+    }
+
+    private static DatagramSocket newServer(final int port) throws Exception {
+        DatagramSocket server = new DatagramSocket(port, InetAddress.getByName("127.0.0.1"));
+        server.setSoTimeout(5000);
+        return server;
+    }
+
+    private static String receive(final DatagramSocket server) throws Exception {
+        byte[] buffer = new byte[65535];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        server.receive(packet);
+        return new String(packet.getData(), 0, packet.getLength(), "UTF-8");
     }
-}
\ No newline at end of file
+}
@@ -13,10 +13,10 @@ public class UdpEcho implements Callable<String> {
     @Override
     public String call() throws Exception {
         try {
-            byte[] buffer = new byte[1024];
+            byte[] buffer = new byte[65535];
             DatagramPacket receivePacket = new DatagramPacket(buffer, buffer.length);
             socket.receive(receivePacket);
-            return new String(receivePacket.getData()).trim();
+            return new String(receivePacket.getData(), 0, receivePacket.getLength(), "UTF-8").trim();
         } finally {
             socket.disconnect();
             socket.close();